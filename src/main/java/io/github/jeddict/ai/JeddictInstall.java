@@ -16,6 +16,7 @@
 package io.github.jeddict.ai;
 
 import io.github.jeddict.ai.settings.FilePreferences;
+import io.github.jeddict.ai.settings.ReportManager;
 import static io.github.jeddict.ai.settings.PreferencesManager.JEDDICT_CONFIG;
 import static io.github.jeddict.ai.settings.ReportManager.DAILY_INPUT_TOKEN_STATS_KEY;
 import static io.github.jeddict.ai.settings.ReportManager.DAILY_OUTPUT_TOKEN_STATS_KEY;
@@ -92,6 +93,16 @@ public class JeddictInstall extends ModuleInstall {
         }
     }
 
+    @Override
+    public void close() {
+        //
+        // make sure buffered token usage events and settings changes are not
+        // lost
+        //
+        ReportManager.shutdown();
+        FilePreferences.flushAll();
+    }
+
     protected void configureLogging() {
         final Formatter f = new JeddictLogFormatter();
 
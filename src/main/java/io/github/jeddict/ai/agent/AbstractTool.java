@@ -18,12 +18,12 @@ package io.github.jeddict.ai.agent;
 import dev.langchain4j.exception.ToolExecutionException;
 import io.github.jeddict.ai.lang.InteractionMode;
 import io.github.jeddict.ai.lang.JeddictBrainListener;
-import java.io.BufferedReader;
+import io.github.jeddict.ai.settings.PreferencesManager;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -40,6 +40,16 @@ public abstract class AbstractTool {
      */
     public static final String PROPERTY_MESSAGE = "toolMessage";
 
+    /**
+     * Characters kept from the beginning of the output of {@link #runCommand}
+     */
+    public static final int COMMAND_OUTPUT_HEAD = 4 * 1024;
+
+    /**
+     * Characters kept from the end of the output of {@link #runCommand}
+     */
+    public static final int COMMAND_OUTPUT_TAIL = 32 * 1024;
+
     protected final String basedir;
     protected final Path basepath;
     protected final Logger log;
@@ -117,40 +127,67 @@ public abstract class AbstractTool {
     }
 
     /**
-     * Runs a shell command in the project directory, streams output, and
-     * returns the full log as a string.
+     * Runs a shell command in the project directory with the timeout set in
+     * the preferences (see {@link PreferencesManager#getCommandTimeout()}).
      *
      * @param command     the command to execute (passed to the OS shell)
      * @param label       a short human-readable label used in progress messages
      *                    and the final status line (e.g. {@code "Running com.example.Main"})
      * @return the combined stdout/stderr output followed by a status line
+     *
+     * @see #runCommand(String, String, Duration)
      */
     protected String runCommand(final String command, final String label) {
+        return runCommand(
+            command, label, Duration.ofSeconds(PreferencesManager.getInstance().getCommandTimeout())
+        );
+    }
+
+    /**
+     * Runs a shell command in the project directory, streaming each line of
+     * output to the progress listeners as it is produced.
+     * <p>
+     * Only the first {@value #COMMAND_OUTPUT_HEAD} and the last
+     * {@value #COMMAND_OUTPUT_TAIL} characters of the output are returned,
+     * with a note on the lines omitted in between. The command and all its
+     * child processes are killed if it does not complete within
+     * {@code timeout} or if the calling thread is interrupted (e.g. the user
+     * cancels the request from the chat).
+     *
+     * @param command     the command to execute (passed to the OS shell)
+     * @param label       a short human-readable label used in progress messages
+     *                    and the final status line (e.g. {@code "Running com.example.Main"})
+     * @param timeout     the maximum time the command can run; {@code null} or
+     *                    zero for no limit
+     * @return the head and tail of the combined stdout/stderr output followed
+     *         by a status line
+     */
+    protected String runCommand(final String command, final String label, final Duration timeout) {
         progress("🚀 " + label);
         final StringBuilder fullLog = new StringBuilder();
         try {
             final ProcessBuilder pb;
             if (System.getProperty("os.name").toLowerCase().contains("win")) {
                 pb = new ProcessBuilder("cmd", "/c", command)
-                        .directory(new File(basedir))
-                        .redirectErrorStream(true);
+                        .directory(new File(basedir));
             } else {
                 pb = new ProcessBuilder("sh", "-c", command)
-                        .directory(new File(basedir))
-                        .redirectErrorStream(true);
+                        .directory(new File(basedir));
             }
-            final Process process = pb.start();
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream()))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    fullLog.append(line).append('\n');
-                }
+            final ProcessRunner.Result result = new ProcessRunner(
+                timeout, COMMAND_OUTPUT_HEAD, COMMAND_OUTPUT_TAIL,
+                (line) -> on(listeners).loop((l) -> l.onProgress(line + "\n", false))
+            ).run(pb);
+
+            fullLog.append(result.output()).append(label);
+            if (result.timedOut()) {
+                fullLog.append(" timed out after ").append(timeout.toMillis()).append(" ms and was stopped");
+            } else if (result.cancelled()) {
+                fullLog.append(" cancelled");
+            } else {
+                fullLog.append(result.exitCode() == 0 ? " successful" : " failed with exit code " + result.exitCode());
             }
-            final int exitCode = process.waitFor();
-            fullLog.append(label)
-                   .append(exitCode == 0 ? " successful" : " failed with exit code " + exitCode)
-                   .append('\n');
+            fullLog.append('\n');
         } catch (final Exception e) {
             fullLog.append(label).append(" failed: ").append(e.getMessage()).append('\n');
         }
@@ -0,0 +1,337 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.agent;
+
+import dev.langchain4j.agent.tool.P;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.exception.ToolExecutionException;
+import dev.langchain4j.model.output.structured.Description;
+import static io.github.jeddict.ai.agent.ToolPolicy.Policy.INTERACTIVE;
+import io.github.jeddict.ai.components.AssistantChat;
+import io.github.jeddict.ai.lang.InteractionMode;
+import io.github.jeddict.ai.response.TextBlock;
+import static io.github.jeddict.ai.util.MimeUtil.MIME_DIFF;
+import io.github.jeddict.ai.util.ProjectFileIndex;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import javax.swing.SwingUtilities;
+import org.apache.commons.lang3.StringUtils;
+import org.json.JSONObject;
+
+/**
+ * A tool to apply a set of edits across files in one step: all edits are
+ * validated first, the user approves them at once looking at the combined
+ * diff (in INTERACTIVE mode) and the files are then written; if writing any
+ * file fails, the files already written are restored.
+ */
+public class BatchFileEditor extends AbstractInteractiveTool {
+
+    /**
+     * A change to a file.
+     *
+     * @param path the file path relative to the project
+     * @param oldText the literal text to replace; if empty, {@code newText}
+     *        is the whole new content of the file, which is created if it
+     *        does not exist
+     * @param newText the replacement text
+     */
+    public record FileEdit(
+        @Description("the file pathname, relative to the project")
+        String path,
+        @Description("the literal text to replace, all occurrences; empty to replace the whole file content or to create the file")
+        String oldText,
+        @Description("the replacement text, or the whole file content if oldText is empty")
+        String newText
+    ) {}
+
+    public BatchFileEditor(final String basedir, final AssistantChat assistantChat) throws IOException {
+        super(basedir, assistantChat);
+    }
+
+    /**
+     * Applies the given edits as a whole. Edits of the same file apply in
+     * order, each to the result of the previous ones.
+     *
+     * @param edits the edits to apply
+     *
+     * @return {@code DONE} followed by one line per file changed, or
+     *         {@code UNCHANGED} if the edits do not change any file
+     *
+     * @throws ToolExecutionException if any edit is not valid, listing all
+     *         the invalid ones, or if the files can not be written; in both
+     *         cases no file is changed
+     * @throws ToolExecutionRejected if the user rejects the changes
+     */
+    @Tool("""
+        **Apply a batch of edits across one or more files at once.**
+        Use this tool instead of multiple replaceSnippetByLiteral or replaceFileContent
+        calls for changes spanning more edits or files (e.g. renaming a method
+        and its callers). Each edit replaces all occurrences of a literal oldText
+        with newText in a file; with an empty oldText, newText becomes the whole
+        content of the file, which is created if missing. Edits of the same file
+        apply in order, each to the result of the previous ones.
+        All edits are validated first and, if any is invalid, none is applied.
+        The user approves the combined diff once, then all files are written;
+        if any write fails, all files are restored.
+
+        ### Returns
+
+        A string structured as:
+        ```
+        [STATUS]
+        [FILES]
+        ```
+
+        Where `[STATUS]` is one of:
+        * `DONE`: all edits applied; [FILES] lists one changed file per line.
+        * `UNCHANGED`: the edits do not change any file
+        * `REJECTED`: the user rejected the changes
+    """)
+    @ToolPolicy(INTERACTIVE)
+    public String applyEdits(
+        @P("the edits to apply, in order")
+        final List<FileEdit> edits
+    ) throws ToolExecutionException {
+        if (edits == null || edits.isEmpty()) {
+            throw new ToolExecutionException("edits can not be null or empty");
+        }
+
+        progress("🧩 Validating " + edits.size() + " edits");
+
+        //
+        // compute all the new contents in memory, collecting all problems so
+        // that the agent can fix them in one go; null originals are for files
+        // to create
+        //
+        final Map<Path, String> originals = new LinkedHashMap<>();
+        final Map<Path, String> contents = new LinkedHashMap<>();
+        final List<String> errors = new ArrayList<>();
+        for (int i = 0; i < edits.size(); ++i) {
+            final String error = validate(i + 1, edits.get(i), originals, contents);
+            if (error != null) {
+                errors.add(error);
+            }
+        }
+        if (!errors.isEmpty()) {
+            progress("❌ " + errors.size() + " invalid edits, none applied");
+            throw new ToolExecutionException(
+                "no edits applied, fix the following and try again:\n" + String.join("\n", errors)
+            );
+        }
+
+        final Map<Path, String> changes = new LinkedHashMap<>();
+        final StringBuilder diff = new StringBuilder();
+        contents.forEach((file, content) -> {
+            final String original = originals.get(file);
+            if (!Objects.equals(original, content)) {
+                changes.put(file, content);
+                diff.append(TextDiff.unified(relative(file), original, content));
+            }
+        });
+        if (changes.isEmpty()) {
+            progress("❌ Edits do not change any file");
+            return ModificationStatus.UNCHANGED.value;
+        }
+
+        approve(changes.keySet(), diff.toString());
+
+        progress("🔄 Applying edits to " + changes.size() + " files");
+        apply(changes, originals);
+
+        final StringBuilder result = new StringBuilder(ModificationStatus.DONE.value);
+        changes.keySet().forEach(
+            (file) -> result.append('\n').append(relative(file))
+                            .append((originals.get(file) == null) ? " (created)" : "")
+        );
+        progress("✅ Edits applied to " + changes.size() + " files");
+        return result.toString();
+    }
+
+    // --------------------------------------------------------- private methods
+
+    //
+    // applies the given edit to the current content of its file, reading it
+    // at first use; returns the problem found, if any
+    //
+    private String validate(
+        final int n, final FileEdit edit,
+        final Map<Path, String> originals, final Map<Path, String> contents
+    ) {
+        if (edit == null || StringUtils.isBlank(edit.path())) {
+            return "edit " + n + ": path can not be null or empty";
+        }
+        if (edit.newText() == null) {
+            return "edit " + n + ": newText can not be null";
+        }
+        try {
+            checkPath(edit.path());
+        } catch (ToolExecutionException x) {
+            return "edit " + n + ": " + x.getMessage();
+        }
+
+        final Path file = fullPath(edit.path());
+        if (!contents.containsKey(file)) {
+            if (Files.isDirectory(file)) {
+                return "edit " + n + ": " + edit.path() + " is a directory";
+            }
+            String original = null;
+            if (Files.exists(file)) {
+                if (!Files.isWritable(file)) {
+                    return "edit " + n + ": " + edit.path() + " is not writable";
+                }
+                try {
+                    original = Files.readString(file, Charset.defaultCharset());
+                } catch (IOException x) {
+                    return "edit " + n + ": failed to read " + edit.path() + ": " + x.getMessage();
+                }
+            }
+            originals.put(file, original);
+            contents.put(file, original);
+        }
+
+        final String current = contents.get(file);
+        if (StringUtils.isEmpty(edit.oldText())) {
+            contents.put(file, edit.newText());
+        } else if (current == null) {
+            return "edit " + n + ": " + edit.path() + " does not exist";
+        } else if (!current.contains(edit.oldText())) {
+            return "edit " + n + ": oldText not found in " + edit.path()
+                 + " (after the previous edits of the same file): " + StringUtils.abbreviate(edit.oldText(), 80);
+        } else {
+            contents.put(file, current.replace(edit.oldText(), edit.newText()));
+        }
+        return null;
+    }
+
+    //
+    // in INTERACTIVE mode, shows the combined diff in the chat and waits for
+    // the user to approve it; the confirmation itself only lists the files,
+    // the diff is too long to be shown as an argument of the tool
+    //
+    private void approve(final Set<Path> files, final String diff) throws ToolExecutionException {
+        if ((interaction != InteractionMode.INTERACTIVE) || (assistantChat == null)) {
+            return;
+        }
+
+        SwingUtilities.invokeLater(() ->
+            assistantChat.createCodePane(MIME_DIFF, new TextBlock("diff", diff)).setEditable(false)
+        );
+
+        final StringBuilder names = new StringBuilder();
+        files.forEach((file) -> names.append((names.length() > 0) ? ", " : "").append(relative(file)));
+        final ToolExecutionRequest request = ToolExecutionRequest.builder()
+            .name("applyEdits")
+            .arguments(new JSONObject().put("files", names.toString()).toString())
+            .build();
+        try {
+            if (!assistantChat.promptConfirmation(request).get()) {
+                progress("❌ Edits rejected by the user");
+                throw new ToolExecutionRejected();
+            }
+        } catch (InterruptedException | ExecutionException x) {
+            throw new ToolExecutionException("error in getting the approval: " + x.getMessage());
+        }
+    }
+
+    private void apply(
+        final Map<Path, String> changes, final Map<Path, String> originals
+    ) throws ToolExecutionException {
+        final List<Path> written = new ArrayList<>();
+        final List<Path> directories = new ArrayList<>();
+        try {
+            for (Map.Entry<Path, String> change : changes.entrySet()) {
+                final Path file = change.getKey();
+                if (originals.get(file) == null) {
+                    //
+                    // remember the directories created for new files, the
+                    // outermost first, to remove them in case of rollback
+                    //
+                    final List<Path> missing = new ArrayList<>();
+                    for (Path dir = file.getParent(); dir != null && !Files.exists(dir); dir = dir.getParent()) {
+                        missing.add(0, dir);
+                    }
+                    for (Path dir : missing) {
+                        Files.createDirectory(dir);
+                        directories.add(dir);
+                    }
+                }
+                written.add(file);
+                Files.writeString(file, change.getValue(), Charset.defaultCharset(),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE
+                );
+            }
+        } catch (IOException x) {
+            progress("❌ Applying edits failed, restoring " + written.size() + " files: " + x);
+            rollback(written, directories, originals);
+            throw new ToolExecutionException("no edits applied, writing files failed: " + x);
+        } finally {
+            for (Path file : written) {
+                LineIndex.invalidate(file);
+                if (originals.get(file) == null) {
+                    if (Files.exists(file)) {
+                        ProjectFileIndex.fileCreated(file);
+                    } else {
+                        ProjectFileIndex.fileDeleted(file);
+                    }
+                } else {
+                    ProjectFileIndex.fileChanged(file);
+                }
+            }
+        }
+    }
+
+    private void rollback(
+        final List<Path> written, final List<Path> directories, final Map<Path, String> originals
+    ) {
+        for (Path file : written.reversed()) {
+            try {
+                final String original = originals.get(file);
+                if (original == null) {
+                    Files.deleteIfExists(file);
+                } else {
+                    Files.writeString(file, original, Charset.defaultCharset(), StandardOpenOption.TRUNCATE_EXISTING);
+                }
+            } catch (IOException x) {
+                log.log(Level.SEVERE, "failed to restore " + file, x);
+                progress("❌ Failed to restore " + relative(file) + ": " + x);
+            }
+        }
+        for (Path dir : directories.reversed()) {
+            try {
+                Files.deleteIfExists(dir);
+            } catch (IOException x) {
+                log.log(Level.SEVERE, "failed to remove " + dir, x);
+                progress("❌ Failed to remove " + relative(dir) + ": " + x);
+            }
+        }
+    }
+
+    private String relative(final Path file) {
+        return basepath.relativize(file).toString().replace('\\', '/');
+    }
+}
@@ -18,8 +18,9 @@ package io.github.jeddict.ai.agent;
 
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.exception.ToolExecutionException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.TypeElement;
@@ -29,12 +30,14 @@ import org.netbeans.api.java.source.ClassIndex;
 import org.netbeans.api.java.source.ClasspathInfo;
 import org.netbeans.api.java.source.ElementHandle;
 import org.netbeans.api.java.source.JavaSource;
-import org.netbeans.api.java.source.SourceUtils;
 import org.netbeans.api.project.SourceGroup;
 import org.netbeans.api.project.Sources;
+import org.netbeans.modules.refactoring.api.Problem;
+import org.netbeans.modules.refactoring.api.ProgressEvent;
+import org.netbeans.modules.refactoring.api.ProgressListener;
+import org.netbeans.modules.refactoring.api.RefactoringElement;
 import org.netbeans.modules.refactoring.api.RefactoringSession;
 import org.netbeans.modules.refactoring.api.WhereUsedQuery;
-import org.openide.filesystems.FileObject;
 import org.openide.util.Lookup;
 import org.openide.util.lookup.Lookups;
 import static io.github.jeddict.ai.agent.ToolPolicy.Policy.READONLY;
@@ -75,6 +78,16 @@ import java.io.IOException;
  */
 public class ExplorationTools extends AbstractCodeTool {
 
+    /**
+     * Default maximum number of symbols returned by {@link #searchSymbol(String, String, int)}
+     */
+    public static final int DEFAULT_MAX_SYMBOLS = 50;
+
+    /**
+     * Default maximum number of usages returned by {@link #findUsages(String, String, int)}
+     */
+    public static final int DEFAULT_MAX_USAGES = 100;
+
     private final Lookup lookup;
 
     public ExplorationTools(final String basedir, Lookup lookup) throws IOException {
@@ -201,22 +214,22 @@ public class ExplorationTools extends AbstractCodeTool {
      * <ol>
      * <li>Obtains all Java source groups from the NetBeans project.</li>
      * <li>Builds a {@link ClassIndex} from the project's Java classpath.</li>
-     * <li>Retrieves all declared Java types (classes and interfaces) in source
-     * scope.</li>
-     * <li>For each type:
-     * <ul>
-     * <li>Resolves the type using {@link JavaSource}.</li>
-     * <li>Checks whether the type's simple name matches the requested symbol
-     * (class match).</li>
-     * <li>Iterates over the type's members to check for matching methods,
-     * constructors, or fields.</li>
-     * </ul>
-     * </li>
+     * <li>Looks up the matching type names with
+     * {@link ClassIndex#getDeclaredTypes} and the matching member names, with
+     * their enclosing types, with {@link ClassIndex#getDeclaredSymbols}; no
+     * source is parsed to find them.</li>
+     * <li>Resolves only the types declaring a matching member, to tell methods
+     * from fields; their member tables are cached until their file changes and
+     * no more types are resolved than needed to fill {@code maxResults}.</li>
      * </ol>
      *
      * <p>
      * The search is performed using the symbol's <b>simple name</b> only. Fully
-     * qualified names are not required and are not matched directly.</p>
+     * qualified names are not required and are not matched directly. With
+     * {@code match} the name can be matched exactly ({@code exact}, the
+     * default), as a prefix ({@code prefix}) or as a camel case pattern
+     * ({@code camelCase}, e.g. {@code fUB} or {@code FiUsBy} for
+     * {@code findUserById}).</p>
      *
      * <p>
      * <b>Limitations:</b></p>
@@ -224,16 +237,16 @@ public class ExplorationTools extends AbstractCodeTool {
      * <li>Only Java source files are searched (no binaries or
      * dependencies).</li>
      * <li>Inner and anonymous classes are not indexed.</li>
-     * <li>Overloaded methods are returned by name only, without signature
-     * differentiation.</li>
+     * <li>Overloaded methods are returned once by name only, without
+     * signature differentiation.</li>
      * </ul>
      *
      * <p>
      * <b>Examples:</b></p>
      * <pre>
-     * searchSymbol("UserService");   // Class: com.example.service.UserService
-     * searchSymbol("findUser");      // Method: com.example.service.UserService.findUser
-     * searchSymbol("userRepository");// Field: com.example.service.UserService.userRepository
+     * searchSymbol("UserService", "exact", 0);  // Class: com.example.service.UserService
+     * searchSymbol("findUser", "prefix", 0);    // Method: com.example.service.UserService.findUserById
+     * searchSymbol("uR", "camelCase", 10);      // Field: com.example.service.UserService.userRepository
      * </pre>
      *
      * <p><b>Output format:</b></p>
@@ -244,27 +257,36 @@ public class ExplorationTools extends AbstractCodeTool {
      * </pre>
      *
      * <p>
-     * Each match is returned on a separate line, prefixed by its kind.
-     * If no matches are found, the string {@code "No matches found."} is returned.
-     * </p>
-     *
-     * <p>
-     * The search matches the symbol's <b>simple name</b> only.
+     * Each match is returned on a separate line, prefixed by its kind, sorted
+     * by name. If more than {@code maxResults} symbols match, a last line
+     * tells the result was truncated. If no matches are found, the string
+     * {@code "No matches found."} is returned.
      * </p>
      *
-     * @param symbolName simple name of the Java class, method, or field to
-     * search for
+     * @param symbolName simple name, prefix or camel case pattern of the Java
+     * class, method, or field to search for
+     * @param match how to match the name: exact, prefix or camelCase
+     * @param maxResults the maximum number of symbols to return, 0 or less
+     * for the default ({@value #DEFAULT_MAX_SYMBOLS})
      * @return matching symbols found in the Java source code
      */
     @Tool("JAVA ONLY: Search for a symbol (class, method, or field) in the whole project " +
-      "Returns one result per line prefixed with Class:, Method:, or Field:. " +
+      "by simple name, matched exactly (default), as a prefix or as a camel case pattern (e.g. fUB for findUserById). " +
+      "Returns one result per line prefixed with Class:, Method:, or Field:, at most maxResults. " +
       "If no symbol is found, returns 'No matches found.'. " +
       "If the project has no Java sources, returns an explanatory message.")
     @ToolPolicy(READONLY)
     public String searchSymbol(
-        @P("simple name of the Java class, method, or field to search for")
-        final String symbolName
+        @P("simple name, prefix or camel case pattern of the Java class, method, or field to search for")
+        final String symbolName,
+        @P("how to match the name: exact, prefix or camelCase; empty for exact")
+        final String match,
+        @P("maximum number of symbols to return, 0 for the default of " + DEFAULT_MAX_SYMBOLS)
+        final int maxResults
     ) throws Exception {
+        final ClassIndex.NameKind kind = nameKind(match);
+        final int limit = (maxResults <= 0) ? DEFAULT_MAX_SYMBOLS : maxResults;
+
         progress("Searching symbol " + symbolName);
 
         Sources sources = lookup.lookup(Sources.class);
@@ -283,74 +305,67 @@ public class ExplorationTools extends AbstractCodeTool {
 
         ClasspathInfo cpInfo
                 = ClasspathInfo.create(groups[0].getRootFolder());
-        ClassIndex index = cpInfo.getClassIndex();
-
-        StringBuilder result = new StringBuilder();
-
-        Set<ElementHandle<TypeElement>> types
-                = index.getDeclaredTypes(
-                        "",
-                        ClassIndex.NameKind.PREFIX,
-                        Set.of(ClassIndex.SearchScope.SOURCE)
-                );
-
-        for (ElementHandle<TypeElement> h : types) {
-
-            FileObject fo = SourceUtils.getFile(h, cpInfo);
-            if (fo == null) {
-                continue;
-            }
-
-            JavaSource js = JavaSource.forFileObject(fo);
-            if (js == null) {
-                continue;
-            }
 
-            js.runUserActionTask(cc -> {
-                cc.toPhase(JavaSource.Phase.ELEMENTS_RESOLVED);
-                TypeElement type = h.resolve(cc);
-                if (type == null) {
-                    return;
-                }
+        final SymbolIndex.Result found = SymbolIndex.search(cpInfo, symbolName, kind, limit);
+        if (found.symbols().isEmpty()) {
+            progress("No matches found for symbol: " + symbolName);
+            return "No matches found.";
+        }
 
-                if (type.getSimpleName().contentEquals(symbolName)) {
-                    result.append("Class: ")
-                          .append(type.getQualifiedName())
-                          .append("\n");
-                }
+        final StringBuilder result = new StringBuilder();
+        for (SymbolIndex.Symbol symbol : found.symbols()) {
+            result.append(symbol).append("\n");
+        }
+        if (found.truncated()) {
+            result.append("... more than ").append(limit)
+                  .append(" matches, refine the name or raise maxResults\n");
+        }
+        return result.toString();
+    }
 
-                for (Element e : type.getEnclosedElements()) {
-                    if (!e.getSimpleName().contentEquals(symbolName)) {
-                        continue;
-                    }
+    /**
+     * Searches the project for a Java symbol (class, method, or field) with
+     * the given exact simple name, returning at most
+     * {@value #DEFAULT_MAX_SYMBOLS} symbols.
+     *
+     * @param symbolName simple name of the Java class, method, or field to
+     * search for
+     * @return matching symbols found in the Java source code
+     *
+     * @see #searchSymbol(String, String, int)
+     */
+    public String searchSymbol(final String symbolName) throws Exception {
+        return searchSymbol(symbolName, null, 0);
+    }
 
-                    if (e.getKind() == ElementKind.METHOD
-                            || e.getKind() == ElementKind.CONSTRUCTOR) {
-                        result.append("Method: ")
-                              .append(type.getQualifiedName())
-                              .append(".")
-                              .append(e.getSimpleName())
-                              .append("\n");
-                    } else if (e.getKind() == ElementKind.FIELD) {
-                        result.append("Field: ")
-                              .append(type.getQualifiedName())
-                              .append(".")
-                              .append(e.getSimpleName())
-                              .append("\n");
-                    }
-                }
-            }, true);
+    static ClassIndex.NameKind nameKind(final String match) {
+        if (match == null || match.isBlank() || "exact".equalsIgnoreCase(match.trim())) {
+            return ClassIndex.NameKind.SIMPLE_NAME;
         }
-
-        if (result.length() == 0) {
-            progress("No matches found for symbol: " + symbolName);
-            return "No matches found.";
+        if ("prefix".equalsIgnoreCase(match.trim())) {
+            return ClassIndex.NameKind.PREFIX;
         }
-        return result.toString();
+        if ("camelCase".equalsIgnoreCase(match.trim())) {
+            return ClassIndex.NameKind.CAMEL_CASE;
+        }
+        throw new ToolExecutionException(
+            "invalid match '" + match + "', use one of: exact, prefix, camelCase"
+        );
     }
 
     /**
-     * Find all usages of a Java class, method, or field.
+     * Find the usages of a Java class, method, or field declared in the given
+     * file.
+     *
+     * <p>
+     * If a top-level type of the file has the given name, the usages of the
+     * type are searched; otherwise the usages of its members (methods,
+     * including all overloads, fields and nested types) with that name. Each
+     * element is searched with its own NetBeans {@code WhereUsedQuery},
+     * outside of the parser lock, and the search stops as soon as
+     * {@code maxResults} usages are found. Usages are cached per element until
+     * a Java file of the project changes.
+     * </p>
      *
      * <p><b>Output format:</b></p>
      * <pre>
@@ -359,18 +374,21 @@ public class ExplorationTools extends AbstractCodeTool {
      *
      * <p>
      * Each usage corresponds to a refactoring result entry returned by the
-     * NetBeans {@code WhereUsedQuery}.
+     * NetBeans {@code WhereUsedQuery}. If more than {@code maxResults} usages
+     * exist, a last line tells the result was truncated.
      * If no usages are found, {@code "No usages found."} is returned.
      * </p>
      *
      * @param path relative path to a .java file
      * @param symbolName Java symbol name
+     * @param maxResults the maximum number of usages to return, 0 or less for
+     * the default ({@value #DEFAULT_MAX_USAGES})
      * @return formatted usage list
      */
     @Tool(
-            "JAVA ONLY: Find all usages of a Java class, method, or field. "
+            "JAVA ONLY: Find the usages of a Java class, method, or field declared in the given file. "
             + "Output format: one usage per line prefixed with 'Usage: ', followed by a "
-            + "description of where and how the symbol is used. "
+            + "description of where and how the symbol is used, at most maxResults. "
             + "If no usages are found, returns 'No usages found.'."
     )
     @ToolPolicy(READONLY)
@@ -378,49 +396,150 @@ public class ExplorationTools extends AbstractCodeTool {
         @P("path relative path to a .java file")
         final String path,
         @P("symbolName Java symbol name")
-        final String symbolName
+        final String symbolName,
+        @P("maximum number of usages to return, 0 for the default of " + DEFAULT_MAX_USAGES)
+        final int maxResults
     ) throws Exception {
        if (!isJavaFile(path)) {
             return "Not a Java source file: " + path;
         }
+        final int limit = (maxResults <= 0) ? DEFAULT_MAX_USAGES : maxResults;
+
         return withJavaSource(path, javaSource -> {
-            final StringBuilder result = new StringBuilder();
+            //
+            // resolve the elements only while holding the parser lock, the
+            // queries parse other files on their own
+            //
+            final List<ElementHandle<? extends Element>> elements = new ArrayList<>();
             javaSource.runUserActionTask(cc -> {
                 cc.toPhase(JavaSource.Phase.ELEMENTS_RESOLVED);
-                for (TypeElement type
-                        : ElementFilter.typesIn(cc.getTopLevelElements())) {
-
+                final List<TypeElement> types = ElementFilter.typesIn(cc.getTopLevelElements());
+                for (TypeElement type : types) {
+                    if (type.getSimpleName().contentEquals(symbolName)) {
+                        elements.add(ElementHandle.create(type));
+                    }
+                }
+                if (!elements.isEmpty()) {
+                    return;
+                }
+                for (TypeElement type : types) {
                     for (Element member : type.getEnclosedElements()) {
-                        if (member.getSimpleName().contentEquals(symbolName)
-                                || type.getSimpleName().contentEquals(symbolName)) {
-
-                            ElementHandle<Element> handle
-                                    = ElementHandle.create(member);
-
-                            WhereUsedQuery query = new WhereUsedQuery(
-                                    Lookups.singleton(handle));
-
-                            RefactoringSession session
-                                    = RefactoringSession.create("Find Usages");
-
-                            query.prepare(session);
-                            session.doRefactoring(true);
-
-                            session.getRefactoringElements()
-                                    .forEach(elem
-                                            -> result.append("Usage: ")
-                                            .append(elem.getDisplayText())
-                                            .append("\n")
-                                    );
+                        if (member.getSimpleName().contentEquals(symbolName)) {
+                            elements.add(ElementHandle.create(member));
                         }
                     }
                 }
             }, true);
+
+            final UsageCache cache = UsageCache.of(basepath);
+            final StringBuilder result = new StringBuilder();
+            int count = 0;
+            boolean truncated = false;
+            for (ElementHandle<? extends Element> element : elements) {
+                //
+                // one more than needed tells if there are more
+                //
+                final int needed = limit - count + 1;
+                final long start = System.nanoTime();
+                UsageCache.Usages usages = cache.get(element, needed);
+                final boolean cached = (usages != null);
+                if (!cached) {
+                    usages = whereUsed(element, needed);
+                    cache.put(element, usages);
+                }
+                final int found = usages.usages().size();
+                log(() -> "found " + found + " usages of " + element + " in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms" + (cached ? " (cached)" : ""));
+
+                //
+                // usages are shown as soon as the query of each element
+                // returns, the result is only complete at the end
+                //
+                for (String usage : usages.usages()) {
+                    if (count == limit) {
+                        truncated = true;
+                        break;
+                    }
+                    progress("Usage: " + usage);
+                    result.append("Usage: ").append(usage).append("\n");
+                    ++count;
+                }
+                if (truncated) {
+                    break;
+                }
+            }
             if (result.length() == 0) {
                 progress("No usages found for symbol: " + symbolName);
                 return "No usages found.";
             }
+            if (truncated) {
+                result.append("... more than ").append(limit)
+                      .append(" usages, raise maxResults to see more\n");
+            }
             return result.toString();
         }, false).toString();
     }
+
+    /**
+     * Find the usages of a Java class, method, or field declared in the given
+     * file, returning at most {@value #DEFAULT_MAX_USAGES} usages.
+     *
+     * @param path relative path to a .java file
+     * @param symbolName Java symbol name
+     * @return formatted usage list
+     *
+     * @see #findUsages(String, String, int)
+     */
+    public String findUsages(final String path, final String symbolName) throws Exception {
+        return findUsages(path, symbolName, 0);
+    }
+
+    //
+    // Runs a WhereUsedQuery for the given element in its own session,
+    // cancelling it once max usages are collected
+    //
+    private UsageCache.Usages whereUsed(
+        final ElementHandle<? extends Element> element, final int max
+    ) {
+        final WhereUsedQuery query = new WhereUsedQuery(Lookups.singleton(element));
+        final RefactoringSession session = RefactoringSession.create("Find Usages");
+        final boolean[] cancelled = { false };
+        query.addProgressListener(new ProgressListener() {
+            @Override
+            public void start(ProgressEvent event) {
+            }
+
+            @Override
+            public void step(ProgressEvent event) {
+                if (!cancelled[0] && session.getRefactoringElements().size() >= max) {
+                    cancelled[0] = true;
+                    query.cancelRequest();
+                }
+            }
+
+            @Override
+            public void stop(ProgressEvent event) {
+            }
+        });
+
+        try {
+            final Problem problem = query.prepare(session);
+            if (problem != null && problem.isFatal()) {
+                throw new ToolExecutionException(
+                    "failed to find usages of " + element + ": " + problem.getMessage()
+                );
+            }
+            final List<String> usages = new ArrayList<>();
+            for (RefactoringElement usage : session.getRefactoringElements()) {
+                if (usages.size() == max) {
+                    cancelled[0] = true;
+                    break;
+                }
+                usages.add(usage.getDisplayText());
+            }
+            return new UsageCache.Usages(usages, !cancelled[0]);
+        } finally {
+            session.finished();
+        }
+    }
 }
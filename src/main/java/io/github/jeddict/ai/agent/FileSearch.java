@@ -0,0 +1,310 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.agent;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Line oriented search of a pattern in a file, reporting for each matching
+ * line its number and a few lines of context, up to a given number of
+ * matches and starting from a given line, so that big files can be searched
+ * page by page. Matches do not span lines.
+ * <p>
+ * Regular expressions are matched line by line while the file is streamed.
+ * Patterns without regex meta characters are searched as bytes in the
+ * encoded file (memory mapped when bigger than {@value #MAP_THRESHOLD}
+ * bytes, but not on Windows) when the charset allows it, so that only the
+ * matching lines and their context are decoded.
+ */
+final class FileSearch {
+
+    static final int MAP_THRESHOLD = 1024 * 1024;
+
+    private static final String REGEX_META = "\\^$.|?*+()[]{}";
+
+    /**
+     * A matching line.
+     *
+     * @param line the 1-based line number
+     * @param column the 1-based column of the first match in the line
+     * @param text the line
+     * @param before the lines before the matching one, oldest first
+     * @param after the lines after the matching one
+     */
+    record Match(int line, int column, String text, List<String> before, List<String> after) {}
+
+    /**
+     * @param matches the matching lines found
+     * @param nextLine the line to continue the search from, -1 if there are
+     *        no more matches
+     */
+    record Result(List<Match> matches, int nextLine) {}
+
+    private FileSearch() {
+    }
+
+    /**
+     * @param file the file to search
+     * @param charset the file charset
+     * @param pattern the regex to search
+     * @param fromLine the 1-based line to start from
+     * @param limit the maximum number of matching lines to return
+     * @param context the number of lines of context before and after each match
+     *
+     * @return the search result
+     *
+     * @throws IOException in case of read errors
+     */
+    static Result search(
+        final Path file, final Charset charset, final String pattern,
+        final int fromLine, final int limit, final int context
+    ) throws IOException {
+        final long size = Files.size(file);
+        //
+        // on Windows a mapped file can not be written until the mapping is
+        // garbage collected, which would break later edits of the file
+        //
+        final boolean mappable = (size <= MAP_THRESHOLD)
+            || (size <= Integer.MAX_VALUE && !System.getProperty("os.name").toLowerCase().contains("win"));
+        if (mappable && isLiteral(pattern) && isByteSearchable(charset) && charset.newEncoder().canEncode(pattern)) {
+            return searchBytes(file, size, charset, pattern, fromLine, limit, context);
+        }
+        return searchLines(file, charset, Pattern.compile(pattern), fromLine, limit, context);
+    }
+
+    static boolean isLiteral(final String pattern) {
+        for (int i = 0; i < pattern.length(); ++i) {
+            final char c = pattern.charAt(i);
+            if (REGEX_META.indexOf(c) >= 0 || c == '\n' || c == '\r') {
+                return false;
+            }
+        }
+        return !pattern.isEmpty();
+    }
+
+    //
+    // in UTF-8 and ASCII based single byte charsets the encoded pattern can
+    // only match at character boundaries, and '\n' is the byte 10
+    //
+    static boolean isByteSearchable(final Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8)
+            || (charset.canEncode() && charset.newEncoder().maxBytesPerChar() == 1
+                && Arrays.equals("\n".getBytes(charset), new byte[] { '\n' }));
+    }
+
+    // --------------------------------------------------------- streaming regex
+
+    private static Result searchLines(
+        final Path file, final Charset charset, final Pattern pattern,
+        final int fromLine, final int limit, final int context
+    ) throws IOException {
+        final List<Match> matches = new ArrayList<>();
+        final Deque<String> previous = new ArrayDeque<>(context + 1);
+        final List<Match> waiting = new ArrayList<>();
+        int nextLine = -1;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, charset)) {
+            final Matcher matcher = pattern.matcher("");
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                ++number;
+                for (int i = waiting.size() - 1; i >= 0; --i) {
+                    final Match match = waiting.get(i);
+                    match.after().add(line);
+                    if (match.after().size() >= context) {
+                        waiting.remove(i);
+                    }
+                }
+                if (nextLine < 0 && number >= fromLine && matcher.reset(line).find()) {
+                    if (matches.size() >= limit) {
+                        nextLine = matches.get(matches.size() - 1).line() + 1;
+                    } else {
+                        final Match match = new Match(
+                            number, matcher.start() + 1, line, new ArrayList<>(previous), new ArrayList<>()
+                        );
+                        matches.add(match);
+                        if (context > 0) {
+                            waiting.add(match);
+                        }
+                    }
+                }
+                if (nextLine >= 0 && waiting.isEmpty()) {
+                    break;
+                }
+                if (context > 0) {
+                    if (previous.size() == context) {
+                        previous.removeFirst();
+                    }
+                    previous.addLast(line);
+                }
+            }
+        }
+        return new Result(matches, nextLine);
+    }
+
+    // --------------------------------------------------------- literal bytes
+
+    private static Result searchBytes(
+        final Path file, final long size, final Charset charset, final String literal,
+        final int fromLine, final int limit, final int context
+    ) throws IOException {
+        final ByteBuffer buffer;
+        if (size > MAP_THRESHOLD) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        } else {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        }
+        final int end = buffer.limit();
+        final byte[] needle = literal.getBytes(charset);
+        final int[] shift = shiftTable(needle);
+
+        //
+        // skip to the first line to search
+        //
+        int position = 0, line = 1;
+        while (line < fromLine && position < end) {
+            final int newline = indexOf(buffer, (byte) '\n', position, end);
+            position = (newline < 0) ? end : newline + 1;
+            ++line;
+        }
+
+        final List<Match> matches = new ArrayList<>();
+        int counted = position;
+        int nextLine = -1;
+        while (position < end) {
+            final int found = indexOf(buffer, needle, shift, position, end);
+            if (found < 0) {
+                break;
+            }
+            if (matches.size() >= limit) {
+                nextLine = matches.get(matches.size() - 1).line() + 1;
+                break;
+            }
+            line += count(buffer, (byte) '\n', counted, found);
+            counted = found;
+
+            final int lineStart = lineStart(buffer, found);
+            final int lineEnd = lineEnd(buffer, found, end);
+            final String text = decode(buffer, charset, lineStart, lineEnd);
+
+            final List<String> before = new ArrayList<>(context);
+            int start = lineStart;
+            for (int i = 0; i < context && start > 0; ++i) {
+                final int previousStart = lineStart(buffer, start - 1);
+                before.add(0, decode(buffer, charset, previousStart, start - 1));
+                start = previousStart;
+            }
+            final List<String> after = new ArrayList<>(context);
+            int next = lineEnd + 1;
+            for (int i = 0; i < context && next < end; ++i) {
+                final int nextEnd = lineEnd(buffer, next, end);
+                after.add(decode(buffer, charset, next, nextEnd));
+                next = nextEnd + 1;
+            }
+
+            matches.add(new Match(line, text.indexOf(literal) + 1, text, before, after));
+            position = lineEnd + 1;
+        }
+        return new Result(matches, nextLine);
+    }
+
+    //
+    // Boyer-Moore-Horspool bad character shifts
+    //
+    private static int[] shiftTable(final byte[] needle) {
+        final int[] shift = new int[256];
+        Arrays.fill(shift, needle.length);
+        for (int i = 0; i < needle.length - 1; ++i) {
+            shift[needle[i] & 0xff] = needle.length - 1 - i;
+        }
+        return shift;
+    }
+
+    private static int indexOf(
+        final ByteBuffer buffer, final byte[] needle, final int[] shift, final int from, final int end
+    ) {
+        final int last = needle.length - 1;
+        int i = from;
+        while (i + last < end) {
+            int j = last;
+            while (j >= 0 && buffer.get(i + j) == needle[j]) {
+                --j;
+            }
+            if (j < 0) {
+                return i;
+            }
+            i += shift[buffer.get(i + last) & 0xff];
+        }
+        return -1;
+    }
+
+    private static int indexOf(final ByteBuffer buffer, final byte b, final int from, final int end) {
+        for (int i = from; i < end; ++i) {
+            if (buffer.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int count(final ByteBuffer buffer, final byte b, final int from, final int to) {
+        int count = 0;
+        for (int i = from; i < to; ++i) {
+            if (buffer.get(i) == b) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    private static int lineStart(final ByteBuffer buffer, final int position) {
+        int i = position;
+        while (i > 0 && buffer.get(i - 1) != '\n') {
+            --i;
+        }
+        return i;
+    }
+
+    private static int lineEnd(final ByteBuffer buffer, final int position, final int end) {
+        final int newline = indexOf(buffer, (byte) '\n', position, end);
+        return (newline < 0) ? end : newline;
+    }
+
+    private static String decode(final ByteBuffer buffer, final Charset charset, final int from, int to) {
+        if (to > from && buffer.get(to - 1) == '\r') {
+            --to;
+        }
+        return charset.decode(buffer.slice(from, to - from)).toString();
+    }
+}
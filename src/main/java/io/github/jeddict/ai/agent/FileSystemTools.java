@@ -20,15 +20,24 @@ import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.exception.ToolExecutionException;
 import static io.github.jeddict.ai.agent.ToolPolicy.Policy.INTERACTIVE;
 import io.github.jeddict.ai.settings.PreferencesManager;
+import io.github.jeddict.ai.util.ProjectFileIndex;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 import java.nio.file.*;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import static io.github.jeddict.ai.agent.ToolPolicy.Policy.READONLY;
@@ -37,6 +46,7 @@ import io.github.jeddict.ai.components.AssistantChat;
 import io.github.jeddict.ai.lang.InteractionMode;
 import java.util.ArrayList;
 import org.apache.commons.lang3.StringUtils;
+import org.openide.util.RequestProcessor;
 import static ste.lloop.Loop.on;
 
 /**
@@ -48,6 +58,24 @@ import static ste.lloop.Loop.on;
  */
 public class FileSystemTools extends AbstractInteractiveTool {
 
+    /**
+     * Default maximum number of lines returned by {@link #searchInProject(String, boolean, int)}
+     */
+    public static final int DEFAULT_MAX_SEARCH_RESULTS = 100;
+
+    /**
+     * Default maximum number of lines returned by {@link #searchInFile(String, String, int, int)}
+     */
+    public static final int DEFAULT_MAX_FILE_MATCHES = 50;
+
+    private static final int SEARCH_CONTEXT_LINES = 2;
+
+    private static final int MAX_SNIPPET_LENGTH = 200;
+
+    private static final int SEARCH_RP_THROUGHPUT = Runtime.getRuntime().availableProcessors();
+    private static final RequestProcessor SEARCH_RP
+        = new RequestProcessor(FileSystemTools.class.getName() + ".search", SEARCH_RP_THROUGHPUT);
+
     public FileSystemTools(final String basedir, final AssistantChat assistantChat) throws IOException {
         super(basedir, assistantChat);
     }
@@ -126,15 +154,19 @@ public class FileSystemTools extends AbstractInteractiveTool {
      * {@link ToolExecutionException} is thrown so the caller can correct the
      * parameters. If {@code toLine} exceeds the total number of lines the
      * result is silently truncated to the last line (the caller cannot know the
-     * file length in advance).
+     * file length in advance, but can ask {@link #countFileLines(String)}).
+     * <p>
+     * Lines are read through a {@link LineIndex}, built once per file and
+     * rebuilt when the file changes, so that reading a window of a big file
+     * does not scan it from the beginning.
      *
      * @param path the file path relative to the project
      * @param fromLine the first line to read (1-based, inclusive, must be &ge; 1)
      * @param toLine the last line to read (1-based, inclusive, must be &ge; fromLine)
-     * @return the requested lines joined by newline characters, or an empty
-     *         string if {@code fromLine} is beyond the end of the file
+     * @return the requested lines joined by newline characters
      * @throws ToolExecutionException if {@code fromLine} or {@code toLine} is
-     *         less than 1, or if {@code fromLine} is greater than {@code toLine}
+     *         less than 1, if {@code fromLine} is greater than {@code toLine}
+     *         or if {@code fromLine} is beyond the end of the file
      */
     @Tool("""
     Read lines from fromLine to toLine (both 1-based and inclusive) of a file
@@ -161,7 +193,76 @@ public class FileSystemTools extends AbstractInteractiveTool {
         }
 
         final Path fullPath = fullPath(path);
+        if (!FileSearch.isByteSearchable(Charset.defaultCharset())) {
+            return readFileLinesByScan(fullPath, fromLine, toLine);
+        }
+
+        final LineIndex index = lineIndex(fullPath);
+        if (fromLine > index.lines()) {
+            throw new ToolExecutionException(
+                "fromLine must be <= %d, got: %d".formatted(index.lines(), fromLine)
+            );
+        }
+
+        try {
+            return String.join("\n", index.read(fullPath, Charset.defaultCharset(), fromLine, toLine));
+        } catch (IOException x) {
+            progress("❌ Failed to read file: " + x);
+            throw new ToolExecutionException("failed to read file: " + x);
+        }
+    }
+
+    /**
+     * Returns the number of lines of a file, so that it can be read in
+     * windows with {@link #readFileLines(String, int, int)}. A last line not
+     * terminated by a newline is counted; an empty file has 0 lines.
+     *
+     * @param path the file path relative to the project
+     * @return the number of lines of the file
+     */
+    @Tool("""
+    Return the number of lines of a file by path, to plan which ranges to read
+    with readFileLines.
+    """)
+    @ToolPolicy(READONLY)
+    public String countFileLines(
+        @P("the file pathname")
+        final String path
+    ) throws ToolExecutionException {
+        progress("🔢 Counting lines of " + path);
+
+        checkPath(path);
+
+        final Path fullPath = fullPath(path);
+        if (!FileSearch.isByteSearchable(Charset.defaultCharset())) {
+            try (Stream<String> lines = Files.lines(fullPath, Charset.defaultCharset())) {
+                return String.valueOf(lines.count());
+            } catch (IOException | UncheckedIOException x) {
+                progress("❌ Failed to read file: " + x);
+                throw new ToolExecutionException("failed to read file: " + x);
+            }
+        }
+        return String.valueOf(lineIndex(fullPath).lines());
+    }
 
+    private LineIndex lineIndex(final Path fullPath) throws ToolExecutionException {
+        if (!Files.isRegularFile(fullPath)) {
+            progress("❌ Failed to read file: Path does not exist: " + fullPath);
+            throw new ToolExecutionException("failed to read file: Path does not exist: " + fullPath);
+        }
+        try {
+            return LineIndex.of(fullPath);
+        } catch (IOException x) {
+            progress("❌ Failed to read file: " + x);
+            throw new ToolExecutionException("failed to read file: " + x);
+        }
+    }
+
+    //
+    // line by line fallback for charsets where a newline is not the byte 10
+    //
+    private String readFileLinesByScan(final Path fullPath, final int fromLine, final int toLine)
+            throws ToolExecutionException {
         final List<String> lines = new ArrayList();
         final int[] count = new int[] { 0 };
         try {
@@ -223,15 +324,20 @@ public class FileSystemTools extends AbstractInteractiveTool {
         final Pattern pattern = ((regexPattern == null) || regexPattern.isBlank())
                               ? null : Pattern.compile(regexPattern);
 
-        try (Stream<Path> stream = Files.walk(startDir)) {
-            Stream<Path> fileStream = stream.filter(p -> !Files.isDirectory(p));
-
-            if (pattern != null) {
-                fileStream = fileStream.filter(p -> pattern.matcher(p.toAbsolutePath().toString()).find());
+        try {
+            final ProjectFileIndex index = ProjectFileIndex.of(basepath);
+            final List<ProjectFileIndex.Entry> entries = index.walk(
+                basepath.relativize(startDir).toString(), 0, entry -> true
+            );
+            if (entries == null) {
+                throw new IOException("unable to index " + startDir);
             }
 
-            List<String> matches = fileStream
-                    .map(p -> basepath.relativize(p).toString())
+            final String rootPath = index.root.toString() + File.separatorChar;
+            List<String> matches = entries.stream()
+                    .filter(entry -> !entry.directory())
+                    .map(entry -> entry.path().replace('/', File.separatorChar))
+                    .filter(p -> (pattern == null) || pattern.matcher(rootPath + p).find())
                     .sorted()
                     .collect(Collectors.toList());
 
@@ -254,36 +360,206 @@ public class FileSystemTools extends AbstractInteractiveTool {
     }
 
     /**
-     * Searches for a regular expression inside a file.
+     * Searches for a regular expression inside a file, with the defaults of
+     * {@link #searchInFile(String, String, int, int)}.
      *
      * @param path the file path relative to the project
      * @param pattern the regex pattern to search for
-     * @return all matches with their offsets, or a message if none were found
+     * @return the matching lines with their context, or a message if none were found
      */
-    @Tool("Search for a regex pattern in a file by path")
+    public String searchInFile(final String path, final String pattern) throws ToolExecutionException {
+        return searchInFile(path, pattern, 0, 0);
+    }
+
+    /**
+     * Searches for a regular expression inside a file, line by line. For each
+     * matching line its number, the column of the first match and
+     * {@value #SEARCH_CONTEXT_LINES} lines of context before and after are
+     * returned. At most {@code maxMatches} lines are returned; if there are
+     * more, the result ends with the line to pass as {@code fromLine} to get
+     * the next ones. The file is streamed, never read as a whole.
+     *
+     * @param path the file path relative to the project
+     * @param pattern the regex pattern to search for; matches do not span lines
+     * @param maxMatches the maximum number of matching lines to return;
+     *        values {@code <= 0} mean {@value #DEFAULT_MAX_FILE_MATCHES}
+     * @param fromLine the 1-based line to start searching from; values
+     *        {@code <= 0} mean the beginning of the file
+     * @return the matching lines with their context, or a message if none were found
+     */
+    @Tool("""
+    Search for a regex pattern in a file by path, line by line (matches do not
+    span lines). For each matching line it returns 'Match at line L, column C'
+    followed by the line and a few lines of context, each prefixed by its line
+    number ('>' marks the matching line). At most maxMatches lines are returned;
+    if there are more, the last row tells the fromLine to use to get the next ones.
+    """)
     @ToolPolicy(READONLY)
     public String searchInFile(
             @P("the file pathname")
             final String path,
             @P("the pattern to match")
-            final String pattern
+            final String pattern,
+            @P("maximum number of matching lines to return, 0 for the default of " + DEFAULT_MAX_FILE_MATCHES)
+            final int maxMatches,
+            @P("the line to start searching from, 0 for the beginning of the file")
+            final int fromLine
     ) throws ToolExecutionException {
         progress("🔎 Looking for '" + pattern + "' inside '" + path + "'");
 
         checkPath(path);
 
+        final FileSearch.Result found;
         try {
-        String content = Files.readString(fullPath(path), Charset.defaultCharset());
-        Matcher m = Pattern.compile(pattern).matcher(content);
-        StringBuilder result = new StringBuilder();
-        while (m.find()) {
-            result.append("Match at ").append(m.start())
-                  .append(": ").append(m.group()).append("\n");
-        }
-        return result.length() > 0 ? result.toString() : "No matches found";
-        } catch (IOException x) {
+            found = FileSearch.search(
+                fullPath(path), Charset.defaultCharset(), pattern, Math.max(1, fromLine),
+                (maxMatches > 0) ? maxMatches : DEFAULT_MAX_FILE_MATCHES, SEARCH_CONTEXT_LINES
+            );
+        } catch (PatternSyntaxException x) {
+            throw new ToolExecutionException("invalid pattern: " + x.getMessage());
+        } catch (IOException | UncheckedIOException x) {
             throw new ToolExecutionException(x);
         }
+
+        if (found.matches().isEmpty()) {
+            return "No matches found";
+        }
+
+        final StringBuilder result = new StringBuilder();
+        for (FileSearch.Match match : found.matches()) {
+            result.append("Match at line ").append(match.line())
+                  .append(", column ").append(match.column()).append(":\n");
+            int number = match.line() - match.before().size();
+            for (String line : match.before()) {
+                appendLine(result, ' ', number++, line, 0);
+            }
+            appendLine(result, '>', number++, match.text(), match.column() - 1);
+            for (String line : match.after()) {
+                appendLine(result, ' ', number++, line, 0);
+            }
+        }
+        if (found.nextLine() > 0) {
+            result.append("... more matches, search again with fromLine=").append(found.nextLine()).append('\n');
+        }
+        return result.toString();
+    }
+
+    /**
+     * Searches a regular expression, or a literal text, in all the files of
+     * the project listed by the {@link ProjectFileIndex}, skipping hidden and
+     * excluded entries and files whose extension is not in
+     * {@link PreferencesManager#getFileExtensionListToInclude()}.
+     * <p>
+     * Files are searched in parallel; the search stops as soon as
+     * {@code maxResults} matching lines have been found, therefore, when the
+     * cap is hit, which of the matching lines are returned is not defined.
+     * Files that can not be decoded with the default charset are skipped.
+     *
+     * @param pattern the regex or literal text to search for
+     * @param literal true to search {@code pattern} as literal text
+     * @param maxResults the maximum number of matching lines to return;
+     *        values {@code <= 0} mean {@value #DEFAULT_MAX_SEARCH_RESULTS}
+     *
+     * @return the matching lines as {@code path:line:text}, sorted by path and
+     *         line, or a message if none were found
+     */
+    @Tool("""
+    Search a regex pattern, or a literal text, in the content of all project files
+    (excluded directories and files with not allowed extensions are skipped).
+    Returns one matching line per row in the format 'path:line:text', sorted by
+    path and line number, up to maxResults rows; if more lines match, a last row
+    tells the results were truncated. Use it to find where something is used or
+    defined instead of searching file by file.
+    """)
+    @ToolPolicy(READONLY)
+    public String searchInProject(
+        @P("the regex pattern or literal text to search for")
+        final String pattern,
+        @P("true to search the pattern as literal text, false for a regex")
+        final boolean literal,
+        @P("maximum number of matching lines to return, 0 for the default of " + DEFAULT_MAX_SEARCH_RESULTS)
+        final int maxResults
+    ) throws ToolExecutionException {
+        progress("🔎 Looking for '" + pattern + "' in the project");
+
+        if (pattern == null || pattern.isEmpty()) {
+            throw new ToolExecutionException("pattern can not be empty");
+        }
+
+        final Pattern regex;
+        try {
+            regex = Pattern.compile(pattern, literal ? Pattern.LITERAL : 0);
+        } catch (PatternSyntaxException x) {
+            progress("❌ invalid pattern: " + x.getDescription());
+            throw new ToolExecutionException("invalid pattern: " + x.getMessage());
+        }
+        final int max = (maxResults > 0) ? maxResults : DEFAULT_MAX_SEARCH_RESULTS;
+
+        final Set<String> extensions = new HashSet<>(
+            PreferencesManager.getInstance().getFileExtensionListToInclude()
+        );
+        final List<ProjectFileIndex.Entry> files = new ArrayList<>();
+        for (ProjectFileIndex.Entry entry : ProjectFileIndex.of(basepath).walk(
+                "", 0, e -> !e.hidden() && !e.excluded() && (e.directory() || extensions.contains(e.extension())))) {
+            if (!entry.directory()) {
+                files.add(entry);
+            }
+        }
+
+        //
+        // files are split in more batches than threads, so that a batch of
+        // big files does not keep the others waiting
+        //
+        final AtomicInteger found = new AtomicInteger();
+        final int batchSize = Math.max(1, files.size() / (SEARCH_RP_THROUGHPUT * 4) + 1);
+        final List<Callable<List<SearchMatch>>> batches = new ArrayList<>();
+        for (int from = 0; from < files.size(); from += batchSize) {
+            final List<ProjectFileIndex.Entry> batch = files.subList(from, Math.min(files.size(), from + batchSize));
+            batches.add(() -> {
+                final List<SearchMatch> matches = new ArrayList<>();
+                for (ProjectFileIndex.Entry file : batch) {
+                    //
+                    // one match past the cap is enough to know the result
+                    // is truncated
+                    //
+                    if (found.get() > max) {
+                        break;
+                    }
+                    searchFile(file.path(), regex, max, found, matches);
+                }
+                return matches;
+            });
+        }
+
+        final List<SearchMatch> matches = new ArrayList<>();
+        try {
+            for (Future<List<SearchMatch>> batch : SEARCH_RP.invokeAll(batches)) {
+                matches.addAll(batch.get());
+            }
+        } catch (InterruptedException x) {
+            Thread.currentThread().interrupt();
+            throw new ToolExecutionException("search interrupted");
+        } catch (ExecutionException x) {
+            progress("❌ Error searching files: " + x.getCause());
+            throw new ToolExecutionException(x.getCause());
+        }
+
+        if (matches.isEmpty()) {
+            progress("⚠️ No matches found for '" + pattern + "'");
+            return "No matches found";
+        }
+
+        matches.sort(Comparator.comparing(SearchMatch::path).thenComparingInt(SearchMatch::line));
+        final StringBuilder result = new StringBuilder();
+        for (SearchMatch match : matches) {
+            result.append(match.path()).append(':').append(match.line()).append(':')
+                  .append(match.text()).append('\n');
+        }
+        if (found.get() > max) {
+            result.append("... results truncated at ").append(max).append(" matches\n");
+        }
+        progress("✅ Found " + matches.size() + " matching lines in " + files.size() + " files");
+        return result.toString();
     }
 
     /**
@@ -374,7 +650,7 @@ public class FileSystemTools extends AbstractInteractiveTool {
         try {
             final Path filePath = fullPath(path).toRealPath();
 
-            final String original = Files.readString(filePath);
+            final String original = Files.readString(filePath, Charset.defaultCharset());
             final String modified = original.replaceAll(regexPattern, replacement);
 
             ModificationStatus status = ModificationStatus.UNCHANGED;
@@ -398,13 +674,15 @@ public class FileSystemTools extends AbstractInteractiveTool {
                         ModificationStatus.UPDATED : ModificationStatus.UPDATED;
                 } else {
                     status = ModificationStatus.DONE;
-                    Files.writeString(filePath, modified, StandardOpenOption.TRUNCATE_EXISTING);
+                    Files.writeString(filePath, modified, Charset.defaultCharset(), StandardOpenOption.TRUNCATE_EXISTING);
                 }
             }
 
             if (status == ModificationStatus.UNCHANGED) {
                 progress("❌ No matches found or applied for regex '" + regexPattern + "' in " + path);
             } else {
+                LineIndex.invalidate(filePath);
+                ProjectFileIndex.fileChanged(filePath);
                 progress("✅ Snippet replaced");
             }
 
@@ -458,7 +736,7 @@ public class FileSystemTools extends AbstractInteractiveTool {
 
         try {
             final Path filePath = fullPath(path).toRealPath();
-            final String original = Files.readString(filePath);
+            final String original = Files.readString(filePath, Charset.defaultCharset());
 
             ModificationStatus status = ModificationStatus.UNCHANGED;
             String updated = null;
@@ -477,13 +755,15 @@ public class FileSystemTools extends AbstractInteractiveTool {
                     }
                 } else {
                     status = ModificationStatus.DONE;
-                    Files.writeString(filePath, newContent, StandardOpenOption.TRUNCATE_EXISTING);
+                    Files.writeString(filePath, newContent, Charset.defaultCharset(), StandardOpenOption.TRUNCATE_EXISTING);
                 }
             }
 
             if (status == ModificationStatus.UNCHANGED) {
                 progress("❌ File content matches new content; unchanged " + path);
             } else {
+                LineIndex.invalidate(filePath);
+                ProjectFileIndex.fileChanged(filePath);
                 progress("✅ File content replaced");
             }
 
@@ -530,6 +810,7 @@ public class FileSystemTools extends AbstractInteractiveTool {
             if (content != null) {
                 Files.write(filePath, content);
             }
+            ProjectFileIndex.fileCreated(filePath);
 
             progress("✅ File created: " + path);
             return "File created";
@@ -562,7 +843,9 @@ public class FileSystemTools extends AbstractInteractiveTool {
                 throw new ToolExecutionException(path + " does not exist");
             }
 
+            LineIndex.invalidate(filePath);
             Files.delete(filePath);
+            ProjectFileIndex.fileDeleted(filePath);
             progress("✅ " + path + " deleted");
             return "File deleted";
         } catch (IOException e) {
@@ -670,6 +953,7 @@ public class FileSystemTools extends AbstractInteractiveTool {
             }
 
             Files.createDirectories(dirPath);
+            ProjectFileIndex.fileCreated(dirPath);
 
             progress("✅ Directory created");
             return "Directory created";
@@ -707,6 +991,7 @@ public class FileSystemTools extends AbstractInteractiveTool {
             }
 
             Files.delete(dirPath);
+            ProjectFileIndex.fileDeleted(dirPath);
             progress("✅ " + path + " deleted");
 
             return "Directory deleted";
@@ -716,6 +1001,58 @@ public class FileSystemTools extends AbstractInteractiveTool {
         }
     }
 
+    // --------------------------------------------------------- search helpers
+
+    private record SearchMatch(String path, int line, String text) {}
+
+    private void searchFile(
+        final String relativePath, final Pattern regex, final int max,
+        final AtomicInteger found, final List<SearchMatch> matches
+    ) {
+        final Path file = basepath.resolve(relativePath);
+        final String displayPath = relativePath.replace('/', File.separatorChar);
+        try (BufferedReader reader = Files.newBufferedReader(file, Charset.defaultCharset())) {
+            final Matcher matcher = regex.matcher("");
+            String line;
+            int number = 0;
+            while ((line = reader.readLine()) != null) {
+                ++number;
+                if (matcher.reset(line).find()) {
+                    if (found.getAndIncrement() >= max) {
+                        return;
+                    }
+                    matches.add(new SearchMatch(displayPath, number, snippet(line, matcher.start())));
+                }
+            }
+        } catch (IOException | UncheckedIOException x) {
+            //
+            // binary or not decodable files, or files deleted meanwhile
+            //
+            log.finest(() -> "skipping " + file + ": " + x);
+        }
+    }
+
+    private static void appendLine(
+        final StringBuilder result, final char marker, final int number, final String line, final int column
+    ) {
+        result.append(marker).append(String.format("%6d", number)).append(": ")
+              .append((line.length() <= MAX_SNIPPET_LENGTH) ? line : snippet(line, column))
+              .append('\n');
+    }
+
+    /**
+     * Trims the line and, if too long, cuts it around the match.
+     */
+    private static String snippet(final String line, final int matchStart) {
+        if (line.length() <= MAX_SNIPPET_LENGTH) {
+            return line.strip();
+        }
+        final int from = Math.max(0, Math.min(matchStart - MAX_SNIPPET_LENGTH / 4, line.length() - MAX_SNIPPET_LENGTH));
+        return ((from > 0) ? "..." : "")
+             + line.substring(from, from + MAX_SNIPPET_LENGTH).strip()
+             + ((from + MAX_SNIPPET_LENGTH < line.length()) ? "..." : "");
+    }
+
     // --------------------------------------------------------- static tree builders
 
     /**
@@ -724,6 +1061,7 @@ public class FileSystemTools extends AbstractInteractiveTool {
      * {@link PreferencesManager#getExcludeDirs()}, hidden entries, and files
      * whose extension is not in
      * {@link PreferencesManager#getFileExtensionListToInclude()} are excluded.
+     * The tree is read from the {@link ProjectFileIndex} of {@code projectRoot}.
      *
      * @param projectRoot the absolute path of the project root (used as the
      *                    security boundary for path-traversal checks)
@@ -738,48 +1076,27 @@ public class FileSystemTools extends AbstractInteractiveTool {
         if (projectRoot == null) {
             throw new ToolExecutionException("project root is not set");
         }
-        try {
-            final Path root;
-            if (subPath != null && !subPath.isBlank()) {
-                root = projectRoot.resolve(subPath).normalize();
-                if (!root.startsWith(projectRoot)) {
-                    // Prevent path traversal outside the project
-                    return "Path is outside the project directory: " + subPath;
-                }
-                if (!Files.isDirectory(root)) {
-                    return "Not a directory: " + subPath;
-                }
-            } else {
-                root = projectRoot;
+        final Path root;
+        if (subPath != null && !subPath.isBlank()) {
+            root = projectRoot.resolve(subPath).normalize();
+            if (!root.startsWith(projectRoot)) {
+                // Prevent path traversal outside the project
+                return "Path is outside the project directory: " + subPath;
             }
-            final Set<String> allowedExtensions = new HashSet<>(
-                    PreferencesManager.getInstance().getFileExtensionListToInclude());
-            final StringBuilder sb = new StringBuilder();
-            final Stream<Path> stream = (maxDepth > 0)
-                    ? Files.walk(root, maxDepth)
-                    : Files.walk(root);
-            try (stream) {
-                stream
-                    .filter(path -> !isExcluded(projectRoot, path))
-                    .filter(path -> Files.isDirectory(path)
-                            || allowedExtensions.contains(getExtension(path)))
-                    .sorted()
-                    .forEach(path -> {
-                        if (path.equals(root)) {
-                            return;
-                        }
-                        final Path relative = root.relativize(path);
-                        final int depth = relative.getNameCount() - 1;
-                        sb.append("  ".repeat(depth))
-                          .append(path.getFileName())
-                          .append(Files.isDirectory(path) ? "/" : "")
-                          .append('\n');
-                    });
+            if (!Files.isDirectory(root)) {
+                return "Not a directory: " + subPath;
             }
-            return sb.toString().trim();
-        } catch (IOException e) {
-            return "";
+        } else {
+            root = projectRoot;
         }
+        final Set<String> allowedExtensions = new HashSet<>(
+                PreferencesManager.getInstance().getFileExtensionListToInclude());
+
+        return toTree(ProjectFileIndex.of(projectRoot).walk(
+            projectRoot.relativize(root).toString(), maxDepth,
+            entry -> !entry.hidden() && !entry.excluded()
+                  && (entry.directory() || allowedExtensions.contains(entry.extension()))
+        ));
     }
 
     /**
@@ -797,66 +1114,26 @@ public class FileSystemTools extends AbstractInteractiveTool {
         if (root == null) {
             throw new ToolExecutionException("project root is not set");
         }
-        try {
-            final StringBuilder sb = new StringBuilder();
-            try (Stream<Path> stream = Files.walk(root)) {
-                stream
-                    .filter(Files::isDirectory)
-                    .filter(path -> !isExcluded(root, path))
-                    .sorted()
-                    .forEach(path -> {
-                        if (path.equals(root)) {
-                            return;
-                        }
-                        final Path relative = root.relativize(path);
-                        final int depth = relative.getNameCount() - 1;
-                        sb.append("  ".repeat(depth))
-                          .append(path.getFileName())
-                          .append("/")
-                          .append('\n');
-                    });
-            }
-            return sb.toString().trim();
-        } catch (IOException e) {
-            return "";
-        }
-    }
-
-    /** Returns the file extension (without the dot) for the given path, or an empty string. */
-    private static String getExtension(Path path) {
-        final String name = path.getFileName().toString();
-        final int dot = name.lastIndexOf('.');
-        return dot >= 0 ? name.substring(dot + 1) : "";
+        return toTree(ProjectFileIndex.of(root).walk(
+            "", 0, entry -> entry.directory() && !entry.hidden() && !entry.excluded()
+        ));
     }
 
     /**
-     * Returns {@code true} when the given {@code path} should be excluded from
-     * the file/directory tree.
-     *
-     * <p>A path is excluded when any of its components starts with {@code .}
-     * (hidden files) <em>or</em> when its relative representation starts with
-     * any of the directory/file prefixes returned by
-     * {@link PreferencesManager#getExcludeDirs()}.  The comparison uses
-     * forward slashes so that it is consistent with the Unix-style paths
-     * stored in the settings regardless of the host OS.</p>
+     * Formats index entries as an indented tree; directories end with {@code /}.
      */
-    private static boolean isExcluded(final Path root, final Path path) {
-        if (path.equals(root)) {
-            return false;
-        }
-        // Always exclude hidden entries (any path component starting with '.')
-        for (final Path component : root.relativize(path)) {
-            if (component.toString().startsWith(".")) {
-                return true;
-            }
+    private static String toTree(final List<ProjectFileIndex.Entry> entries) {
+        if (entries == null) {
+            return "";
+        }
+        final StringBuilder sb = new StringBuilder(entries.size() * 24);
+        for (ProjectFileIndex.Entry entry : entries) {
+            sb.append("  ".repeat(entry.depth()))
+              .append(entry.name())
+              .append(entry.directory() ? "/" : "")
+              .append('\n');
         }
-        // Apply the user-configured exclude list (prefix match on the
-        // forward-slash relative path, same logic as ProjectUtil.collectFiles)
-        final String relativePath = root.relativize(path).toString()
-                .replace(File.separatorChar, '/');
-        return PreferencesManager.getInstance().getExcludeDirs().stream()
-                .filter(s -> !s.isBlank())
-                .anyMatch(relativePath::startsWith);
+        return sb.toString().trim();
     }
 
 }
@@ -17,12 +17,17 @@ package io.github.jeddict.ai.agent;
 
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.exception.ToolExecutionException;
+import dev.langchain4j.model.output.structured.Description;
 import static io.github.jeddict.ai.agent.ToolPolicy.Policy.READONLY;
 import static io.github.jeddict.ai.agent.ToolPolicy.Policy.READWRITE;
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import org.apache.commons.lang3.StringUtils;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
 
@@ -34,6 +39,33 @@ import org.openide.filesystems.FileUtil;
  */
 public class GradleTools extends AbstractTool {
 
+    /**
+     * A change to the dependencies of the build.gradle file.
+     *
+     * @param action add, remove or update
+     * @param configuration the gradle configuration (e.g. implementation)
+     * @param dependency the dependency notation to add, remove or update
+     * @param newDependency the new dependency notation, only for update
+     */
+    public record DependencyChange(
+        @Description("add, remove or update")
+        String action,
+        @Description("gradle configuration, e.g. implementation")
+        String configuration,
+        @Description("dependency notation to add, remove or update")
+        String dependency,
+        @Description("new dependency notation, only for update")
+        String newDependency
+    ) {}
+
+    //
+    // the last content read or written, valid while build.gradle keeps the
+    // size and timestamp it had then
+    //
+    private File cachedFile;
+    private long cachedSize, cachedModified;
+    private String cachedContent;
+
     public GradleTools(final String basedir) throws IOException {
         super(basedir);
     }
@@ -54,35 +86,17 @@ public class GradleTools extends AbstractTool {
             final FileObject gradleFile = buildFile();
 
             // Read the existing content
-            String content = gradleFile.asText();
+            String content = readContent(gradleFile);
 
-            String dependencyString = configuration + " '" + dependencyNotation + "'";
+            String dependencyString = dependencyString(configuration, dependencyNotation);
 
             if (content.contains(dependencyString)) {
                 progress("Dependency already exists: " + dependencyString);
                 return "Dependency already exists in build.gradle";
             }
 
-            // Find dependencies block and add the dependency inside it
-            String updatedContent;
-            int dependenciesIndex = content.indexOf("dependencies {");
-            if (dependenciesIndex == -1) {
-                // No dependencies block, add one at the end
-                updatedContent = content + "\n\ndependencies {\n    " + dependencyString + "\n}\n";
-            } else {
-                int insertIndex = content.indexOf("}", dependenciesIndex);
-                if (insertIndex == -1) {
-                    // Malformed file? Just append
-                    updatedContent = content + "\n    " + dependencyString + "\n";
-                } else {
-                    updatedContent = content.substring(0, insertIndex) + "    " + dependencyString + "\n" + content.substring(insertIndex);
-                }
-            }
-
             // Write changes back to build.gradle
-            try (OutputStream os = gradleFile.getOutputStream()) {
-                os.write(updatedContent.getBytes());
-            }
+            writeContent(add(content, dependencyString), gradleFile);
 
             progress("Dependency added successfully: " + dependencyString);
             return "Dependency added successfully to build.gradle";
@@ -109,23 +123,17 @@ public class GradleTools extends AbstractTool {
             final FileObject gradleFile = buildFile();
 
             // Read the existing content
-            String content = new String(gradleFile.asBytes());
+            String content = readContent(gradleFile);
 
-            String dependencyString = configuration + " '" + dependencyNotation + "'";
+            String dependencyString = dependencyString(configuration, dependencyNotation);
 
             if (!content.contains(dependencyString)) {
                 progress("Dependency not found: " + dependencyString);
                 return "Dependency not found in build.gradle";
             }
 
-            // Remove the dependency string
-            String updatedContent = content.replace(dependencyString + "\n", "");
-            updatedContent = updatedContent.replace(dependencyString, "");
-
             // Write changes back to build.gradle
-            try (OutputStream os = gradleFile.getOutputStream()) {
-                os.write(updatedContent.getBytes());
-            }
+            writeContent(remove(content, dependencyString), gradleFile);
 
             progress("Dependency removed successfully: " + dependencyString);
             return "Dependency removed successfully from build.gradle";
@@ -147,7 +155,7 @@ public class GradleTools extends AbstractTool {
             final FileObject gradleFile = buildFile();
 
             // Read the existing content
-            String content = new String(gradleFile.asBytes());
+            String content = readContent(gradleFile);
 
             // Extract dependencies block
             int dependenciesIndex = content.indexOf("dependencies {");
@@ -201,22 +209,18 @@ public class GradleTools extends AbstractTool {
             final FileObject gradleFile = buildFile();
 
             // Read the existing content
-            String content = new String(gradleFile.asBytes());
+            String content = readContent(gradleFile);
 
-            String oldDependencyString = configuration + " '" + oldDependencyNotation + "'";
-            String newDependencyString = configuration + " '" + newDependencyNotation + "'";
+            String oldDependencyString = dependencyString(configuration, oldDependencyNotation);
+            String newDependencyString = dependencyString(configuration, newDependencyNotation);
 
             if (!content.contains(oldDependencyString)) {
                 progress("Dependency not found: " + oldDependencyString);
                 return "Dependency not found in build.gradle";
             }
 
-            String updatedContent = content.replace(oldDependencyString, newDependencyString);
-
             // Write changes back to build.gradle
-            try (OutputStream os = gradleFile.getOutputStream()) {
-                os.write(updatedContent.getBytes());
-            }
+            writeContent(content.replace(oldDependencyString, newDependencyString), gradleFile);
 
             progress("Dependency updated successfully: " + newDependencyString);
             return "Dependency updated successfully in build.gradle";
@@ -242,12 +246,9 @@ public class GradleTools extends AbstractTool {
         try {
             final FileObject gradleFile = buildFile();
 
-            // Read the existing content
-            String content = new String(gradleFile.asBytes());
-
-            String dependencyString = configuration + " '" + dependencyNotation + "'";
+            String dependencyString = dependencyString(configuration, dependencyNotation);
 
-            boolean exists = content.contains(dependencyString);
+            boolean exists = readContent(gradleFile).contains(dependencyString);
             progress((exists ? "Dependency exists" : "Dependency does not exist") + ": " + dependencyString);
             return exists;
         } catch (Exception e) {
@@ -257,6 +258,95 @@ public class GradleTools extends AbstractTool {
         }
     }
 
+    /**
+     * Applies the given dependency changes to build.gradle with a single
+     * write. All changes are checked first: if any can not be applied, the
+     * file is not changed.
+     *
+     * @param changes the changes to apply, in order
+     *
+     * @return one line per change telling what was done
+     *
+     * @throws Exception if any change can not be applied (listing all of
+     *         them) or if build.gradle can not be read or written
+     */
+    @Tool(
+        name = "applyGradleDependencyChanges",
+        value = "Add, remove or update more dependencies in the build.gradle file at once, "
+              + "with a single write; if any change can not be applied, none is"
+    )
+    @ToolPolicy(READWRITE)
+    public String applyDependencyChanges(
+        @P("the dependency changes to apply, in order")
+        final List<DependencyChange> changes
+    ) throws Exception {
+        if (changes == null || changes.isEmpty()) {
+            throw new ToolExecutionException("changes can not be null or empty");
+        }
+        progress("Applying " + changes.size() + " dependency changes");
+        try {
+            final FileObject gradleFile = buildFile();
+            final String original = readContent(gradleFile);
+
+            String content = original;
+            final List<String> done = new ArrayList<>(), errors = new ArrayList<>();
+            for (int i = 0; i < changes.size(); ++i) {
+                final DependencyChange change = changes.get(i);
+                if (change == null || StringUtils.isBlank(change.configuration()) || StringUtils.isBlank(change.dependency())) {
+                    errors.add("change " + (i + 1) + ": configuration and dependency can not be null or empty");
+                    continue;
+                }
+                final String dependencyString = dependencyString(change.configuration(), change.dependency());
+                switch ((change.action() == null) ? "" : change.action().trim().toLowerCase()) {
+                    case "add" -> {
+                        if (content.contains(dependencyString)) {
+                            done.add("Dependency already exists: " + dependencyString);
+                        } else {
+                            content = add(content, dependencyString);
+                            done.add("Dependency added: " + dependencyString);
+                        }
+                    }
+                    case "remove" -> {
+                        if (!content.contains(dependencyString)) {
+                            errors.add("change " + (i + 1) + ": dependency not found " + dependencyString);
+                        } else {
+                            content = remove(content, dependencyString);
+                            done.add("Dependency removed: " + dependencyString);
+                        }
+                    }
+                    case "update" -> {
+                        if (StringUtils.isBlank(change.newDependency())) {
+                            errors.add("change " + (i + 1) + ": newDependency can not be null or empty for update");
+                        } else if (!content.contains(dependencyString)) {
+                            errors.add("change " + (i + 1) + ": dependency not found " + dependencyString);
+                        } else {
+                            final String newDependencyString = dependencyString(change.configuration(), change.newDependency());
+                            content = content.replace(dependencyString, newDependencyString);
+                            done.add("Dependency updated: " + newDependencyString);
+                        }
+                    }
+                    default -> errors.add(
+                        "change " + (i + 1) + ": invalid action '" + change.action() + "', use one of: add, remove, update"
+                    );
+                }
+            }
+
+            if (!errors.isEmpty()) {
+                throw new ToolExecutionException(
+                    "no changes applied to build.gradle, fix the following and try again:\n" + String.join("\n", errors)
+                );
+            }
+            if (!content.equals(original)) {
+                writeContent(content, gradleFile);
+            }
+            progress("Dependency changes applied successfully");
+            return String.join("\n", done);
+        } catch (Exception e) {
+            progress("Failed to apply dependency changes: " + e.getMessage());
+            throw e;
+        }
+    }
+
     // --------------------------------------------------------- private methods
 
     private FileObject buildFile() throws Exception {
@@ -273,4 +363,56 @@ public class GradleTools extends AbstractTool {
 
         return gradle;
     }
-}
\ No newline at end of file
+
+    private synchronized String readContent(final FileObject gradleFile) throws IOException {
+        final File file = FileUtil.toFile(gradleFile);
+        if (file != null && file.equals(cachedFile)
+            && file.length() == cachedSize && file.lastModified() == cachedModified) {
+            return cachedContent;
+        }
+        final String content = new String(gradleFile.asBytes(), StandardCharsets.UTF_8);
+        cache(file, content);
+        return content;
+    }
+
+    private synchronized void writeContent(final String content, final FileObject gradleFile) throws IOException {
+        cachedFile = null;
+        try (OutputStream os = gradleFile.getOutputStream()) {
+            os.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        cache(FileUtil.toFile(gradleFile), content);
+    }
+
+    private void cache(final File file, final String content) {
+        cachedFile = file;
+        cachedContent = content;
+        if (file != null) {
+            cachedSize = file.length();
+            cachedModified = file.lastModified();
+        }
+    }
+
+    private static String dependencyString(final String configuration, final String dependencyNotation) {
+        return configuration + " '" + dependencyNotation + "'";
+    }
+
+    private static String add(final String content, final String dependencyString) {
+        // Find dependencies block and add the dependency inside it
+        int dependenciesIndex = content.indexOf("dependencies {");
+        if (dependenciesIndex == -1) {
+            // No dependencies block, add one at the end
+            return content + "\n\ndependencies {\n    " + dependencyString + "\n}\n";
+        }
+        int insertIndex = content.indexOf("}", dependenciesIndex);
+        if (insertIndex == -1) {
+            // Malformed file? Just append
+            return content + "\n    " + dependencyString + "\n";
+        }
+        return content.substring(0, insertIndex) + "    " + dependencyString + "\n" + content.substring(insertIndex);
+    }
+
+    private static String remove(final String content, final String dependencyString) {
+        // Remove the dependency string
+        return content.replace(dependencyString + "\n", "").replace(dependencyString, "");
+    }
+}
@@ -61,11 +61,17 @@ import static ste.lloop.Loop.on;
  *     intercepted for approval via the HITM function.</li>
  * </ul>
  *
+ * <p>
+ * If a {@link ToolOutputGovernor} is given, the results of all tools are
+ * passed through it before being returned.
+ * </p>
+ *
  * @see ToolPolicy
  */
 public class HumanInTheMiddleWrapper {
 
     private final Function<ToolExecutionRequest, Boolean> hitm;
+    private final ToolOutputGovernor governor;
 
     /**
      * Constructs a new HumanInTheMiddleWrapper.
@@ -77,7 +83,23 @@ public class HumanInTheMiddleWrapper {
      *             {@code false} to reject it.
      */
     public HumanInTheMiddleWrapper(Function<ToolExecutionRequest, Boolean> hitm) {
+        this(hitm, null);
+    }
+
+    /**
+     * Constructs a new HumanInTheMiddleWrapper that also passes the results
+     * of the tools through the given governor.
+     *
+     * @param hitm the HITM function (see above); if {@code null} no approval
+     *             is requested
+     * @param governor the governor of the tool results; if {@code null}
+     *             results are returned as they are
+     */
+    public HumanInTheMiddleWrapper(
+        Function<ToolExecutionRequest, Boolean> hitm, ToolOutputGovernor governor
+    ) {
         this.hitm = hitm;
+        this.governor = governor;
     }
 
     /**
@@ -104,7 +126,7 @@ public class HumanInTheMiddleWrapper {
 
                 // Intercept the method, delegate to our interceptor, and copy all annotations
                 builder = builder.method(ElementMatchers.is(method))
-                                 .intercept(MethodDelegation.to(new Interceptor(hitm, originalTool)))
+                                 .intercept(MethodDelegation.to(new Interceptor(hitm, governor, originalTool)))
                                  .annotateMethod(method.getDeclaredAnnotations());
             }
 
@@ -172,10 +194,18 @@ public class HumanInTheMiddleWrapper {
      */
     public static class Interceptor {
         private final Function<ToolExecutionRequest, Boolean> hitm;
+        private final ToolOutputGovernor governor;
         private final Object target;
 
         public Interceptor(Function<ToolExecutionRequest, Boolean> hitm, Object target) {
+            this(hitm, null, target);
+        }
+
+        public Interceptor(
+            Function<ToolExecutionRequest, Boolean> hitm, ToolOutputGovernor governor, Object target
+        ) {
             this.hitm = hitm;
+            this.governor = governor;
             this.target = target;
         }
 
@@ -186,24 +216,29 @@ public class HumanInTheMiddleWrapper {
                 ToolPolicy policyAnn = method.getAnnotation(ToolPolicy.class);
                 ToolPolicy.Policy policy = (policyAnn != null) ? policyAnn.value() : UNKNOWN;
 
-                // For safe policies, execute directly
-                if (policy == READONLY || policy == INTERACTIVE) {
-                    return method.invoke(target, args);
-                }
-
                 // For risky policies, invoke the HITM function for approval
-                if (hitm != null) {
+                if (policy != READONLY && policy != INTERACTIVE && hitm != null) {
                     final ToolExecutionRequest execution = executionFromMethodCall(method, args);
                     if (!hitm.apply(execution)) {
                         throw new ToolExecutionRejected("user cancelled action: " + method.getName());
-                    }                
+                    }
                 }
+
+                return governed(method, method.invoke(target, args));
             }
-            
+
             // Always delegate execution to the original target to preserve state
             return method.invoke(target, args);
         }
 
+        private Object governed(final Method method, final Object result) {
+            if (governor == null || !(result instanceof String output)) {
+                return result;
+            }
+            final String name = method.getAnnotation(Tool.class).name();
+            return governor.govern(name.isEmpty() ? method.getName() : name, output);
+        }
+
         private ToolExecutionRequest executionFromMethodCall(final Method method, final Object[] args) {
             // Try to find the method on the target class to get better parameter names
             Method targetMethod = method;
@@ -0,0 +1,203 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.agent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The byte offsets of the lines of a file, so that any range of lines can be
+ * read with a direct seek instead of scanning the file from the beginning.
+ * Indexes are cached for the {@value #MAX_CACHED_FILES} most recently used
+ * files and rebuilt when the file size or modification time changes.
+ * <p>
+ * Lines are terminated by '\n' (a preceding '\r' is dropped), therefore the
+ * index can only be used with charsets where '\n' is the byte 10 (see
+ * {@link FileSearch#isByteSearchable(Charset)}).
+ */
+final class LineIndex {
+
+    static final int MAX_CACHED_FILES = 32;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final Map<Path, LineIndex> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Path, LineIndex> eldest) {
+            return size() > MAX_CACHED_FILES;
+        }
+    };
+
+    private final long size;
+    private final FileTime modified;
+    private final long end;
+    private final long[] starts;
+    private final int lines;
+
+    private LineIndex(
+        final BasicFileAttributes attributes, final long end, final long[] starts, final int lines
+    ) {
+        this.size = attributes.size();
+        this.modified = attributes.lastModifiedTime();
+        this.end = end;
+        this.starts = starts;
+        this.lines = lines;
+    }
+
+    /**
+     * Returns the index of the given file, building it if not cached or if
+     * the file changed since it was built.
+     *
+     * @param file the file
+     *
+     * @return the line index of the file
+     *
+     * @throws IOException if the file can not be read
+     */
+    static LineIndex of(final Path file) throws IOException {
+        final Path key = file.toRealPath();
+        //
+        // attributes are read before the content, so that if the file changes
+        // while indexing the next call sees different attributes and rebuilds
+        //
+        final BasicFileAttributes attributes = Files.readAttributes(key, BasicFileAttributes.class);
+
+        LineIndex index;
+        synchronized (CACHE) {
+            index = CACHE.get(key);
+        }
+        if (index != null && index.size == attributes.size() && index.modified.equals(attributes.lastModifiedTime())) {
+            return index;
+        }
+
+        index = build(key, attributes);
+        synchronized (CACHE) {
+            CACHE.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * Drops the cached index of the given file, to be called when the file is
+     * written or before it is deleted: the modification time may not change if the file
+     * is rewritten with the same size within the file system time resolution.
+     *
+     * @param file the file
+     */
+    static void invalidate(final Path file) {
+        Path key;
+        try {
+            key = file.toRealPath();
+        } catch (IOException x) {
+            key = file.toAbsolutePath().normalize();
+        }
+        synchronized (CACHE) {
+            CACHE.remove(key);
+        }
+    }
+
+    /**
+     * @return the number of lines in the file; a last line not terminated by
+     *         '\n' is counted, an empty file has no lines
+     */
+    int lines() {
+        return lines;
+    }
+
+    /**
+     * Reads the lines from {@code fromLine} to {@code toLine}, both 1-based
+     * and inclusive, reading only the bytes of those lines.
+     *
+     * @param file the file
+     * @param charset the file charset
+     * @param fromLine the first line to read, must be between 1 and {@link #lines()}
+     * @param toLine the last line to read, lines after the end of the file
+     *        are ignored
+     *
+     * @return the lines, without line terminators
+     *
+     * @throws IOException if the file can not be read
+     */
+    List<String> read(
+        final Path file, final Charset charset, final int fromLine, final int toLine
+    ) throws IOException {
+        final long from = starts[fromLine - 1];
+        final long to = (toLine < lines) ? starts[toLine] : end;
+
+        final ByteBuffer buffer = ByteBuffer.allocate((int) (to - from));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer, from + buffer.position()) >= 0);
+        }
+        buffer.flip();
+
+        final String text = charset.decode(buffer).toString();
+        final List<String> result = new ArrayList<>(Math.min(toLine, lines) - fromLine + 1);
+        int start = 0;
+        while (start < text.length()) {
+            int newline = text.indexOf('\n', start);
+            if (newline < 0) {
+                newline = text.length();
+            }
+            int stop = newline;
+            if (stop > start && text.charAt(stop - 1) == '\r') {
+                --stop;
+            }
+            result.add(text.substring(start, stop));
+            start = newline + 1;
+        }
+        return result;
+    }
+
+    private static LineIndex build(final Path file, final BasicFileAttributes attributes) throws IOException {
+        long[] starts = new long[1024];
+        int lines = 0;
+        long position = 0;
+        boolean atLineStart = true;
+
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                final int limit = buffer.limit();
+                for (int i = 0; i < limit; ++i) {
+                    if (atLineStart) {
+                        if (lines == starts.length) {
+                            starts = Arrays.copyOf(starts, lines * 2);
+                        }
+                        starts[lines++] = position + i;
+                    }
+                    atLineStart = (buffer.get(i) == '\n');
+                }
+                position += limit;
+                buffer.clear();
+            }
+        }
+
+        return new LineIndex(attributes, position, starts, lines);
+    }
+}
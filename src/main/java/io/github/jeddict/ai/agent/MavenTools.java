@@ -17,11 +17,14 @@ package io.github.jeddict.ai.agent;
 
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.exception.ToolExecutionException;
+import dev.langchain4j.model.output.structured.Description;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
@@ -37,9 +40,45 @@ import java.io.File;
 
 public class MavenTools extends AbstractTool {
 
+    /**
+     * A change to the dependencies of the pom.
+     *
+     * @param action add, remove or update (the version)
+     * @param groupId the group id
+     * @param artifactId the artifact id
+     * @param version the version to add or update to
+     * @param scope the scope of a dependency to add
+     * @param type the type of a dependency to add
+     * @param classifier the classifier of a dependency to add
+     */
+    public record DependencyChange(
+        @Description("add, remove or update (the version)")
+        String action,
+        @Description("group id")
+        String groupId,
+        @Description("artifact id")
+        String artifactId,
+        @Description("version to add or to update to; may be empty to add a managed dependency")
+        String version,
+        @Description("scope, only for add; may be empty")
+        String scope,
+        @Description("type, only for add; may be empty")
+        String type,
+        @Description("classifier, only for add; may be empty")
+        String classifier
+    ) {}
+
     private static final int TIMEOUT_MIN = 2;
     private final Project project;
 
+    //
+    // the last model read or written, valid while the pom keeps the size and
+    // timestamp it had then; callers changing the model get a copy
+    //
+    private File cachedPom;
+    private long cachedSize, cachedModified;
+    private Model cachedModel;
+
     public MavenTools(final Project project) throws IOException {
         super(FileUtil.toFile(project.getProjectDirectory()).toString());
         this.project = project;
@@ -60,37 +99,13 @@ public class MavenTools extends AbstractTool {
             final FileObject pomFile = buildFile();
             Model model = readModel(pomFile);
 
-            boolean exists = false;
-            for (Dependency dep : model.getDependencies()) {
-                if (groupId.equals(dep.getGroupId()) && artifactId.equals(dep.getArtifactId())) {
-                    exists = true;
-                    break;
-                }
-            }
-
-            if (exists) {
+            if (find(model, groupId, artifactId) != null) {
                 progress("Dependency already exists: " + groupId + ":" + artifactId);
                 return "Dependency already exists in pom.xml";
             }
 
-            Dependency dependency = new Dependency();
-            dependency.setGroupId(groupId);
-            dependency.setArtifactId(artifactId);
-
-            if (version != null && !version.isBlank()) {
-                dependency.setVersion(version);
-            }
-            if (scope != null && !scope.isBlank()) {
-                dependency.setScope(scope);
-            }
-            if (type != null && !type.isBlank()) {
-                dependency.setType(type);
-            }
-            if (classifier != null && !classifier.isBlank()) {
-                dependency.setClassifier(classifier);
-            }
-
-            model.addDependency(dependency);
+            model = model.clone();
+            model.addDependency(dependency(groupId, artifactId, version, scope, type, classifier));
             writeModel(model, pomFile);
             refreshIdeState();
 
@@ -111,16 +126,9 @@ public class MavenTools extends AbstractTool {
         progress("Removing dependency " + groupId + ": " + artifactId);
         try {
             final FileObject pomFile = buildFile();
-            Model model = readModel(pomFile);
-
-            Dependency target = null;
-            for (Dependency dep : model.getDependencies()) {
-                if (groupId.equals(dep.getGroupId()) && artifactId.equals(dep.getArtifactId())) {
-                    target = dep;
-                    break;
-                }
-            }
+            final Model model = readModel(pomFile).clone();
 
+            final Dependency target = find(model, groupId, artifactId);
             if (target != null) {
                 model.removeDependency(target);
                 writeModel(model, pomFile);
@@ -169,16 +177,9 @@ public class MavenTools extends AbstractTool {
         progress("Updating dependency version: " + groupId + ":" + artifactId + ":" + newVersion);
         try {
             final FileObject pomFile = buildFile();
-            Model model = readModel(pomFile);
-
-            Dependency target = null;
-            for (Dependency dep : model.getDependencies()) {
-                if (groupId.equals(dep.getGroupId()) && artifactId.equals(dep.getArtifactId())) {
-                    target = dep;
-                    break;
-                }
-            }
+            final Model model = readModel(pomFile).clone();
 
+            final Dependency target = find(model, groupId, artifactId);
             if (target != null) {
                 target.setVersion(newVersion);
                 writeModel(model, pomFile);
@@ -202,15 +203,7 @@ public class MavenTools extends AbstractTool {
         progress("Checking dependency existence: " + groupId + ":" + artifactId);
         try {
             final FileObject pomFile = buildFile();
-            Model model = readModel(pomFile);
-
-            boolean exists = false;
-            for (Dependency dep : model.getDependencies()) {
-                if (groupId.equals(dep.getGroupId()) && artifactId.equals(dep.getArtifactId())) {
-                    exists = true;
-                    break;
-                }
-            }
+            final boolean exists = find(readModel(pomFile), groupId, artifactId) != null;
             progress(exists ? "Dependency exists: " + groupId + ":" + artifactId : "Dependency does not exist: " + groupId + ":" + artifactId);
             return exists;
         } catch (Exception e) {
@@ -219,22 +212,171 @@ public class MavenTools extends AbstractTool {
         }
     }
 
+    /**
+     * Applies the given dependency changes to the pom with a single write and
+     * a single reload of the project in the IDE. All changes are checked
+     * first: if any can not be applied, the pom is not changed.
+     *
+     * @param changes the changes to apply, in order
+     *
+     * @return one line per change telling what was done
+     *
+     * @throws Exception if any change can not be applied (listing all of
+     *         them) or if the pom can not be read or written
+     */
+    @Tool(
+        name = "applyMavenDependencyChanges",
+        value = "Add, remove or update the version of more dependencies in the pom.xml file at once, "
+              + "with a single write; if any change can not be applied, none is"
+    )
+    @ToolPolicy(READWRITE)
+    public String applyDependencyChanges(
+        @P("the dependency changes to apply, in order")
+        final List<DependencyChange> changes
+    ) throws Exception {
+        if (changes == null || changes.isEmpty()) {
+            throw new ToolExecutionException("changes can not be null or empty");
+        }
+        progress("Applying " + changes.size() + " dependency changes");
+        try {
+            final FileObject pomFile = buildFile();
+            final Model model = readModel(pomFile).clone();
+
+            final List<String> done = new ArrayList<>(), errors = new ArrayList<>();
+            boolean changed = false;
+            for (int i = 0; i < changes.size(); ++i) {
+                final DependencyChange change = changes.get(i);
+                final String gav = (change == null) ? "" : change.groupId() + ":" + change.artifactId();
+                if (change == null || StringUtils.isBlank(change.groupId()) || StringUtils.isBlank(change.artifactId())) {
+                    errors.add("change " + (i + 1) + ": groupId and artifactId can not be null or empty");
+                    continue;
+                }
+                final Dependency target = find(model, change.groupId(), change.artifactId());
+                switch ((change.action() == null) ? "" : change.action().trim().toLowerCase()) {
+                    case "add" -> {
+                        if (target != null) {
+                            done.add("Dependency already exists: " + gav);
+                        } else {
+                            model.addDependency(dependency(
+                                change.groupId(), change.artifactId(), change.version(),
+                                change.scope(), change.type(), change.classifier()
+                            ));
+                            done.add("Dependency added: " + gav);
+                            changed = true;
+                        }
+                    }
+                    case "remove" -> {
+                        if (target == null) {
+                            errors.add("change " + (i + 1) + ": dependency not found " + gav);
+                        } else {
+                            model.removeDependency(target);
+                            done.add("Dependency removed: " + gav);
+                            changed = true;
+                        }
+                    }
+                    case "update" -> {
+                        if (target == null) {
+                            errors.add("change " + (i + 1) + ": dependency not found " + gav);
+                        } else if (StringUtils.isBlank(change.version())) {
+                            errors.add("change " + (i + 1) + ": version can not be null or empty for update");
+                        } else {
+                            target.setVersion(change.version());
+                            done.add("Dependency version updated: " + gav + ":" + change.version());
+                            changed = true;
+                        }
+                    }
+                    default -> errors.add(
+                        "change " + (i + 1) + ": invalid action '" + change.action() + "', use one of: add, remove, update"
+                    );
+                }
+            }
+
+            if (!errors.isEmpty()) {
+                throw new ToolExecutionException(
+                    "no changes applied to pom.xml, fix the following and try again:\n" + String.join("\n", errors)
+                );
+            }
+            if (changed) {
+                writeModel(model, pomFile);
+                refreshIdeState();
+            }
+            progress("Dependency changes applied successfully");
+            return String.join("\n", done);
+        } catch (Exception e) {
+            progress("Failed to apply dependency changes: " + e.getMessage());
+            throw e;
+        }
+    }
+
     private void refreshIdeState() {
         NbMavenProject.fireMavenProjectReload(project);
     }
 
-    private Model readModel(FileObject pomFile) throws Exception {
+    //
+    // the returned model is shared: callers changing it shall clone it first
+    //
+    private synchronized Model readModel(FileObject pomFile) throws Exception {
+        final File file = FileUtil.toFile(pomFile);
+        if (file != null && file.equals(cachedPom)
+            && file.length() == cachedSize && file.lastModified() == cachedModified) {
+            return cachedModel;
+        }
         try (InputStream is = pomFile.getInputStream()) {
             MavenXpp3Reader reader = new MavenXpp3Reader();
-            return reader.read(is);
+            final Model model = reader.read(is);
+            cache(file, model);
+            return model;
         }
     }
 
-    private void writeModel(Model model, FileObject pomFile) throws Exception {
+    private synchronized void writeModel(Model model, FileObject pomFile) throws Exception {
+        cachedPom = null;
         try (OutputStream os = pomFile.getOutputStream()) {
             MavenXpp3Writer writer = new MavenXpp3Writer();
             writer.write(os, model);
         }
+        cache(FileUtil.toFile(pomFile), model);
+    }
+
+    private void cache(final File file, final Model model) {
+        cachedPom = file;
+        cachedModel = model;
+        if (file != null) {
+            cachedSize = file.length();
+            cachedModified = file.lastModified();
+        }
+    }
+
+    private static Dependency find(final Model model, final String groupId, final String artifactId) {
+        for (Dependency dep : model.getDependencies()) {
+            if (groupId.equals(dep.getGroupId()) && artifactId.equals(dep.getArtifactId())) {
+                return dep;
+            }
+        }
+        return null;
+    }
+
+    private static Dependency dependency(
+        final String groupId, final String artifactId, final String version,
+        final String scope, final String type, final String classifier
+    ) {
+        Dependency dependency = new Dependency();
+        dependency.setGroupId(groupId);
+        dependency.setArtifactId(artifactId);
+
+        if (!StringUtils.isBlank(version)) {
+            dependency.setVersion(version);
+        }
+        if (!StringUtils.isBlank(scope)) {
+            dependency.setScope(scope);
+        }
+        if (!StringUtils.isBlank(type)) {
+            dependency.setType(type);
+        }
+        if (!StringUtils.isBlank(classifier)) {
+            dependency.setClassifier(classifier);
+        }
+        return dependency;
     }
 
 
@@ -0,0 +1,281 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.agent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Runs a process, streaming its merged stdout/stderr line by line to a
+ * consumer while keeping in memory only the first {@code headChars} and the
+ * last {@code tailChars} characters of it.
+ * <p>
+ * The process, with all its descendants, is killed if it does not complete
+ * within the timeout or if the running thread is interrupted, which is what
+ * happens when the user cancels the request from the chat.
+ */
+final class ProcessRunner {
+
+    private static final Logger LOG = Logger.getLogger(ProcessRunner.class.getName());
+
+    /**
+     * The outcome of a process.
+     *
+     * @param exitCode the exit code, -1 if the process was killed
+     * @param timedOut true if the process was killed for the timeout
+     * @param cancelled true if the process was killed because the running
+     *        thread was interrupted
+     * @param output the head and the tail of the output, with a note on the
+     *        lines omitted in between
+     */
+    record Result(int exitCode, boolean timedOut, boolean cancelled, String output) {}
+
+    private static final int MAX_LINE = 4 * 1024;
+    private static final long GRACE_MILLIS = 2_000;
+    private static final long KILL_POLL_MILLIS = 20;
+
+    private static final RequestProcessor PUMP
+        = new RequestProcessor(ProcessRunner.class.getName() + ".output", 8, true);
+
+    private final Duration timeout;
+    private final int headChars;
+    private final int tailChars;
+    private final Consumer<String> onLine;
+
+    /**
+     * @param timeout the maximum time the process can run; {@code null},
+     *        zero or negative for no limit
+     * @param headChars the number of characters kept from the beginning of
+     *        the output
+     * @param tailChars the number of characters kept from the end of the
+     *        output
+     * @param onLine called with each line of output as soon as it is read,
+     *        from a background thread; lines longer than 4KB are cut
+     */
+    ProcessRunner(
+        final Duration timeout, final int headChars, final int tailChars, final Consumer<String> onLine
+    ) {
+        this.timeout = timeout;
+        this.headChars = headChars;
+        this.tailChars = tailChars;
+        this.onLine = (onLine == null) ? (line) -> {} : onLine;
+    }
+
+    /**
+     * Starts the given process, with stderr merged into stdout, and waits for
+     * it to complete. If the running thread is interrupted, the process is
+     * killed and the interrupted status restored before returning.
+     *
+     * @param pb the process to start
+     *
+     * @return the outcome of the process
+     *
+     * @throws IOException if the process can not be started
+     */
+    Result run(final ProcessBuilder pb) throws IOException {
+        final Process process = pb.redirectErrorStream(true).start();
+        final Capture capture = new Capture(headChars, tailChars);
+        final InputStream out = process.getInputStream();
+        final Future<?> pump = PUMP.submit(() -> pump(out, capture));
+
+        boolean timedOut = false, cancelled = false;
+        try {
+            if (timeout == null || timeout.isZero() || timeout.isNegative()) {
+                process.waitFor();
+            } else {
+                timedOut = !process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException x) {
+            cancelled = true;
+        }
+        if (timedOut || cancelled) {
+            cancelled |= kill(process);
+        }
+
+        //
+        // let the pump drain what is left; a descendant still alive may keep
+        // the pipe open, in which case stop reading
+        //
+        try {
+            pump.get(GRACE_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException x) {
+            close(out);
+            pump.cancel(true);
+        } catch (InterruptedException x) {
+            cancelled = true;
+            close(out);
+            pump.cancel(true);
+        } catch (ExecutionException x) {
+            LOG.log(Level.FINE, "failed to read the output of " + pb.command(), x.getCause());
+        }
+
+        if (cancelled) {
+            Thread.currentThread().interrupt();
+        }
+        return new Result(
+            (timedOut || cancelled || process.isAlive()) ? -1 : process.exitValue(),
+            timedOut, cancelled, capture.toString()
+        );
+    }
+
+    // --------------------------------------------------------- private methods
+
+    private void pump(final InputStream in, final Capture capture) {
+        final StringBuilder line = new StringBuilder();
+        boolean cut = false;
+        try (Reader reader = new InputStreamReader(in, Charset.defaultCharset())) {
+            final char[] buf = new char[8192];
+            int n;
+            while ((n = reader.read(buf)) >= 0) {
+                for (int i = 0; i < n; ++i) {
+                    final char c = buf[i];
+                    if (c == '\n') {
+                        emit(line, cut, capture);
+                        line.setLength(0);
+                        cut = false;
+                    } else if (line.length() < MAX_LINE) {
+                        line.append(c);
+                    } else {
+                        cut = true;
+                    }
+                }
+            }
+            if (!line.isEmpty()) {
+                emit(line, cut, capture);
+            }
+        } catch (IOException x) {
+            //
+            // the stream is closed when the process is killed or when a
+            // descendant keeps it open after the process completed
+            //
+            LOG.finest(() -> "output closed: " + x);
+        }
+    }
+
+    private void emit(final StringBuilder line, final boolean cut, final Capture capture) {
+        int end = line.length();
+        if (end > 0 && line.charAt(end - 1) == '\r') {
+            --end;
+        }
+        final String text = line.substring(0, end) + (cut ? " ... [line cut]" : "");
+        capture.add(text);
+        try {
+            onLine.accept(text);
+        } catch (RuntimeException x) {
+            LOG.log(Level.FINE, "output consumer failed", x);
+        }
+    }
+
+    //
+    // destroys the process and its descendants, forcibly the ones still
+    // alive after a grace period; returns true if interrupted meanwhile.
+    // Descendants go first so that their parents are still there to reap them
+    //
+    private static boolean kill(final Process process) {
+        final List<ProcessHandle> descendants = process.descendants().toList();
+        descendants.forEach(ProcessHandle::destroy);
+        process.destroy();
+
+        //
+        // descendants are not children of this JVM, their onExit() polls
+        // with long delays; a short poll stops waiting much sooner
+        //
+        boolean interrupted = false;
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(GRACE_MILLIS);
+        try {
+            process.waitFor(GRACE_MILLIS, TimeUnit.MILLISECONDS);
+            while (System.nanoTime() < deadline
+                   && descendants.stream().anyMatch(ProcessHandle::isAlive)) {
+                Thread.sleep(KILL_POLL_MILLIS);
+            }
+        } catch (InterruptedException x) {
+            interrupted = true;
+        }
+        descendants.stream().filter(ProcessHandle::isAlive).forEach(ProcessHandle::destroyForcibly);
+        if (process.isAlive()) {
+            process.destroyForcibly();
+        }
+        return interrupted;
+    }
+
+    private static void close(final InputStream in) {
+        try {
+            in.close();
+        } catch (IOException x) {
+            LOG.finest(() -> "failed to close output: " + x);
+        }
+    }
+
+    /**
+     * The first lines of the output up to {@code headChars} characters and
+     * the last ones up to {@code tailChars}.
+     */
+    private static final class Capture {
+
+        private final int headChars;
+        private final int tailChars;
+        private final StringBuilder head = new StringBuilder();
+        private final ArrayDeque<String> tail = new ArrayDeque<>();
+        private int tailSize;
+        private long omittedLines;
+        private long omittedChars;
+
+        Capture(final int headChars, final int tailChars) {
+            this.headChars = headChars;
+            this.tailChars = tailChars;
+        }
+
+        synchronized void add(final String line) {
+            if (tail.isEmpty() && head.length() + line.length() < headChars) {
+                head.append(line).append('\n');
+                return;
+            }
+            tail.addLast(line);
+            tailSize += line.length() + 1;
+            while (tailSize > tailChars && !tail.isEmpty()) {
+                final String dropped = tail.removeFirst();
+                tailSize -= dropped.length() + 1;
+                ++omittedLines;
+                omittedChars += dropped.length() + 1;
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            final StringBuilder out = new StringBuilder(head.length() + tailSize + 80).append(head);
+            if (omittedLines > 0) {
+                out.append("... [").append(omittedLines).append(" lines, ")
+                   .append(omittedChars).append(" characters omitted] ...\n");
+            }
+            tail.forEach((line) -> out.append(line).append('\n'));
+            return out.toString();
+        }
+    }
+}
@@ -0,0 +1,318 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.agent;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import org.netbeans.api.java.source.ClassIndex;
+import org.netbeans.api.java.source.ClasspathInfo;
+import org.netbeans.api.java.source.ElementHandle;
+import org.netbeans.api.java.source.JavaSource;
+import org.netbeans.api.java.source.SourceUtils;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Symbol search backed by the NetBeans {@link ClassIndex}: type names come
+ * from {@link ClassIndex#getDeclaredTypes} and member names, with their
+ * enclosing types, from {@link ClassIndex#getDeclaredSymbols}, both
+ * supporting exact, prefix and camel case matching. The index does not tell
+ * whether a member is a method or a field, so the types of the matching
+ * members only are resolved, and their member tables are cached, per source
+ * root and binary name, until their file changes; the least recently used
+ * tables are dropped beyond {@value #MAX_TYPES} types.
+ */
+final class SymbolIndex {
+
+    /**
+     * A symbol found.
+     *
+     * @param kind {@code Class}, {@code Method} or {@code Field}
+     * @param name the fully qualified name of the class, or of the class
+     *        followed by {@code .} and the member name
+     */
+    record Symbol(String kind, String name) {
+        @Override
+        public String toString() {
+            return kind + ": " + name;
+        }
+    }
+
+    /**
+     * The symbols found, sorted by name, and whether more were found than
+     * the requested limit.
+     */
+    record Result(List<Symbol> symbols, boolean truncated) {}
+
+    //
+    // the kinds of the members of a type by member name, and the file
+    // timestamp they were read at
+    //
+    private record Members(long timestamp, Map<String, Set<String>> kinds) {}
+
+    /**
+     * Gives the kinds of the members of a type by member name.
+     *
+     * @param <T> the type handle
+     */
+    @FunctionalInterface
+    interface MemberKinds<T> {
+
+        /**
+         * @param types the candidate types, in the order they are visited
+         * @param i the index of the type requested; the following ones may
+         *        be resolved at the same time
+         *
+         * @return the kinds by member name, null if the type can not be
+         *         resolved
+         *
+         * @throws IOException if sources can not be read
+         */
+        Map<String, Set<String>> kinds(List<T> types, int i) throws IOException;
+    }
+
+    private static final int RESOLVE_BATCH = 32;
+
+    private static final int MAX_TYPES = 4_096;
+
+    //
+    // keyed by source root URL and binary name, guarded by itself
+    //
+    private static final Map<String, Members> MEMBERS = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Members> eldest) {
+            return size() > MAX_TYPES;
+        }
+    };
+
+    private SymbolIndex() {
+    }
+
+    /**
+     * @param cpInfo the classpath whose sources are searched
+     * @param name the name, prefix or camel case pattern to search
+     * @param kind how to match {@code name}
+     * @param limit the maximum number of symbols to return
+     *
+     * @return the symbols found
+     *
+     * @throws IOException if sources can not be read
+     */
+    static Result search(
+        final ClasspathInfo cpInfo, final String name, final ClassIndex.NameKind kind, final int limit
+    ) throws IOException {
+        final ClassIndex index = cpInfo.getClassIndex();
+        final Set<ClassIndex.SearchScope> scope = Set.of(ClassIndex.SearchScope.SOURCE);
+
+        final List<String> classes = new ArrayList<>();
+        for (ElementHandle<TypeElement> type : index.getDeclaredTypes(name, kind, scope)) {
+            classes.add(type.getQualifiedName());
+        }
+
+        final Map<ElementHandle<TypeElement>, Set<String>> candidates = new LinkedHashMap<>();
+        for (ClassIndex.Symbols found : index.getDeclaredSymbols(name, kind, scope)) {
+            final Set<String> names = candidates.computeIfAbsent(found.getEnclosingType(), (t) -> new TreeSet<>());
+            for (String symbol : found.getSymbols()) {
+                names.add(simpleName(symbol));
+            }
+        }
+
+        return collect(classes, candidates, ElementHandle::getQualifiedName, (types, i) -> {
+            Members members = members(cpInfo, types.get(i));
+            if (members == null) {
+                resolve(cpInfo, types.subList(i, Math.min(types.size(), i + RESOLVE_BATCH)));
+                members = members(cpInfo, types.get(i));
+            }
+            return (members == null) ? null : members.kinds();
+        }, limit);
+    }
+
+    /**
+     * Sorts the classes and members found by name and keeps the first
+     * {@code limit} ones. The member candidates only come from the index:
+     * their types are resolved in name order, and no more once the types
+     * left sort after the last symbol kept.
+     *
+     * @param <T> the type handle
+     * @param classes the qualified names of the classes found
+     * @param candidates the member names found, by enclosing type
+     * @param qualifiedName gives the qualified name of a type
+     * @param kinds resolves the kinds of the members of a type
+     * @param limit the maximum number of symbols to return
+     *
+     * @return the symbols found
+     *
+     * @throws IOException if sources can not be read
+     */
+    static <T> Result collect(
+        final List<String> classes, final Map<T, Set<String>> candidates,
+        final Function<T, String> qualifiedName, final MemberKinds<T> kinds, final int limit
+    ) throws IOException {
+        final TreeSet<Symbol> symbols = new TreeSet<>(
+            Comparator.comparing(Symbol::name).thenComparing(Symbol::kind)
+        );
+        for (String type : classes) {
+            symbols.add(new Symbol("Class", type));
+        }
+        while (symbols.size() > limit + 1) {
+            symbols.pollLast();
+        }
+
+        final List<T> types = new ArrayList<>(candidates.keySet());
+        types.sort(Comparator.comparing(qualifiedName));
+
+        for (int i = 0; i < types.size(); ++i) {
+            final String owner = qualifiedName.apply(types.get(i));
+            //
+            // once over the limit, types sorting after the last symbol kept
+            // can not change the result
+            //
+            if (symbols.size() > limit && owner.compareTo(symbols.last().name()) > 0) {
+                break;
+            }
+            final Map<String, Set<String>> members = kinds.kinds(types, i);
+            if (members == null) {
+                continue;
+            }
+            for (String member : candidates.get(types.get(i))) {
+                for (String memberKind : members.getOrDefault(member, Set.of())) {
+                    symbols.add(new Symbol(memberKind, owner + '.' + member));
+                }
+            }
+            while (symbols.size() > limit + 1) {
+                symbols.pollLast();
+            }
+        }
+
+        final List<Symbol> result = new ArrayList<>(symbols);
+        final boolean truncated = result.size() > limit;
+        return new Result(truncated ? result.subList(0, limit) : result, truncated);
+    }
+
+    /**
+     * @param kind the kind of a member
+     *
+     * @return {@code Method} or {@code Field}, null for other members
+     */
+    static String kindOf(final ElementKind kind) {
+        return switch (kind) {
+            case METHOD, CONSTRUCTOR -> "Method";
+            case FIELD, ENUM_CONSTANT -> "Field";
+            default -> null;
+        };
+    }
+
+    /**
+     * @param symbol a symbol name from the index
+     *
+     * @return the name without the signature some index versions append
+     */
+    static String simpleName(final String symbol) {
+        int end = symbol.length();
+        for (int i = 0; i < symbol.length(); ++i) {
+            final char c = symbol.charAt(i);
+            if (c == '(' || c == ';') {
+                end = i;
+                break;
+            }
+        }
+        return symbol.substring(0, end);
+    }
+
+    // --------------------------------------------------------- private methods
+
+    //
+    // the cached members of the given type, null if not cached or if its
+    // file changed
+    //
+    private static Members members(final ClasspathInfo cpInfo, final ElementHandle<TypeElement> type) {
+        final FileObject file = SourceUtils.getFile(type, cpInfo);
+        if (file == null) {
+            return null;
+        }
+        final String key = key(cpInfo, file, type);
+        synchronized (MEMBERS) {
+            final Members members = MEMBERS.get(key);
+            if (members != null && file.lastModified().getTime() != members.timestamp()) {
+                MEMBERS.remove(key);
+                return null;
+            }
+            return members;
+        }
+    }
+
+    //
+    // the same binary name may be declared in several projects or source
+    // roots, hence the root in the key
+    //
+    private static String key(
+        final ClasspathInfo cpInfo, final FileObject file, final ElementHandle<TypeElement> type
+    ) {
+        final FileObject root = cpInfo.getClassPath(ClasspathInfo.PathKind.SOURCE).findOwnerRoot(file);
+        return ((root != null) ? root.toURL().toString() : file.getParent().toURL().toString())
+            + '!' + type.getBinaryName();
+    }
+
+    private static void resolve(
+        final ClasspathInfo cpInfo, final List<ElementHandle<TypeElement>> types
+    ) throws IOException {
+        final Map<FileObject, List<ElementHandle<TypeElement>>> byFile = new LinkedHashMap<>();
+        for (ElementHandle<TypeElement> type : types) {
+            final FileObject file = SourceUtils.getFile(type, cpInfo);
+            if (file != null && members(cpInfo, type) == null) {
+                byFile.computeIfAbsent(file, (f) -> new ArrayList<>()).add(type);
+            }
+        }
+        if (byFile.isEmpty()) {
+            return;
+        }
+
+        final JavaSource source = JavaSource.create(cpInfo, byFile.keySet());
+        if (source == null) {
+            return;
+        }
+        source.runUserActionTask(cc -> {
+            cc.toPhase(JavaSource.Phase.ELEMENTS_RESOLVED);
+            final FileObject file = cc.getFileObject();
+            for (ElementHandle<TypeElement> handle : byFile.getOrDefault(file, List.of())) {
+                final TypeElement type = handle.resolve(cc);
+                if (type == null) {
+                    continue;
+                }
+                final Map<String, Set<String>> kinds = new LinkedHashMap<>();
+                for (Element e : type.getEnclosedElements()) {
+                    final String kind = kindOf(e.getKind());
+                    if (kind != null) {
+                        kinds.computeIfAbsent(e.getSimpleName().toString(), (n) -> new TreeSet<>()).add(kind);
+                    }
+                }
+                final Members members = new Members(file.lastModified().getTime(), kinds);
+                synchronized (MEMBERS) {
+                    MEMBERS.put(key(cpInfo, file, handle), members);
+                }
+            }
+        }, true);
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.agent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Line based unified diff of two texts, used to show a set of changes to the
+ * user in a compact form. Common leading and trailing lines are skipped
+ * before computing the longest common subsequence of the remaining ones; if
+ * they are too many the changed region is shown as removed and added as a
+ * whole.
+ */
+final class TextDiff {
+
+    private static final int CONTEXT = 3;
+
+    //
+    // 4M cells, 16MB of ints at most
+    //
+    private static final long MAX_CELLS = 4_000_000L;
+
+    private record Line(char kind, String text) {}
+
+    private TextDiff() {
+    }
+
+    /**
+     * @param path the path to show in the diff header
+     * @param before the original text, {@code null} if the file is created
+     * @param after the new text
+     *
+     * @return the unified diff of the two texts, empty if they have the same
+     *         lines
+     */
+    static String unified(final String path, final String before, final String after) {
+        final List<Line> lines = diff(lines(before), lines(after));
+
+        final StringBuilder out = new StringBuilder();
+        int first = next(lines, 0);
+        while (first >= 0) {
+            //
+            // extend the hunk while the next change is close enough to share
+            // the context lines
+            //
+            int last = first;
+            for (int change = next(lines, last + 1);
+                 change >= 0 && change - last <= 2 * CONTEXT;
+                 change = next(lines, change + 1)) {
+                last = change;
+            }
+            final int from = Math.max(0, first - CONTEXT);
+            final int to = Math.min(lines.size(), last + 1 + CONTEXT);
+
+            if (out.isEmpty()) {
+                out.append("--- ").append((before == null) ? "/dev/null" : "a/" + path).append('\n')
+                   .append("+++ b/").append(path).append('\n');
+            }
+            out.append("@@ -").append(range(lines, from, to, '+'))
+               .append(" +").append(range(lines, from, to, '-')).append(" @@\n");
+            for (Line line : lines.subList(from, to)) {
+                out.append(line.kind()).append(line.text()).append('\n');
+            }
+
+            first = next(lines, to);
+        }
+        return out.toString();
+    }
+
+    // --------------------------------------------------------- private methods
+
+    private static String[] lines(final String text) {
+        if (text == null || text.isEmpty()) {
+            return new String[0];
+        }
+        final String[] lines = text.split("\r?\n", -1);
+        if (lines[lines.length - 1].isEmpty()) {
+            return Arrays.copyOf(lines, lines.length - 1);
+        }
+        return lines;
+    }
+
+    private static List<Line> diff(final String[] a, final String[] b) {
+        int prefix = 0;
+        while (prefix < a.length && prefix < b.length && a[prefix].equals(b[prefix])) {
+            ++prefix;
+        }
+        int suffix = 0;
+        while (suffix < a.length - prefix && suffix < b.length - prefix
+               && a[a.length - 1 - suffix].equals(b[b.length - 1 - suffix])) {
+            ++suffix;
+        }
+
+        final List<Line> lines = new ArrayList<>(Math.max(a.length, b.length));
+        for (int i = 0; i < prefix; ++i) {
+            lines.add(new Line(' ', a[i]));
+        }
+
+        final int n = a.length - prefix - suffix, m = b.length - prefix - suffix;
+        if ((long) n * m > MAX_CELLS) {
+            for (int i = 0; i < n; ++i) {
+                lines.add(new Line('-', a[prefix + i]));
+            }
+            for (int j = 0; j < m; ++j) {
+                lines.add(new Line('+', b[prefix + j]));
+            }
+        } else {
+            //
+            // lcs[i][j] is the length of the longest common subsequence of
+            // the middle lines of a from i and of b from j
+            //
+            final int[][] lcs = new int[n + 1][m + 1];
+            for (int i = n - 1; i >= 0; --i) {
+                for (int j = m - 1; j >= 0; --j) {
+                    lcs[i][j] = a[prefix + i].equals(b[prefix + j])
+                              ? lcs[i + 1][j + 1] + 1
+                              : Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+                }
+            }
+            int i = 0, j = 0;
+            while (i < n || j < m) {
+                if (i < n && j < m && a[prefix + i].equals(b[prefix + j])) {
+                    lines.add(new Line(' ', a[prefix + i++]));
+                    ++j;
+                } else if (i < n && (j == m || lcs[i + 1][j] >= lcs[i][j + 1])) {
+                    lines.add(new Line('-', a[prefix + i++]));
+                } else {
+                    lines.add(new Line('+', b[prefix + j++]));
+                }
+            }
+        }
+
+        for (int i = a.length - suffix; i < a.length; ++i) {
+            lines.add(new Line(' ', a[i]));
+        }
+        return lines;
+    }
+
+    //
+    // the index of the first changed line from the given one, -1 if none
+    //
+    private static int next(final List<Line> lines, final int from) {
+        for (int i = from; i < lines.size(); ++i) {
+            if (lines.get(i).kind() != ' ') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    //
+    // the start,count range of the hunk in the old (skipping '+' lines) or
+    // new (skipping '-' lines) text
+    //
+    private static String range(final List<Line> lines, final int from, final int to, final char skip) {
+        int start = 0;
+        for (int i = 0; i < from; ++i) {
+            if (lines.get(i).kind() != skip) {
+                ++start;
+            }
+        }
+        int count = 0;
+        for (int i = from; i < to; ++i) {
+            if (lines.get(i).kind() != skip) {
+                ++count;
+            }
+        }
+        return ((count == 0) ? start : start + 1) + "," + count;
+    }
+}
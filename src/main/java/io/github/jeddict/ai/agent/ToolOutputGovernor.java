@@ -0,0 +1,266 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.agent;
+
+import dev.langchain4j.agent.tool.P;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.exception.ToolExecutionException;
+import static io.github.jeddict.ai.agent.ToolPolicy.Policy.READONLY;
+import io.github.jeddict.ai.settings.PreferencesManager;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps tool results within a size budget before they are sent back to the
+ * model. A result longer than the limit of its tool (see
+ * {@link PreferencesManager#getToolOutputLimit(String)}) is cut keeping its
+ * head and its tail at line boundaries; the middle is collapsed into a note
+ * with a handle the model can pass to {@link #fetchMore(String, int)} to page
+ * through the omitted part.
+ * <p>
+ * Full results are kept in a small LRU {@link Outputs} store owned by the
+ * chat and given to the governors of the agents created for it, so that
+ * handles stay valid across them while other chats do not push them out. The
+ * tokens saved (estimated as {@value #CHARS_PER_TOKEN} characters per token)
+ * are logged at each truncation and available with {@link #tokensSaved()};
+ * characters fetched back are only counted once, and only within the part
+ * that was omitted.
+ * <p>
+ * Results are governed by {@link HumanInTheMiddleWrapper}, which
+ * intercepts all tool calls.
+ */
+public class ToolOutputGovernor extends AbstractTool {
+
+    /**
+     * Number of truncated results kept per {@link Outputs} store for
+     * {@link #fetchMore(String, int)}
+     */
+    public static final int MAX_STORED_OUTPUTS = 16;
+
+    static final int CHARS_PER_TOKEN = 4;
+
+    /**
+     * The truncated results of a chat, the {@value #MAX_STORED_OUTPUTS} most
+     * recent ones.
+     */
+    public static final class Outputs {
+
+        private final Map<String, Omitted> outputs = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Omitted> eldest) {
+                return size() > MAX_STORED_OUTPUTS;
+            }
+        };
+
+        private synchronized void put(final String handle, final Omitted output) {
+            outputs.put(handle, output);
+        }
+
+        private synchronized Omitted get(final String handle) {
+            return outputs.get(handle);
+        }
+    }
+
+    //
+    // a full result with the range [head, tail) omitted from what was sent,
+    // and the characters of that range fetched so far
+    //
+    private static final class Omitted {
+
+        final String output;
+        final int head, tail;
+        private final BitSet fetched = new BitSet();
+
+        Omitted(final String output, final int head, final int tail) {
+            this.output = output;
+            this.head = head;
+            this.tail = tail;
+        }
+
+        //
+        // marks [from, to) as fetched, returning the number of omitted
+        // characters not fetched before
+        //
+        synchronized int fetch(final int from, final int to) {
+            final int start = Math.max(from, head), end = Math.min(to, tail);
+            if (start >= end) {
+                return 0;
+            }
+            final int before = fetched.get(start - head, end - head).cardinality();
+            fetched.set(start - head, end - head);
+            return (end - start) - before;
+        }
+    }
+
+    private static final AtomicInteger HANDLES = new AtomicInteger();
+    private static final AtomicLong OMITTED = new AtomicLong();
+    private static final AtomicLong FETCHED = new AtomicLong();
+
+    private final Outputs outputs;
+
+    /**
+     * Creates a governor with its own store of truncated results.
+     *
+     * @throws IOException never
+     */
+    public ToolOutputGovernor() throws IOException {
+        this(new Outputs());
+    }
+
+    /**
+     * @param outputs the store of the truncated results of the chat
+     *
+     * @throws IOException never
+     */
+    public ToolOutputGovernor(final Outputs outputs) throws IOException {
+        super(".");
+        this.outputs = outputs;
+    }
+
+    /**
+     * Returns the given tool result as is if within the limit of the tool,
+     * otherwise its head and tail with a note on how to fetch the middle.
+     *
+     * @param tool the tool name
+     * @param output the tool result
+     *
+     * @return the result to send to the model
+     */
+    public String govern(final String tool, final String output) {
+        final int limit = PreferencesManager.getInstance().getToolOutputLimit(tool);
+        if (output == null || limit <= 0 || output.length() <= limit) {
+            return output;
+        }
+
+        final int head = cut(output, 0, limit * 2 / 3);
+        final int tail = Math.max(head, cutBack(output, output.length() - Math.max(1, limit / 3)));
+        final String handle = tool + '-' + HANDLES.incrementAndGet();
+        outputs.put(handle, new Omitted(output, head, tail));
+
+        final int omitted = tail - head;
+        final long saved = OMITTED.addAndGet(omitted) - FETCHED.get();
+        progress("✂️ " + tool + " output truncated, ~" + (omitted / CHARS_PER_TOKEN) + " tokens omitted");
+        log(() -> "%s output of %d characters truncated to %d, ~%d tokens saved so far".formatted(
+            tool, output.length(), output.length() - omitted, saved / CHARS_PER_TOKEN
+        ));
+
+        return output.substring(0, head) + newlineIfMissing(output, head)
+             + "... [" + lines(output, head, tail) + " lines, " + omitted + " characters omitted;"
+             + " call fetchMore with handle '" + handle + "' and offset " + head + " to read them] ...\n"
+             + output.substring(tail);
+    }
+
+    /**
+     * Returns the part of a truncated result starting at the given offset,
+     * up to the limit of {@code fetchMore}.
+     *
+     * @param handle the handle given in the truncation note
+     * @param offset the 0-based character offset to start from
+     *
+     * @return the requested part, followed by a note with the next offset if
+     *         there is more
+     */
+    @Tool("""
+    Return more of a tool result that was truncated, starting from the given
+    character offset. Use the handle and offset given in the truncation note;
+    if there is still more, the result ends with the offset to use next.
+    """)
+    @ToolPolicy(READONLY)
+    public String fetchMore(
+        @P("the handle given in the truncation note")
+        final String handle,
+        @P("the character offset to start from")
+        final int offset
+    ) throws ToolExecutionException {
+        progress("📄 Fetching more of " + handle + " from " + offset);
+
+        final Omitted omitted = outputs.get(handle);
+        if (omitted == null) {
+            throw new ToolExecutionException(
+                "unknown or expired handle '" + handle + "', run the tool again"
+            );
+        }
+        final String output = omitted.output;
+        if (offset < 0 || offset >= output.length()) {
+            throw new ToolExecutionException(
+                "offset must be between 0 and " + (output.length() - 1) + ", got: " + offset
+            );
+        }
+
+        final int limit = PreferencesManager.getInstance().getToolOutputLimit("fetchMore");
+        final int end = (limit <= 0 || offset + limit >= output.length())
+                      ? output.length() : cut(output, offset, offset + limit);
+        FETCHED.addAndGet(omitted.fetch(offset, end));
+
+        final String page = output.substring(offset, end);
+        return (end < output.length())
+             ? page + newlineIfMissing(output, end) + "... [" + (output.length() - end) + " more characters;"
+                    + " call fetchMore with handle '" + handle + "' and offset " + end + "] ...\n"
+             : page;
+    }
+
+    /**
+     * @return the estimated number of tokens omitted from the tool results
+     *         sent to the model and not fetched afterwards
+     */
+    public static long tokensSaved() {
+        return Math.max(0, OMITTED.get() - FETCHED.get()) / CHARS_PER_TOKEN;
+    }
+
+    // --------------------------------------------------------- private methods
+
+    //
+    // the end of the last full line between from and max, or max if the
+    // line is longer than half of the range
+    //
+    private static int cut(final String text, final int from, final int max) {
+        final int newline = text.lastIndexOf('\n', max - 1);
+        if (newline >= from + (max - from) / 2) {
+            return newline + 1;
+        }
+        return Character.isLowSurrogate(text.charAt(max)) ? max - 1 : max;
+    }
+
+    //
+    // the start of the first full line after min, or min if there is none
+    // in the first half of the rest
+    //
+    private static int cutBack(final String text, final int min) {
+        final int newline = text.indexOf('\n', min);
+        if (newline >= 0 && newline < min + (text.length() - min) / 2) {
+            return newline + 1;
+        }
+        return Character.isLowSurrogate(text.charAt(min)) ? min + 1 : min;
+    }
+
+    private static String newlineIfMissing(final String text, final int end) {
+        return (end > 0 && text.charAt(end - 1) == '\n') ? "" : "\n";
+    }
+
+    private static int lines(final String text, final int from, final int to) {
+        int lines = 0;
+        for (int i = from; i < to; ++i) {
+            if (text.charAt(i) == '\n') {
+                ++lines;
+            }
+        }
+        return (to > from && text.charAt(to - 1) != '\n') ? lines + 1 : lines;
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.agent;
+
+import io.github.jeddict.ai.util.ProjectFileIndex;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.lang.model.element.Element;
+import org.netbeans.api.java.source.ElementHandle;
+
+/**
+ * Usages found by {@code WhereUsedQuery} per element, kept for each project
+ * until a Java file or a directory of the project changes. Changes are
+ * received from the {@link ProjectFileIndex} of the project, which also tells
+ * when the project is closed so that its cache is dropped.
+ */
+final class UsageCache implements ProjectFileIndex.Listener {
+
+    /**
+     * The usages of an element, up to the limit requested when they were
+     * searched.
+     *
+     * @param usages the usages found
+     * @param complete true if these are all the usages of the element
+     */
+    record Usages(List<String> usages, boolean complete) {
+
+        /**
+         * @param limit the number of usages needed
+         *
+         * @return true if the first {@code limit} usages are available
+         */
+        boolean covers(final int limit) {
+            return complete || usages.size() >= limit;
+        }
+    }
+
+    private static final int MAX_ELEMENTS = 64;
+
+    private static final Map<Path, UsageCache> CACHES = new ConcurrentHashMap<>();
+
+    private final Path root;
+
+    private final Map<ElementHandle<? extends Element>, Usages> usages
+        = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ElementHandle<? extends Element>, Usages> eldest) {
+                return size() > MAX_ELEMENTS;
+            }
+        };
+
+    private UsageCache(final Path root) {
+        this.root = root;
+    }
+
+    /**
+     * @param root the project directory
+     *
+     * @return the cache of the given project
+     */
+    static UsageCache of(final Path root) {
+        final Path normalized = root.toAbsolutePath().normalize();
+        final UsageCache[] created = new UsageCache[1];
+        final UsageCache cache = CACHES.computeIfAbsent(normalized, (r) -> created[0] = new UsageCache(r));
+
+        //
+        // subscribed outside computeIfAbsent: an index already released
+        // calls released() right away, which removes the cache again
+        //
+        if (cache == created[0]) {
+            ProjectFileIndex.of(normalized).addListener(cache);
+        }
+        return cache;
+    }
+
+    @Override
+    public void changed(final Path path) {
+        if (path.toString().endsWith(".java") || !Files.isRegularFile(path)) {
+            clear();
+        }
+    }
+
+    @Override
+    public void released() {
+        CACHES.remove(root, this);
+        clear();
+    }
+
+    /**
+     * @param element the element searched
+     * @param limit the number of usages needed
+     *
+     * @return the cached usages of the given element if they include the
+     *         first {@code limit} ones, null otherwise
+     */
+    synchronized Usages get(final ElementHandle<? extends Element> element, final int limit) {
+        final Usages found = usages.get(element);
+        return (found != null && found.covers(limit)) ? found : null;
+    }
+
+    synchronized void put(final ElementHandle<? extends Element> element, final Usages found) {
+        usages.put(element, new Usages(List.copyOf(found.usages()), found.complete()));
+    }
+
+    private synchronized void clear() {
+        usages.clear();
+    }
+}
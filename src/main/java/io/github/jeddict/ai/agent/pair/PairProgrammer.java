@@ -15,6 +15,7 @@
  */
 package io.github.jeddict.ai.agent.pair;
 
+import io.github.jeddict.ai.lang.RequestFeature;
 import java.util.logging.Logger;
 
 
@@ -29,24 +30,31 @@ public interface PairProgrammer {
     final Logger LOG = Logger.getLogger(PairProgrammer.class.getCanonicalName());
 
     public static enum Specialist {
-        ADVISOR(CodeAdvisor.class),
-        ASSISTANT(Assistant.class),
-        DB(DBSpecialist.class),
-        DIFF(DiffSpecialist.class),
-        GHOSTWRITER(Ghostwriter.class),
-        HACKER(HackerWithTools.class),
-        HACKER_WITHOUT_TOOLS(ToolifiedAiService.class),
-        TECHWRITER(TechWriter.class),
-        REFACTOR(RefactorSpecialist.class),
-        REST(RestSpecialist.class),
-        SHAKESPEARE(Shakespeare.class),
-        TEST(TestSpecialist.class),
-        WIZARD(FileWizard.class);
+        ADVISOR(CodeAdvisor.class, RequestFeature.COMPLETION),
+        ASSISTANT(Assistant.class, RequestFeature.CHAT),
+        DB(DBSpecialist.class, RequestFeature.CHAT),
+        DIFF(DiffSpecialist.class, RequestFeature.REVIEW),
+        GHOSTWRITER(Ghostwriter.class, RequestFeature.COMPLETION),
+        HACKER(HackerWithTools.class, RequestFeature.AGENT),
+        HACKER_WITHOUT_TOOLS(ToolifiedAiService.class, RequestFeature.AGENT),
+        TECHWRITER(TechWriter.class, RequestFeature.HINT),
+        REFACTOR(RefactorSpecialist.class, RequestFeature.HINT),
+        REST(RestSpecialist.class, RequestFeature.HINT),
+        SHAKESPEARE(Shakespeare.class, RequestFeature.HINT),
+        TEST(TestSpecialist.class, RequestFeature.CHAT),
+        WIZARD(FileWizard.class, RequestFeature.CHAT);
 
         public final Class specialistClass;
 
-        Specialist(final Class specialist) {
+        /**
+         * The feature the requests of this specialist are accounted to in
+         * the cost and latency metrics
+         */
+        public final RequestFeature feature;
+
+        Specialist(final Class specialist, final RequestFeature feature) {
             this.specialistClass = specialist;
+            this.feature = feature;
         }
     }
 
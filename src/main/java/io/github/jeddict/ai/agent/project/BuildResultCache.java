@@ -0,0 +1,218 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.agent.project;
+
+import io.github.jeddict.ai.settings.PreferencesManager;
+import io.github.jeddict.ai.util.ProjectFileIndex;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Opt-in cache of the output of builds (see
+ * {@link PreferencesManager#isBuildResultCacheEnabled()}): a build run again
+ * with the same arguments on a project whose files did not change returns
+ * the output of the previous run, marked as such, instead of building again.
+ * <p>
+ * The inputs of a build are fingerprinted with the content hash of all the
+ * files of the project but the ones in VCS, IDE and build output directories.
+ * Content hashes are kept per file and computed again only when its size or
+ * last modified time change. Dependencies outside the project (e.g. SNAPSHOT
+ * artifacts in the local repository) are not taken into account.
+ */
+final class BuildResultCache {
+
+    private static final Logger LOG = Logger.getLogger(BuildResultCache.class.getName());
+
+    private static final int MAX_RESULTS = 32;
+
+    //
+    // build output directories, skipped when not inside a source directory
+    //
+    private static final Set<String> OUTPUT_DIRS = Set.of("target", "build", "out", "node_modules");
+
+    private record Result(String fingerprint, String output, LocalTime time) {}
+
+    private record FileHash(long size, long modified, String hash) {}
+
+    private static final Map<String, Result> RESULTS = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+            return size() > MAX_RESULTS;
+        }
+    };
+
+    private static final Map<Path, FileHash> HASHES = new ConcurrentHashMap<>();
+
+    private final String key;
+    private final String fingerprint;
+
+    private BuildResultCache(final String key, final String fingerprint) {
+        this.key = key;
+        this.fingerprint = fingerprint;
+    }
+
+    /**
+     * @param root the project directory
+     * @param build what is run and how (e.g. the tool, goals, profiles and
+     *        properties); builds are the same if all of them are equal
+     *
+     * @return the cache for the given build in the current state of the
+     *         project - NULL if caching is disabled or if the project files
+     *         can not be read
+     */
+    static BuildResultCache of(final Path root, final List<String> build) {
+        if (!PreferencesManager.getInstance().isBuildResultCacheEnabled()) {
+            return null;
+        }
+        try {
+            final long start = System.nanoTime();
+            final String fingerprint = fingerprint(root);
+            LOG.finest(() -> "fingerprinted " + root + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return new BuildResultCache(root + "\0" + String.join("\0", build), fingerprint);
+        } catch (IOException x) {
+            LOG.log(Level.FINE, "unable to fingerprint " + root + ", build not cached", x);
+            return null;
+        }
+    }
+
+    /**
+     * @return the output of the same build run when the project was in the
+     *         same state, preceded by a line telling it comes from the cache -
+     *         NULL if there is none
+     */
+    String cached() {
+        final Result result;
+        synchronized (RESULTS) {
+            result = RESULTS.get(key);
+        }
+        if (result == null || !result.fingerprint().equals(fingerprint)) {
+            return null;
+        }
+        return "[CACHED RESULT: no project file changed since this same build ran at "
+            + result.time() + "; the output below is from that run, the build was not run again]\n"
+            + result.output();
+    }
+
+    /**
+     * Stores the output of a completed build for the state of the project
+     * when this cache was created.
+     *
+     * @param output the output of the build
+     */
+    void store(final String output) {
+        synchronized (RESULTS) {
+            RESULTS.put(key, new Result(fingerprint, output, LocalTime.now().truncatedTo(ChronoUnit.SECONDS)));
+        }
+    }
+
+    /**
+     * Drops the results of all the builds of the given project. To be called
+     * before running a build that is not cached, as it may change the state
+     * the cached results rely on (e.g. clean or install).
+     *
+     * @param root the project directory
+     */
+    static void invalidate(final Path root) {
+        final String prefix = root + "\0";
+        synchronized (RESULTS) {
+            RESULTS.keySet().removeIf((key) -> key.startsWith(prefix));
+        }
+    }
+
+    // --------------------------------------------------------- private methods
+
+    private static String fingerprint(final Path root) throws IOException {
+        final List<ProjectFileIndex.Entry> files = ProjectFileIndex.of(root).walk(null, 0, (entry) -> {
+            if (!entry.directory()) {
+                return true;
+            }
+            if (entry.hidden()) {
+                return ".mvn".equals(entry.path()) || entry.path().startsWith(".mvn/");
+            }
+            return !OUTPUT_DIRS.contains(entry.name())
+                || ("/" + entry.path() + "/").contains("/src/");
+        });
+        if (files == null) {
+            throw new IOException(root + " is not a directory");
+        }
+
+        final MessageDigest digest = sha256();
+        for (ProjectFileIndex.Entry file : files) {
+            if (file.directory()) {
+                continue;
+            }
+            digest.update(file.path().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(hash(root.resolve(file.path())).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String hash(final Path file) throws IOException {
+        final BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException x) {
+            //
+            // deleted since the index was updated
+            //
+            HASHES.remove(file);
+            return "-";
+        }
+        final long modified = attrs.lastModifiedTime().toMillis();
+        final FileHash known = HASHES.get(file);
+        if (known != null && known.size() == attrs.size() && known.modified() == modified) {
+            return known.hash();
+        }
+
+        final MessageDigest digest = sha256();
+        try (InputStream in = Files.newInputStream(file)) {
+            final byte[] buf = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                digest.update(buf, 0, n);
+            }
+        }
+        final String hash = HexFormat.of().formatHex(digest.digest());
+        HASHES.put(file, new FileHash(attrs.size(), modified, hash));
+        return hash;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException x) {
+            throw new IllegalStateException("SHA-256 not available", x);
+        }
+    }
+}
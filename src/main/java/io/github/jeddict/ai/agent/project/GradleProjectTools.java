@@ -53,6 +53,17 @@ public class GradleProjectTools extends ProjectTools implements BuildMetadataRes
 
     private static final int TIMEOUT_MIN = 15;
 
+    //
+    // tasks whose result depends only on the project files, that can be
+    // served from the BuildResultCache; tasks that exist for their outputs
+    // (e.g. clean, jar, build) must always run, and running any of them
+    // drops the cached results of the project
+    //
+    private static final Set<String> CACHEABLE_TASKS = Set.of(
+        "compileJava", "compileTestJava", "processResources", "processTestResources",
+        "classes", "testClasses", "test", "check", "javadoc", "dependencies"
+    );
+
     /**
      * Matches Groovy DSL dependency declarations (unparenthesised):
      * <ul>
@@ -217,6 +228,19 @@ public class GradleProjectTools extends ProjectTools implements BuildMetadataRes
             getProjectName()
         );
 
+        final BuildResultCache cache = cacheable(args)
+            ? BuildResultCache.of(basepath, List.of("gradle", String.join(" ", args)))
+            : null;
+        if (cache == null) {
+            BuildResultCache.invalidate(basepath);
+        } else {
+            final String cached = cache.cached();
+            if (cached != null) {
+                progress("♻️ no project file changed since the last %s, returning its result".formatted(displayName));
+                return cached;
+            }
+        }
+
         try {
             final RunConfig config = RunUtils.createRunConfig(
                 project(),
@@ -238,11 +262,13 @@ public class GradleProjectTools extends ProjectTools implements BuildMetadataRes
 
                 // Optional check: Ensure the task process ended successfully
                 int exitStatus = task.result();
-                if (exitStatus == 0) {
-                    return displayName + " task finished processing successfully.";
-                } else {
-                    return displayName + " task failed with exit code: " + exitStatus;
+                final String result = (exitStatus == 0)
+                    ? displayName + " task finished processing successfully."
+                    : displayName + " task failed with exit code: " + exitStatus;
+                if (cache != null && task.isFinished()) {
+                    cache.store(result);
                 }
+                return result;
             }
 
             return displayName + " task failed to dispatch properly.";
@@ -260,6 +286,24 @@ public class GradleProjectTools extends ProjectTools implements BuildMetadataRes
     // -----------------------------------------------------------------------
     // Internal helpers
     // -----------------------------------------------------------------------
+
+    //
+    // true if all the tasks are in CACHEABLE_TASKS; options are ignored, but
+    // option values given as separate arguments make the build not cacheable
+    //
+    private static boolean cacheable(final String[] args) {
+        boolean tasks = false;
+        for (String arg : args) {
+            if (arg.startsWith("-")) {
+                continue;
+            }
+            if (!CACHEABLE_TASKS.contains(arg)) {
+                return false;
+            }
+            tasks = true;
+        }
+        return tasks;
+    }
     private String getJdkVersion() {
         final String content = content();
         if (content == null) {
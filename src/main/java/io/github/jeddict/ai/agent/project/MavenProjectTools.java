@@ -24,6 +24,7 @@ import java.io.InputStream;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.model.Model;
@@ -65,6 +66,20 @@ public class MavenProjectTools extends ProjectTools implements BuildMetadataReso
 
     private final static int TIMEOUT_MIN = 15;
 
+    //
+    // goals whose result depends only on the project files, that can be
+    // served from the BuildResultCache; goals that exist for their outputs
+    // (e.g. clean, package, install) must always run, and running any of
+    // them drops the cached results of the project
+    //
+    private static final Set<String> CACHEABLE_GOALS = Set.of(
+        "validate", "initialize", "generate-sources", "process-sources",
+        "generate-resources", "process-resources", "compile", "process-classes",
+        "generate-test-sources", "process-test-sources", "generate-test-resources",
+        "process-test-resources", "test-compile", "process-test-classes", "test",
+        "dependency:tree"
+    );
+
     private final FileObject pomFile;
 
     /** Lazily-parsed model; {@code null} until first access. */
@@ -223,6 +238,24 @@ public class MavenProjectTools extends ProjectTools implements BuildMetadataReso
             arguments.addAll(List.of(properties));
         }
 
+        final BuildResultCache cache = cacheable(goals)
+            ? BuildResultCache.of(basepath, List.of(
+                "maven",
+                String.join(" ", goals),
+                (profiles == null) ? "-" : "P:" + String.join(" ", profiles),
+                StringUtils.defaultString(properties)
+              ))
+            : null;
+        if (cache == null) {
+            BuildResultCache.invalidate(basepath);
+        } else {
+            final String cached = cache.cached();
+            if (cached != null) {
+                progress("♻️ no project file changed since the last %s, returning its result".formatted(displayName));
+                return cached;
+            }
+        }
+
         final RunConfig runConfig = RunUtils.createRunConfig(
                 FileUtil.toFile(project.getProjectDirectory()),
                 project,
@@ -285,13 +318,29 @@ public class MavenProjectTools extends ProjectTools implements BuildMetadataReso
             progress(err);
         }        progress("build action finished with exit code %d".formatted(exitCode));
 
-        return "OUT: %s\n\nERR: %s %s".formatted(io.out(), err, io.err());
+        final String result = "OUT: %s\n\nERR: %s %s".formatted(io.out(), err, io.err());
+        if (cache != null && exitCode != null && err.isEmpty()) {
+            cache.store(result);
+        }
+        return result;
     }
 
     // -----------------------------------------------------------------------
     // Internal helpers
     // -----------------------------------------------------------------------
 
+    private static boolean cacheable(final String[] goals) {
+        if (goals == null || goals.length == 0) {
+            return false;
+        }
+        for (String goal : goals) {
+            if (!CACHEABLE_GOALS.contains(goal)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private Model model() {
         if (!modelParsed) {
             modelParsed = true;
@@ -64,6 +64,7 @@ import io.github.jeddict.ai.util.SourceUtil;
 import static io.github.jeddict.ai.util.StringUtil.convertToCapitalized;
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Component;
 import java.awt.Desktop;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
@@ -155,7 +156,14 @@ public abstract class AssistantChat extends TopComponent {
     public static final ImageIcon logoIcon = new ImageIcon(AssistantChat.class.getResource("/icons/logo28.png"));
 
     private static final String QUESTION_KEY = "QUESTION";
+    private static final String FILE_MENUS_KEY = "AI_FILE_MENUS";
     private final JPanel parentPanel;
+    private final BlockVirtualizer virtualizer;
+
+    //
+    // index at which the next pane is added, -1 to add it at the end
+    //
+    private int insertionIndex = -1;
     private Project project;
 
     private final Map<JEditorPane, JPopupMenu> menus = new HashMap<>();
@@ -207,6 +215,7 @@ public abstract class AssistantChat extends TopComponent {
         parentPanel = new JPanel();
         parentPanel.setLayout(new BoxLayout(parentPanel, BoxLayout.Y_AXIS));
         add(parentPanel, BorderLayout.CENTER);
+        virtualizer = new BlockVirtualizer(parentPanel, this::materializeBlock, this::releaseBlock);
     }
 
     public abstract void onChatReset();
@@ -677,6 +686,59 @@ public abstract class AssistantChat extends TopComponent {
     public void clear() {
         parentPanel.removeAll();
         menus.clear();
+        virtualizer.clear();
+    }
+
+    /**
+     * Prints the given block like {@link EditorUtil#printBlock}, unless it is
+     * too far from the top of the transcript to be visible, in which case a
+     * lightweight placeholder is added instead and the block is rendered only
+     * when scrolled into view.
+     *
+     * @return the component rendering the block or its placeholder
+     */
+    public JComponent printLazyBlock(final StringBuilder code, final TextBlock actionBlock, final TextBlock block) {
+        final BlockVirtualizer.Placeholder placeholder = virtualizer.defer(actionBlock, block);
+        if (placeholder != null) {
+            EditorUtil.collectCode(code, block);
+            addEditorPaneRespectingTextArea(placeholder);
+            return placeholder;
+        }
+
+        final JComponent pane = EditorUtil.printBlock(code, actionBlock, block, this);
+        virtualizer.track(pane, actionBlock, block);
+        return pane;
+    }
+
+    private JComponent materializeBlock(final BlockVirtualizer.Placeholder placeholder, final int index) {
+        final JComponent pane;
+        insertionIndex = index;
+        try {
+            pane = EditorUtil.printBlock(new StringBuilder(), placeholder.actionBlock, placeholder.block, this);
+        } finally {
+            insertionIndex = -1;
+        }
+        if (pane instanceof JEditorPane editorPane && JAVA_MIME.equals(editorPane.getEditorKit().getContentType())) {
+            final JPopupMenu menu = menus.get(editorPane);
+            if (menu != null) {
+                menu.add(createDiffWithSelectedItem(editorPane));
+            }
+        }
+        return pane;
+    }
+
+    private boolean releaseBlock(final JComponent pane) {
+        //
+        // editors with menus to diff with the context files are kept, as
+        // building those menus requires parsing the files again
+        //
+        if (pane.getClientProperty(FILE_MENUS_KEY) != null) {
+            return false;
+        }
+        menus.keySet().removeIf((editor) -> SwingUtilities.isDescendingFrom(editor, pane));
+        menuItems.keySet().removeIf((editor) -> SwingUtilities.isDescendingFrom(editor, pane));
+        submenuItems.keySet().removeIf((editor) -> SwingUtilities.isDescendingFrom(editor, pane));
+        return true;
     }
 
     public void updateUserPaneButtons(boolean iconOnly) {
@@ -841,6 +903,10 @@ public abstract class AssistantChat extends TopComponent {
     }
 
     private void addEditorPaneRespectingTextArea(final JComponent component) {
+        if (insertionIndex >= 0) {
+            parentPanel.add(component, insertionIndex);
+            return;
+        }
         final Integer last = on(parentPanel.getComponents()).loop((i, c) -> {
             if (c instanceof Box.Filler) {
                 parentPanel.add(component, i);
@@ -1119,13 +1185,11 @@ public abstract class AssistantChat extends TopComponent {
 
     public String getAllCodeEditorText() {
         StringBuilder allText = new StringBuilder();
-        for (int i = 0; i < parentPanel.getComponentCount(); i++) {
-            if (parentPanel.getComponent(i) instanceof JEditorPane editorPane) {
-                if (!(editorPane.getEditorKit() instanceof javax.swing.text.html.HTMLEditorKit)) {
-                    allText.append("\n");
-                    allText.append(editorPane.getText());
-                    allText.append("\n");
-                }
+        for (EditorContent editor : getEditorContents()) {
+            if (!editor.contentType().equals("text/html")) {
+                allText.append("\n");
+                allText.append(editor.text());
+                allText.append("\n");
             }
         }
         return allText.toString().trim();
@@ -1133,16 +1197,14 @@ public abstract class AssistantChat extends TopComponent {
 
     public String getAllEditorText() {
         StringBuilder allText = new StringBuilder();
-        for (int i = 0; i < parentPanel.getComponentCount(); i++) {
-            if (parentPanel.getComponent(i) instanceof JEditorPane editorPane) {
-                if (!editorPane.getEditorKit().getContentType().equals("text/html")
-                        && editorPane.getEditorKit().getContentType().startsWith("text")) {
-                    allText.append("<pre><code>");
-                    allText.append(editorPane.getText());
-                    allText.append("</code></pre>");
-                } else {
-                    allText.append(editorPane.getText().replaceAll("(?is)<style[^>]*?>.*?</style>", ""));
-                }
+        for (EditorContent editor : getEditorContents()) {
+            if (!editor.contentType().equals("text/html")
+                    && editor.contentType().startsWith("text")) {
+                allText.append("<pre><code>");
+                allText.append(editor.text());
+                allText.append("</code></pre>");
+            } else {
+                allText.append(editor.text().replaceAll("(?is)<style[^>]*?>.*?</style>", ""));
             }
         }
         return allText.toString().trim();
@@ -1150,18 +1212,34 @@ public abstract class AssistantChat extends TopComponent {
 
     public int getAllCodeEditorCount() {
         int count = 0;
-        for (int i = 0; i < parentPanel.getComponentCount(); i++) {
-            if (parentPanel.getComponent(i) instanceof JEditorPane) {
-                JEditorPane editorPane = (JEditorPane) parentPanel.getComponent(i);
-                if (!editorPane.getEditorKit().getContentType().equals("text/html")
-                        && editorPane.getEditorKit().getContentType().startsWith("text")) {
-                    count++;
-                }
+        for (EditorContent editor : getEditorContents()) {
+            if (!editor.contentType().equals("text/html")
+                    && editor.contentType().startsWith("text")) {
+                count++;
             }
         }
         return count;
     }
 
+    private record EditorContent(String contentType, String text) {}
+
+    /**
+     * The content of the editors of the transcript, including the ones
+     * currently replaced by a placeholder
+     */
+    private List<EditorContent> getEditorContents() {
+        final List<EditorContent> contents = new ArrayList<>();
+        for (int i = 0; i < parentPanel.getComponentCount(); i++) {
+            final Component c = parentPanel.getComponent(i);
+            if (c instanceof JEditorPane editorPane) {
+                contents.add(new EditorContent(editorPane.getEditorKit().getContentType(), editorPane.getText()));
+            } else if (c instanceof BlockVirtualizer.Placeholder placeholder && placeholder.editorContentType() != null) {
+                contents.add(new EditorContent(placeholder.editorContentType(), placeholder.editorText()));
+            }
+        }
+        return contents;
+    }
+
     public void getParseCodeEditor(List<FileObject> context) {
         StaticJavaParser.getParserConfiguration().setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_21);
         Map<JEditorPane, Map<String, String>> editorMethodSignCache = new HashMap<>();
@@ -1345,24 +1423,7 @@ public abstract class AssistantChat extends TopComponent {
             if (parentPanel.getComponent(i) instanceof JEditorPane editorPane) {
                 menuItems.computeIfAbsent(editorPane, k -> new ArrayList<>());
                 if (JAVA_MIME.equals(editorPane.getEditorKit().getContentType())) {
-                    JMenuItem diffMethodItem = new JMenuItem("Diff with Selected Snippet");
-                    diffMethodItem.addActionListener(e -> SwingUtilities.invokeLater(() -> {
-                        JTextComponent currenteditor = EditorRegistry.lastFocusedComponent();
-                        String currentSelectedText = currenteditor.getSelectedText();
-                        final StyledDocument currentDocument = (StyledDocument) currenteditor.getDocument();
-                        DataObject currentDO = NbEditorUtilities.getDataObject(currentDocument);
-                        if (currentDO != null) {
-                            FileObject focusedfile = currentDO.getPrimaryFile();
-                            if (focusedfile != null && currentSelectedText != null && !currentSelectedText.trim().isEmpty()) {
-                                diffActionWithSelected(currentSelectedText, focusedfile, editorPane);
-                            } else {
-                                JOptionPane.showMessageDialog(null, "Please select text in the source editor.");
-                            }
-                        } else {
-                            JOptionPane.showMessageDialog(null, "Please select text in the source editor.");
-                        }
-                    }));
-                    menuItems.get(editorPane).add(diffMethodItem);
+                    menuItems.get(editorPane).add(createDiffWithSelectedItem(editorPane));
                 }
             }
         }
@@ -1388,6 +1449,27 @@ public abstract class AssistantChat extends TopComponent {
         }
     }
 
+    private JMenuItem createDiffWithSelectedItem(final JEditorPane editorPane) {
+        JMenuItem diffMethodItem = new JMenuItem("Diff with Selected Snippet");
+        diffMethodItem.addActionListener(e -> SwingUtilities.invokeLater(() -> {
+            JTextComponent currenteditor = EditorRegistry.lastFocusedComponent();
+            String currentSelectedText = currenteditor.getSelectedText();
+            final StyledDocument currentDocument = (StyledDocument) currenteditor.getDocument();
+            DataObject currentDO = NbEditorUtilities.getDataObject(currentDocument);
+            if (currentDO != null) {
+                FileObject focusedfile = currentDO.getPrimaryFile();
+                if (focusedfile != null && currentSelectedText != null && !currentSelectedText.trim().isEmpty()) {
+                    diffActionWithSelected(currentSelectedText, focusedfile, editorPane);
+                } else {
+                    JOptionPane.showMessageDialog(null, "Please select text in the source editor.");
+                }
+            } else {
+                JOptionPane.showMessageDialog(null, "Please select text in the source editor.");
+            }
+        }));
+        return diffMethodItem;
+    }
+
     public Project getProject() {
         return project;
     }
@@ -1541,6 +1623,7 @@ public abstract class AssistantChat extends TopComponent {
             } else {
                 submenuItems.get(editorPane).add(diffMethodItem);
             }
+            editorPane.putClientProperty(FILE_MENUS_KEY, Boolean.TRUE);
             return true;
         }
         return false;
@@ -1549,7 +1632,9 @@ public abstract class AssistantChat extends TopComponent {
     public int getAllEditorCount() {
         int count = 0;
         for (int i = 0; i < parentPanel.getComponentCount(); i++) {
-            if (parentPanel.getComponent(i) instanceof JEditorPane) {
+            if (parentPanel.getComponent(i) instanceof JEditorPane
+                    || (parentPanel.getComponent(i) instanceof BlockVirtualizer.Placeholder placeholder
+                        && placeholder.editorContentType() != null)) {
                 count++;
             }
         }
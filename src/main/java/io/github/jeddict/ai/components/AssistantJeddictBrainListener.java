@@ -30,7 +30,6 @@ import io.github.jeddict.ai.settings.PreferencesManager;
 import io.github.jeddict.ai.util.AudioUtil;
 import io.github.jeddict.ai.util.UIUtil;
 import java.util.Set;
-import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.Box;
@@ -41,6 +40,7 @@ import javax.swing.JPanel;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
 import org.openide.util.Exceptions;
 import org.openide.util.NbBundle;
 
@@ -64,8 +64,15 @@ public class AssistantJeddictBrainListener
 
     private final PreferencesManager pm = PreferencesManager.getInstance();
 
+    //
+    // fast models stream hundreds of tokens per second: partial responses
+    // are coalesced into at most one text area update per frame
+    //
+    private final PartialResponseCoalescer progress;
+
     public AssistantJeddictBrainListener(AssistantChat assistantChat) {
         this.assistantChat = assistantChat;
+        this.progress = new PartialResponseCoalescer(pm.getStreamRefreshMillis(), this::appendProgress);
     }
 
     @Override
@@ -100,23 +107,24 @@ public class AssistantJeddictBrainListener
         // may consider a token the estimation extracted here is based on the
         // {@code String.valueOf()} of the context's request.
         //
-        SwingUtilities.invokeLater(() -> {
-            //
-            // TODO: we should update the UI only here and the real stats in
-            // onResponse where we can use the real counts returned by the model
-            //
-            final int n = TokenHandler.saveInputToken(String.valueOf(request));
+        // The UI gets a cheap estimation right away, the exact count is done
+        // in background and refines the progress once available. Stats are
+        // recorded by the model itself (see JeddictBrain), once the counts
+        // reported by the provider are available.
+        //
+        final String content = String.valueOf(request);
+        assistantChat.updateLoading(
+            NbBundle.getMessage(JeddictUpdateManager.class, "PROGRESS_TASK_2", TokenHandler.estimateTokens(content))
+        );
+        TokenHandler.countTokensAsync(content).thenAccept((n) ->
             assistantChat.updateLoading(
                 NbBundle.getMessage(JeddictUpdateManager.class, "PROGRESS_TASK_2", n)
-            );
-        });
+            )
+        );
     }
 
     @Override
     public void onResponse(final ChatRequest request, final ChatResponse response) {
-        //
-        // TODO: use reponse.tokenUsage()
-        //
         LOG.finest(() ->
             ">>> request\n-----------\n" +
             request +
@@ -126,7 +134,6 @@ public class AssistantJeddictBrainListener
         );
         final String result = response.aiMessage().text();
         assistantChat.response().addMarkdown(result);
-        CompletableFuture.runAsync(() -> TokenHandler.saveOutputToken(result));
     }
 
     /**
@@ -152,12 +159,7 @@ public class AssistantJeddictBrainListener
             "<<< partial response\n--------------------\n" +
             partialResponse +
             "\n----------");
-        SwingUtilities.invokeLater(() -> {
-            if (newThread && !textArea.getText().endsWith("\n")) {
-                textArea.append("\n");
-            }
-            textArea.append(partialResponse);
-        });
+        progress.append(partialResponse, newThread);
     }
 
     @Override
@@ -172,6 +174,10 @@ public class AssistantJeddictBrainListener
         // just in case...
         //
         cleanup();
+
+        LOG.fine(() -> "partial responses: %d, text updates: %d (%d EDT events saved)".formatted(
+            progress.getAppendCount(), progress.getUpdateCount(), progress.getSavedEvents()
+        ));
     }
 
     @Override
@@ -230,7 +236,25 @@ public class AssistantJeddictBrainListener
         );
     }
 
+    private void appendProgress(final String text, final boolean newLine) {
+        if (textArea == null) {
+            return;
+        }
+        final int length = textArea.getDocument().getLength();
+        if (newLine && length > 0) {
+            try {
+                if (!"\n".equals(textArea.getDocument().getText(length - 1, 1))) {
+                    textArea.append("\n");
+                }
+            } catch (BadLocationException x) {
+                // can not happen, length is the document length
+            }
+        }
+        textArea.append(text);
+    }
+
     private void cleanup() {
+        progress.flush();
         assistantChat.stopLoading();
         assistantChat.getQuestionPane().setText("");
         assistantChat.updateHeight();
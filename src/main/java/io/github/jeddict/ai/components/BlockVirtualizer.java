@@ -0,0 +1,296 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.components;
+
+import io.github.jeddict.ai.response.TextBlock;
+import io.github.jeddict.ai.util.EditorUtil;
+import static io.github.jeddict.ai.util.MimeUtil.MIME_MARKDOWN;
+import static io.github.jeddict.ai.util.MimeUtil.MIME_MERMAID;
+import static io.github.jeddict.ai.util.MimeUtil.MIME_PLAIN_TEXT;
+import static io.github.jeddict.ai.util.MimeUtil.MIME_PUML;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Rectangle;
+import java.awt.event.HierarchyEvent;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+import javax.swing.JComponent;
+import javax.swing.JEditorPane;
+import javax.swing.JPanel;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeListener;
+
+/**
+ * Keeps real components only for the blocks of a chat transcript which are
+ * near the viewport. Blocks far from it are replaced by lightweight
+ * {@link Placeholder}s with the height of the component they replace (or an
+ * estimate if the block has never been shown) and are materialized again when
+ * scrolled back into view.
+ * <p>
+ * All methods must be called on the EDT.
+ */
+class BlockVirtualizer {
+
+    private static final Logger LOG = Logger.getLogger(BlockVirtualizer.class.getName());
+
+    //
+    // blocks within one viewport height from the visible area are materialized,
+    // blocks further than three viewport heights are released; the gap avoids
+    // creating and releasing the same block while scrolling back and forth
+    //
+    static final int MATERIALIZE_SCREENS = 1;
+    static final int RELEASE_SCREENS = 3;
+
+    private static final int DEFAULT_VIEWPORT_HEIGHT = 800;
+    private static final int CHARS_PER_LINE = 120;
+    private static final int BLOCK_PADDING = 24;
+
+    private final JPanel panel;
+    private final BiFunction<Placeholder, Integer, JComponent> materializer;
+    private final Predicate<JComponent> releaser;
+
+    //
+    // placeholders to use for the materialized blocks; weak keys so that
+    // components removed from the panel by other means are not retained
+    //
+    private final Map<Component, Placeholder> tracked = new WeakHashMap<>();
+
+    private final ChangeListener viewportListener = (e) -> scheduleUpdate();
+
+    private JViewport viewport;
+    private boolean updateScheduled = false;
+    private int estimatedHeight = 0;
+
+    /**
+     * @param panel the panel with the blocks, view of a scroll pane
+     * @param materializer creates the component of a placeholder and adds it
+     *                     to the panel at the given index
+     * @param releaser releases the resources of a component about to be
+     *                 replaced by a placeholder; returns false if the
+     *                 component must be kept
+     */
+    BlockVirtualizer(
+        final JPanel panel,
+        final BiFunction<Placeholder, Integer, JComponent> materializer,
+        final Predicate<JComponent> releaser
+    ) {
+        this.panel = panel;
+        this.materializer = materializer;
+        this.releaser = releaser;
+
+        panel.addHierarchyListener((e) -> {
+            if ((e.getChangeFlags() & HierarchyEvent.PARENT_CHANGED) != 0) {
+                attach();
+            }
+        });
+    }
+
+    /**
+     * Returns a placeholder for the given block if it is far enough from the
+     * top of the transcript to not be visible when first shown; the caller
+     * renders the block otherwise.
+     *
+     * @return the placeholder to add to the panel or null if the block must be
+     *         rendered now
+     */
+    Placeholder defer(final TextBlock actionBlock, final TextBlock block) {
+        final int height = estimateHeight(block);
+        final boolean far = estimatedHeight > (MATERIALIZE_SCREENS + 1) * viewportHeight();
+        estimatedHeight += height;
+
+        return far ? new Placeholder(actionBlock, block, height) : null;
+    }
+
+    /**
+     * Tracks the component rendering the given block, so that it can be
+     * released when far from the viewport.
+     */
+    void track(final JComponent pane, final TextBlock actionBlock, final TextBlock block) {
+        if (pane != null) {
+            tracked.put(pane, new Placeholder(actionBlock, block, 0));
+        }
+    }
+
+    void clear() {
+        tracked.clear();
+        estimatedHeight = 0;
+    }
+
+    void scheduleUpdate() {
+        if (!updateScheduled) {
+            updateScheduled = true;
+            SwingUtilities.invokeLater(this::update);
+        }
+    }
+
+    /**
+     * Materializes the placeholders near the viewport and releases the
+     * components far from it.
+     */
+    void update() {
+        updateScheduled = false;
+        if (viewport == null || !panel.isShowing()) {
+            return;
+        }
+
+        final Rectangle view = viewport.getViewRect();
+        final int height = Math.max(view.height, 1);
+        final int nearTop = view.y - MATERIALIZE_SCREENS * height,
+                  nearBottom = view.y + view.height + MATERIALIZE_SCREENS * height,
+                  farTop = view.y - RELEASE_SCREENS * height,
+                  farBottom = view.y + view.height + RELEASE_SCREENS * height;
+
+        int materialized = 0, released = 0;
+        for (int i = 0; i < panel.getComponentCount(); ++i) {
+            final Component c = panel.getComponent(i);
+            if (c instanceof Placeholder placeholder) {
+                if (c.getY() + c.getHeight() >= nearTop && c.getY() <= nearBottom) {
+                    panel.remove(i);
+                    final JComponent pane = materializer.apply(placeholder, i);
+                    if (pane == null) {
+                        panel.add(placeholder, i);
+                    } else {
+                        tracked.put(pane, placeholder);
+                        ++materialized;
+                    }
+                }
+            } else if (c.getY() + c.getHeight() < farTop || c.getY() > farBottom) {
+                final Placeholder placeholder = tracked.get(c);
+                if (placeholder != null && releaser.test((JComponent) c)) {
+                    placeholder.release(c);
+                    tracked.remove(c);
+                    panel.remove(i);
+                    panel.add(placeholder, i);
+                    ++released;
+                }
+            }
+        }
+
+        if (materialized + released > 0) {
+            final int m = materialized, r = released;
+            LOG.finest(() -> "blocks materialized: " + m + ", released: " + r + ", live: " + tracked.size());
+            panel.revalidate();
+            panel.repaint();
+        }
+    }
+
+    // --------------------------------------------------------- private methods
+
+    private void attach() {
+        final JViewport newViewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, panel);
+        if (newViewport == viewport) {
+            return;
+        }
+        if (viewport != null) {
+            viewport.removeChangeListener(viewportListener);
+        }
+        viewport = newViewport;
+        if (viewport != null) {
+            viewport.addChangeListener(viewportListener);
+            scheduleUpdate();
+        }
+    }
+
+    private int viewportHeight() {
+        return (viewport != null && viewport.getHeight() > 0) ? viewport.getHeight() : DEFAULT_VIEWPORT_HEIGHT;
+    }
+
+    private int estimateHeight(final TextBlock block) {
+        final String content = (block.getContent() == null) ? "" : block.getContent();
+        int lines = 1 + content.length() / CHARS_PER_LINE;
+        for (int i = content.indexOf('\n'); i >= 0; i = content.indexOf('\n', i + 1)) {
+            ++lines;
+        }
+        final Font font = panel.getFont();
+        final int lineHeight = (font == null) ? 16 : panel.getFontMetrics(font).getHeight();
+
+        return lines * lineHeight + BLOCK_PADDING;
+    }
+
+    // ---------------------------------------------------------- Placeholder
+
+    /**
+     * Stands for a block not near the viewport; it paints nothing and keeps
+     * the height of the component it replaces so that the scroll position does
+     * not change. It also remembers the content of the editor it replaces, so
+     * that the transcript text can still be extracted.
+     */
+    static final class Placeholder extends JComponent {
+
+        final TextBlock actionBlock;
+        final TextBlock block;
+
+        private boolean released = false;
+        private String editorContentType, editorText;
+
+        Placeholder(final TextBlock actionBlock, final TextBlock block, final int height) {
+            this.actionBlock = actionBlock;
+            this.block = block;
+            setHeight(height);
+        }
+
+        /**
+         * The content type of the editor rendering the block or null if the
+         * block is not rendered by a plain editor
+         */
+        String editorContentType() {
+            if (!released) {
+                final String type = block.type;
+                if ("text".equals(type) || "web".equals(type)) {
+                    return "text/html";
+                }
+                if ("tooling".equals(type)) {
+                    return null;
+                }
+                final String mimeType = EditorUtil.getMimeType(type);
+                if (MIME_PUML.equals(mimeType) || MIME_MARKDOWN.equals(mimeType) || MIME_MERMAID.equals(mimeType)) {
+                    return null;
+                }
+                return (mimeType == null || mimeType.isBlank()) ? MIME_PLAIN_TEXT : mimeType;
+            }
+            return editorContentType;
+        }
+
+        String editorText() {
+            if (!released) {
+                return "text".equals(block.type) ? EditorUtil.renderMarkdown(block.getContent()) : block.getContent();
+            }
+            return editorText;
+        }
+
+        private void release(final Component pane) {
+            setHeight(pane.getHeight());
+            released = true;
+            if (pane instanceof JEditorPane editorPane) {
+                editorContentType = editorPane.getEditorKit().getContentType();
+                editorText = editorPane.getText();
+            } else {
+                editorContentType = editorText = null;
+            }
+        }
+
+        private void setHeight(final int height) {
+            setMinimumSize(new Dimension(0, height));
+            setPreferredSize(new Dimension(0, height));
+            setMaximumSize(new Dimension(Integer.MAX_VALUE, height));
+        }
+    }
+}
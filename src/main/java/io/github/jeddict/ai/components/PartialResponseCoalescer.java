@@ -0,0 +1,145 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.components;
+
+import java.util.function.BiConsumer;
+import javax.swing.SwingUtilities;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Coalesces streamed partial responses into at most one EDT update per frame.
+ * <p>
+ * Partial text is accumulated off the EDT as it arrives; the first piece of a
+ * frame schedules a single update which hands all the text accumulated so
+ * far to the sink on the EDT. An update is dispatched right away if the
+ * previous one is older than a frame, so that the first token is shown
+ * without delay, otherwise at the end of the current frame.
+ * <p>
+ * The sink receives the text and whether it shall start on a new line (see
+ * {@link #append(String, boolean)}).
+ */
+public class PartialResponseCoalescer {
+
+    private static final RequestProcessor RP = new RequestProcessor(PartialResponseCoalescer.class);
+
+    private final long frameNanos;
+    private final BiConsumer<String, Boolean> sink;
+
+    private final StringBuilder buffer = new StringBuilder();
+    private boolean newLine;
+    private boolean scheduled;
+    private long lastDispatch;
+
+    private long appends;
+    private long updates;
+
+    /**
+     * @param frameMillis the minimum time between two EDT updates
+     * @param sink the consumer of the coalesced text, called on the EDT
+     */
+    public PartialResponseCoalescer(final long frameMillis, final BiConsumer<String, Boolean> sink) {
+        this.frameNanos = Math.max(0, frameMillis) * 1_000_000;
+        this.sink = sink;
+        this.lastDispatch = System.nanoTime() - frameNanos;
+    }
+
+    /**
+     * Adds partial text, to be shown at the next update.
+     *
+     * @param text the partial text
+     * @param newThread true if the text shall start on a new line
+     */
+    public void append(final String text, final boolean newThread) {
+        final long delay;
+        synchronized (this) {
+            ++appends;
+            if (newThread) {
+                if (buffer.length() == 0) {
+                    newLine = true;
+                } else if (buffer.charAt(buffer.length() - 1) != '\n') {
+                    buffer.append('\n');
+                }
+            }
+            buffer.append(text);
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+            delay = (lastDispatch + frameNanos - System.nanoTime()) / 1_000_000;
+        }
+
+        if (delay <= 0) {
+            SwingUtilities.invokeLater(this::update);
+        } else {
+            RP.post(() -> SwingUtilities.invokeLater(this::update), (int) delay);
+        }
+    }
+
+    /**
+     * Schedules an update right away for the text accumulated so far, e.g.
+     * at the end of the stream.
+     */
+    public void flush() {
+        synchronized (this) {
+            if (buffer.length() == 0 && !newLine) {
+                return;
+            }
+            scheduled = true;
+        }
+        SwingUtilities.invokeLater(this::update);
+    }
+
+    /**
+     * @return the number of partial texts appended
+     */
+    public synchronized long getAppendCount() {
+        return appends;
+    }
+
+    /**
+     * @return the number of EDT updates performed
+     */
+    public synchronized long getUpdateCount() {
+        return updates;
+    }
+
+    /**
+     * @return the number of EDT events saved compared to one per partial text
+     */
+    public synchronized long getSavedEvents() {
+        return appends - updates;
+    }
+
+    // --------------------------------------------------------- private methods
+
+    private void update() {
+        final String text;
+        final boolean startOnNewLine;
+        synchronized (this) {
+            scheduled = false;
+            if (buffer.length() == 0 && !newLine) {
+                return;  // already taken by a previous update
+            }
+            text = buffer.toString();
+            startOnNewLine = newLine;
+            buffer.setLength(0);
+            newLine = false;
+            lastDispatch = System.nanoTime();
+            ++updates;
+        }
+        sink.accept(text, startOnNewLine);
+    }
+}
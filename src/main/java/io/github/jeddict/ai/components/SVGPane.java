@@ -17,6 +17,7 @@ package io.github.jeddict.ai.components;
 
 import io.github.jeddict.ai.response.TextBlock;
 import static io.github.jeddict.ai.util.ColorUtil.isDarkColor;
+import io.github.jeddict.ai.util.ContentCache;
 import static io.github.jeddict.ai.util.EditorUtil.createEditorKit;
 import static io.github.jeddict.ai.util.EditorUtil.getBackgroundColorFromMimeType;
 import static io.github.jeddict.ai.util.EditorUtil.getTextColorFromMimeType;
@@ -38,6 +39,9 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javax.swing.JDialog;
 import javax.swing.JEditorPane;
 import javax.swing.JMenuItem;
@@ -59,22 +63,49 @@ import org.apache.batik.swing.JSVGCanvas;
 import org.apache.batik.swing.gvt.GVTTreeRendererAdapter;
 import org.apache.batik.swing.gvt.GVTTreeRendererEvent;
 import org.apache.batik.util.XMLResourceDescriptor;
+import org.openide.util.RequestProcessor;
+import org.w3c.dom.svg.SVGDocument;
 
 /**
  *
  * @author Gaurav Gupta
  */
 public class SVGPane extends JTabbedPane {
-    
-    
+
+    private static final Logger LOG = Logger.getLogger(SVGPane.class.getName());
+    private static final RequestProcessor RP = new RequestProcessor(SVGPane.class);
+
+    //
+    // SVG rendered by PlantUML, by hash of the source (dark theme included):
+    // running PlantUML is by far the most expensive step, so re-displaying a
+    // diagram (e.g. navigating the history) does not render it again. Batik
+    // documents and GVT trees are bound to the canvas displaying them, hence
+    // they are not shared; documents are built in background instead.
+    //
+    static final ContentCache<String> SVG_CACHE = new ContentCache<>(64);
+
+    //
+    // edits are rendered once the user stops typing for this long
+    //
+    static final int RENDER_DELAY_MILLIS = 300;
+
+    private final RequestProcessor.Task renderTask = RP.create(this::render);
+
+    private JSVGCanvas canvas;
+    private Color backgroundColor, textColor;
+    private volatile String umlSource;
+    private volatile String svgContent;
+
     public JEditorPane createPane(final TextBlock content) {
-        Color backgroundColor = getBackgroundColorFromMimeType(MIME_PLAIN_TEXT);
-        Color textColor = getTextColorFromMimeType(MIME_PLAIN_TEXT);
+        backgroundColor = getBackgroundColorFromMimeType(MIME_PLAIN_TEXT);
+        textColor = getTextColorFromMimeType(MIME_PLAIN_TEXT);
         JTabbedPane tabbedPane = this;
 
-        JSVGCanvas canvas = new JSVGCanvas();
+        canvas = new JSVGCanvas();
         canvas.setDocumentState(JSVGCanvas.ALWAYS_DYNAMIC);
         canvas.setDisableInteractions(true);
+        fitToDocument(canvas);
+        addContextMenu(canvas);
         JPanel umlPanel = new JPanel();
         umlPanel.setLayout(new GridBagLayout()); // Center the canvas nicely
         umlPanel.add(canvas);
@@ -86,53 +117,31 @@ public class SVGPane extends JTabbedPane {
         editorPane.setEditorKit(editorKit);
         editorPane.setText(content.getContent());
         tabbedPane.addTab("Source", editorPane);
-        final boolean[] reRender = {true};
         editorPane.getDocument().addDocumentListener(new DocumentListener() {
             @Override
             public void insertUpdate(DocumentEvent e) {
-                reRender[0]= true;
-                content.setContent(editorPane.getText());
+                sourceChanged(content, editorPane.getText());
             }
 
             @Override
             public void removeUpdate(DocumentEvent e) {
-                reRender[0]= true;
-                content.setContent(editorPane.getText());
+                sourceChanged(content, editorPane.getText());
             }
 
             @Override
             public void changedUpdate(DocumentEvent e) {
-                reRender[0]= true;
-                content.setContent(editorPane.getText());
+                sourceChanged(content, editorPane.getText());
             }
         });
-        boolean isDarkTheme = isDarkColor(backgroundColor);
         tabbedPane.setBackgroundAt(0, backgroundColor);
         tabbedPane.setBackgroundAt(1, backgroundColor);
         tabbedPane.setForegroundAt(0, textColor);
         tabbedPane.setForegroundAt(1, textColor);
         tabbedPane.setUI(new ColoredTabbedPaneUI(backgroundColor));
 
-        Runnable updateCanvas = () -> {
-            String umlContent = editorPane.getText();
-            if (reRender[0] == true) {
-                reRender[0] = false;
-                if (isDarkTheme) {
-                    umlContent = addDarkTheme(umlContent, backgroundColor, textColor);
-                }
-                String svgContent = convertPlantUmlToSvg(umlContent);
-                loadSVG(canvas, svgContent);
-                addContextMenu(canvas, svgContent);
-            }
-        };
-
-        SwingUtilities.invokeLater(updateCanvas);
+        umlSource = content.getContent();
+        renderTask.schedule(0);
 
-        tabbedPane.addChangeListener(e -> {
-            if (tabbedPane.getSelectedIndex() == 0) {
-                SwingUtilities.invokeLater(updateCanvas);
-            }
-        });
         return editorPane;
     }
 
@@ -271,11 +280,15 @@ public class SVGPane extends JTabbedPane {
         }
     }
 
-    private void addContextMenu(JSVGCanvas canvas, String svgContent) {
+    private void addContextMenu(JSVGCanvas canvas) {
         JPopupMenu popupMenu = new JPopupMenu();
         JMenuItem openInBrowserItem = new JMenuItem("Open in Browser");
 
         openInBrowserItem.addActionListener(e -> {
+            final String svgContent = this.svgContent;
+            if (svgContent == null) {
+                return;
+            }
             try {
                 File tempFile = File.createTempFile("temp_svg_", ".svg");
                 tempFile.deleteOnExit(); // Clean up later
@@ -308,7 +321,7 @@ public class SVGPane extends JTabbedPane {
 
             @Override
             public void mouseClicked(MouseEvent e) {
-                if (e.getClickCount() == 2 && SwingUtilities.isLeftMouseButton(e)) {
+                if (e.getClickCount() == 2 && SwingUtilities.isLeftMouseButton(e) && svgContent != null) {
                     openFullViewPopup(svgContent);
                 }
             }
@@ -327,40 +340,106 @@ public class SVGPane extends JTabbedPane {
         dialog.setSize(800, 600); // Or full screen: Toolkit.getDefaultToolkit().getScreenSize()
         dialog.setLocationRelativeTo(null); // Center on screen
 
-        SwingUtilities.invokeLater(() -> loadSVG(fullViewCanvas, svgContent));
+        loadSVG(fullViewCanvas, svgContent);
 
         dialog.setVisible(true);
     }
 
+    /**
+     * Loads the given SVG in the given canvas; the document is built in
+     * background.
+     */
     public void loadSVG(JSVGCanvas svgCanvas, String svgContent) {
-        try {
-            // Convert the SVG string to InputStream
-            InputStream inputStream = new ByteArrayInputStream(svgContent.getBytes("UTF-8"));
+        fitToDocument(svgCanvas);
+        RP.post(() -> {
+            final SVGDocument svgDocument = createSVGDocument(svgContent);
+            if (svgDocument != null) {
+                SwingUtilities.invokeLater(() -> svgCanvas.setSVGDocument(svgDocument));
+            }
+        });
+    }
+
+    /**
+     * Builds the Batik document of the given SVG; this can be done outside the
+     * EDT.
+     *
+     * @return the document or null if the SVG can not be parsed
+     */
+    public static SVGDocument createSVGDocument(String svgContent) {
+        try (InputStream inputStream = new ByteArrayInputStream(svgContent.getBytes(StandardCharsets.UTF_8))) {
             String parser = XMLResourceDescriptor.getXMLParserClassName();
             SAXSVGDocumentFactory factory = new SAXSVGDocumentFactory(parser);
 
-            // Create the SVGDocument
-            org.w3c.dom.svg.SVGDocument svgDocument = factory.createSVGDocument("http://www.w3.org/2000/svg", inputStream);
-            svgCanvas.setSVGDocument(svgDocument);
-
-            svgCanvas.addGVTTreeRendererListener(new GVTTreeRendererAdapter() {
-                @Override
-                public void gvtRenderingCompleted(GVTTreeRendererEvent e) {
-                    SwingUtilities.invokeLater(() -> {
-                        Dimension2D docSize = svgCanvas.getSVGDocumentSize();
-                        if (docSize != null) {
-                            int width = (int) Math.ceil(docSize.getWidth());
-                            int height = (int) Math.ceil(docSize.getHeight());
-                            svgCanvas.setPreferredSize(new Dimension(width, height));
-                            svgCanvas.revalidate();
-                        }
-                    });
-                }
-            });
-
+            return factory.createSVGDocument("http://www.w3.org/2000/svg", inputStream);
         } catch (Exception e) {
-            e.printStackTrace();
+            LOG.log(Level.INFO, "unable to parse SVG: {0}", e.getMessage());
+            LOG.log(Level.FINE, "", e);
         }
+        return null;
+    }
+
+    /**
+     * Renders the current source and displays it; runs in background, outside
+     * the EDT.
+     */
+    private void render() {
+        final String uml = umlSource;
+        if (uml == null) {
+            return;
+        }
+
+        String source = uml;
+        if (isDarkColor(backgroundColor)) {
+            try {
+                source = addDarkTheme(uml, backgroundColor, textColor);
+            } catch (IllegalArgumentException x) {
+                LOG.finest(() -> "not rendering PlantUML: " + x.getMessage());
+                return;
+            }
+        }
+
+        final String svg = SVG_CACHE.computeIfAbsent(source, this::convertPlantUmlToSvg);
+        if (svg == null || !uml.equals(umlSource)) {
+            //
+            // conversion failed or the source changed meanwhile, in which case
+            // a new rendering is already scheduled
+            //
+            return;
+        }
+        final SVGDocument svgDocument = createSVGDocument(svg);
+        if (svgDocument == null) {
+            return;
+        }
+
+        SwingUtilities.invokeLater(() -> {
+            if (uml.equals(umlSource)) {
+                svgContent = svg;
+                canvas.setSVGDocument(svgDocument);
+            }
+        });
+    }
+
+    private void sourceChanged(final TextBlock content, final String text) {
+        content.setContent(text);
+        umlSource = text;
+        renderTask.schedule(RENDER_DELAY_MILLIS);
+    }
+
+    private static void fitToDocument(JSVGCanvas svgCanvas) {
+        svgCanvas.addGVTTreeRendererListener(new GVTTreeRendererAdapter() {
+            @Override
+            public void gvtRenderingCompleted(GVTTreeRendererEvent e) {
+                SwingUtilities.invokeLater(() -> {
+                    Dimension2D docSize = svgCanvas.getSVGDocumentSize();
+                    if (docSize != null) {
+                        int width = (int) Math.ceil(docSize.getWidth());
+                        int height = (int) Math.ceil(docSize.getHeight());
+                        svgCanvas.setPreferredSize(new Dimension(width, height));
+                        svgCanvas.revalidate();
+                    }
+                });
+            }
+        });
     }
 
     /**
@@ -380,7 +459,7 @@ public class SVGPane extends JTabbedPane {
             reader.outputImage(outputStream, new FileFormatOption(FileFormat.SVG));
 
             // Return the SVG as a string
-            String svgContent = outputStream.toString("UTF-8");
+            String svgContent = outputStream.toString(StandardCharsets.UTF_8);
             svgContent = svgContent.replaceAll("text-decoration\\s*=\\s*\"wavy underline\"", "text-decoration=\"underline\"");
             return svgContent;
         } catch (IOException e) {
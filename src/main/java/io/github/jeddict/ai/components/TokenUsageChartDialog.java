@@ -22,8 +22,12 @@ import io.github.jeddict.ai.util.ColorUtil;
 import static io.github.jeddict.ai.util.EditorUtil.getBackgroundColorFromMimeType;
 import static io.github.jeddict.ai.util.MimeUtil.MIME_PLAIN_TEXT;
 import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import javax.swing.*;
-import org.json.JSONObject;
 
 public class TokenUsageChartDialog extends JDialog {
 
@@ -70,23 +74,14 @@ public class TokenUsageChartDialog extends JDialog {
         buttonPanel.add(timeframeComboBox);
 
         timeframeComboBox.addActionListener(e -> {
+            //
+            // usage is kept at all granularities, switching is instant and
+            // does not lose data
+            //
             TokenGranularity selected = (TokenGranularity) timeframeComboBox.getSelectedItem();
-            TokenGranularity current = PreferencesManager.getInstance().getTokenGranularity();
-            if (!selected.equals(current)) {
-                int response = JOptionPane.showConfirmDialog(this,
-                        "Changing timeframe will erase existing token usage data.\nContinue?",
-                        "Confirm Timeframe Change",
-                        JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
-
-                if (response == JOptionPane.YES_OPTION) {
-                    ReportManager.getInstance().setDailyInputTokenStats(new JSONObject());
-                    ReportManager.getInstance().setDailyOutputTokenStats(new JSONObject());
-                    PreferencesManager.getInstance().setTokenGranularity(selected);
-                    getContentPane().removeAll();
-                    dispose();
-                } else {
-                    timeframeComboBox.setSelectedItem(current);
-                }
+            if (!selected.equals(PreferencesManager.getInstance().getTokenGranularity())) {
+                PreferencesManager.getInstance().setTokenGranularity(selected);
+                rebuildCharts();
             }
         });
 
@@ -105,6 +100,12 @@ public class TokenUsageChartDialog extends JDialog {
         closeButton.setBorder(BorderFactory.createEmptyBorder(5, 15, 5, 15));
         closeButton.addActionListener(e -> dispose());
 
+        JButton exportButton = new JButton("Export CSV...");
+        exportButton.setFont(new Font("SansSerif", Font.PLAIN, 14));
+        exportButton.setFocusPainted(false);
+        exportButton.addActionListener(e -> exportCsv());
+
+        buttonPanel.add(exportButton);
         buttonPanel.add(closeButton);
 
         add(buttonPanel, BorderLayout.SOUTH);
@@ -118,6 +119,29 @@ public class TokenUsageChartDialog extends JDialog {
         tabbedPane.addTab("Input Tokens", TokenUsageChartFactory.createInputChartPanel());
         tabbedPane.addTab("Output Tokens", TokenUsageChartFactory.createOutputChartPanel());
         tabbedPane.addTab("Combined", TokenUsageChartFactory.createCombinedChartPanel());
+        tabbedPane.addTab("By Model", TokenUsageChartFactory.createModelChartPanel());
+        tabbedPane.addTab("Cost & Latency", TokenUsageChartFactory.createCostLatencyPanel());
+    }
+
+    /**
+     * Exports the cost and latency metrics per model and feature as CSV.
+     */
+    private void exportCsv() {
+        PreferencesManager pm = PreferencesManager.getInstance();
+        JFileChooser fileChooser = new JFileChooser(pm.getLastBrowseDirectory());
+        fileChooser.setSelectedFile(new File("jeddict-request-metrics.csv"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+        pm.setLastBrowseDirectory(file.getParent());
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            ReportManager.getInstance().getRequestMetrics().writeCsv(writer);
+        } catch (IOException x) {
+            JOptionPane.showMessageDialog(this,
+                    "Unable to export metrics to " + file + ": " + x.getMessage(),
+                    "Export CSV", JOptionPane.ERROR_MESSAGE);
+        }
     }
 
     public static void showDialog(Component parentComponent) {
@@ -18,11 +18,17 @@ package io.github.jeddict.ai.components;
 import io.github.jeddict.ai.response.TokenGranularity;
 import io.github.jeddict.ai.settings.PreferencesManager;
 import io.github.jeddict.ai.settings.ReportManager;
+import io.github.jeddict.ai.settings.RequestMetrics;
+import static io.github.jeddict.ai.settings.ReportManager.CACHED_TOKENS;
+import static io.github.jeddict.ai.settings.ReportManager.INPUT_TOKENS;
+import static io.github.jeddict.ai.settings.ReportManager.OUTPUT_TOKENS;
 import static io.github.jeddict.ai.util.ColorUtil.isDarkColor;
 import static io.github.jeddict.ai.util.EditorUtil.getBackgroundColorFromMimeType;
 import static io.github.jeddict.ai.util.MimeUtil.MIME_PLAIN_TEXT;
 import java.awt.*;
+import java.util.List;
 import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
@@ -41,50 +47,134 @@ public class TokenUsageChartFactory {
         darkThemeEnabled = isDarkColor(backgroundColor);
     }
 
+    /**
+     * Number of buckets shown in the charts
+     */
+    public static final int CHART_BUCKETS = 30;
+
     public static JPanel createInputChartPanel() {
-        JSONObject inputStats = ReportManager.getInstance().getDailyInputTokenStats();
-        return createBarChartPanel(inputStats, "Input Token Usage", "Input Tokens", getInputColor());
+        TokenGranularity granularity = PreferencesManager.getInstance().getTokenGranularity();
+        long[] inputs = ReportManager.getInstance().getInputUsage(granularity, CHART_BUCKETS);
+        return createBarChartPanel(inputs, granularity, "Input Token Usage", "Input Tokens", getInputColor());
     }
 
     public static JPanel createOutputChartPanel() {
-        JSONObject outputStats = ReportManager.getInstance().getDailyOutputTokenStats();
-        return createBarChartPanel(outputStats, "Output Token Usage", "Output Tokens", getOutputColor());
+        TokenGranularity granularity = PreferencesManager.getInstance().getTokenGranularity();
+        long[] outputs = ReportManager.getInstance().getOutputUsage(granularity, CHART_BUCKETS);
+        return createBarChartPanel(outputs, granularity, "Output Token Usage", "Output Tokens", getOutputColor());
     }
 
     public static JPanel createCombinedChartPanel() {
-        JSONObject inputStats = ReportManager.getInstance().getDailyInputTokenStats();
-        JSONObject outputStats = ReportManager.getInstance().getDailyOutputTokenStats();
-        return createCombinedBarChartPanel(inputStats, outputStats, "Combined Token Usage");
+        TokenGranularity granularity = PreferencesManager.getInstance().getTokenGranularity();
+        long[] inputs = ReportManager.getInstance().getInputUsage(granularity, CHART_BUCKETS);
+        long[] outputs = ReportManager.getInstance().getOutputUsage(granularity, CHART_BUCKETS);
+        return createCombinedBarChartPanel(inputs, outputs, granularity, "Combined Token Usage");
     }
 
-    private static JPanel createBarChartPanel(JSONObject stats, String title, String label, Color color) {
-        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-        TokenGranularity granularity = PreferencesManager.getInstance().getTokenGranularity();
-        long now = System.currentTimeMillis() / granularity.intervalMillis;
-
-        int count = 0;
-        for (int i = 29; i >= 0; i--) {
-            long bucket = now - i;
-            int input = 0;
-            try {
-                input = stats.getInt(String.valueOf(bucket));
-            } catch (Exception ex) {
+    public static JPanel createModelChartPanel() {
+        JSONObject modelStats = ReportManager.getInstance().getModelTokenStats();
+        return createModelBarChartPanel(modelStats, "Token Usage by Model");
+    }
+
+    /**
+     * Cost and latency per model and feature: a table with the aggregated
+     * metrics and the wall time and time to first token histograms of the
+     * selected row.
+     */
+    public static JPanel createCostLatencyPanel() {
+        List<RequestMetrics.Stats> stats = ReportManager.getInstance().getRequestMetrics().getStats();
+
+        String[] columns = {
+            "Model", "Feature", "Requests", "Cost (USD)", "Avg Cost (USD)",
+            "p50 Wall (ms)", "p95 Wall (ms)", "p50 TTFT (ms)", "p95 TTFT (ms)"
+        };
+        DefaultTableModel tableModel = new DefaultTableModel(columns, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
             }
-            count = count + input;
+        };
+        for (RequestMetrics.Stats s : stats) {
+            tableModel.addRow(new Object[]{
+                s.model, s.feature, s.requests(),
+                String.format("%.4f", s.cost()), String.format("%.6f", s.averageCost()),
+                s.wallPercentile(0.5), s.wallPercentile(0.95),
+                s.ttftPercentile(0.5), s.ttftPercentile(0.95)
+            });
         }
-        label = label + "(" + count + ")";
-        for (int i = 29; i >= 0; i--) {
-            long bucket = now - i;
-            int tokens = 0;
-            try {
-                tokens = stats.getInt(String.valueOf(bucket));
-            } catch (Exception ex) {}
-            String labelStr = granularity.name().charAt(0) + granularity.name().substring(1).toLowerCase() + "-" + (30 - i);
-            dataset.addValue(tokens, label, labelStr);
+
+        JTable table = new JTable(tableModel);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.setAutoCreateRowSorter(true);
+
+        JPanel histogramPanel = new JPanel(new BorderLayout());
+        table.getSelectionModel().addListSelectionListener(e -> {
+            if (e.getValueIsAdjusting() || table.getSelectedRow() < 0) {
+                return;
+            }
+            histogramPanel.removeAll();
+            histogramPanel.add(
+                createLatencyHistogramPanel(stats.get(table.convertRowIndexToModel(table.getSelectedRow())))
+            );
+            histogramPanel.revalidate();
+            histogramPanel.repaint();
+        });
+        if (!stats.isEmpty()) {
+            table.setRowSelectionInterval(0, 0);
+        }
+
+        JSplitPane split = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(table), histogramPanel);
+        split.setResizeWeight(0.4);
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(split, BorderLayout.CENTER);
+        return panel;
+    }
+
+    private static JPanel createLatencyHistogramPanel(RequestMetrics.Stats stats) {
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+
+        long[] wall = stats.wallHistogram();
+        long[] ttft = stats.ttftHistogram();
+        for (int i = 0; i < wall.length; i++) {
+            String label = (i < RequestMetrics.LATENCY_BOUNDS_MS.length)
+                         ? "\u2264" + latencyLabel(RequestMetrics.LATENCY_BOUNDS_MS[i])
+                         : ">" + latencyLabel(RequestMetrics.LATENCY_BOUNDS_MS[i - 1]);
+            dataset.addValue(wall[i], "Wall Time", label);
+            dataset.addValue(ttft[i], "Time to First Token", label);
         }
 
         JFreeChart chart = ChartFactory.createBarChart(
-                title + " (Last 30 " + granularity.name().toLowerCase() + "s)",
+                "Latency of " + stats.model + " (" + stats.feature + ")",
+                "Latency", "Requests", dataset);
+
+        CategoryPlot plot = chart.getCategoryPlot();
+        BarRenderer renderer = (BarRenderer) plot.getRenderer();
+        renderer.setSeriesPaint(0, getOutputColor());
+        renderer.setSeriesPaint(1, getInputColor());
+        renderer.setBarPainter(new StandardBarPainter());
+        renderer.setItemMargin(0.1);
+
+        stylePlot(plot);
+        styleChart(chart);
+
+        return new ChartPanel(chart);
+    }
+
+    private static String latencyLabel(long millis) {
+        return (millis < 1_000) ? millis + "ms" : (millis / 1_000) + "s";
+    }
+
+    private static JPanel createBarChartPanel(long[] tokens, TokenGranularity granularity, String title, String label, Color color) {
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+
+        label = label + "(" + sum(tokens) + ")";
+        for (int i = 0; i < tokens.length; i++) {
+            dataset.addValue(tokens[i], label, bucketLabel(granularity, i + 1));
+        }
+
+        JFreeChart chart = ChartFactory.createBarChart(
+                title + " (Last " + tokens.length + " " + granularity.name().toLowerCase() + "s)",
                 granularity.name(), "Tokens", dataset);
 
         customizeChart(chart, color, 0);
@@ -92,48 +182,21 @@ public class TokenUsageChartFactory {
         return new ChartPanel(chart);
     }
 
-    private static JPanel createCombinedBarChartPanel(JSONObject inputStats, JSONObject outputStats, String title) {
+    private static JPanel createCombinedBarChartPanel(long[] inputs, long[] outputs, TokenGranularity granularity, String title) {
         DefaultCategoryDataset dataset = new DefaultCategoryDataset();
-        TokenGranularity granularity = PreferencesManager.getInstance().getTokenGranularity();
-        long now = System.currentTimeMillis() / granularity.intervalMillis;
-
-        int inputCount = 0, outputCount = 0;
-        for (int i = 29; i >= 0; i--) {
-            long bucket = now - i;
-            int input = 0;
-            int output = 0;
-            try {
-                input = inputStats.getInt(String.valueOf(bucket));
-            } catch (Exception ex) {}
-            try {
-                output = outputStats.getInt(String.valueOf(bucket));
-            } catch (Exception ex) {}
-
-            inputCount = inputCount + input;
-            outputCount = outputCount + output;
-        }
-        String inputLabel = "Input Tokens (" + inputCount + ")";
-        String outputLabel = "Output Tokens (" + outputCount + ")";
-        
-        for (int i = 29; i >= 0; i--) {
-            long bucket = now - i;
-            int input = 0;
-            int output = 0;
-            try {
-                input = inputStats.getInt(String.valueOf(bucket));
-            } catch (Exception ex) {}
-            try {
-                output = outputStats.getInt(String.valueOf(bucket));
-            } catch (Exception ex) {}
-
-            String label = granularity.name().charAt(0) + granularity.name().substring(1).toLowerCase() + "-" + (30 - i);
-
-            dataset.addValue(input, inputLabel, label);
-            dataset.addValue(output, outputLabel, label);
+
+        String inputLabel = "Input Tokens (" + sum(inputs) + ")";
+        String outputLabel = "Output Tokens (" + sum(outputs) + ")";
+
+        for (int i = 0; i < inputs.length; i++) {
+            String label = bucketLabel(granularity, i + 1);
+
+            dataset.addValue(inputs[i], inputLabel, label);
+            dataset.addValue(outputs[i], outputLabel, label);
         }
 
         JFreeChart chart = ChartFactory.createBarChart(
-                title + " (Last 30 " + granularity.name().toLowerCase() + "s)",
+                title + " (Last " + inputs.length + " " + granularity.name().toLowerCase() + "s)",
                 granularity.name(), "Tokens", dataset);
 
         CategoryPlot plot = chart.getCategoryPlot();
@@ -149,6 +212,47 @@ public class TokenUsageChartFactory {
         return new ChartPanel(chart);
     }
 
+    private static String bucketLabel(TokenGranularity granularity, int index) {
+        return granularity.name().charAt(0) + granularity.name().substring(1).toLowerCase() + "-" + index;
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+
+    private static JPanel createModelBarChartPanel(JSONObject modelStats, String title) {
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+
+        for (String model : modelStats.keySet()) {
+            JSONObject usage = modelStats.optJSONObject(model);
+            if (usage == null) {
+                continue;
+            }
+            dataset.addValue(usage.optLong(INPUT_TOKENS, 0), "Input Tokens", model);
+            dataset.addValue(usage.optLong(OUTPUT_TOKENS, 0), "Output Tokens", model);
+            dataset.addValue(usage.optLong(CACHED_TOKENS, 0), "Cached Input Tokens", model);
+        }
+
+        JFreeChart chart = ChartFactory.createBarChart(title, "Model", "Tokens", dataset);
+
+        CategoryPlot plot = chart.getCategoryPlot();
+        BarRenderer renderer = (BarRenderer) plot.getRenderer();
+        renderer.setSeriesPaint(0, getInputColor());
+        renderer.setSeriesPaint(1, getOutputColor());
+        renderer.setSeriesPaint(2, getCachedColor());
+        renderer.setBarPainter(new StandardBarPainter());
+        renderer.setItemMargin(0.1);
+
+        stylePlot(plot);
+        styleChart(chart);
+
+        return new ChartPanel(chart);
+    }
+
     private static void customizeChart(JFreeChart chart, Color color, int seriesIndex) {
         CategoryPlot plot = chart.getCategoryPlot();
         BarRenderer renderer = (BarRenderer) plot.getRenderer();
@@ -186,4 +290,8 @@ public class TokenUsageChartFactory {
     private static Color getOutputColor() {
         return darkThemeEnabled ? new Color(0xFF7690) : new Color(0xE94E77);
     }
+
+    private static Color getCachedColor() {
+        return darkThemeEnabled ? new Color(0x8FD694) : new Color(0x50A65A);
+    }
 }
@@ -20,31 +20,27 @@ import org.netbeans.api.visual.widget.*;
 
 public class MermaidClassDiagramViewer extends MermaidViewer {
 
+    private static final Pattern CLASS_PATTERN = Pattern.compile("class\\s+(\\w+)\\s*\\{?");
+    private static final Pattern METHOD_PATTERN = Pattern.compile("([+\\-#])\\s*(?:(\\w+)\\s+)?(\\w+)\\s*\\(\\)");
+    private static final Pattern ATTRIBUTE_PATTERN_1 = Pattern.compile("([+\\-#])\\s*(\\w+)\\s+(\\w+)");  // +String name
+    private static final Pattern ATTRIBUTE_PATTERN_2 = Pattern.compile("([+\\-#])\\s*(\\w+)\\s*:\\s*(\\w+)"); // +address: String
+    private static final Pattern INHERITANCE_PATTERN = Pattern.compile("(\\w+)\\s+<\\|--\\s+(\\w+)");
+    private static final Pattern ASSOCIATION_PATTERN = Pattern.compile("(\\w+)\\s+\"([^\"]+)\"\\s+--\\s+\"([^\"]+)\"\\s+(\\w+)\\s*:\\s*(\\w+)");
+
     public static JComponent createMermaidClassDiagramView(String mermaidText) {
-        Scene scene = new Scene();
-        LayerWidget nodeLayer = new LayerWidget(scene);
-        LayerWidget connectionLayer = new LayerWidget(scene);
-        scene.addChild(nodeLayer);
-        scene.addChild(connectionLayer);
-        scene.getActions().addAction(ActionFactory.createZoomAction());
-        scene.getActions().addAction(ActionFactory.createPanAction());
-
-        Map<String, Widget> classWidgets = new HashMap<>();
-        Map<String, ClassInfo> classes = new HashMap<>();
+        MermaidClassDiagramViewer viewer = new MermaidClassDiagramViewer();
+        viewer.update(parse(mermaidText));
+        return viewer.getView();
+    }
+
+    /**
+     * Parses a class diagram and lays it out; this can be done outside the EDT.
+     */
+    public static MermaidDiagram parse(String mermaidText) {
+        Map<String, ClassInfo> classes = new LinkedHashMap<>();
         List<Inheritance> inheritances = new ArrayList<>();
         List<Association> associations = new ArrayList<>();
 
-        Color textColor = getTextColorFromMimeType(MIME_PLAIN_TEXT);
-        Color backgroundColor = getBackgroundColorFromMimeType(MIME_PLAIN_TEXT);
-        Font font = getFontFromMimeType(MIME_PLAIN_TEXT);
-
-        Pattern classPattern = Pattern.compile("class\\s+(\\w+)\\s*\\{?");
-        Pattern methodPattern = Pattern.compile("([+\\-#])\\s*(?:(\\w+)\\s+)?(\\w+)\\s*\\(\\)");
-        Pattern attributePattern1 = Pattern.compile("([+\\-#])\\s*(\\w+)\\s+(\\w+)");  // +String name
-        Pattern attributePattern2 = Pattern.compile("([+\\-#])\\s*(\\w+)\\s*:\\s*(\\w+)"); // +address: String
-        Pattern inheritancePattern = Pattern.compile("(\\w+)\\s+<\\|--\\s+(\\w+)");
-        Pattern associationPattern = Pattern.compile("(\\w+)\\s+\"([^\"]+)\"\\s+--\\s+\"([^\"]+)\"\\s+(\\w+)\\s*:\\s*(\\w+)");
-
         String[] lines = mermaidText.split("\\n");
         String currentClass = null;
 
@@ -54,14 +50,14 @@ public class MermaidClassDiagramViewer extends MermaidViewer {
                 continue;
             }
 
-            Matcher inheritance = inheritancePattern.matcher(line);
+            Matcher inheritance = INHERITANCE_PATTERN.matcher(line);
             if (inheritance.matches()) {
                 inheritances.add(new Inheritance(inheritance.group(2), inheritance.group(1)));
                 continue;
             }
 
             // Inside the for-loop that processes lines
-            Matcher assocMatch = associationPattern.matcher(line);
+            Matcher assocMatch = ASSOCIATION_PATTERN.matcher(line);
             if (assocMatch.matches()) {
                 associations.add(new Association(
                         assocMatch.group(1), // source
@@ -73,7 +69,7 @@ public class MermaidClassDiagramViewer extends MermaidViewer {
                 continue;
             }
 
-            Matcher classDecl = classPattern.matcher(line);
+            Matcher classDecl = CLASS_PATTERN.matcher(line);
             if (classDecl.matches()) {
                 currentClass = classDecl.group(1);
                 classes.putIfAbsent(currentClass, new ClassInfo(currentClass));
@@ -94,7 +90,7 @@ public class MermaidClassDiagramViewer extends MermaidViewer {
                     classes.putIfAbsent(implicitClass, new ClassInfo(implicitClass));
                     currentClass = implicitClass;
 
-                    Matcher methodMatch = methodPattern.matcher(member);
+                    Matcher methodMatch = METHOD_PATTERN.matcher(member);
 
                     if (methodMatch.matches()) {
                         String returnType = methodMatch.group(2); // may be null
@@ -106,8 +102,8 @@ public class MermaidClassDiagramViewer extends MermaidViewer {
                         classes.get(currentClass).methods.add(methodSignature);
                     }
 
-                    Matcher attrMatch1 = attributePattern1.matcher(line);
-                    Matcher attrMatch2 = attributePattern2.matcher(line);
+                    Matcher attrMatch1 = ATTRIBUTE_PATTERN_1.matcher(line);
+                    Matcher attrMatch2 = ATTRIBUTE_PATTERN_2.matcher(line);
 
                     if (attrMatch1.matches()) {
                         // attrMatch1: visibility, type, name
@@ -127,7 +123,7 @@ public class MermaidClassDiagramViewer extends MermaidViewer {
             }
 
             if (currentClass != null) {
-                Matcher methodMatch = methodPattern.matcher(line);
+                Matcher methodMatch = METHOD_PATTERN.matcher(line);
 
                 if (methodMatch.matches()) {
                     String returnType = methodMatch.group(2); // may be null
@@ -139,8 +135,8 @@ public class MermaidClassDiagramViewer extends MermaidViewer {
                     classes.get(currentClass).methods.add(methodSignature);
                 }
 
-                Matcher attrMatch1 = attributePattern1.matcher(line);
-                Matcher attrMatch2 = attributePattern2.matcher(line);
+                Matcher attrMatch1 = ATTRIBUTE_PATTERN_1.matcher(line);
+                Matcher attrMatch2 = ATTRIBUTE_PATTERN_2.matcher(line);
 
                 if (attrMatch1.matches()) {
                     // attrMatch1: visibility, type, name
@@ -159,78 +155,46 @@ public class MermaidClassDiagramViewer extends MermaidViewer {
             }
         }
 
+        List<MermaidDiagram.Node> nodes = new ArrayList<>();
         for (ClassInfo cls : classes.values()) {
-            Widget widget = createClassWidget(scene, cls);
-            classWidgets.put(cls.name, widget);
-            nodeLayer.addChild(widget);
+            nodes.add(new MermaidDiagram.Node(cls.name, cls.attributes, cls.methods));
         }
 
-        applyGridLayout(classWidgets, 3, 280, 220);
-
+        List<MermaidDiagram.Edge> edges = new ArrayList<>();
         for (Inheritance inh : inheritances) {
-            Widget sub = classWidgets.get(inh.subclass);
-            Widget sup = classWidgets.get(inh.superclass);
-            if (sub == null || sup == null) {
-                continue;
-            }
-
-            ConnectionWidget conn = new ConnectionWidget(scene);
-            conn.setSourceAnchor(AnchorFactory.createRectangularAnchor(sub));
-            conn.setTargetAnchor(AnchorFactory.createRectangularAnchor(sup));
-            conn.setTargetAnchorShape(AnchorShape.TRIANGLE_FILLED);
-            conn.setRouter(RouterFactory.createOrthogonalSearchRouter(connectionLayer));
-            conn.setForeground(textColor);
-            connectionLayer.addChild(conn);
+            edges.add(new MermaidDiagram.Edge(inh.subclass, inh.superclass, null, null, null));
         }
-
         for (Association assoc : associations) {
-            Widget source = classWidgets.get(assoc.sourceClass);
-            Widget target = classWidgets.get(assoc.targetClass);
-            if (source == null || target == null) {
-                continue;
-            }
-
-            ConnectionWidget conn = new ConnectionWidget(scene);
-            conn.setSourceAnchor(AnchorFactory.createRectangularAnchor(source));
-            conn.setTargetAnchor(AnchorFactory.createRectangularAnchor(target));
-            conn.setTargetAnchorShape(AnchorShape.TRIANGLE_FILLED);
-            conn.setRouter(RouterFactory.createOrthogonalSearchRouter(connectionLayer));
-            conn.setForeground(textColor);
-
-//            if (assoc.label != null && !assoc.label.isEmpty()) {
-//                LabelWidget label = new LabelWidget(scene, assoc.label);
-//                label.setFont(font);
-//                label.setForeground(textColor);
-//                conn.addChild(label);
-////        conn.setConstraint(label, new Point(0, 0)); // optional, adjust position
-//            }
-
-//            // Label for source cardinality
-//            if (assoc.sourceCardinality != null && !assoc.sourceCardinality.isEmpty()) {
-//                LabelWidget sourceLabel = new LabelWidget(scene, assoc.sourceCardinality);
-//                sourceLabel.setFont(font);
-//                sourceLabel.setForeground(textColor);
-//                conn.addChild(sourceLabel);
-            ////        conn.setConstraint(sourceLabel, ConnectionWidget.LayoutAlignment.LEFT_SOURCE, 0.1f);
-//            }
-//
-//            // Label for target cardinality
-//            if (assoc.targetCardinality != null && !assoc.targetCardinality.isEmpty()) {
-//                LabelWidget targetLabel = new LabelWidget(scene, assoc.targetCardinality);
-//                targetLabel.setFont(font);
-//                targetLabel.setForeground(textColor);
-//                conn.addChild(targetLabel, ConnectionWidget.RoutingPolicy.TARGET);
-////        conn.setConstraint(targetLabel, ConnectionWidget.RoutingPolicy.RIGHT_TARGET, 0.9f);
-//
-//            }
-            connectionLayer.addChild(conn);
+            edges.add(new MermaidDiagram.Edge(
+                    assoc.sourceClass, assoc.targetClass,
+                    assoc.sourceCardinality, assoc.targetCardinality, assoc.label
+            ));
         }
 
-        scene.setBackground(getBackgroundColorFromMimeType(MIME_PLAIN_TEXT));
-        return scene.createView();
+        return new MermaidDiagram(nodes, edges, 3, 280, 220);
+    }
+
+    @Override
+    protected Widget createNodeWidget(MermaidDiagram.Node node) {
+        return createClassWidget(scene, node);
+    }
+
+    @Override
+    protected ConnectionWidget createEdgeWidget(Widget source, Widget target, MermaidDiagram.Edge edge) {
+        //
+        // inheritances and associations are drawn the same way; labels and
+        // cardinalities are not shown yet
+        //
+        ConnectionWidget conn = new ConnectionWidget(scene);
+        conn.setSourceAnchor(AnchorFactory.createRectangularAnchor(source));
+        conn.setTargetAnchor(AnchorFactory.createRectangularAnchor(target));
+        conn.setTargetAnchorShape(AnchorShape.TRIANGLE_FILLED);
+        conn.setRouter(RouterFactory.createOrthogonalSearchRouter(connectionLayer));
+        conn.setForeground(getTextColorFromMimeType(MIME_PLAIN_TEXT));
+        return conn;
     }
 
-    private static Widget createClassWidget(Scene scene, ClassInfo cls) {
+    private static Widget createClassWidget(Scene scene, MermaidDiagram.Node cls) {
         Widget box = new Widget(scene);
         box.setLayout(LayoutFactory.createVerticalFlowLayout(LayoutFactory.SerialAlignment.CENTER, 4));
 
@@ -247,18 +211,18 @@ public class MermaidClassDiagramViewer extends MermaidViewer {
         box.setOpaque(true);
         box.setPreferredLocation(new Point(5, 5));
 
-        LabelWidget titleLabel = new LabelWidget(scene, cls.name);
+        LabelWidget titleLabel = new LabelWidget(scene, cls.name());
         titleLabel.setFont(font.deriveFont(Font.BOLD));
         titleLabel.setForeground(new Color(0x007bff));
         titleLabel.setAlignment(LabelWidget.Alignment.CENTER);
         box.addChild(titleLabel);
 
-        if (!cls.attributes.isEmpty()) {
+        if (!cls.attributes().isEmpty()) {
             LabelWidget sep = new LabelWidget(scene, "-- Attributes --");
             sep.setFont(font.deriveFont(Font.BOLD));
             sep.setForeground(textColor);
             box.addChild(sep);
-            for (String attr : cls.attributes) {
+            for (String attr : cls.attributes()) {
                 LabelWidget lbl = new LabelWidget(scene, attr);
                 lbl.setFont(font);
                 lbl.setForeground(new Color(0xFF6600));
@@ -266,12 +230,12 @@ public class MermaidClassDiagramViewer extends MermaidViewer {
             }
         }
 
-        if (!cls.methods.isEmpty()) {
+        if (!cls.members().isEmpty()) {
             LabelWidget sep = new LabelWidget(scene, "-- Methods --");
             sep.setFont(font.deriveFont(Font.BOLD));
             sep.setForeground(textColor);
             box.addChild(sep);
-            for (String method : cls.methods) {
+            for (String method : cls.members()) {
                 LabelWidget lbl = new LabelWidget(scene, method);
                 lbl.setFont(font);
                 lbl.setForeground(new Color(0x1DA1F2));
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.components.mermaid;
+
+import java.awt.Point;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A parsed mermaid diagram: its nodes (entities or classes) in declaration
+ * order, the edges between them and the initial position of each node.
+ * Instances are immutable, so they can be built outside the EDT and cached.
+ */
+public final class MermaidDiagram {
+
+    /**
+     * An entity or a class; {@code members} are the relations of an entity or
+     * the methods of a class.
+     */
+    public record Node(String name, List<String> attributes, List<String> members) {
+
+        public Node {
+            attributes = List.copyOf(attributes);
+            members = List.copyOf(members);
+        }
+    }
+
+    /**
+     * A relation between two nodes; the ends are the cardinalities, if any.
+     */
+    public record Edge(String from, String to, String sourceEnd, String targetEnd, String label) {}
+
+    private final Map<String, Node> nodes;
+    private final List<Edge> edges;
+    private final Map<String, Point> positions = new LinkedHashMap<>();
+
+    /**
+     * Creates a diagram laying out the nodes in a grid.
+     *
+     * @param nodes the nodes, in the order they are laid out
+     * @param edges the edges
+     * @param cols number of grid columns
+     * @param spacingX horizontal distance between nodes
+     * @param spacingY vertical distance between nodes
+     */
+    public MermaidDiagram(
+        final List<Node> nodes, final List<Edge> edges,
+        final int cols, final int spacingX, final int spacingY
+    ) {
+        final Map<String, Node> map = new LinkedHashMap<>();
+        int i = 0;
+        for (Node node : nodes) {
+            map.put(node.name(), node);
+            positions.put(node.name(), new Point((i % cols) * spacingX + 50, (i / cols) * spacingY + 50));
+            ++i;
+        }
+        this.nodes = Collections.unmodifiableMap(map);
+        this.edges = List.copyOf(edges);
+    }
+
+    public Map<String, Node> nodes() {
+        return nodes;
+    }
+
+    public List<Edge> edges() {
+        return edges;
+    }
+
+    /**
+     * @return the initial position of the given node or null if the node is
+     *         not in the diagram
+     */
+    public Point position(final String name) {
+        final Point p = positions.get(name);
+        return (p == null) ? null : new Point(p);
+    }
+}
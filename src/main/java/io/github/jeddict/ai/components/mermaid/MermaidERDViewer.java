@@ -21,6 +21,9 @@ import org.netbeans.api.visual.widget.*;
 public class MermaidERDViewer extends MermaidViewer {
 
     private static AnchorShape getAnchorShape(String cardinality) {
+        if (cardinality == null) {
+            return AnchorShape.NONE;
+        }
         return switch (cardinality.trim()) {
             case "||" ->
                 exactlyOneShape;       // exactly one
@@ -41,23 +44,23 @@ public class MermaidERDViewer extends MermaidViewer {
         };
     }
 
+    private static final Pattern RELATION_PATTERN = Pattern.compile("(\\w+)\\s+([|}o]{1,2})--([|{o]{1,2})\\s+(\\w+)\\s*:\\s*(\\w+)");
+    private static final Pattern ENTITY_START_PATTERN = Pattern.compile("^(\\w+)\\s*\\{");
+    private static final Pattern ATTRIBUTE_PATTERN = Pattern.compile("^\\s*(\\w+)\\s+(\\w+)");
+
     public static JComponent createMermaidERDView(String mermaidText) {
-        Scene scene = new Scene();
-        LayerWidget nodeLayer = new LayerWidget(scene);
-        LayerWidget connectionLayer = new LayerWidget(scene);
-        scene.addChild(nodeLayer);
-        scene.addChild(connectionLayer);
-        scene.getActions().addAction(ActionFactory.createZoomAction());
-        scene.getActions().addAction(ActionFactory.createPanAction());
-
-        Map<String, Widget> entityWidgets = new HashMap<>();
-        Map<String, List<String>> entityAttributes = new HashMap<>();
-        Map<String, List<String>> entityRelations = new HashMap<>();
-        List<Relationship> relationships = new ArrayList<>();
+        MermaidERDViewer viewer = new MermaidERDViewer();
+        viewer.update(parse(mermaidText));
+        return viewer.getView();
+    }
 
-        Pattern relationPattern = Pattern.compile("(\\w+)\\s+([|}o]{1,2})--([|{o]{1,2})\\s+(\\w+)\\s*:\\s*(\\w+)");
-        Pattern entityStartPattern = Pattern.compile("^(\\w+)\\s*\\{");
-        Pattern attributePattern = Pattern.compile("^\\s*(\\w+)\\s+(\\w+)");
+    /**
+     * Parses an ER diagram and lays it out; this can be done outside the EDT.
+     */
+    public static MermaidDiagram parse(String mermaidText) {
+        Map<String, List<String>> entityAttributes = new LinkedHashMap<>();
+        Map<String, List<String>> entityRelations = new HashMap<>();
+        List<MermaidDiagram.Edge> relationships = new ArrayList<>();
 
         String[] lines = mermaidText.split("\\n");
         String currentEntity = null;
@@ -67,26 +70,27 @@ public class MermaidERDViewer extends MermaidViewer {
                 continue;
             }
 
-            Matcher relMatch = relationPattern.matcher(line);
+            Matcher relMatch = RELATION_PATTERN.matcher(line);
             if (relMatch.matches()) {
-                Relationship rel = new Relationship(
-                        relMatch.group(1),
-                        relMatch.group(4),
-                        relMatch.group(2) + "--" + relMatch.group(3),
-                        relMatch.group(5)
-                );
-                relationships.add(rel);
-                entityRelations.computeIfAbsent(rel.from, k -> new ArrayList<>())
-                        .add("→ " + rel.to + " : " + rel.label);
+                String from = relMatch.group(1), to = relMatch.group(4), label = relMatch.group(5);
+                String cardinality = relMatch.group(2) + "--" + relMatch.group(3);
+                String sourceCardinality = null, targetCardinality = null;
+                if (cardinality.length() > 4) {
+                    sourceCardinality = cardinality.substring(0, 2).trim();
+                    targetCardinality = cardinality.substring(4).trim();
+                }
+                relationships.add(new MermaidDiagram.Edge(from, to, sourceCardinality, targetCardinality, label));
+                entityRelations.computeIfAbsent(from, k -> new ArrayList<>())
+                        .add("→ " + to + " : " + label);
             } else {
-                Matcher entityStart = entityStartPattern.matcher(line);
+                Matcher entityStart = ENTITY_START_PATTERN.matcher(line);
                 if (entityStart.matches()) {
                     currentEntity = entityStart.group(1);
                     entityAttributes.putIfAbsent(currentEntity, new ArrayList<>());
                 } else if (line.startsWith("}")) {
                     currentEntity = null;
                 } else if (currentEntity != null) {
-                    Matcher attrMatch = attributePattern.matcher(line);
+                    Matcher attrMatch = ATTRIBUTE_PATTERN.matcher(line);
                     if (attrMatch.matches()) {
                         entityAttributes.get(currentEntity).add(attrMatch.group(1) + " " + attrMatch.group(2));
                     }
@@ -94,49 +98,45 @@ public class MermaidERDViewer extends MermaidViewer {
             }
         }
 
-        // Create entity widgets with relations
-        for (String entity : entityAttributes.keySet()) {
-            List<String> rels = entityRelations.getOrDefault(entity, Collections.emptyList());
-            Widget widget = createEntityWidget(scene, entity, entityAttributes.get(entity), rels);
-            nodeLayer.addChild(widget);
-            entityWidgets.put(entity, widget);
+        List<MermaidDiagram.Node> entities = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entity : entityAttributes.entrySet()) {
+            entities.add(new MermaidDiagram.Node(
+                    entity.getKey(),
+                    entity.getValue(),
+                    entityRelations.getOrDefault(entity.getKey(), Collections.emptyList())
+            ));
         }
 
-        applyGridLayout(entityWidgets, 3, 300, 220);
+        return new MermaidDiagram(entities, relationships, 3, 300, 220);
+    }
 
+    @Override
+    protected Widget createNodeWidget(MermaidDiagram.Node node) {
+        return createEntityWidget(scene, node.name(), node.attributes(), node.members());
+    }
+
+    @Override
+    protected ConnectionWidget createEdgeWidget(Widget from, Widget to, MermaidDiagram.Edge rel) {
         Color textColor = getTextColorFromMimeType(MIME_PLAIN_TEXT);
         Color backgroundColor = getBackgroundColorFromMimeType(MIME_PLAIN_TEXT);
 
-        for (Relationship rel : relationships) {
-            Widget from = entityWidgets.get(rel.from);
-            Widget to = entityWidgets.get(rel.to);
-            if (from == null || to == null) {
-                System.err.printf("Skipping relationship '%s' -> '%s': Widget not found.%n", rel.from, rel.to);
-                continue;
-            }
-            ConnectionWidget conn = new ConnectionWidget(scene);
-            conn.setRouter(RouterFactory.createOrthogonalSearchRouter(connectionLayer));
-            conn.setSourceAnchor(AnchorFactory.createRectangularAnchor(from));
-            conn.setTargetAnchor(AnchorFactory.createRectangularAnchor(to));
-            conn.setSourceAnchorShape(getAnchorShape(rel.sourceCardinality));
-            conn.setTargetAnchorShape(getAnchorShape(rel.targetCardinality));
-            conn.setForeground(textColor);
-
-            LabelWidget label = new LabelWidget(scene, rel.label);
-            label.setOpaque(false);
-            label.setForeground(textColor);
-            label.setBackground(backgroundColor);
-            label.setAlignment(LabelWidget.Alignment.BASELINE);
-            conn.addChild(label);
-            conn.setConstraint(label, LayoutFactory.ConnectionWidgetLayoutAlignment.CENTER, 0.5f);
-
-            connectionLayer.addChild(conn);
-        }
-
-        scene.setBackground(getBackgroundColorFromMimeType(MIME_PLAIN_TEXT));
-        JComponent pane = scene.createView();
-        pane.setBackground(getBackgroundColorFromMimeType(MIME_PLAIN_TEXT));
-        return pane;
+        ConnectionWidget conn = new ConnectionWidget(scene);
+        conn.setRouter(RouterFactory.createOrthogonalSearchRouter(connectionLayer));
+        conn.setSourceAnchor(AnchorFactory.createRectangularAnchor(from));
+        conn.setTargetAnchor(AnchorFactory.createRectangularAnchor(to));
+        conn.setSourceAnchorShape(getAnchorShape(rel.sourceEnd()));
+        conn.setTargetAnchorShape(getAnchorShape(rel.targetEnd()));
+        conn.setForeground(textColor);
+
+        LabelWidget label = new LabelWidget(scene, rel.label());
+        label.setOpaque(false);
+        label.setForeground(textColor);
+        label.setBackground(backgroundColor);
+        label.setAlignment(LabelWidget.Alignment.BASELINE);
+        conn.addChild(label);
+        conn.setConstraint(label, LayoutFactory.ConnectionWidgetLayoutAlignment.CENTER, 0.5f);
+
+        return conn;
     }
 
     private static Widget createEntityWidget(Scene scene, String title, List<String> attributes, List<String> relations) {
@@ -230,23 +230,6 @@ public class MermaidERDViewer extends MermaidViewer {
         return box;
     }
 
-    private static class Relationship {
-
-        String from, to, label;
-        String sourceCardinality, targetCardinality;
-
-        Relationship(String from, String to, String cardinality, String label) {
-            this.from = from;
-            this.to = to;
-            this.label = label;
-            if (cardinality.length() > 4) {
-                this.sourceCardinality = cardinality.substring(0, 2).trim();
-                this.targetCardinality = cardinality.substring(4).trim();
-            }
-        }
-
-    }
-
     public static void main(String[] args) {
         String mermaid = """
             erDiagram
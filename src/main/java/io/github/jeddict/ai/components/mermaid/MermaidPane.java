@@ -18,7 +18,6 @@ package io.github.jeddict.ai.components.mermaid;
 import static io.github.jeddict.ai.components.mermaid.MermaidClassDiagramViewer.createMermaidClassDiagramView;
 import static io.github.jeddict.ai.components.mermaid.MermaidERDViewer.createMermaidERDView;
 import io.github.jeddict.ai.response.TextBlock;
-import static io.github.jeddict.ai.util.ColorUtil.isDarkColor;
 import static io.github.jeddict.ai.util.EditorUtil.createEditorKit;
 import static io.github.jeddict.ai.util.EditorUtil.getBackgroundColorFromMimeType;
 import static io.github.jeddict.ai.util.EditorUtil.getTextColorFromMimeType;
@@ -39,6 +38,7 @@ import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.plaf.basic.BasicTabbedPaneUI;
 import javax.swing.text.EditorKit;
+import org.openide.util.RequestProcessor;
 
 /**
  *
@@ -46,6 +46,19 @@ import javax.swing.text.EditorKit;
  */
 public class MermaidPane extends JTabbedPane {
 
+    private static final RequestProcessor RP = new RequestProcessor(MermaidPane.class);
+
+    //
+    // edits are rendered once the user stops typing for this long
+    //
+    static final int RENDER_DELAY_MILLIS = 300;
+
+    private final RequestProcessor.Task renderTask = RP.create(this::parse);
+
+    private JPanel visualPanel;
+    private MermaidViewer viewer;
+    private volatile String source;
+
     public static JComponent createMermaidDiagramView(String mermaidText) {
         String normalized = mermaidText.trim().toLowerCase();
 
@@ -54,23 +67,42 @@ public class MermaidPane extends JTabbedPane {
         } else if (normalized.contains("erdiagram")) {
             return createMermaidERDView(mermaidText);
         } else {
-            JLabel label = new JLabel("Unsupported or unknown diagram type.");
-            label.setForeground(Color.RED);
-            JPanel panel = new JPanel(new BorderLayout());
-            panel.add(label, BorderLayout.CENTER);
-            return panel;
+            return createUnsupportedView();
         }
     }
 
+    /**
+     * Parses and lays out the given diagram, using the cache of parsed
+     * diagrams; this can be done outside the EDT.
+     *
+     * @return the diagram or null if the diagram type is not supported
+     */
+    public static MermaidDiagram parseDiagram(String mermaidText) {
+        String normalized = mermaidText.trim().toLowerCase();
+
+        if (normalized.contains("classdiagram")) {
+            return MermaidViewer.DIAGRAMS.computeIfAbsent(mermaidText, MermaidClassDiagramViewer::parse);
+        } else if (normalized.contains("erdiagram")) {
+            return MermaidViewer.DIAGRAMS.computeIfAbsent(mermaidText, MermaidERDViewer::parse);
+        }
+        return null;
+    }
+
+    private static JComponent createUnsupportedView() {
+        JLabel label = new JLabel("Unsupported or unknown diagram type.");
+        label.setForeground(Color.RED);
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(label, BorderLayout.CENTER);
+        return panel;
+    }
+
     public JEditorPane createPane(final TextBlock content) {
         Color backgroundColor = getBackgroundColorFromMimeType(MIME_PLAIN_TEXT);
         Color textColor = getTextColorFromMimeType(MIME_PLAIN_TEXT);
         JTabbedPane tabbedPane = this;
 
-        JPanel visualPanel = new JPanel();
+        visualPanel = new JPanel();
         visualPanel.setLayout(new GridBagLayout()); // Center the canvas nicely
-
-        visualPanel.add(createMermaidDiagramView(content.getContent()));
         visualPanel.setBackground(backgroundColor);
         tabbedPane.addTab("Mermaid", visualPanel);
 
@@ -79,51 +111,83 @@ public class MermaidPane extends JTabbedPane {
         editorPane.setEditorKit(editorKit);
         editorPane.setText(content.getContent());
         tabbedPane.addTab("Source", editorPane);
-        final boolean[] reRender = {true};
         editorPane.getDocument().addDocumentListener(new DocumentListener() {
             @Override
             public void insertUpdate(DocumentEvent e) {
-                reRender[0] = true;
-                content.setContent(editorPane.getText());
+                sourceChanged(content, editorPane.getText());
             }
 
             @Override
             public void removeUpdate(DocumentEvent e) {
-                reRender[0] = true;
-                content.setContent(editorPane.getText());
+                sourceChanged(content, editorPane.getText());
             }
 
             @Override
             public void changedUpdate(DocumentEvent e) {
-                reRender[0] = true;
-                content.setContent(editorPane.getText());
+                sourceChanged(content, editorPane.getText());
             }
         });
-        boolean isDarkTheme = isDarkColor(backgroundColor);
         tabbedPane.setBackgroundAt(0, backgroundColor);
         tabbedPane.setBackgroundAt(1, backgroundColor);
         tabbedPane.setForegroundAt(0, textColor);
         tabbedPane.setForegroundAt(1, textColor);
         tabbedPane.setUI(new ColoredTabbedPaneUI(backgroundColor));
 
-        Runnable updateCanvas = () -> {
-            if (reRender[0]) {
-                reRender[0] = false;
-                visualPanel.removeAll();
-                visualPanel.add(createMermaidDiagramView(content.getContent()));
-                visualPanel.revalidate();
-                visualPanel.repaint();
-            }
-        };
+        source = content.getContent();
+        renderTask.schedule(0);
 
-        SwingUtilities.invokeLater(updateCanvas);
+        return editorPane;
+    }
 
-        tabbedPane.addChangeListener(e -> {
-            if (tabbedPane.getSelectedIndex() == 0) {
-                SwingUtilities.invokeLater(updateCanvas);
+    private void sourceChanged(final TextBlock content, final String text) {
+        content.setContent(text);
+        source = text;
+        renderTask.schedule(RENDER_DELAY_MILLIS);
+    }
+
+    /**
+     * Parses the current source in background and shows it on the EDT.
+     */
+    private void parse() {
+        final String text = source;
+        if (text == null) {
+            return;
+        }
+        final MermaidDiagram diagram = parseDiagram(text);
+        SwingUtilities.invokeLater(() -> {
+            if (text.equals(source)) {
+                show(text, diagram);
             }
         });
-        return editorPane;
+    }
+
+    private void show(final String text, final MermaidDiagram diagram) {
+        final String normalized = text.trim().toLowerCase();
+        final Class<? extends MermaidViewer> type = (diagram == null)
+                ? null
+                : normalized.contains("classdiagram") ? MermaidClassDiagramViewer.class : MermaidERDViewer.class;
+
+        //
+        // the scene is kept while the diagram type does not change, so that
+        // only the nodes touched by an edit are rebuilt
+        //
+        if (viewer == null || viewer.getClass() != type) {
+            visualPanel.removeAll();
+            if (type == null) {
+                viewer = null;
+                visualPanel.add(createUnsupportedView());
+            } else {
+                viewer = (type == MermaidClassDiagramViewer.class)
+                        ? new MermaidClassDiagramViewer()
+                        : new MermaidERDViewer();
+                visualPanel.add(viewer.getView());
+            }
+        }
+        if (viewer != null) {
+            viewer.update(diagram);
+        }
+        visualPanel.revalidate();
+        visualPanel.repaint();
     }
 
     public class ColoredTabbedPaneUI extends BasicTabbedPaneUI {
@@ -15,30 +15,158 @@
  */
 package io.github.jeddict.ai.components.mermaid;
 
+import io.github.jeddict.ai.util.ContentCache;
+import static io.github.jeddict.ai.util.EditorUtil.getBackgroundColorFromMimeType;
+import static io.github.jeddict.ai.util.MimeUtil.MIME_PLAIN_TEXT;
 import java.awt.Color;
-import java.awt.Point;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+import javax.swing.JComponent;
+import org.netbeans.api.visual.action.ActionFactory;
+import org.netbeans.api.visual.widget.ConnectionWidget;
+import org.netbeans.api.visual.widget.LayerWidget;
+import org.netbeans.api.visual.widget.Scene;
 import org.netbeans.api.visual.widget.Widget;
 
 /**
+ * Base class of the mermaid viewers. A viewer keeps its scene across updates:
+ * {@link #update(MermaidDiagram)} only replaces the widgets of the nodes that
+ * changed, so editing a large diagram does not rebuild it all.
  *
  * @author Gaurav Gupta
  */
-public class MermaidViewer {
-    
-    protected static boolean isDarkColor(Color color) {
-        double luminance = (0.299 * color.getRed() + 0.587 * color.getGreen() + 0.114 * color.getBlue()) / 255;
-        return luminance < 0.5;
+public abstract class MermaidViewer {
+
+    private static final Logger LOG = Logger.getLogger(MermaidViewer.class.getName());
+
+    //
+    // parsed and laid out diagrams by hash of their text, shared by all viewers
+    //
+    static final ContentCache<MermaidDiagram> DIAGRAMS = new ContentCache<>(32);
+
+    protected final Scene scene;
+    protected final LayerWidget nodeLayer;
+    protected final LayerWidget connectionLayer;
+
+    private final Map<String, Widget> nodeWidgets = new HashMap<>();
+    private final List<Map.Entry<MermaidDiagram.Edge, Widget>> connections = new ArrayList<>();
+    private MermaidDiagram diagram;
+    private JComponent view;
+
+    protected MermaidViewer() {
+        scene = new Scene();
+        nodeLayer = new LayerWidget(scene);
+        connectionLayer = new LayerWidget(scene);
+        scene.addChild(nodeLayer);
+        scene.addChild(connectionLayer);
+        scene.getActions().addAction(ActionFactory.createZoomAction());
+        scene.getActions().addAction(ActionFactory.createPanAction());
+        scene.setBackground(getBackgroundColorFromMimeType(MIME_PLAIN_TEXT));
     }
 
-    protected static void applyGridLayout(Map<String, Widget> widgets, int cols, int spacingX, int spacingY) {
-        int i = 0;
-        for (Widget widget : widgets.values()) {
-            int x = (i % cols) * spacingX + 50;
-            int y = (i / cols) * spacingY + 50;
-            widget.setPreferredLocation(new Point(x, y));
-            i++;
+    protected abstract Widget createNodeWidget(MermaidDiagram.Node node);
+
+    protected abstract ConnectionWidget createEdgeWidget(Widget from, Widget to, MermaidDiagram.Edge edge);
+
+    public JComponent getView() {
+        if (view == null) {
+            view = scene.createView();
+            view.setBackground(getBackgroundColorFromMimeType(MIME_PLAIN_TEXT));
         }
+        return view;
+    }
+
+    /**
+     * Shows the given diagram. Widgets of unchanged nodes are kept (with their
+     * position, possibly moved by the user) and only the connections of the
+     * nodes added, changed or removed are rebuilt. Must be called on the EDT.
+     *
+     * @return the number of node widgets created
+     */
+    public int update(final MermaidDiagram newDiagram) {
+        final Set<String> touched = new HashSet<>();
+        for (Iterator<Map.Entry<String, Widget>> i = nodeWidgets.entrySet().iterator(); i.hasNext();) {
+            final Map.Entry<String, Widget> entry = i.next();
+            if (!newDiagram.nodes().containsKey(entry.getKey())) {
+                nodeLayer.removeChild(entry.getValue());
+                touched.add(entry.getKey());
+                i.remove();
+            }
+        }
+
+        for (MermaidDiagram.Node node : newDiagram.nodes().values()) {
+            final Widget old = nodeWidgets.get(node.name());
+            if (old != null && node.equals(diagram.nodes().get(node.name()))) {
+                continue;
+            }
+            final Widget widget = createNodeWidget(node);
+            widget.setPreferredLocation(
+                (old != null) ? old.getPreferredLocation() : newDiagram.position(node.name())
+            );
+            if (old != null) {
+                nodeLayer.removeChild(old);
+            }
+            nodeLayer.addChild(widget);
+            nodeWidgets.put(node.name(), widget);
+            touched.add(node.name());
+        }
+
+        //
+        // connections between untouched nodes are reused for the same edges
+        //
+        final Map<MermaidDiagram.Edge, Deque<Widget>> reusable = new HashMap<>();
+        for (Map.Entry<MermaidDiagram.Edge, Widget> connection : connections) {
+            final MermaidDiagram.Edge edge = connection.getKey();
+            if (touched.contains(edge.from()) || touched.contains(edge.to())) {
+                connectionLayer.removeChild(connection.getValue());
+            } else {
+                reusable.computeIfAbsent(edge, (e) -> new ArrayDeque<>()).add(connection.getValue());
+            }
+        }
+        connections.clear();
+        int rebuilt = 0;
+        for (MermaidDiagram.Edge edge : newDiagram.edges()) {
+            final Deque<Widget> candidates = reusable.get(edge);
+            Widget connection = (candidates == null) ? null : candidates.poll();
+            if (connection == null) {
+                final Widget from = nodeWidgets.get(edge.from());
+                final Widget to = nodeWidgets.get(edge.to());
+                if (from == null || to == null) {
+                    LOG.finest(() -> "skipping relationship " + edge.from() + " -> " + edge.to() + ": widget not found");
+                    continue;
+                }
+                connection = createEdgeWidget(from, to, edge);
+                connectionLayer.addChild(connection);
+                ++rebuilt;
+            }
+            connections.add(Map.entry(edge, connection));
+        }
+        for (Deque<Widget> unused : reusable.values()) {
+            for (Widget connection : unused) {
+                connectionLayer.removeChild(connection);
+            }
+        }
+
+        final int nodes = touched.size(), edges = rebuilt;
+        LOG.finest(() -> "nodes touched: " + nodes + ", connections rebuilt: " + edges);
+
+        diagram = newDiagram;
+        scene.validate();
+
+        return (int) touched.stream().filter(nodeWidgets::containsKey).count();
+    }
+
+    protected static boolean isDarkColor(Color color) {
+        double luminance = (0.299 * color.getRed() + 0.587 * color.getGreen() + 0.114 * color.getBlue()) / 255;
+        return luminance < 0.5;
     }
 
 }
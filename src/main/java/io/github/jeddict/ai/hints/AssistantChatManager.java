@@ -28,6 +28,7 @@ import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.model.chat.response.ChatResponse;
 import io.github.jeddict.ai.JeddictUpdateManager;
 import io.github.jeddict.ai.agent.AbstractTool;
+import io.github.jeddict.ai.agent.BatchFileEditor;
 import io.github.jeddict.ai.agent.ExplorationTools;
 import io.github.jeddict.ai.agent.FileSystemTools;
 import io.github.jeddict.ai.agent.GradleTools;
@@ -36,6 +37,7 @@ import io.github.jeddict.ai.agent.MavenTools;
 import io.github.jeddict.ai.agent.project.JakartaEEAdvisorMavenPluginTools;
 import io.github.jeddict.ai.agent.project.ProjectTools;
 import io.github.jeddict.ai.agent.RefactoringTools;
+import io.github.jeddict.ai.agent.ToolOutputGovernor;
 import io.github.jeddict.ai.scanner.ProjectMetadataInfo.BuildMetadataResolver;
 import io.github.jeddict.ai.agent.pair.Assistant;
 import io.github.jeddict.ai.agent.pair.DBSpecialist;
@@ -56,6 +58,7 @@ import io.github.jeddict.ai.lang.JeddictBrain;
 import io.github.jeddict.ai.lang.JeddictBrainListener;
 import io.github.jeddict.ai.response.TextBlock;
 import io.github.jeddict.ai.response.Response;
+import io.github.jeddict.ai.response.ResponseHistory;
 import io.github.jeddict.ai.response.ToolExecutionBlock;
 import io.github.jeddict.ai.review.Review;
 import static io.github.jeddict.ai.review.ReviewUtil.convertReviewsToHtml;
@@ -80,6 +83,7 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.EventQueue;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -92,8 +96,10 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.JDialog;
 import javax.swing.JEditorPane;
@@ -102,7 +108,6 @@ import javax.swing.JScrollPane;
 import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 import javax.swing.event.HyperlinkEvent;
-import org.apache.commons.lang3.StringUtils;
 import org.netbeans.api.java.source.JavaSource;
 import org.netbeans.api.java.source.TreePathHandle;
 import org.netbeans.api.java.source.WorkingCopy;
@@ -133,7 +138,6 @@ public class AssistantChatManager extends JavaFix {
     private final Action action;
     private SQLCompletion sqlCompletion;
     private AssistantChat ac;
-    private final List<Response> responseHistory = new ArrayList<>();
     private int currentResponseIndex = -1;
     private String sourceCode;
     private Project projectContext;
@@ -142,6 +146,14 @@ public class AssistantChatManager extends JavaFix {
     private FileObject fileObject;
     private String commitChanges;
     private final PreferencesManager pm = PreferencesManager.getInstance();
+    private final ResponseHistory responseHistory = new ResponseHistory(
+        ResponseHistory.defaultSessionsPath(), pm.getChatHistoryWindow()
+    );
+    //
+    // truncated tool results of this chat, shared by the governors of the
+    // agents created for each prompt
+    //
+    private final ToolOutputGovernor.Outputs toolOutputs = new ToolOutputGovernor.Outputs();
     private Tree leaf;
     private final Map<String, String> params = new HashMap();
     private String question;
@@ -285,7 +297,8 @@ public class AssistantChatManager extends JavaFix {
                         sourceCode = EditorUtil.updateEditors(null, ac, r, getContextFiles());
 
                         responseHistory.add(r);
-                        currentResponseIndex = responseHistory.size() - 1;
+                        final int index = responseHistory.size() - 1;
+                        SwingUtilities.invokeLater(() -> currentResponseIndex = index);
                     }
                 };
                 String modelName = ac.getModelName();
@@ -342,10 +355,19 @@ public class AssistantChatManager extends JavaFix {
         final AssistantChat chat = new AssistantChat(title, type, project) {
             @Override
             public void onChatReset() {
+                //
+                // clearing may write back edited responses, off the EDT
+                //
+                executorService.submit(responseHistory::clear);
                 initialMessage();
-                responseHistory.clear();
                 currentResponseIndex = -1;
-                updateButtons(currentResponseIndex > 0, currentResponseIndex < responseHistory.size() - 1);
+                updateButtons(false, false);
+            }
+
+            @Override
+            public void componentClosed() {
+                super.componentClosed();
+                executorService.submit(responseHistory::sync);
             }
 
             @Override
@@ -402,20 +424,14 @@ public class AssistantChatManager extends JavaFix {
             @Override
             public void onPrev() {
                 if (currentResponseIndex > 0) {
-                    currentResponseIndex--;
-                    Response historyResponse = responseHistory.get(currentResponseIndex);
-                    sourceCode = EditorUtil.updateEditors(queryUpdate, ac, historyResponse, getContextFiles());
-                    updateButtons(currentResponseIndex > 0, currentResponseIndex < responseHistory.size() - 1);
+                    showTurn(currentResponseIndex - 1, queryUpdate);
                 }
             }
 
             @Override
             public void onNext() {
                 if (currentResponseIndex < responseHistory.size() - 1) {
-                    currentResponseIndex++;
-                    Response historyResponse = responseHistory.get(currentResponseIndex);
-                    sourceCode = EditorUtil.updateEditors(queryUpdate, ac, historyResponse, getContextFiles());
-                    updateButtons(currentResponseIndex > 0, currentResponseIndex < responseHistory.size() - 1);
+                    showTurn(currentResponseIndex + 1, queryUpdate);
                 }
             }
 
@@ -538,6 +554,7 @@ public class AssistantChatManager extends JavaFix {
             + "👋 <strong>Welcome!</strong><br><br>"
             + "I'm here to assist you with any questions you have.<br>"
             + "Feel free to ask anything!<br><br><br><br><br>"
+            + "{restore}"
             + "<a href='https://jeddict.github.io/page.html?l=tutorial/AI' style='text-decoration:none; color:#28a745;'>📄 View Documentation</a><br><br>"
             + "<a href='https://jeddict.github.io/page.html?l=tutorial/AIContext' style='text-decoration:none; color:#007bff;'>📘 Learn about context rules and scopes</a><br><br>"
             + "<a href='https://github.com/jeddict/jeddict-ai' style='text-decoration:none; color:#ff6600;'>⭐ Like it? Give us a star</a><br><br>"
@@ -545,19 +562,49 @@ public class AssistantChatManager extends JavaFix {
             + "</div>"
             + "</div>";
 
+    private static final String RESTORE_LINK
+            = "<a href='restore' style='text-decoration:none; color:#6f42c1;'>🕘 Restore previous session</a><br><br>";
+
+    private static String homePage(final boolean canRestore) {
+        return HOME_PAGE.replace("{restore}", canRestore ? RESTORE_LINK : "");
+    }
+
     private void initialMessage() {
-        JEditorPane init = ac.createHtmlPane(HOME_PAGE);
+        //
+        // the sessions directory is listed off the EDT, the restore link is
+        // added once a previous session is found
+        //
+        final AtomicReference<Path> previousSession = new AtomicReference<>();
+        JEditorPane init = ac.createHtmlPane(homePage(false));
         EventQueue.invokeLater(() -> ac.getQuestionPane().requestFocusInWindow());
+        executorService.submit(() -> {
+            final Path previous = responseHistory.isEmpty() ? responseHistory.previousSession() : null;
+            if (previous != null) {
+                SwingUtilities.invokeLater(() -> {
+                    if (!responseHistory.isEmpty()) {
+                        return;
+                    }
+                    previousSession.set(previous);
+                    try {
+                        init.setText(getHTMLContent(getHtmlWrapWidth(init), homePage(true)));
+                    } catch (Exception ex) {
+                        Exceptions.printStackTrace(ex);
+                    }
+                });
+            }
+        });
         init.addHyperlinkListener(e -> {
             if (HyperlinkEvent.EventType.ACTIVATED.equals(e.getEventType())) {
                 String link = e.getDescription();
                 if ("home.html".equals(link)) {
                     try {
-                        String content = getHTMLContent(getHtmlWrapWidth(init), HOME_PAGE);
+                        String content = getHTMLContent(getHtmlWrapWidth(init), homePage(previousSession.get() != null));
                         init.setText(content);
                     } catch (Exception ex) {
                         Exceptions.printStackTrace(ex);
                     }
+                } else if ("restore".equals(link) && previousSession.get() != null) {
+                    restoreSession(previousSession.get());
                 } else if ("tweet".equals(link)) {
                     try {
                         java.awt.Desktop.getDesktop().browse(java.net.URI.create(RandomTweetSelector.getRandomTweet()));
@@ -569,6 +616,52 @@ public class AssistantChatManager extends JavaFix {
         });
     }
 
+    private void restoreSession(final Path session) {
+        executorService.submit(() -> {
+            try {
+                responseHistory.resume(session);
+            } catch (IOException x) {
+                LOG.log(Level.WARNING, "unable to restore session " + session, x);
+                return;
+            }
+            final int index = responseHistory.size() - 1;
+            final Response last = (index < 0) ? null : responseHistory.get(index);
+            final int size = responseHistory.size();
+            SwingUtilities.invokeLater(() -> {
+                currentResponseIndex = index;
+                if (last != null) {
+                    sourceCode = EditorUtil.updateEditors(
+                        (newQuery) -> handlePrompt(newQuery, false), ac, last, getContextFiles()
+                    );
+                }
+                ac.updateButtons(currentResponseIndex > 0, currentResponseIndex < size - 1);
+            });
+        });
+    }
+
+    //
+    // turns no longer in memory are read back from the session file, off
+    // the EDT; the position only moves once the turn is loaded
+    //
+    private void showTurn(final int index, final Consumer<String> queryUpdate) {
+        executorService.submit(() -> {
+            final Response turn = responseHistory.get(index);
+            final int size = responseHistory.size();
+            SwingUtilities.invokeLater(() -> {
+                if (turn == null) {
+                    DialogDisplayer.getDefault().notify(new NotifyDescriptor.Message(
+                        "Turn " + (index + 1) + " is unavailable, it can not be read from the session file.",
+                        NotifyDescriptor.WARNING_MESSAGE
+                    ));
+                    return;
+                }
+                currentResponseIndex = index;
+                sourceCode = EditorUtil.updateEditors(queryUpdate, ac, turn, getContextFiles());
+                ac.updateButtons(currentResponseIndex > 0, currentResponseIndex < size - 1);
+            });
+        });
+    }
+
     private Set<FileObject> getContextFiles() {
         Set<FileObject> fileObjects = new HashSet<>();
         if (projectContext != null) {
@@ -583,6 +676,21 @@ public class AssistantChatManager extends JavaFix {
     private void handlePrompt(String question, boolean newQuery) {
         this.question = question;
         ac.startLoading();
+
+        //
+        // the position in the history is only changed on the EDT; the turns
+        // after it, and the one asked again, are dropped by the executor
+        //
+        int keep = responseHistory.size();
+        if (currentResponseIndex >= 0 && currentResponseIndex + 1 < keep) {
+            keep = currentResponseIndex + 1;
+        }
+        if (!newQuery && keep > 0) {
+            --keep;
+            --currentResponseIndex;
+        }
+        final int turns = keep;
+
         result = executorService.submit(() -> {
             //
             // Note thay history is not the same think as memory. The former
@@ -592,24 +700,13 @@ public class AssistantChatManager extends JavaFix {
             // (for example if the model - or the app, decides to remove
             // or summarize past messages to improve the efficiency of the
             // response)
-            if (currentResponseIndex >= 0
-                    && currentResponseIndex + 1 < responseHistory.size()) {
-                responseHistory.subList(currentResponseIndex + 1, responseHistory.size()).clear();
-            }
-            if (!newQuery && !responseHistory.isEmpty()) {
-                responseHistory.remove(responseHistory.size() - 1);
-                currentResponseIndex = currentResponseIndex - 1;
-            }
+            responseHistory.truncate(turns);
 
-            final int historySize = pm.getConversationContext();
-            List<Response> prevChatResponses;
-            if (historySize == -1) {
-                // Entire conversation
-                prevChatResponses = new ArrayList<>(responseHistory);
-            } else {
-                int startIndex = Math.max(0, responseHistory.size() - historySize);
-                prevChatResponses = responseHistory.subList(startIndex, responseHistory.size());
-            }
+            //
+            // -1 is the entire conversation; responses no longer in memory
+            // are read back from the session file
+            //
+            final List<Response> prevChatResponses = responseHistory.tail(pm.getConversationContext());
 
             final boolean agentEnabled = ac.isAgentEnabled();
             final boolean excludeJavadoc = pm.isExcludeJavadocEnabled();
@@ -736,28 +833,34 @@ public class AssistantChatManager extends JavaFix {
             public void onChatCompleted(final ChatResponse response) {
                 super.onChatCompleted(response);
 
-                final StringBuilder textResponse = new StringBuilder(
-                    StringUtils.defaultString(response.aiMessage().text())
-                );
-
                 final Response res = chat.response();
                 res.getMessageContext().clear(); res.addContext(messageContext);
+
+                //
+                // the review is rendered before the response is added to the
+                // history, so that it is what gets written in the session
+                //
+                final List<Review> reviews;
+                if (codeReview) {
+                    reviews = parseReviewsFromYaml(res.getBlocks().get(0).getContent());
+                    String web = convertReviewsToHtml(reviews);
+                    res.getBlocks().clear();
+                    res.getBlocks().add(new TextBlock("web", web));
+                } else {
+                    reviews = null;
+                }
+
                 // TODO: this shall be used for history; it won't be used for memory,
                 // which is instead managed by the agents and services
-                if (responseHistory.isEmpty() || !textResponse.equals(responseHistory.get(responseHistory.size() - 1))) {
-                    responseHistory.add(res);
-                    currentResponseIndex = responseHistory.size() - 1;
-                }
+                responseHistory.add(res);
+                final int index = responseHistory.size() - 1;
                 SwingUtilities.invokeLater(() -> {
+                    currentResponseIndex = index;
                     Consumer<String> queryUpdate = (newQuery) -> {
                         handlePrompt(newQuery, false);
                     };
-                    if (codeReview) {
-                        List<Review> reviews = parseReviewsFromYaml(res.getBlocks().get(0).getContent());
-                        String web = convertReviewsToHtml(reviews);
+                    if (reviews != null) {
                         ac.setReviews(reviews);
-                        res.getBlocks().clear();
-                        res.getBlocks().add(new TextBlock("web", web));
                     }
                     sourceCode = EditorUtil.updateEditors(queryUpdate, ac, res, getContextFiles());
 
@@ -968,6 +1071,7 @@ public class AssistantChatManager extends JavaFix {
 
             toolsList.add(new InteractiveFileEditor(basedir, ac));
             toolsList.add(new FileSystemTools(basedir, ac));
+            toolsList.add(new BatchFileEditor(basedir, ac));
             toolsList.add(new MavenTools(project));
             toolsList.add(new ExplorationTools(basedir, project.getLookup()));
             // Add the project-type-specific tool (Maven, Gradle, or generic)
@@ -986,6 +1090,8 @@ public class AssistantChatManager extends JavaFix {
             }
             toolsList.add(new GradleTools(basedir));
             toolsList.add(new RefactoringTools(basedir));
+            // Truncates long tool results and lets the agent page the rest
+            toolsList.add(new ToolOutputGovernor(toolOutputs));
 
             //
             // The handler wants to know about tool execution.
@@ -48,12 +48,14 @@ import dev.langchain4j.service.tool.ToolErrorContext;
 import dev.langchain4j.service.tool.ToolErrorHandlerResult;
 import io.github.jeddict.ai.agent.AbstractTool;
 import io.github.jeddict.ai.agent.HumanInTheMiddleWrapper;
+import io.github.jeddict.ai.agent.ToolOutputGovernor;
 import io.github.jeddict.ai.agent.ToolsProber;
 import io.github.jeddict.ai.agent.ToolsProbingTool;
 import io.github.jeddict.ai.agent.pair.HackerWithoutTools;
 import io.github.jeddict.ai.agent.pair.PairProgrammer;
 import static io.github.jeddict.ai.lang.InteractionMode.INTERACTIVE;
 import io.github.jeddict.ai.util.PropertyChangeEmitter;
+import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -95,6 +97,12 @@ public class JeddictBrain implements PropertyChangeEmitter {
 
     protected final List<AbstractTool> tools;
 
+    //
+    // the tools given to the agents: the tools wrapped so that their results
+    // go through the output governor, plus the governor itself for fetchMore
+    //
+    protected final List<AbstractTool> agentTools;
+
     public final String modelName;
 
     protected Map<String, Boolean> probedModels = new HashMap(); // per instance on purpose to avoid race conditions
@@ -142,6 +150,9 @@ public class JeddictBrain implements PropertyChangeEmitter {
         // if interaction mode is INTERACTIVE, wrap the tools to make sure
         // human in the middle is applied (See HumanInTheMiddleWrapper)
         //
+        final ToolOutputGovernor governor
+            = ((tools != null) && !tools.isEmpty() && (mode == INTERACTIVE || mode == InteractionMode.AGENT))
+            ? governorOf(tools) : null;
         if ((tools != null) && !tools.isEmpty()) {
             switch (this.mode) {
                 case INTERACTIVE -> {
@@ -149,11 +160,11 @@ public class JeddictBrain implements PropertyChangeEmitter {
                         this.defaultInteraction = defaultInteraction;
                     }
                     final HumanInTheMiddleWrapper wrapper
-                        = new HumanInTheMiddleWrapper(this.defaultInteraction);
+                        = new HumanInTheMiddleWrapper(this.defaultInteraction, governor);
 
                     this.tools = new ArrayList();
                     on(tools).loop(
-                        (tool) -> this.tools.add(wrapper.wrap(tool))
+                        (tool) -> this.tools.add((tool == governor) ? tool : wrapper.wrap(tool))
                     );
                 }
 
@@ -171,6 +182,23 @@ public class JeddictBrain implements PropertyChangeEmitter {
             this.defaultInteraction = null;
             this.tools = List.of();
         }
+
+        //
+        // in AGENT mode the tools are wrapped only to govern their output
+        //
+        if (governor == null) {
+            this.agentTools = this.tools;
+        } else {
+            final List<AbstractTool> governed = new ArrayList<>();
+            final HumanInTheMiddleWrapper wrapper = new HumanInTheMiddleWrapper(null, governor);
+            on(this.tools).loop((tool) -> {
+                if (tool != governor) {
+                    governed.add((this.mode == InteractionMode.AGENT) ? wrapper.wrap(tool) : tool);
+                }
+            });
+            governed.add(governor);
+            this.agentTools = List.copyOf(governed);
+        }
     }
 
     /**
@@ -230,15 +258,15 @@ public class JeddictBrain implements PropertyChangeEmitter {
 
         final AiServices builder = AiServices.builder(specialist.specialistClass);
         if (streaming) {
-            builder.streamingChatModel(streamingModel(modelListener));
+            builder.streamingChatModel(streamingModel(modelListener, specialist.feature));
         } else {
-            builder.chatModel(model(modelListener));
+            builder.chatModel(model(modelListener, specialist.feature));
         }
         if (memorySize > 0) {
             builder.chatMemory(MessageWindowChatMemory.withMaxMessages(memorySize));
         }
         if (specialist == PairProgrammer.Specialist.HACKER) {
-            builder.tools(tools.toArray());
+            builder.tools(agentTools.toArray());
             builder.hallucinatedToolNameStrategy((exec) -> {
                 final ToolExecutionRequest ter = (ToolExecutionRequest) exec;
 
@@ -254,7 +282,7 @@ public class JeddictBrain implements PropertyChangeEmitter {
         builder.toolArgumentsErrorHandler(this::toolArgumentsErrorHandler);
 
         if (specialist == PairProgrammer.Specialist.HACKER_WITHOUT_TOOLS) {
-            final HackerWithoutTools hacker = new HackerWithoutTools(model(modelListener), builder, tools);
+            final HackerWithoutTools hacker = new HackerWithoutTools(model(modelListener, specialist.feature), builder, agentTools);
             hacker.maxIterations(25);
 
             return (T) hacker;
@@ -291,6 +319,24 @@ public class JeddictBrain implements PropertyChangeEmitter {
     }
 
     // --------------------------------------------------------- private methods
+    //
+    // the governor given with the tools, if any, so that it shares their
+    // listeners; a new one otherwise
+    //
+    private ToolOutputGovernor governorOf(final List<AbstractTool> tools) {
+        for (AbstractTool tool : tools) {
+            if (tool instanceof ToolOutputGovernor governor) {
+                return governor;
+            }
+        }
+        try {
+            return new ToolOutputGovernor();
+        } catch (IOException x) {
+            LOG.warning(() -> "tool output will not be governed: " + x);
+            return null;
+        }
+    }
+
     protected boolean probeToolSupport() {
         final String LOG_MSG = "model %s %s tools execution";
 
@@ -314,7 +360,7 @@ public class JeddictBrain implements PropertyChangeEmitter {
         try {
             final ToolsProbingTool probeTool = new ToolsProbingTool();
             final ToolsProber prober = AgenticServices.agentBuilder(ToolsProber.class)
-                .chatModel(model(null))
+                .chatModel(model(null, null))
                 .tools(probeTool)
                 .build();
 
@@ -341,7 +387,12 @@ public class JeddictBrain implements PropertyChangeEmitter {
 
     // --------------------------------------------------------- private methods
 
-    private StreamingChatModel streamingModel(final ChatModelListener listener)  {
+    /**
+     * @param listener the model listener - MAY BE NULL
+     * @param feature the feature the requests are accounted to in the cost
+     *        and latency metrics - MAY BE NULL (requests not recorded)
+     */
+    private StreamingChatModel streamingModel(final ChatModelListener listener, final RequestFeature feature)  {
         //
         // At the moment lanchain4j provides the chat request at an higher level
         // with the event AiServicesResponseEvent. This is fired only once the
@@ -352,10 +403,16 @@ public class JeddictBrain implements PropertyChangeEmitter {
         final JeddictChatModelBuilder builder
             = new JeddictChatModelBuilder(this.modelName, listener);
 
-        return builder.buildStreaming();
+        final StreamingChatModel model = builder.buildStreaming();
+        return (feature != null) ? new MeteredStreamingChatModel(model, feature) : model;
     }
 
-    private ChatModel model(final ChatModelListener listener) {
+    /**
+     * @param listener the model listener - MAY BE NULL
+     * @param feature the feature the requests are accounted to in the cost
+     *        and latency metrics - MAY BE NULL (requests not recorded)
+     */
+    private ChatModel model(final ChatModelListener listener, final RequestFeature feature) {
         //
         // At the moment lanchain4j provides the chat request at an higher level
         // with the event AiServicesResponseEvent. This is fired only once the
@@ -366,7 +423,8 @@ public class JeddictBrain implements PropertyChangeEmitter {
         final JeddictChatModelBuilder builder
             = new JeddictChatModelBuilder(this.modelName, listener);
 
-        return builder.build();
+        final ChatModel model = builder.build();
+        return (feature != null) ? new MeteredChatModel(model, feature) : model;
     }
 
 
@@ -16,33 +16,43 @@
 package io.github.jeddict.ai.lang;
 
 import io.github.jeddict.ai.components.AssistantChat;
+import io.github.jeddict.ai.response.MarkdownBlockTokenizer;
 import io.github.jeddict.ai.response.TextBlock;
 import static io.github.jeddict.ai.util.EditorUtil.printBlock;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.swing.JComponent;
 import javax.swing.SwingUtilities;
 
+/**
+ * Splits a streamed markdown response into text and code blocks as tokens
+ * arrive, handing each completed block to the EDT.
+ * <p>
+ * The parser is push based: blocks are split by a {@link MarkdownBlockTokenizer}
+ * (the same used by {@link io.github.jeddict.ai.response.Response}), which
+ * only scans the characters appended since the previous call, so that the
+ * cost of parsing a response is linear in its size regardless of how it is
+ * split into tokens.
+ * Completed blocks are queued and delivered in order by a single EDT task
+ * which is posted only when the queue goes from empty to non empty; no thread
+ * is dedicated to the parser and no polling is involved.
+ * <p>
+ * {@link #processToken(String)} and {@link #flush()} must be called by one
+ * thread at a time (the stream callback thread).
+ */
 public class MarkdownStreamParser {
 
-    private final StringBuilder lineBuffer = new StringBuilder();
-    private final StringBuilder blockBuffer = new StringBuilder();
-
-    private boolean insideCodeBlock = false;
-    private String currentFence = null;
-    private String codeType = null;
-
-    private static final Pattern FENCE_PATTERN = Pattern.compile("^(```+)(\\s*\\w+)?\\s*$");
+    private final MarkdownBlockTokenizer tokenizer = new MarkdownBlockTokenizer(this::deliver);
 
-    // Thread-safe queues for blocks
     private final ConcurrentLinkedQueue<TextBlock> pendingBlocks = new ConcurrentLinkedQueue<>();
     private final ConcurrentLinkedQueue<TextBlock> doneBlocks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean deliveryScheduled = new AtomicBoolean();
+    private volatile boolean closed = false;
 
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    //
+    // code of the blocks printed so far, accessed on the EDT only
+    //
+    private final StringBuilder code = new StringBuilder();
 
     // Listener interface to notify UI about new done blocks
     public interface BlockListener {
@@ -56,120 +66,69 @@ public class MarkdownStreamParser {
     public MarkdownStreamParser(BlockListener listener, AssistantChat topComponent) {
         this.blockListener = listener;
         this.assistantChat = topComponent;
-        startBlockProcessor();
     }
 
-    public void processToken(String token) {
-        lineBuffer.append(token);
-
-        int newlineIndex;
-        while ((newlineIndex = findLineEnd(lineBuffer)) >= 0) {
-            String line = lineBuffer.substring(0, newlineIndex);
-
-            int removeLength = line.endsWith("\r") ? newlineIndex + 2 : newlineIndex + 1;
-            lineBuffer.delete(0, removeLength);
+    /**
+     * Creates a parser which only notifies the given listener, without
+     * printing the blocks in a chat.
+     *
+     * @param listener the listener of done blocks - MAY BE NULL
+     */
+    public MarkdownStreamParser(BlockListener listener) {
+        this(listener, null);
+    }
 
-            TextBlock completedBlock = processLine(line);
-            if (completedBlock != null) {
-                pendingBlocks.offer(completedBlock);
-            }
-        }
+    public void processToken(String token) {
+        tokenizer.append(token);
     }
 
-    private int findLineEnd(StringBuilder sb) {
-        for (int i = 0; i < sb.length(); i++) {
-            if (sb.charAt(i) == '\n') {
-                return i;
-            }
-        }
-        return -1;
+    public void flush() {
+        tokenizer.finish();
     }
 
-    private TextBlock processLine(String line) {
-        Matcher fenceMatcher = FENCE_PATTERN.matcher(line);
-
-        if (fenceMatcher.matches()) {
-            String fence = fenceMatcher.group(1);
-            String lang = fenceMatcher.group(2) != null ? fenceMatcher.group(2).trim() : "";
-
-            if (!insideCodeBlock) {
-                if (blockBuffer.length() > 0) {
-                    TextBlock textBlock = new TextBlock("text", blockBuffer.toString().trim());
-                    blockBuffer.setLength(0);
-                    insideCodeBlock = true;
-                    currentFence = fence;
-                    codeType = lang.isEmpty() ? "code" : lang;
-                    return textBlock;
-                } else {
-                    insideCodeBlock = true;
-                    currentFence = fence;
-                    codeType = lang.isEmpty() ? "code" : lang;
-                }
-            } else if (line.startsWith(currentFence)) {
-                TextBlock codeBlock = new TextBlock(codeType, blockBuffer.toString().trim());
-                blockBuffer.setLength(0);
-                insideCodeBlock = false;
-                currentFence = null;
-                codeType = null;
-                return codeBlock;
-            }
-        } else {
-            blockBuffer.append(line).append("\n");
-        }
+    /**
+     * Stops delivering blocks; blocks not delivered yet are discarded.
+     */
+    public void shutdown() {
+        closed = true;
+        pendingBlocks.clear();
+    }
 
-        return null;
+    // Optional getters if needed
+    public ConcurrentLinkedQueue<TextBlock> getDoneBlocks() {
+        return doneBlocks;
     }
 
-    public void flush() {
-        if (blockBuffer.length() > 0) {
-            TextBlock block = new TextBlock(insideCodeBlock ? codeType : "text", blockBuffer.toString().trim());
-            blockBuffer.setLength(0);
-            pendingBlocks.offer(block);
+    // --------------------------------------------------------- private methods
+
+    private void deliver(TextBlock block) {
+        if (closed) {
+            return;
+        }
+        pendingBlocks.offer(block);
+        if (deliveryScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::deliverPending);
         }
     }
 
-    private void startBlockProcessor() {
-        StringBuilder code = new StringBuilder();
-        executor.submit(() -> {
-            try {
-                while (!Thread.currentThread().isInterrupted()) {
-                    TextBlock block = pendingBlocks.poll();
-                    if (block != null) {
-                        // Here you can add processing logic if needed
-                        SwingUtilities.invokeLater(() -> {
-                            JComponent comp = printBlock(code, null, block, assistantChat);
-                            comp.requestFocusInWindow();
-                            comp.scrollRectToVisible(comp.getVisibleRect());
-                            doneBlocks.offer(block);
-                            if (blockListener != null) {
-                                blockListener.onBlockDone(block);
-                            }
-                        });
-
-                    } else {
-                        // No blocks, sleep briefly to avoid busy wait
-                        TimeUnit.MILLISECONDS.sleep(50);
-                    }
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+    /**
+     * Delivers all queued blocks, on the EDT. The flag is reset before the
+     * queue is drained, so that a block queued while draining is either
+     * drained here or by a newly posted task, never lost.
+     */
+    private void deliverPending() {
+        deliveryScheduled.set(false);
+        TextBlock block;
+        while (!closed && (block = pendingBlocks.poll()) != null) {
+            if (assistantChat != null) {
+                JComponent comp = printBlock(code, null, block, assistantChat);
+                comp.requestFocusInWindow();
+                comp.scrollRectToVisible(comp.getVisibleRect());
             }
-        });
-    }
-
-    public void shutdown() {
-        executor.shutdownNow();
-        try {
-            if (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
-                System.err.println("MarkdownStreamParser executor did not terminate in time.");
+            doneBlocks.offer(block);
+            if (blockListener != null) {
+                blockListener.onBlockDone(block);
             }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
         }
     }
-
-    // Optional getters if needed
-    public ConcurrentLinkedQueue<TextBlock> getDoneBlocks() {
-        return doneBlocks;
-    }
 }
@@ -0,0 +1,87 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.ChatRequestOptions;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import io.github.jeddict.ai.response.TokenHandler;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link ChatModel} that measures the wall time of each request and records
+ * it, together with the token usage and cost, as a request of the given
+ * feature (see {@link TokenHandler#saveTokenUsageAsync(RequestFeature, ChatRequest, ChatResponse, long, long)}).
+ * The whole response arrives at once, hence the time to first token is the
+ * wall time.
+ */
+class MeteredChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final RequestFeature feature;
+
+    MeteredChatModel(final ChatModel delegate, final RequestFeature feature) {
+        this.delegate = delegate;
+        this.feature = feature;
+    }
+
+    @Override
+    public ChatResponse chat(final ChatRequest request) {
+        final long start = System.nanoTime();
+        final ChatResponse response = delegate.chat(request);
+        record(request, response, start);
+        return response;
+    }
+
+    @Override
+    public ChatResponse chat(final ChatRequest request, final ChatRequestOptions options) {
+        final long start = System.nanoTime();
+        final ChatResponse response = delegate.chat(request, options);
+        record(request, response, start);
+        return response;
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public List<ChatModelListener> listeners() {
+        return delegate.listeners();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    private void record(final ChatRequest request, final ChatResponse response, final long start) {
+        final long wall = (System.nanoTime() - start) / 1_000_000;
+        TokenHandler.saveTokenUsageAsync(feature, request, response, wall, wall);
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import dev.langchain4j.model.ModelProvider;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatRequestOptions;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.CompleteToolCall;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.PartialThinking;
+import dev.langchain4j.model.chat.response.PartialThinkingContext;
+import dev.langchain4j.model.chat.response.PartialToolCall;
+import dev.langchain4j.model.chat.response.PartialToolCallContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import io.github.jeddict.ai.response.TokenHandler;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A {@link StreamingChatModel} that measures the time to the first streamed
+ * token and the wall time of each request and records them, together with
+ * the token usage and cost, as a request of the given feature (see
+ * {@link TokenHandler#saveTokenUsageAsync(RequestFeature, ChatRequest, ChatResponse, long, long)}).
+ */
+class MeteredStreamingChatModel implements StreamingChatModel {
+
+    private final StreamingChatModel delegate;
+    private final RequestFeature feature;
+
+    MeteredStreamingChatModel(final StreamingChatModel delegate, final RequestFeature feature) {
+        this.delegate = delegate;
+        this.feature = feature;
+    }
+
+    @Override
+    public void chat(final ChatRequest request, final StreamingChatResponseHandler handler) {
+        delegate.chat(request, new MeteredHandler(request, handler));
+    }
+
+    @Override
+    public void chat(final ChatRequest request, final ChatRequestOptions options, final StreamingChatResponseHandler handler) {
+        delegate.chat(request, options, new MeteredHandler(request, handler));
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public List<ChatModelListener> listeners() {
+        return delegate.listeners();
+    }
+
+    @Override
+    public ModelProvider provider() {
+        return delegate.provider();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    /**
+     * Forwards all events to the original handler taking note of when the
+     * first one (text, thinking or tool call) arrives.
+     */
+    private class MeteredHandler implements StreamingChatResponseHandler {
+
+        private final ChatRequest request;
+        private final StreamingChatResponseHandler handler;
+        private final long start = System.nanoTime();
+        private volatile long firstToken = -1;
+
+        MeteredHandler(final ChatRequest request, final StreamingChatResponseHandler handler) {
+            this.request = request;
+            this.handler = handler;
+        }
+
+        @Override
+        public void onPartialResponse(final String partialResponse) {
+            mark();
+            handler.onPartialResponse(partialResponse);
+        }
+
+        @Override
+        public void onPartialResponse(final PartialResponse partialResponse, final PartialResponseContext context) {
+            mark();
+            handler.onPartialResponse(partialResponse, context);
+        }
+
+        @Override
+        public void onPartialThinking(final PartialThinking partialThinking) {
+            mark();
+            handler.onPartialThinking(partialThinking);
+        }
+
+        @Override
+        public void onPartialThinking(final PartialThinking partialThinking, final PartialThinkingContext context) {
+            mark();
+            handler.onPartialThinking(partialThinking, context);
+        }
+
+        @Override
+        public void onPartialToolCall(final PartialToolCall partialToolCall) {
+            mark();
+            handler.onPartialToolCall(partialToolCall);
+        }
+
+        @Override
+        public void onPartialToolCall(final PartialToolCall partialToolCall, final PartialToolCallContext context) {
+            mark();
+            handler.onPartialToolCall(partialToolCall, context);
+        }
+
+        @Override
+        public void onCompleteToolCall(final CompleteToolCall completeToolCall) {
+            mark();
+            handler.onCompleteToolCall(completeToolCall);
+        }
+
+        @Override
+        public void onUnmappedRawEvent(final Object event) {
+            handler.onUnmappedRawEvent(event);
+        }
+
+        @Override
+        public void onCompleteResponse(final ChatResponse response) {
+            final long end = System.nanoTime();
+            final long wall = (end - start) / 1_000_000;
+            final long ttft = ((firstToken < 0) ? end - start : firstToken - start) / 1_000_000;
+            TokenHandler.saveTokenUsageAsync(feature, request, response, wall, ttft);
+            handler.onCompleteResponse(response);
+        }
+
+        @Override
+        public void onError(final Throwable error) {
+            handler.onError(error);
+        }
+
+        private void mark() {
+            if (firstToken < 0) {
+                firstToken = System.nanoTime();
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+/**
+ * The feature a model request is made for, used to break down cost and
+ * latency metrics.
+ */
+public enum RequestFeature {
+    COMPLETION("Completion"),
+    HINT("Hint"),
+    CHAT("Chat"),
+    AGENT("Agent"),
+    REVIEW("Review");
+
+    private final String displayName;
+
+    RequestFeature(String displayName) {
+        this.displayName = displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -56,6 +56,16 @@ public record GenAIModel(
         return idx >= 0 ? rawName.substring(idx + 1) : rawName;
     }
 
+    /**
+     * @param inputTokens input tokens
+     * @param outputTokens output tokens
+     *
+     * @return the cost in USD of the given usage, 0 if pricing is unknown
+     */
+    public double cost(final long inputTokens, final long outputTokens) {
+        return (inputTokens * inputPrice + outputTokens * outputPrice) / 1_000_000;
+    }
+
     @Override
     public String toString() {
         return name;
@@ -165,6 +165,28 @@ public class GenAIModelRegistry {
         return getModels().get(name);
     }
 
+    /**
+     * Looks up a model in the models loaded so far, without loading them: the
+     * registry is keyed by model id (e.g. openai/gpt-5-nano), the model can
+     * be searched by id or by name (e.g. gpt-5-nano).
+     *
+     * @param name the model id or name
+     *
+     * @return the model or null if not found or not loaded yet
+     */
+    public static synchronized GenAIModel findLoadedByName(String name) {
+        GenAIModel model = CACHE.get(name);
+        if (model != null) {
+            return model;
+        }
+        for (GenAIModel m : CACHE.values()) {
+            if (m.name().equals(name)) {
+                return m;
+            }
+        }
+        return null;
+    }
+
     private static boolean isCacheValid() {
         return !CACHE.isEmpty()
                 && (System.currentTimeMillis() - lastLoaded) < CACHE_TTL_MS;
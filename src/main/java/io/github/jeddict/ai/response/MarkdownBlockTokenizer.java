@@ -0,0 +1,221 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Splits markdown into text and fenced code blocks, incrementally: text can be
+ * appended in chunks of any size (e.g. the tokens of a streamed response) and
+ * blocks are handed to the consumer as soon as they are complete. Each
+ * character is scanned once; complete lines are processed in place, only an
+ * unterminated line is buffered until its end arrives.
+ * <p>
+ * Semantics:
+ * <ul>
+ * <li>a fence is a line made of three or more backticks, optionally followed
+ * by a language made of word characters, and optionally by white spaces
+ * (i.e. {@code ^(```+)(\s*\w+)?\s*$});</li>
+ * <li>a code block is closed by a fence at least as long as the opening one;
+ * shorter fences are part of the code;</li>
+ * <li>the content of closed code blocks is kept as is, with the final new
+ * line; text blocks and unclosed code blocks are trimmed;</li>
+ * <li>code blocks without language have type {@code code}, text blocks have
+ * type {@code text}.</li>
+ * </ul>
+ * This class is not thread safe.
+ */
+public class MarkdownBlockTokenizer {
+
+    private final Consumer<TextBlock> consumer;
+
+    private final StringBuilder line = new StringBuilder();
+    private final StringBuilder buffer = new StringBuilder();
+
+    private boolean insideCodeBlock = false;
+    private int fenceLength = 0;
+    private String blockType = "text";
+
+    //
+    // language of the last fence found by isFence()
+    //
+    private String fenceLanguage;
+
+    public MarkdownBlockTokenizer(final Consumer<TextBlock> consumer) {
+        this.consumer = consumer;
+    }
+
+    /**
+     * Splits the given markdown into blocks.
+     *
+     * @param markdown the markdown text
+     *
+     * @return the blocks, in order
+     */
+    public static List<TextBlock> parse(final String markdown) {
+        final List<TextBlock> blocks = new ArrayList<>();
+        final MarkdownBlockTokenizer tokenizer = new MarkdownBlockTokenizer(blocks::add);
+        tokenizer.append(markdown);
+        tokenizer.finish();
+        return blocks;
+    }
+
+    /**
+     * Processes the given text, emitting the blocks it completes.
+     *
+     * @param chunk the text to process
+     */
+    public void append(final CharSequence chunk) {
+        int start = 0;
+        int newLine = indexOfNewLine(chunk, 0);
+
+        if (line.length() > 0) {
+            //
+            // complete the line left unterminated by the previous chunk
+            //
+            if (newLine < 0) {
+                line.append(chunk);
+                return;
+            }
+            line.append(chunk, 0, newLine);
+            processLine(line, 0, line.length());
+            line.setLength(0);
+            start = newLine + 1;
+            newLine = indexOfNewLine(chunk, start);
+        }
+
+        while (newLine >= 0) {
+            processLine(chunk, start, newLine);
+            start = newLine + 1;
+            newLine = indexOfNewLine(chunk, start);
+        }
+        line.append(chunk, start, chunk.length());
+    }
+
+    /**
+     * Processes the last, unterminated, line if any and emits the pending
+     * block. The tokenizer can then be reused for a new text.
+     */
+    public void finish() {
+        if (line.length() > 0) {
+            processLine(line, 0, line.length());
+            line.setLength(0);
+        }
+        if (buffer.length() > 0) {
+            emit(blockType, buffer.toString().trim());
+        }
+        insideCodeBlock = false;
+        fenceLength = 0;
+        blockType = "text";
+    }
+
+    // --------------------------------------------------------- private methods
+
+    private void processLine(final CharSequence text, final int start, int end) {
+        if (end > start && text.charAt(end - 1) == '\r') {
+            --end;
+        }
+
+        final int backticks = isFence(text, start, end);
+        if (backticks < 0) {
+            buffer.append(text, start, end).append('\n');
+        } else if (!insideCodeBlock) {
+            //
+            // starting code block; text outside blocks is trimmed
+            //
+            if (buffer.length() > 0) {
+                emit(blockType, buffer.toString().trim());
+            }
+            insideCodeBlock = true;
+            fenceLength = backticks;
+            blockType = fenceLanguage.isEmpty() ? "code" : fenceLanguage;
+        } else if (backticks >= fenceLength) {
+            //
+            // ending code block; code is not trimmed
+            //
+            emit(blockType, buffer.toString());
+            insideCodeBlock = false;
+            blockType = "text";
+        } else {
+            buffer.append(text, start, end).append('\n');
+        }
+    }
+
+    private void emit(final String type, final String content) {
+        buffer.setLength(0);
+        consumer.accept(new TextBlock(type, content));
+    }
+
+    /**
+     * Hand written equivalent of {@code ^(```+)(\s*\w+)?\s*$}.
+     *
+     * @return the number of backticks of the fence and sets
+     *         {@code fenceLanguage}, or -1 if the line is not a fence
+     */
+    private int isFence(final CharSequence text, final int start, final int end) {
+        int i = start;
+        while (i < end && text.charAt(i) == '`') {
+            ++i;
+        }
+        final int backticks = i - start;
+        if (backticks < 3) {
+            return -1;
+        }
+
+        while (i < end && isSpace(text.charAt(i))) {
+            ++i;
+        }
+        final int languageStart = i;
+        while (i < end && isWord(text.charAt(i))) {
+            ++i;
+        }
+        final int languageEnd = i;
+        while (i < end && isSpace(text.charAt(i))) {
+            ++i;
+        }
+        if (i < end) {
+            return -1;
+        }
+
+        fenceLanguage = text.subSequence(languageStart, languageEnd).toString();
+        return backticks;
+    }
+
+    private static int indexOfNewLine(final CharSequence text, final int from) {
+        if (text instanceof String s) {
+            return s.indexOf('\n', from);
+        }
+        for (int i = from; i < text.length(); ++i) {
+            if (text.charAt(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    //
+    // same as \s and \w in java.util.regex (non UNICODE_CHARACTER_CLASS)
+    //
+    private static boolean isSpace(final char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    private static boolean isWord(final char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+}
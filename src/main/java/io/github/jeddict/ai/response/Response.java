@@ -15,13 +15,10 @@
  */
 package io.github.jeddict.ai.response;
 
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Scanner;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import org.apache.commons.lang3.StringUtils;
 import org.openide.filesystems.FileObject;
 
@@ -32,7 +29,7 @@ import org.openide.filesystems.FileObject;
 public class Response {
 
     private final String query;
-    private final List<TextBlock> blocks = new LinkedList();
+    private final List<TextBlock> blocks = new ArrayList<>();
     private final Set<FileObject> messageContext;
     
     public Response() {
@@ -82,60 +79,11 @@ public class Response {
     }
 
     private List<TextBlock> parseMarkdown(final String text) {
-        List<TextBlock> result = new LinkedList<>();
-
         if (text.isBlank()) {
             return List.of();
         }
 
-        StringBuilder buffer = new StringBuilder();
-        boolean insideCodeBlock = false;
-        String currentFence = null;
-        String blockType = "text"; // block type is text by default to match
-                                   // heading text
-
-        Scanner scanner = new Scanner(text);
-        while (scanner.hasNextLine()) {
-            String line = scanner.nextLine();
-            Matcher fenceMatcher = Pattern.compile("^(```+)(\\s*\\w+)?\\s*$").matcher(line);
-
-            if (fenceMatcher.matches()) {
-                String fence = fenceMatcher.group(1);
-                String lang = fenceMatcher.group(2) != null ? fenceMatcher.group(2).trim() : "";
-
-                if (!insideCodeBlock) {
-                    // Starting code block
-                    if (buffer.length() > 0) {
-                        //
-                        // NOTE: text outside block shall be trimmed
-                        //
-                        result.add(new TextBlock(blockType, buffer.toString().trim()));
-                        buffer.setLength(0);
-                    }
-                    insideCodeBlock = true;
-                    currentFence = fence;
-                    blockType = lang.isEmpty() ? "code" : lang;
-                } else if (line.startsWith(currentFence)) {
-                    // Ending code block
-                    insideCodeBlock = false;
-                    //
-                    // NOTE: content outside blocks should not be trimmed
-                    //
-                    result.add(new TextBlock(blockType, buffer.toString()));
-                    buffer.setLength(0);
-                    blockType = "text";
-                }
-                // Skip the fence line itself
-            } else {
-                buffer.append(line).append("\n");
-            }
-        }
-
-        if (buffer.length() > 0) {
-            result.add(new TextBlock(blockType, buffer.toString().trim()));
-        }
-
-        return result;
+        return MarkdownBlockTokenizer.parse(text);
     }
 
     @Override
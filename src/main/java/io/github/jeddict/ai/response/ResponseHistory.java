@@ -0,0 +1,518 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.response;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import io.github.jeddict.ai.util.FileUtil;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.URLMapper;
+
+/**
+ * The responses of a chat session, persisted in an append-only file with one
+ * JSON line per turn.
+ * <p>
+ * Only the most recently used {@code window} responses are kept in memory;
+ * older ones are dropped and read back from the session file, using the
+ * offsets index built while writing, when they are navigated to again. The
+ * session file is created with the first response, so that chats which are
+ * opened and closed without asking anything leave nothing behind; only the
+ * {@value #MAX_SESSIONS} most recent sessions are retained.
+ * <p>
+ * A previous session can be resumed with {@link #resume(Path)}, which only
+ * indexes the file; responses are loaded on demand.
+ * <p>
+ * Responses edited in place after they were added (e.g. a diagram fixed in
+ * its pane) are written back when they are dropped from memory, when another
+ * session starts and on {@link #sync()}; the session file is then rewritten
+ * from the edited turn on.
+ * <p>
+ * If a response can not be written it is kept in memory for the life of the
+ * session.
+ */
+public class ResponseHistory {
+
+    private static final Logger LOG = Logger.getLogger(ResponseHistory.class.getName());
+
+    public static final String SESSIONS_DIR = "sessions";
+    public static final String SESSION_EXT = ".jsonl";
+    public static final int MAX_SESSIONS = 20;
+
+    private static final String QUERY = "query";
+    private static final String BLOCKS = "blocks";
+    private static final String TYPE = "type";
+    private static final String CONTENT = "content";
+    private static final String TOOL = "tool";
+    private static final String TOOL_ID = "id";
+    private static final String TOOL_NAME = "name";
+    private static final String TOOL_ARGUMENTS = "arguments";
+    private static final String CONTEXT = "context";
+
+    /**
+     * Position of a turn in the session file; {@code length} is -1 if the
+     * turn could not be written; {@code hash} is the hash of the JSON line as
+     * last written or read, 0 if not read yet
+     */
+    private record Turn(long offset, int length, int hash) {
+        boolean persisted() {
+            return length >= 0;
+        }
+    }
+
+    public final Path sessionsPath;
+    private final int window;
+
+    private Path sessionPath;
+    private final List<Turn> turns = new ArrayList<>();
+    private long end;
+
+    private final Map<Integer, Response> pinned = new HashMap<>();
+    private final LinkedHashMap<Integer, Response> cache;
+
+    /**
+     * @return the default sessions directory in the Jeddict configuration directory
+     */
+    public static Path defaultSessionsPath() {
+        return FileUtil.getConfigPath().resolve(SESSIONS_DIR);
+    }
+
+    /**
+     * @param sessionsPath the directory session files are stored in
+     * @param window the number of responses to keep in memory (at least 1)
+     */
+    public ResponseHistory(final Path sessionsPath, final int window) {
+        this.sessionsPath = sessionsPath;
+        this.window = Math.max(1, window);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Response> eldest) {
+                if (size() > ResponseHistory.this.window) {
+                    writeBack(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.sessionPath = newSessionPath();
+    }
+
+    /**
+     * @return the file of the current session; it does not exist until the
+     *         first response is added
+     */
+    public synchronized Path getSessionPath() {
+        return sessionPath;
+    }
+
+    public synchronized int size() {
+        return turns.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return turns.isEmpty();
+    }
+
+    /**
+     * @return the number of responses currently held in memory
+     */
+    public synchronized int inMemory() {
+        return pinned.size() + cache.size();
+    }
+
+    public synchronized void add(final Response response) {
+        final int index = turns.size();
+        final String json = toJSON(response).toString();
+        final byte[] line = (json + '\n').getBytes(StandardCharsets.UTF_8);
+        try {
+            if (end == 0 && Files.notExists(sessionPath)) {
+                Files.createDirectories(sessionsPath);
+                prune();
+            }
+            try (FileChannel channel = FileChannel.open(
+                    sessionPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                if (channel.size() > end) {
+                    //
+                    // turns removed by truncate() or a partially written line
+                    //
+                    channel.truncate(end);
+                }
+                final ByteBuffer buffer = ByteBuffer.wrap(line);
+                channel.position(end);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            turns.add(new Turn(end, line.length, json.hashCode()));
+            end += line.length;
+            cache.put(index, response);
+        } catch (IOException x) {
+            LOG.log(Level.WARNING, "unable to write response to " + sessionPath + ", keeping it in memory", x);
+            turns.add(new Turn(end, -1, 0));
+            pinned.put(index, response);
+        }
+    }
+
+    /**
+     * @param index the turn index
+     *
+     * @return the response of the given turn, read back from the session file
+     *         if no longer in memory - MAY BE NULL if the turn can not be read
+     */
+    public synchronized Response get(final int index) {
+        if (index < 0 || index >= turns.size()) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        Response response = pinned.get(index);
+        if (response == null) {
+            response = cache.get(index);
+        }
+        if (response == null) {
+            response = read(turns.get(index));
+            if (response != null) {
+                final Turn turn = turns.get(index);
+                turns.set(index, new Turn(turn.offset(), turn.length(), toJSON(response).toString().hashCode()));
+                cache.put(index, response);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * @param n the number of responses, -1 for all
+     *
+     * @return the last {@code n} responses, oldest first; unreadable turns are skipped
+     */
+    public synchronized List<Response> tail(final int n) {
+        final int from = (n < 0) ? 0 : Math.max(0, turns.size() - n);
+        final List<Response> responses = new ArrayList<>(turns.size() - from);
+        for (int i = from; i < turns.size(); ++i) {
+            final Response response = get(i);
+            if (response != null) {
+                responses.add(response);
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * Drops all turns from {@code size} on; the session file is shortened
+     * with the next {@link #add(Response)}.
+     *
+     * @param size the number of turns to keep
+     */
+    public synchronized void truncate(final int size) {
+        if (size < 0 || size >= turns.size()) {
+            return;
+        }
+        end = turns.get(size).offset();
+        turns.subList(size, turns.size()).clear();
+        pinned.keySet().removeIf(index -> index >= size);
+        cache.keySet().removeIf(index -> index >= size);
+    }
+
+    /**
+     * Starts a new session; the current session file is kept and can be
+     * resumed later.
+     */
+    public synchronized void clear() {
+        sync();
+        reset(newSessionPath());
+    }
+
+    /**
+     * Continues the session stored in the given file; new responses are
+     * appended to it.
+     *
+     * @param session the session file
+     *
+     * @throws IOException if the file can not be read
+     */
+    public synchronized void resume(final Path session) throws IOException {
+        sync();
+        reset(session);
+        long offset = 0, position = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(session), 64 * 1024)) {
+            int b;
+            while ((b = in.read()) >= 0) {
+                ++position;
+                if (b == '\n') {
+                    turns.add(new Turn(offset, (int) (position - offset), 0));
+                    offset = position;
+                }
+            }
+        }
+        //
+        // a partially written last line is ignored and overwritten by the
+        // next response
+        //
+        end = offset;
+        Files.setLastModifiedTime(session, FileTime.fromMillis(System.currentTimeMillis()));
+    }
+
+    /**
+     * Writes back the responses in memory that have been edited in place
+     * since they were written or read.
+     */
+    public synchronized void sync() {
+        for (Map.Entry<Integer, Response> entry : cache.entrySet()) {
+            writeBack(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<Integer, Response> entry : new ArrayList<>(pinned.entrySet())) {
+            writeBack(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * @param sessionsPath the sessions directory
+     *
+     * @return the non empty session files in the given directory, most recent first
+     */
+    public static List<Path> sessions(final Path sessionsPath) {
+        if (!Files.isDirectory(sessionsPath)) {
+            return List.of();
+        }
+        final Map<Path, Long> modified = new HashMap<>();
+        try (Stream<Path> files = Files.list(sessionsPath)) {
+            files.filter(file -> file.getFileName().toString().endsWith(SESSION_EXT)).forEach(file -> {
+                try {
+                    if (Files.size(file) > 0) {
+                        modified.put(file, Files.getLastModifiedTime(file).toMillis());
+                    }
+                } catch (IOException x) {
+                    LOG.finest(() -> "skipping " + file + ": " + x);
+                }
+            });
+        } catch (IOException x) {
+            LOG.log(Level.WARNING, "unable to list sessions in " + sessionsPath, x);
+            return List.of();
+        }
+        final List<Path> sessions = new ArrayList<>(modified.keySet());
+        sessions.sort(Collections.reverseOrder((a, b) -> {
+            final int cmp = Long.compare(modified.get(a), modified.get(b));
+            return (cmp != 0) ? cmp : a.getFileName().compareTo(b.getFileName());
+        }));
+        return sessions;
+    }
+
+    /**
+     * @return the most recent session other than the current one - MAY BE NULL
+     */
+    public synchronized Path previousSession() {
+        for (Path session : sessions(sessionsPath)) {
+            if (!session.equals(sessionPath)) {
+                return session;
+            }
+        }
+        return null;
+    }
+
+    // --------------------------------------------------------- private methods
+
+    private void reset(final Path session) {
+        sessionPath = session;
+        turns.clear();
+        pinned.clear();
+        cache.clear();
+        end = 0;
+    }
+
+    private Path newSessionPath() {
+        return sessionsPath.resolve(
+            System.currentTimeMillis() + "-" + UUID.randomUUID().toString().substring(0, 8) + SESSION_EXT
+        );
+    }
+
+    private void prune() {
+        final List<Path> sessions = sessions(sessionsPath);
+        for (int i = MAX_SESSIONS - 1; i < sessions.size(); ++i) {
+            try {
+                Files.deleteIfExists(sessions.get(i));
+            } catch (IOException x) {
+                LOG.finest(() -> "unable to delete old session: " + x);
+            }
+        }
+    }
+
+    //
+    // rewrites the session file with the current content of the given
+    // response if it changed; the following turns are copied after it. On
+    // failure the response is pinned so that the edit is not lost.
+    //
+    private void writeBack(final int index, final Response response) {
+        final Turn turn = turns.get(index);
+        if (!turn.persisted() || turn.hash() == 0) {
+            return;
+        }
+        final String json = toJSON(response).toString();
+        if (json.hashCode() == turn.hash()) {
+            return;
+        }
+        final byte[] line = (json + '\n').getBytes(StandardCharsets.UTF_8);
+        final Path temp = sessionPath.resolveSibling(sessionPath.getFileName() + ".tmp");
+        try {
+            try (FileChannel in = FileChannel.open(sessionPath, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(temp,
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                copy(in, 0, turn.offset(), out);
+                final ByteBuffer buffer = ByteBuffer.wrap(line);
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                copy(in, turn.offset() + turn.length(), end, out);
+            }
+            Files.move(temp, sessionPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException x) {
+            LOG.log(Level.WARNING, "unable to write edited response to " + sessionPath + ", keeping it in memory", x);
+            pinned.put(index, response);
+            return;
+        }
+        pinned.remove(index);
+
+        final int delta = line.length - turn.length();
+        turns.set(index, new Turn(turn.offset(), line.length, json.hashCode()));
+        for (int i = index + 1; i < turns.size(); ++i) {
+            final Turn next = turns.get(i);
+            turns.set(i, new Turn(next.offset() + delta, next.length(), next.hash()));
+        }
+        end += delta;
+        LOG.finest(() -> "wrote back edited turn " + index + " to " + sessionPath);
+    }
+
+    private static void copy(final FileChannel in, long from, final long to, final FileChannel out) throws IOException {
+        while (from < to) {
+            final long n = in.transferTo(from, to - from, out);
+            if (n <= 0) {
+                throw new IOException("unexpected end of " + in);
+            }
+            from += n;
+        }
+    }
+
+    private Response read(final Turn turn) {
+        if (!turn.persisted()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(sessionPath, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(turn.length());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, turn.offset() + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            return fromJSON(new JSONObject(new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8)));
+        } catch (IOException | JSONException x) {
+            LOG.log(Level.WARNING, "unable to read response at " + turn.offset() + " from " + sessionPath, x);
+            return null;
+        }
+    }
+
+    static JSONObject toJSON(final Response response) {
+        final JSONObject json = new JSONObject();
+        json.putOpt(QUERY, response.getQuery());
+
+        final JSONArray blocks = new JSONArray();
+        for (TextBlock block : response.getBlocks()) {
+            final JSONObject b = new JSONObject()
+                .put(TYPE, block.type)
+                .putOpt(CONTENT, block.getContent());
+            if (block instanceof ToolExecutionBlock tool && tool.execution != null) {
+                b.put(TOOL, new JSONObject()
+                    .putOpt(TOOL_ID, tool.execution.id())
+                    .putOpt(TOOL_NAME, tool.execution.name())
+                    .putOpt(TOOL_ARGUMENTS, tool.execution.arguments())
+                );
+            }
+            blocks.put(b);
+        }
+        json.put(BLOCKS, blocks);
+
+        final JSONArray context = new JSONArray();
+        for (FileObject file : response.getMessageContext()) {
+            context.put(file.toURI().toString());
+        }
+        json.put(CONTEXT, context);
+
+        return json;
+    }
+
+    static Response fromJSON(final JSONObject json) {
+        final Response response = new Response(json.optString(QUERY, null));
+
+        final JSONArray blocks = json.optJSONArray(BLOCKS, new JSONArray());
+        for (int i = 0; i < blocks.length(); ++i) {
+            final JSONObject b = blocks.getJSONObject(i);
+            final JSONObject tool = b.optJSONObject(TOOL);
+            final String content = b.optString(CONTENT, null);
+            if (tool != null) {
+                response.addBlock(new ToolExecutionBlock(
+                    ToolExecutionRequest.builder()
+                        .id(tool.optString(TOOL_ID, null))
+                        .name(tool.optString(TOOL_NAME, null))
+                        .arguments(tool.optString(TOOL_ARGUMENTS, null))
+                        .build(),
+                    content
+                ));
+            } else {
+                response.addBlock(new TextBlock(b.getString(TYPE), content));
+            }
+        }
+
+        //
+        // files deleted in the meantime are dropped from the context
+        //
+        final JSONArray context = json.optJSONArray(CONTEXT, new JSONArray());
+        final Set<FileObject> files = new HashSet<>();
+        for (int i = 0; i < context.length(); ++i) {
+            try {
+                final FileObject file = URLMapper.findFileObject(URI.create(context.getString(i)).toURL());
+                if (file != null) {
+                    files.add(file);
+                }
+            } catch (IOException | IllegalArgumentException x) {
+                LOG.finest(() -> "skipping context file: " + x);
+            }
+        }
+        response.addContext(files);
+
+        return response;
+    }
+}
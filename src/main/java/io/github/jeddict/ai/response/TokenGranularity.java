@@ -20,19 +20,30 @@ package io.github.jeddict.ai.response;
  * @author Gaurav Gupta
  */
 public enum TokenGranularity {
-    MINUTE(60_000L),
-    HOUR(3_600_000L),
-    DAY(86_400_000L),
-    WEEK(7 * 86_400_000L),        // 604,800,000 ms
-    MONTH(30 * 86_400_000L);      // 2,592,000,000 ms (approximate)
+    MINUTE(60_000L, 24 * 60),             // one day of minutes
+    HOUR(3_600_000L, 31 * 24),            // one month of hours
+    DAY(86_400_000L, 2 * 366),            // two years of days
+    WEEK(7 * 86_400_000L, 5 * 53),        // 604,800,000 ms, five years of weeks
+    MONTH(30 * 86_400_000L, 10 * 12);     // 2,592,000,000 ms (approximate), ten years of months
 
     public final long intervalMillis;
 
-    TokenGranularity(long intervalMillis) {
+    /**
+     * How many buckets of this granularity are kept in the token usage
+     * history
+     */
+    public final int retainedBuckets;
+
+    TokenGranularity(long intervalMillis, int retainedBuckets) {
         this.intervalMillis = intervalMillis;
+        this.retainedBuckets = retainedBuckets;
     }
 
     public long getCurrentBucketKey() {
         return System.currentTimeMillis() / intervalMillis;
     }
+
+    public long getBucketKey(long timestamp) {
+        return timestamp / intervalMillis;
+    }
 }
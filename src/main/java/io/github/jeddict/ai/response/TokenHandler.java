@@ -16,10 +16,20 @@
 package io.github.jeddict.ai.response;
 
 import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.EncodingType;
+import dev.langchain4j.model.anthropic.AnthropicTokenUsage;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.openai.OpenAiTokenUsage;
+import dev.langchain4j.model.output.TokenUsage;
+import io.github.jeddict.ai.lang.RequestFeature;
+import io.github.jeddict.ai.models.registry.GenAIModel;
+import io.github.jeddict.ai.models.registry.GenAIModelRegistry;
 import io.github.jeddict.ai.settings.PreferencesManager;
 import io.github.jeddict.ai.settings.ReportManager;
-import java.util.Iterator;
-import org.json.JSONObject;
+import java.util.concurrent.CompletableFuture;
+import org.openide.util.RequestProcessor;
 
 /**
  * Tracks and manages token usage for input and output prompts with configurable granularity.
@@ -30,88 +40,183 @@ public class TokenHandler {
     private static final PreferencesManager preferencesManager = PreferencesManager.getInstance();
     private static final ReportManager reportManager = ReportManager.getInstance();
 
-    public static int saveInputToken(final String content) {
-        int tokenCount = countTokens(content);
-        saveTokenUsage(reportManager.getDailyInputTokenStats(), tokenCount, true);
-        return tokenCount;
+    //
+    // Single threaded processor: token counting and stats updates are
+    // serialized here, off the EDT and off the model thread.
+    //
+    private static final RequestProcessor RP = new RequestProcessor(TokenHandler.class);
+
+    /**
+     * Rough number of characters per token for English text and source code
+     * with cl100k_base; good enough for progress feedback.
+     */
+    private static final int CHARS_PER_TOKEN = 4;
+
+    /**
+     * Lazy holder of the encoding: loading the BPE ranks is expensive, so it
+     * is done once, at first use.
+     */
+    private static final class Tokenizer {
+        private static final Encoding ENCODING =
+            Encodings.newDefaultEncodingRegistry().getEncoding(EncodingType.CL100K_BASE);
     }
 
-    public static void saveOutputToken(String response) {
-        if (response == null || response.isEmpty()) {
-            return;
+    /**
+     * Cheap approximation of the number of tokens in the given text, suitable
+     * to be called on the EDT for UI progress.
+     *
+     * @param text the text to estimate - MAY BE NULL
+     *
+     * @return the estimated amount of tokens
+     */
+    public static int estimateTokens(final String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
         }
-
-        int tokenCount = countTokens(response);
-        saveTokenUsage(reportManager.getDailyOutputTokenStats(), tokenCount, false);
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
     }
 
-    private static int countTokens(String text) {
-        return Encodings.newDefaultEncodingRegistry()
-                .getEncoding("cl100k_base")
-                .map(enc -> enc.encode(text).size())
-                .orElse(0);
+    /**
+     * Counts exactly the tokens of the given text in background.
+     *
+     * @param text the text to count
+     *
+     * @return a future completed with the exact amount of tokens
+     */
+    public static CompletableFuture<Integer> countTokensAsync(final String text) {
+        return CompletableFuture.supplyAsync(() -> countTokens(text), RP);
     }
 
-    private static void saveTokenUsage(JSONObject usage, int tokens, boolean isInput) {
-        TokenGranularity granularity = preferencesManager.getTokenGranularity();
-        String key = String.valueOf(granularity.getCurrentBucketKey());
-        usage.put(key, usage.optInt(key, 0) + tokens);
-
-        if (isInput) {
-            reportManager.setDailyInputTokenStats(usage);
-        } else {
-            reportManager.setDailyOutputTokenStats(usage);
-        }
+    /**
+     * Records in background a request/response exchange.
+     *
+     * @param feature the feature the request was made for
+     * @param request the request sent to the model - MAY BE NULL
+     * @param response the response received from the model
+     * @param wallMillis time from the request to the complete response
+     * @param ttftMillis time from the request to the first token
+     *
+     * @return a future completed when the request has been recorded
+     *
+     * @see #saveTokenUsage(RequestFeature, ChatRequest, ChatResponse, long, long)
+     */
+    public static CompletableFuture<Void> saveTokenUsageAsync(
+        final RequestFeature feature, final ChatRequest request, final ChatResponse response,
+        final long wallMillis, final long ttftMillis
+    ) {
+        return CompletableFuture.runAsync(
+            () -> saveTokenUsage(feature, request, response, wallMillis, ttftMillis), RP
+        );
     }
 
-    public static int getLastNInputUsage(int n) {
-        return getLastNUsage(reportManager.getDailyInputTokenStats(), n);
+    /**
+     * Records a request/response exchange. The counts reported by the
+     * provider in {@code ChatResponse.tokenUsage()} are used when available,
+     * as they are what is actually billed; only when the provider does not
+     * report them the tokens are estimated locally with cl100k_base. The cost
+     * is computed with the model pricing (see {@link #pricing(String)}). The
+     * request is recorded by {@link ReportManager}, which rolls it up into the
+     * stats used by the usage chart, the per model stats and the cost and
+     * latency metrics.
+     *
+     * @param feature the feature the request was made for
+     * @param request the request sent to the model - MAY BE NULL
+     * @param response the response received from the model
+     * @param wallMillis time from the request to the complete response
+     * @param ttftMillis time from the request to the first token
+     */
+    public static void saveTokenUsage(
+        final RequestFeature feature, final ChatRequest request, final ChatResponse response,
+        final long wallMillis, final long ttftMillis
+    ) {
+        final TokenUsage usage = response.tokenUsage();
+
+        final Integer reportedInput = (usage != null) ? usage.inputTokenCount() : null;
+        final Integer reportedOutput = (usage != null) ? usage.outputTokenCount() : null;
+
+        final int input = (reportedInput != null)
+                        ? reportedInput
+                        : countTokens(String.valueOf(request));
+        final int output = (reportedOutput != null)
+                         ? reportedOutput
+                         : countTokens((response.aiMessage() != null) ? response.aiMessage().text() : null);
+
+        final String model = modelName(response);
+        final GenAIModel pricing = pricing(model);
+
+        reportManager.recordRequest(
+            model, feature, input, output, cachedTokens(usage),
+            (reportedInput == null) || (reportedOutput == null),
+            wallMillis, ttftMillis,
+            (pricing != null) ? pricing.cost(input, output) : 0
+        );
     }
 
-    public static int getLastNOutputUsage(int n) {
-        return getLastNUsage(reportManager.getDailyOutputTokenStats(), n);
-    }
-
-    private static int getLastNUsage(JSONObject usage, int n) {
-        TokenGranularity granularity = preferencesManager.getTokenGranularity();
-        long now = System.currentTimeMillis() / granularity.intervalMillis;
-        int total = 0;
-
-        for (int i = 0; i < n; i++) {
-            String key = String.valueOf(now - i);
-            total += usage.optInt(key, 0);
+    /**
+     * Pricing of the given model, in USD per 1M tokens as expected by
+     * {@link GenAIModel#cost(long, long)}: the models configured for the
+     * current provider take precedence over the registry; the registry is not
+     * loaded here, so that recording a request never waits for the network.
+     *
+     * @param model the model name
+     *
+     * @return the model with its pricing or null if unknown
+     */
+    static GenAIModel pricing(final String model) {
+        final GenAIModel configured = preferencesManager.getGenAIModelByName(
+            preferencesManager.getProvider().name(), model
+        );
+        if (configured != null) {
+            return configured;
         }
 
-        return total;
+        //
+        // the registry holds OpenRouter prices as they are, which are per token
+        //
+        final GenAIModel registered = GenAIModelRegistry.findLoadedByName(model);
+        return (registered == null) ? null : new GenAIModel(
+            registered.provider(), registered.name(), registered.description(),
+            registered.inputPrice() * 1_000_000, registered.outputPrice() * 1_000_000
+        );
     }
 
-    public static void cleanOldInputEntries() {
-        cleanOldEntries(reportManager.getDailyInputTokenStats(), true);
+    /**
+     * Extracts the amount of input tokens served from the provider's prompt
+     * cache, for the providers that report it.
+     *
+     * @param usage the token usage - MAY BE NULL
+     *
+     * @return the cached input tokens or 0 if not reported
+     */
+    static int cachedTokens(final TokenUsage usage) {
+        Integer cached = null;
+        if (usage instanceof OpenAiTokenUsage openAiUsage) {
+            if (openAiUsage.inputTokensDetails() != null) {
+                cached = openAiUsage.inputTokensDetails().cachedTokens();
+            }
+        } else if (usage instanceof AnthropicTokenUsage anthropicUsage) {
+            cached = anthropicUsage.cacheReadInputTokens();
+        }
+        return (cached != null) ? cached : 0;
     }
 
-    public static void cleanOldOutputEntries() {
-        cleanOldEntries(reportManager.getDailyOutputTokenStats(), false);
+    private static String modelName(final ChatResponse response) {
+        final String name = response.modelName();
+        return (name == null || name.isBlank()) ? preferencesManager.getModelName() : name;
     }
 
-    private static void cleanOldEntries(JSONObject usage, boolean isInput) {
-        TokenGranularity granularity = preferencesManager.getTokenGranularity();
-        long cutoff = (System.currentTimeMillis() / granularity.intervalMillis) - 30;
-
-        Iterator<String> keys = usage.keys();
-        while (keys.hasNext()) {
-            String key = keys.next();
-            try {
-                if (Long.parseLong(key) < cutoff) {
-                    keys.remove();
-                }
-            } catch (NumberFormatException ignored) {
-            }
+    public static int countTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
         }
+        return Tokenizer.ENCODING.countTokens(text);
+    }
 
-        if (isInput) {
-            reportManager.setDailyInputTokenStats(usage);
-        } else {
-            reportManager.setDailyOutputTokenStats(usage);
-        }
+    public static long getLastNInputUsage(int n) {
+        return reportManager.getLastNInputUsage(n);
+    }
+
+    public static long getLastNOutputUsage(int n) {
+        return reportManager.getLastNOutputUsage(n);
     }
 }
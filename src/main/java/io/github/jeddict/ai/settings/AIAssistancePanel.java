@@ -178,6 +178,12 @@ final class AIAssistancePanel extends javax.swing.JPanel {
         topPPane = new javax.swing.JPanel();
         topPLabel = new javax.swing.JLabel();
         topP = new javax.swing.JTextField();
+        commandTimeoutPane = new javax.swing.JPanel();
+        commandTimeoutLabel = new javax.swing.JLabel();
+        commandTimeout = new javax.swing.JTextField();
+        toolOutputLimitPane = new javax.swing.JPanel();
+        toolOutputLimitLabel = new javax.swing.JLabel();
+        toolOutputLimit = new javax.swing.JTextField();
         commonSettingsParentPane1 = new javax.swing.JPanel();
         maxRetriesPane = new javax.swing.JPanel();
         maxRetriesLabel = new javax.swing.JLabel();
@@ -216,6 +222,7 @@ final class AIAssistancePanel extends javax.swing.JPanel {
         logResponses = new javax.swing.JCheckBox();
         includeCodeExecutionOutput = new javax.swing.JCheckBox();
         allowCodeExecution = new javax.swing.JCheckBox();
+        buildResultCache = new javax.swing.JCheckBox();
         customHeadersPane = new javax.swing.JPanel();
         customHeadersScrollPane = new javax.swing.JScrollPane();
         customHeadersTable = new javax.swing.JTable();
@@ -623,6 +630,30 @@ final class AIAssistancePanel extends javax.swing.JPanel {
 
         providerSettingsParentPane1.add(topPPane);
 
+        commandTimeoutPane.setLayout(new java.awt.GridLayout(0, 1));
+
+        org.openide.awt.Mnemonics.setLocalizedText(commandTimeoutLabel, org.openide.util.NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel.commandTimeoutLabel.text")); // NOI18N
+        commandTimeoutLabel.setToolTipText(org.openide.util.NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel.commandTimeoutLabel.toolTipText")); // NOI18N
+        commandTimeoutPane.add(commandTimeoutLabel);
+
+        commandTimeout.setText(org.openide.util.NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel.commandTimeout.text")); // NOI18N
+        commandTimeout.setToolTipText(org.openide.util.NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel.commandTimeout.toolTipText")); // NOI18N
+        commandTimeoutPane.add(commandTimeout);
+
+        providerSettingsParentPane1.add(commandTimeoutPane);
+
+        toolOutputLimitPane.setLayout(new java.awt.GridLayout(0, 1));
+
+        org.openide.awt.Mnemonics.setLocalizedText(toolOutputLimitLabel, org.openide.util.NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel.toolOutputLimitLabel.text")); // NOI18N
+        toolOutputLimitLabel.setToolTipText(org.openide.util.NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel.toolOutputLimitLabel.toolTipText")); // NOI18N
+        toolOutputLimitPane.add(toolOutputLimitLabel);
+
+        toolOutputLimit.setText(org.openide.util.NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel.toolOutputLimit.text")); // NOI18N
+        toolOutputLimit.setToolTipText(org.openide.util.NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel.toolOutputLimit.toolTipText")); // NOI18N
+        toolOutputLimitPane.add(toolOutputLimit);
+
+        providerSettingsParentPane1.add(toolOutputLimitPane);
+
         providerSettingsChildPane.add(providerSettingsParentPane1);
 
         commonSettingsParentPane1.setLayout(new javax.swing.BoxLayout(commonSettingsParentPane1, javax.swing.BoxLayout.LINE_AXIS));
@@ -778,6 +809,10 @@ final class AIAssistancePanel extends javax.swing.JPanel {
         });
         providerSettingsParentPane3.add(allowCodeExecution);
 
+        org.openide.awt.Mnemonics.setLocalizedText(buildResultCache, org.openide.util.NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel.buildResultCache.text")); // NOI18N
+        buildResultCache.setToolTipText(org.openide.util.NbBundle.getMessage(AIAssistancePanel.class, "AIAssistancePanel.buildResultCache.toolTipText")); // NOI18N
+        providerSettingsParentPane3.add(buildResultCache);
+
         providerSettingsChildPane.add(providerSettingsParentPane3);
 
         providerSettingsPane.add(providerSettingsChildPane);
@@ -1662,6 +1697,9 @@ final class AIAssistancePanel extends javax.swing.JPanel {
         logRequests.setSelected(preferencesManager.isLogRequestsEnabled());
         logResponses.setSelected(preferencesManager.isLogResponsesEnabled());
         stream.setSelected(preferencesManager.isStreamEnabled());
+        commandTimeout.setText(String.valueOf(preferencesManager.getCommandTimeout()));
+        toolOutputLimit.setText(String.valueOf(preferencesManager.getToolOutputLimit()));
+        buildResultCache.setSelected(preferencesManager.isBuildResultCacheEnabled());
 
         if (!aiAssistantActivationCheckBox.isSelected()) {
             enableInlineHintCheckBox.setEnabled(false);
@@ -1827,6 +1865,13 @@ final class AIAssistancePanel extends javax.swing.JPanel {
         preferencesManager.setLogRequestsEnabled(logRequests.isSelected());
         preferencesManager.setLogResponsesEnabled(logResponses.isSelected());
         preferencesManager.setStreamEnabled(stream.isSelected());
+        if (!commandTimeout.getText().isEmpty()) {
+            preferencesManager.setCommandTimeout(Integer.parseInt(commandTimeout.getText()));
+        }
+        if (!toolOutputLimit.getText().isEmpty()) {
+            preferencesManager.setToolOutputLimit(Integer.parseInt(toolOutputLimit.getText()));
+        }
+        preferencesManager.setBuildResultCacheEnabled(buildResultCache.isSelected());
 
         GenAIProvider selectedProvider = (GenAIProvider) providerComboBox.getSelectedItem();
         switch (selectedProvider) {
@@ -2181,6 +2226,8 @@ final class AIAssistancePanel extends javax.swing.JPanel {
         apiKeyLabel.setForeground(fgColor);
         temperatureLabel.setForeground(fgColor);
         timeoutLabel.setForeground(fgColor);
+        commandTimeoutLabel.setForeground(fgColor);
+        toolOutputLimitLabel.setForeground(fgColor);
         topPLabel.setForeground(fgColor);
         maxRetriesLabel.setForeground(fgColor);
         maxOutputTokensLabel.setForeground(fgColor);
@@ -2662,6 +2709,7 @@ final class AIAssistancePanel extends javax.swing.JPanel {
     private javax.swing.JPanel apiKeyPane;
     private javax.swing.JLayeredPane askAIPane;
     private javax.swing.JLayeredPane backupPane;
+    private javax.swing.JCheckBox buildResultCache;
     private javax.swing.JPanel cachePane;
     private javax.swing.JComboBox<AIClassContext> classContextComboBox;
     private javax.swing.JLabel classContextHelp;
@@ -2675,6 +2723,9 @@ final class AIAssistancePanel extends javax.swing.JPanel {
     private javax.swing.JPanel classContextLabelPane1;
     private javax.swing.JPanel classContextPane;
     private javax.swing.JButton cleanDataButton;
+    private javax.swing.JTextField commandTimeout;
+    private javax.swing.JLabel commandTimeoutLabel;
+    private javax.swing.JPanel commandTimeoutPane;
     private javax.swing.JPanel commonSettingsParentPane1;
     private javax.swing.JLabel configPathBtn;
     private javax.swing.JLabel configPathLabel;
@@ -2781,6 +2832,9 @@ final class AIAssistancePanel extends javax.swing.JPanel {
     private javax.swing.JTextField timeout;
     private javax.swing.JLabel timeoutLabel;
     private javax.swing.JPanel timeoutPane;
+    private javax.swing.JTextField toolOutputLimit;
+    private javax.swing.JLabel toolOutputLimitLabel;
+    private javax.swing.JPanel toolOutputLimitPane;
     private javax.swing.JTextField topK;
     private javax.swing.JLabel topKLabel;
     private javax.swing.JPanel topKPane;
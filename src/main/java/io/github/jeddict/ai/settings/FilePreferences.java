@@ -16,27 +16,114 @@
 package io.github.jeddict.ai.settings;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.openide.util.RequestProcessor;
 
 /**
+ * JSON file backed preferences.
+ * <p>
+ * In write-behind mode changes only mark the preferences dirty: saves are
+ * debounced and coalesced on a background thread, so that a burst of
+ * changes (e.g. applying the settings panel) results in a single write. The
+ * delay is bounded by {@value #MAX_SAVE_DELAY_MS} ms from the first pending
+ * change; {@link #flush()} (or {@link #flushAll()} at shutdown) writes any
+ * pending change immediately. Without write-behind every change is written
+ * synchronously.
+ * <p>
+ * Writes always go to a temporary file which is then atomically moved over
+ * the preferences file.
  *
  * @author Gaurav Gupta
  */
 public class FilePreferences {
 
+    /**
+     * Quiet time after the last change before a write-behind save
+     */
+    public static final int SAVE_DELAY_MS = 500;
+
+    /**
+     * Maximum time a change can stay unsaved in write-behind mode
+     */
+    public static final int MAX_SAVE_DELAY_MS = 5_000;
+
+    private static final Logger LOG = Logger.getLogger(FilePreferences.class.getName());
+
+    private static final RequestProcessor RP = new RequestProcessor(FilePreferences.class);
+
+    //
+    // weak, so that discarded preferences are not retained; the ones with a
+    // pending save are referenced by the scheduled task anyway
+    //
+    private static final Set<FilePreferences> WRITE_BEHIND =
+        Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
     public final Path preferencesPath;
 
+    private final boolean writeBehind;
+    private final RequestProcessor.Task saveTask;
+    private final Object writeLock = new Object();
+
     private JSONObject data;
+    private boolean dirty;
+    private long firstChange;
+    private long snapshotVersion;
+    private long writtenVersion;
+
+    private final AtomicLong changeCount = new AtomicLong();
+    private final AtomicLong saveCount = new AtomicLong();
+    private final AtomicLong totalSaveNanos = new AtomicLong();
+    private final AtomicLong maxSaveNanos = new AtomicLong();
 
     public FilePreferences(Path preferencesPath) {
+        this(preferencesPath, false);
+    }
+
+    /**
+     * @param preferencesPath the preferences file
+     * @param writeBehind true to save changes in background
+     */
+    public FilePreferences(Path preferencesPath, boolean writeBehind) {
         this.preferencesPath = preferencesPath;
+        this.writeBehind = writeBehind;
+        this.saveTask = writeBehind ? RP.create(this::flush) : null;
         load();
+        if (writeBehind) {
+            WRITE_BEHIND.add(this);
+        }
+    }
+
+    /**
+     * Writes the pending changes of all write-behind preferences; to be called
+     * at shutdown.
+     */
+    public static void flushAll() {
+        final List<FilePreferences> all;
+        synchronized (WRITE_BEHIND) {
+            all = new ArrayList<>(WRITE_BEHIND);
+        }
+        for (FilePreferences preferences : all) {
+            preferences.flush();
+        }
     }
 
     private void load() {
@@ -52,16 +139,151 @@ public class FilePreferences {
         }
     }
 
+    /**
+     * Saves the preferences: synchronously, or in background if in
+     * write-behind mode.
+     */
     public void save() {
+        if (!writeBehind) {
+            synchronized (this) {
+                dirty = true;
+            }
+            changeCount.incrementAndGet();
+            flush();
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        final int delay;
+        synchronized (this) {
+            if (!dirty) {
+                dirty = true;
+                firstChange = now;
+            }
+            //
+            // debounce, but do not postpone the save beyond MAX_SAVE_DELAY_MS
+            // from the first unsaved change
+            //
+            delay = (int) Math.max(0, Math.min(SAVE_DELAY_MS, firstChange + MAX_SAVE_DELAY_MS - now));
+        }
+        changeCount.incrementAndGet();
+        saveTask.schedule(delay);
+    }
+
+    /**
+     * Writes pending changes, if any, right away.
+     */
+    public void flush() {
+        //
+        // the content is taken under the preferences lock, the file is
+        // written under the write lock only, so that readers and writers of
+        // the preferences are never blocked by I/O of a background save;
+        // versions make sure an older snapshot never overwrites a newer one
+        //
+        final String content;
+        final long version;
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            content = data.toString(2);
+            version = ++snapshotVersion;
+            dirty = false;
+        }
+
+        //
+        // the preferences lock is never taken while holding the write lock:
+        // without write-behind, changes hold the former when they get here
+        //
+        IOException error = null;
+        synchronized (writeLock) {
+            if (version <= writtenVersion) {
+                return;
+            }
+            final long start = System.nanoTime();
+            try {
+                write(content);
+                writtenVersion = version;
+
+                final long elapsed = System.nanoTime() - start;
+                saveCount.incrementAndGet();
+                totalSaveNanos.addAndGet(elapsed);
+                maxSaveNanos.accumulateAndGet(elapsed, Math::max);
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+
+        if (error != null) {
+            synchronized (this) {
+                dirty = true;
+            }
+            if (writeBehind) {
+                LOG.log(Level.WARNING, "Failed to save preferences " + preferencesPath, error);
+                return;
+            }
+            throw new RuntimeException("Failed to save preferences", error);
+        }
+    }
+
+    public synchronized boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * @return how many times a save was requested (i.e. the preferences
+     *         changed)
+     */
+    public long getChangeCount() {
+        return changeCount.get();
+    }
+
+    /**
+     * @return how many times the preferences file was actually written
+     */
+    public long getSaveCount() {
+        return saveCount.get();
+    }
+
+    /**
+     * @return the average time of a file write in nanoseconds
+     */
+    public long getAverageSaveNanos() {
+        final long saves = saveCount.get();
+        return (saves == 0) ? 0 : totalSaveNanos.get() / saves;
+    }
+
+    /**
+     * @return the longest time of a file write in nanoseconds
+     */
+    public long getMaxSaveNanos() {
+        return maxSaveNanos.get();
+    }
+
+    /**
+     * Writes the given content to a temporary file in the same directory and
+     * then moves it over the preferences file, so that a crash in the middle
+     * of the write never leaves a truncated or corrupted file behind.
+     */
+    private void write(final String content) throws IOException {
+        Files.createDirectories(preferencesPath.getParent());
+        final Path tmp = preferencesPath.resolveSibling(preferencesPath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(
+                tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
         try {
-            Files.createDirectories(preferencesPath.getParent());
-            Files.writeString(preferencesPath, data.toString(2));
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to save preferences", e);
+            Files.move(tmp, preferencesPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException x) {
+            Files.move(tmp, preferencesPath, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 
-    public void remove(String key) {
+    public synchronized void remove(String key) {
         data.remove(key);
         save();
     }
@@ -73,7 +295,7 @@ public class FilePreferences {
      * @param filePath path to the JSON file to write
      * @throws IOException if there is an IO error during export
      */
-    public void exportPreferences(String filePath) throws IOException {
+    public synchronized void exportPreferences(String filePath) throws IOException {
         Path exportPath = Paths.get(filePath);
         Files.createDirectories(exportPath.getParent());
         Files.writeString(exportPath, data.toString(2));
@@ -86,7 +308,7 @@ public class FilePreferences {
      * @param filePath path to the JSON file to read
      * @throws IOException if there is an IO error during import
      */
-    public void importPreferences(String filePath) throws IOException {
+    public synchronized void importPreferences(String filePath) throws IOException {
         Path importPath = Paths.get(filePath);
         if (!Files.exists(importPath)) {
             throw new IOException("Import file does not exist: " + filePath);
@@ -99,45 +321,49 @@ public class FilePreferences {
         save();
     }
 
-    public String get(String key, String def) {
+    public synchronized boolean contains(String key) {
+        return data.has(key);
+    }
+
+    public synchronized String get(String key, String def) {
         return data.optString(key, def);
     }
 
-    public void put(String key, String value) {
+    public synchronized void put(String key, String value) {
         data.put(key, value);
         save();
     }
 
-    public boolean getBoolean(String key, boolean def) {
+    public synchronized boolean getBoolean(String key, boolean def) {
         return data.optBoolean(key, def);
     }
 
-    public void putBoolean(String key, boolean value) {
+    public synchronized void putBoolean(String key, boolean value) {
         data.put(key, value);
         save();
     }
 
 // new int methods
-    public int getInt(String key, int def) {
+    public synchronized int getInt(String key, int def) {
         return data.optInt(key, def);
     }
 
-    public void putInt(String key, int value) {
+    public synchronized void putInt(String key, int value) {
         data.put(key, value);
         save();
     }
 
 // new double methods
-    public double getDouble(String key, double def) {
+    public synchronized double getDouble(String key, double def) {
         return data.optDouble(key, def);
     }
 
-    public void putDouble(String key, double value) {
+    public synchronized void putDouble(String key, double value) {
         data.put(key, value);
         save();
     }
 
-    public void putChild(String nodeKey, String key, String value) {
+    public synchronized void putChild(String nodeKey, String key, String value) {
         JSONObject node = data.optJSONObject(nodeKey);
         if (node == null) {
             node = new JSONObject();
@@ -147,7 +373,7 @@ public class FilePreferences {
         save();
     }
 
-    public String getChild(String nodeKey, String key, String def) {
+    public synchronized String getChild(String nodeKey, String key, String def) {
         JSONObject node = data.optJSONObject(nodeKey);
         if (node != null) {
             return node.optString(key, def);
@@ -155,7 +381,13 @@ public class FilePreferences {
         return def;
     }
 
-     public JSONObject getChild(String nodeKey) {
+    /**
+     * Returns the given node, creating it if missing. The node is live: it
+     * is written by background saves, so it must not be modified directly;
+     * use {@link #putChildren(String, Map)} or {@link #setChild(String, JSONObject)}
+     * instead.
+     */
+     public synchronized JSONObject getChild(String nodeKey) {
         JSONObject node = data.optJSONObject(nodeKey);
         if(node == null) {
             node = new JSONObject();
@@ -164,12 +396,29 @@ public class FilePreferences {
         return node;
     }
 
-    public void setChild(String nodeKey, JSONObject metadata) {
+    public synchronized void setChild(String nodeKey, JSONObject metadata) {
         data.put(nodeKey, metadata);
         save();
     }
 
-     public JSONArray getChildArray(String nodeKey, List<String> defaultValues) {
+    public synchronized void putChildren(String nodeKey, Map<String, String> values) {
+        JSONObject node = data.optJSONObject(nodeKey);
+        if (node == null) {
+            node = new JSONObject();
+            data.put(nodeKey, node);
+        }
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            node.put(entry.getKey(), entry.getValue());
+        }
+        save();
+    }
+
+    /**
+     * Returns the given array, creating it with the given values if missing.
+     * The array is live: it is written by background saves, so it must not
+     * be modified directly; use {@link #setChildArray(String, List)} instead.
+     */
+     public synchronized JSONArray getChildArray(String nodeKey, List<String> defaultValues) {
         JSONArray node = data.optJSONArray(nodeKey);
         if(node == null) {
             node = new JSONArray();
@@ -181,7 +430,12 @@ public class FilePreferences {
         return node;
     }
 
-    public List<String> getChildList(String nodeKey, List<String> defaultValues) {
+    public synchronized void setChildArray(String nodeKey, List<String> values) {
+        data.put(nodeKey, new JSONArray(values));
+        save();
+    }
+
+    public synchronized List<String> getChildList(String nodeKey, List<String> defaultValues) {
         return jsonArrayToList(getChildArray(nodeKey, defaultValues));
     }
 
@@ -193,7 +447,7 @@ public class FilePreferences {
         return list;
     }
 
-    public void putChildBoolean(String nodeKey, String key, boolean value) {
+    public synchronized void putChildBoolean(String nodeKey, String key, boolean value) {
         JSONObject node = data.optJSONObject(nodeKey);
         if (node == null) {
             node = new JSONObject();
@@ -203,7 +457,7 @@ public class FilePreferences {
         save();
     }
 
-    public boolean getChildBoolean(String nodeKey, String key, boolean def) {
+    public synchronized boolean getChildBoolean(String nodeKey, String key, boolean def) {
         JSONObject node = data.optJSONObject(nodeKey);
         if (node != null) {
             return node.optBoolean(key, def);
@@ -211,7 +465,7 @@ public class FilePreferences {
         return def;
     }
 
-    public void putChildInt(String nodeKey, String key, int value) {
+    public synchronized void putChildInt(String nodeKey, String key, int value) {
         JSONObject node = data.optJSONObject(nodeKey);
         if (node == null) {
             node = new JSONObject();
@@ -221,7 +475,7 @@ public class FilePreferences {
         save();
     }
 
-    public int getChildInt(String nodeKey, String key, int def) {
+    public synchronized int getChildInt(String nodeKey, String key, int def) {
         JSONObject node = data.optJSONObject(nodeKey);
         if (node != null) {
             return node.optInt(key, def);
@@ -23,6 +23,7 @@ import io.github.jeddict.ai.models.registry.GenAIModel;
 import io.github.jeddict.ai.models.registry.GenAIProvider;
 import io.github.jeddict.ai.response.TokenGranularity;
 import static io.github.jeddict.ai.models.registry.GenAIModel.DEFAULT_MODEL;
+import io.github.jeddict.ai.util.ExcludeMatcher;
 import io.github.jeddict.ai.util.FileUtil;
 import java.io.BufferedReader;
 import java.io.InputStream;
@@ -175,6 +176,7 @@ public class PreferencesManager {
     private static final String PROMPT_RESOURCE_PATH = "/templates/prompts/";
     private List<String> acceptedExtensions = Collections.EMPTY_LIST;
     private List<String> excludeDir = Collections.EMPTY_LIST;
+    private ExcludeMatcher excludeMatcher;
     private Map<String, String> userPrompts = new LinkedHashMap<>();
     private final Map<String, String> systemPrompts = new LinkedHashMap<>();
     private Map<String, String> headerKeyValueMap = new HashMap<>();
@@ -184,7 +186,11 @@ public class PreferencesManager {
         final Path configPath = FileUtil.getConfigPath();
         final Path configFile = configPath.resolve(JEDDICT_CONFIG);
 
-        preferences = new FilePreferences(configFile);
+        //
+        // settings are often changed in bursts (e.g. applying the settings
+        // panel), from the EDT: save them in background
+        //
+        preferences = new FilePreferences(configFile, true);
 
     }
 
@@ -566,14 +572,88 @@ public class PreferencesManager {
         preferences.putInt("conversationContext", contextValue);
     }
 
+    /**
+     * @return the number of responses of a chat kept in memory, older ones
+     *         are read back from the session file when navigated to; default 20
+     */
+    public int getChatHistoryWindow() {
+        return preferences.getInt("chatHistoryWindow", 20);
+    }
+
+    public void setChatHistoryWindow(int window) {
+        preferences.putInt("chatHistoryWindow", window);
+    }
+
+    /**
+     * @return the maximum number of characters of a tool result passed to
+     *         the model; longer results are truncated and the rest can be
+     *         paged with the fetchMore tool. 0 means no limit; default 40000
+     *         (about 10k tokens)
+     */
+    public int getToolOutputLimit() {
+        return preferences.getInt("toolOutputLimit", 40_000);
+    }
+
+    public void setToolOutputLimit(int limit) {
+        preferences.putInt("toolOutputLimit", limit);
+    }
+
+    /**
+     * @param tool the tool name
+     *
+     * @return the output limit of the given tool, {@link #getToolOutputLimit()}
+     *         if not set
+     */
+    public int getToolOutputLimit(String tool) {
+        return preferences.getChildInt("toolOutputLimits", tool, getToolOutputLimit());
+    }
+
+    public void setToolOutputLimit(String tool, int limit) {
+        preferences.putChildInt("toolOutputLimits", tool, limit);
+    }
+
+    /**
+     * @return the maximum time in seconds a command run by a tool can take
+     *         before it is stopped. 0 means no limit; default 600 (10 minutes)
+     */
+    public int getCommandTimeout() {
+        return preferences.getInt("commandTimeout", 600);
+    }
+
+    public void setCommandTimeout(int seconds) {
+        preferences.putInt("commandTimeout", seconds);
+    }
+
+    /**
+     * @return true if builds run by the agent (e.g. maven goals or gradle
+     *         tasks) return the output of the previous identical build when
+     *         no project file changed in between; default false
+     */
+    public boolean isBuildResultCacheEnabled() {
+        return preferences.getBoolean("buildResultCache", false);
+    }
+
+    public void setBuildResultCacheEnabled(boolean enabled) {
+        preferences.putBoolean("buildResultCache", enabled);
+    }
+
+    /**
+     * @return the minimum time in milliseconds between two updates of the
+     *         chat while a response is streamed; default 16 (about 60 updates
+     *         per second)
+     */
+    public int getStreamRefreshMillis() {
+        return preferences.getInt("streamRefreshMillis", 16);
+    }
+
+    public void setStreamRefreshMillis(int millis) {
+        preferences.putInt("streamRefreshMillis", millis);
+    }
+
     public void setFileExtensionToInclude(String exts) {
         if (exts != null) {
             String[] fileExtensionToInclude = exts.split("\\s*,\\s*");
-            JSONArray array = preferences.getChildArray("fileExtensionToInclude", DEFAULT_ACCEPTED_EXTENSIONS);
-            array.clear();
-            for (String ext : fileExtensionToInclude) {
-                array.put(ext);
-            }
+            preferences.setChildArray("fileExtensionToInclude", Arrays.asList(fileExtensionToInclude));
             acceptedExtensions = Arrays.asList(fileExtensionToInclude);
         }
     }
@@ -588,11 +668,7 @@ public class PreferencesManager {
     public void setExcludeDirs(String dirs) {
         if (dirs != null) {
             String[] excludeDirs = dirs.split("\\s*,\\s*");
-            JSONArray array = preferences.getChildArray("excludeDirs", EXCLUDE_DIR_DEFAULT);
-            array.clear();
-            for (String dir : excludeDirs) {
-                array.put(dir);
-            }
+            preferences.setChildArray("excludeDirs", Arrays.asList(excludeDirs));
             excludeDir = Arrays.asList(excludeDirs);
         }
     }
@@ -604,6 +680,21 @@ public class PreferencesManager {
         return excludeDir;
     }
 
+    /**
+     * Returns the exclude dirs compiled for fast matching. The matcher is
+     * compiled again only when the exclude dirs change.
+     *
+     * @return the matcher of {@link #getExcludeDirs()}
+     */
+    public synchronized ExcludeMatcher getExcludeMatcher() {
+        final List<String> excludes = getExcludeDirs();
+        if (excludeMatcher == null
+            || (excludeMatcher.excludes() != excludes && !excludeMatcher.excludes().equals(excludes))) {
+            excludeMatcher = ExcludeMatcher.compile(excludes);
+        }
+        return excludeMatcher;
+    }
+
 
     public synchronized Map<String, String> getCustomHeaders() {
         String nodeKey = "customHeaders";
@@ -620,12 +711,7 @@ public class PreferencesManager {
     }
 
     public void setCustomHeaders(Map<String, String> map) {
-        String nodeKey = "customHeaders";
-        JSONObject prefPrompts = preferences.getChild(nodeKey);
-        for (Map.Entry<String, String> entry : map.entrySet()) {
-            prefPrompts.put(entry.getKey(), entry.getValue());
-        }
-        preferences.save();
+        preferences.putChildren("customHeaders", map);
         headerKeyValueMap = map;
     }
 
@@ -699,12 +785,11 @@ public class PreferencesManager {
     }
 
     public void setPrompts(Map<String, String> map) {
-        String nodeKey = "prompts";
-        JSONObject prefPrompts = preferences.getChild(nodeKey);
+        final Map<String, String> encoded = new LinkedHashMap<>();
         for (Map.Entry<String, String> entry : map.entrySet()) {
-            prefPrompts.put(entry.getKey(), URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8));
+            encoded.put(entry.getKey(), URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8));
         }
-        preferences.save();
+        preferences.putChildren("prompts", encoded);
         userPrompts = map;
     }
 
@@ -15,26 +15,94 @@
  */
 package io.github.jeddict.ai.settings;
 
+import io.github.jeddict.ai.lang.RequestFeature;
+import io.github.jeddict.ai.response.TokenGranularity;
 import io.github.jeddict.ai.util.FileUtil;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.json.JSONObject;
+import org.openide.util.RequestProcessor;
 
 /**
+ * Keeps the token usage statistics. Usage events are appended to
+ * {@code jeddict-stats.log} (see {@link TokenStatsLog}) in batches and rolled
+ * up in memory into a {@link TokenUsageSeries}, at all granularities at once,
+ * into per model totals and into per model and feature cost and latency
+ * {@link RequestMetrics}; the rollups are periodically compacted in
+ * background into {@code jeddict-stats.json}, after which the log is
+ * truncated. At startup the events logged after the last compaction are
+ * replayed on top of the stored rollups.
  *
  * @author Gaurav Gupta
  */
 public class ReportManager {
 
     public static final String JEDDICT_STATS = "jeddict-stats.json";
+    public static final String JEDDICT_STATS_LOG = "jeddict-stats.log";
     public static final String DAILY_INPUT_TOKEN_STATS_KEY = "dailyInputTokenStats";
     public static final String DAILY_OUTPUT_TOKEN_STATS_KEY = "dailyOutputTokenStats";
+    public static final String MODEL_TOKEN_STATS_KEY = "modelTokenStats";
+    public static final String TOKEN_SERIES_KEY = "tokenSeries";
+    public static final String LOG_SEQUENCE_KEY = "logSequence";
+    public static final String REQUEST_METRICS_KEY = "requestMetrics";
+
+    public static final String INPUT_TOKENS = "input";
+    public static final String OUTPUT_TOKENS = "output";
+    public static final String CACHED_TOKENS = "cached";
+    public static final String REQUESTS = "requests";
+    public static final String ESTIMATED_REQUESTS = "estimated";
+
+    /**
+     * Delay before buffered events are written to the log, so that the
+     * events of a burst of requests end up in a single write and fsync
+     */
+    private static final int FLUSH_DELAY_MS = 2_000;
+
+    /**
+     * Size of the log above which it is compacted at the next flush
+     */
+    private static final long COMPACT_THRESHOLD_BYTES = 64 * 1024;
+
+    /**
+     * Maximum time between two compactions
+     */
+    private static final long COMPACT_INTERVAL_MS = 10 * 60_000L;
+
+    private static final Logger LOG = Logger.getLogger(ReportManager.class.getName());
+
+    private static final RequestProcessor RP = new RequestProcessor(ReportManager.class);
 
     private final FilePreferences stats;
+    private final TokenStatsLog log;
+    private final RequestProcessor.Task flushTask;
     private static ReportManager instance;
-    private JSONObject dailyInputTokenStats;
-    private JSONObject dailyOutputTokenStats;
+    private final TokenUsageSeries series = new TokenUsageSeries();
+    private JSONObject seriesStats;
+    private final RequestMetrics requestMetrics = new RequestMetrics();
+    private JSONObject metricsStats;
+    private JSONObject modelTokenStats;
+    private long sequence;
+    private long lastCompaction;
+    private boolean flushScheduled;
 
     private ReportManager() {
         stats = new FilePreferences(FileUtil.getConfigPath().resolve(JEDDICT_STATS));
+        log = new TokenStatsLog(FileUtil.getConfigPath().resolve(JEDDICT_STATS_LOG));
+        flushTask = RP.create(this::flush);
+
+        seriesStats = stats.getChild(TOKEN_SERIES_KEY);
+        series.readFrom(seriesStats);
+        importLegacyStats();
+        modelTokenStats = stats.getChild(MODEL_TOKEN_STATS_KEY);
+        metricsStats = stats.getChild(REQUEST_METRICS_KEY);
+        requestMetrics.readFrom(metricsStats);
+
+        final long compacted = Long.parseLong(stats.get(LOG_SEQUENCE_KEY, "0"));
+        sequence = log.replay(compacted, this::rollup);
+        lastCompaction = System.currentTimeMillis();
     }
 
     public static ReportManager getInstance() {
@@ -48,26 +116,243 @@ public class ReportManager {
         return instance;
     }
 
-    public JSONObject getDailyInputTokenStats() {
-        if (dailyInputTokenStats == null) {
-            dailyInputTokenStats = stats.getChild(DAILY_INPUT_TOKEN_STATS_KEY);
+    /**
+     * Writes pending events and compacts the log if the manager has been
+     * created; to be called at shutdown.
+     */
+    public static void shutdown() {
+        final ReportManager manager = instance;
+        if (manager != null) {
+            manager.compact();
+        }
+    }
+
+    /**
+     * Records the token usage of a request/response exchange. The event is
+     * rolled up in memory right away and written to the log in background.
+     *
+     * @param model the model name - MAY BE NULL
+     * @param input input tokens
+     * @param output output tokens
+     * @param cached cached input tokens
+     * @param estimated true if the counts were estimated locally
+     */
+    public void recordTokenUsage(
+        final String model, final int input, final int output, final int cached, final boolean estimated
+    ) {
+        recordRequest(model, null, input, output, cached, estimated, -1, -1, 0);
+    }
+
+    /**
+     * Records a model request: its token usage as in
+     * {@link #recordTokenUsage(String, int, int, int, boolean)} plus the
+     * latency and cost, which are rolled up into the {@link RequestMetrics}
+     * of the model and feature.
+     *
+     * @param model the model name - MAY BE NULL
+     * @param feature the feature the request was made for - MAY BE NULL, in
+     *        which case only the token usage is recorded
+     * @param input input tokens
+     * @param output output tokens
+     * @param cached cached input tokens
+     * @param estimated true if the counts were estimated locally
+     * @param wallMillis time from the request to the complete response
+     * @param ttftMillis time from the request to the first token
+     * @param cost request cost in USD, 0 if the model pricing is unknown
+     */
+    public synchronized void recordRequest(
+        final String model, final RequestFeature feature,
+        final int input, final int output, final int cached, final boolean estimated,
+        final long wallMillis, final long ttftMillis, final double cost
+    ) {
+        final TokenStatsLog.Event event = new TokenStatsLog.Event(
+            ++sequence, System.currentTimeMillis(),
+            (model == null || model.isBlank()) ? "unknown" : model,
+            input, output, cached, estimated,
+            feature, wallMillis, ttftMillis, cost
+        );
+        rollup(event);
+        log.append(event);
+        if (!flushScheduled) {
+            flushScheduled = true;
+            flushTask.schedule(FLUSH_DELAY_MS);
+        }
+    }
+
+    /**
+     * Writes the buffered events to the log, compacting it when it grows
+     * beyond {@value #COMPACT_THRESHOLD_BYTES} bytes or was not compacted for
+     * a while.
+     */
+    public synchronized void flush() {
+        flushScheduled = false;
+        try {
+            log.flush();
+        } catch (IOException x) {
+            LOG.log(Level.WARNING, "unable to write token stats log " + log.logPath, x);
+            return;
+        }
+        if (log.size() > COMPACT_THRESHOLD_BYTES
+            || System.currentTimeMillis() - lastCompaction > COMPACT_INTERVAL_MS) {
+            compact();
+        }
+    }
+
+    /**
+     * Stores the rollups in {@code jeddict-stats.json} together with the
+     * sequence number of the last event they include, then truncates the log.
+     */
+    public synchronized void compact() {
+        series.writeTo(seriesStats);
+        requestMetrics.writeTo(metricsStats);
+        try {
+            //
+            // the rollups are live children of the stats preferences, hence
+            // saving the sequence number writes them too; once they are safely
+            // stored, logged and pending events are not needed any more
+            //
+            stats.put(LOG_SEQUENCE_KEY, String.valueOf(sequence));
+            log.reset();
+            lastCompaction = System.currentTimeMillis();
+        } catch (IOException | RuntimeException x) {
+            LOG.log(Level.WARNING, "unable to compact token stats", x);
+        }
+    }
+
+    /**
+     * @param granularity the granularity
+     * @param n number of buckets
+     *
+     * @return the input tokens of the last {@code n} buckets of the given
+     *         granularity, up to the current one, oldest first
+     */
+    public synchronized long[] getInputUsage(final TokenGranularity granularity, final int n) {
+        return series.getInputs(granularity, granularity.getCurrentBucketKey(), n);
+    }
+
+    /**
+     * @param granularity the granularity
+     * @param n number of buckets
+     *
+     * @return the output tokens of the last {@code n} buckets of the given
+     *         granularity, up to the current one, oldest first
+     */
+    public synchronized long[] getOutputUsage(final TokenGranularity granularity, final int n) {
+        return series.getOutputs(granularity, granularity.getCurrentBucketKey(), n);
+    }
+
+    /**
+     * Per model token totals, keyed by model name; each entry holds the
+     * input, output and cached token counts plus the number of requests and
+     * how many of them were estimated locally because the provider did not
+     * report its usage.
+     *
+     * @return a snapshot of the per model stats
+     */
+    public synchronized JSONObject getModelTokenStats() {
+        return new JSONObject(modelTokenStats.toMap());
+    }
+
+    /**
+     * @return a snapshot of the cost and latency metrics per model and feature
+     */
+    public synchronized RequestMetrics getRequestMetrics() {
+        final JSONObject json = new JSONObject();
+        requestMetrics.writeTo(json);
+
+        final RequestMetrics snapshot = new RequestMetrics();
+        snapshot.readFrom(json);
+        return snapshot;
+    }
+
+    /**
+     * @param n number of buckets
+     *
+     * @return the input tokens used in the last {@code n} buckets of the
+     *         current granularity, computed from the in-memory rollups
+     */
+    public synchronized long getLastNInputUsage(final int n) {
+        return sum(getInputUsage(granularity(), n));
+    }
+
+    /**
+     * @param n number of buckets
+     *
+     * @return the output tokens used in the last {@code n} buckets of the
+     *         current granularity, computed from the in-memory rollups
+     */
+    public synchronized long getLastNOutputUsage(final int n) {
+        return sum(getOutputUsage(granularity(), n));
+    }
+
+    // --------------------------------------------------------- private methods
+
+    private void rollup(final TokenStatsLog.Event event) {
+        series.add(event.timestamp(), event.input(), event.output());
+
+        JSONObject usage = modelTokenStats.optJSONObject(event.model());
+        if (usage == null) {
+            usage = new JSONObject();
+            modelTokenStats.put(event.model(), usage);
+        }
+        usage.put(INPUT_TOKENS, usage.optLong(INPUT_TOKENS, 0) + event.input());
+        usage.put(OUTPUT_TOKENS, usage.optLong(OUTPUT_TOKENS, 0) + event.output());
+        usage.put(CACHED_TOKENS, usage.optLong(CACHED_TOKENS, 0) + event.cached());
+        usage.put(REQUESTS, usage.optLong(REQUESTS, 0) + 1);
+        if (event.estimated()) {
+            usage.put(ESTIMATED_REQUESTS, usage.optLong(ESTIMATED_REQUESTS, 0) + 1);
+        }
+
+        if (event.feature() != null) {
+            requestMetrics.add(
+                event.model(), event.feature(), event.input(), event.output(),
+                event.wallMillis(), event.ttftMillis(), event.cost()
+            );
         }
-        return dailyInputTokenStats;
     }
 
-    public void setDailyInputTokenStats(JSONObject usage) {
-        this.dailyInputTokenStats = usage;
-        stats.setChild(DAILY_INPUT_TOKEN_STATS_KEY, usage);
+    private static long sum(final long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
     }
 
-    public JSONObject getDailyOutputTokenStats() {
-        if (dailyOutputTokenStats == null) {
-            dailyOutputTokenStats = stats.getChild(DAILY_OUTPUT_TOKEN_STATS_KEY);
+    /**
+     * Older versions kept the usage per bucket of the configured granularity
+     * only: bring it into the series at that granularity and at the coarser
+     * ones, then drop it.
+     */
+    private void importLegacyStats() {
+        if (!stats.contains(DAILY_INPUT_TOKEN_STATS_KEY) && !stats.contains(DAILY_OUTPUT_TOKEN_STATS_KEY)) {
+            return;
         }
-        return dailyOutputTokenStats;
+
+        final JSONObject input = stats.getChild(DAILY_INPUT_TOKEN_STATS_KEY);
+        final JSONObject output = stats.getChild(DAILY_OUTPUT_TOKEN_STATS_KEY);
+
+        final TokenGranularity legacy = granularity();
+        final Set<String> buckets = new HashSet<>(input.keySet());
+        buckets.addAll(output.keySet());
+        for (String key : buckets) {
+            try {
+                final long timestamp = Long.parseLong(key) * legacy.intervalMillis;
+                for (TokenGranularity g : TokenGranularity.values()) {
+                    if (g.intervalMillis >= legacy.intervalMillis) {
+                        series.add(g, g.getBucketKey(timestamp), input.optLong(key, 0), output.optLong(key, 0));
+                    }
+                }
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        series.writeTo(seriesStats);
+        stats.remove(DAILY_INPUT_TOKEN_STATS_KEY);
+        stats.remove(DAILY_OUTPUT_TOKEN_STATS_KEY);
     }
 
-    public void setDailyOutputTokenStats(JSONObject usage) {
-        stats.setChild(DAILY_OUTPUT_TOKEN_STATS_KEY, usage);
+    private TokenGranularity granularity() {
+        return PreferencesManager.getInstance().getTokenGranularity();
     }
 }
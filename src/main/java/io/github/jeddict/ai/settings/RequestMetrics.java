@@ -0,0 +1,307 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.settings;
+
+import io.github.jeddict.ai.lang.RequestFeature;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Cost and latency of the model requests, aggregated per model and feature.
+ * Wall time and time to first token are kept as histograms with exponential
+ * buckets (see {@link #LATENCY_BOUNDS_MS}), from which percentiles are
+ * approximated with the upper bound of the bucket they fall in; this keeps
+ * the stats of any number of requests in a constant, small space.
+ * <p>
+ * This class is not thread safe, access is coordinated by {@link ReportManager}.
+ */
+public class RequestMetrics {
+
+    /**
+     * Upper bounds (inclusive) in milliseconds of the latency buckets; the
+     * last bucket holds everything slower than the last bound
+     */
+    public static final long[] LATENCY_BOUNDS_MS = {
+        250, 500, 1_000, 2_000, 4_000, 8_000, 16_000, 32_000, 64_000, 128_000
+    };
+
+    public static final String CSV_HEADER
+        = "model,feature,requests,input_tokens,output_tokens,cost_usd,avg_cost_usd,"
+        + "avg_wall_ms,p50_wall_ms,p95_wall_ms,avg_ttft_ms,p50_ttft_ms,p95_ttft_ms";
+
+    private static final String REQUESTS = "requests", INPUT = "input", OUTPUT = "output",
+        COST = "cost", WALL = "wall", WALL_TOTAL = "wallTotal", TTFT = "ttft", TTFT_TOTAL = "ttftTotal";
+
+    private final Map<String, Map<RequestFeature, Stats>> models = new TreeMap<>();
+
+    /**
+     * Aggregated metrics of the requests of a model for a feature
+     */
+    public static final class Stats {
+
+        public final String model;
+        public final RequestFeature feature;
+
+        private long requests, input, output, wallTotal, ttftTotal;
+        private double cost;
+        private final long[] wall = new long[LATENCY_BOUNDS_MS.length + 1];
+        private final long[] ttft = new long[LATENCY_BOUNDS_MS.length + 1];
+
+        private Stats(final String model, final RequestFeature feature) {
+            this.model = model;
+            this.feature = feature;
+        }
+
+        public long requests() { return requests; }
+        public long inputTokens() { return input; }
+        public long outputTokens() { return output; }
+        public double cost() { return cost; }
+
+        public double averageCost() {
+            return (requests == 0) ? 0 : cost / requests;
+        }
+
+        public long averageWallMillis() {
+            return (requests == 0) ? 0 : wallTotal / requests;
+        }
+
+        public long averageTtftMillis() {
+            return (requests == 0) ? 0 : ttftTotal / requests;
+        }
+
+        /**
+         * @return a copy of the wall time histogram, one count per bucket of
+         *         {@link #LATENCY_BOUNDS_MS} plus one for slower requests
+         */
+        public long[] wallHistogram() {
+            return wall.clone();
+        }
+
+        /**
+         * @return a copy of the time to first token histogram, one count per
+         *         bucket of {@link #LATENCY_BOUNDS_MS} plus one for slower
+         *         requests
+         */
+        public long[] ttftHistogram() {
+            return ttft.clone();
+        }
+
+        public long wallPercentile(final double p) {
+            return percentile(wall, p);
+        }
+
+        public long ttftPercentile(final double p) {
+            return percentile(ttft, p);
+        }
+    }
+
+    /**
+     * Adds a request to the metrics.
+     *
+     * @param model the model name
+     * @param feature the feature the request was made for
+     * @param input input tokens
+     * @param output output tokens
+     * @param wallMillis time from the request to the complete response
+     * @param ttftMillis time from the request to the first token
+     * @param cost request cost in USD
+     */
+    public void add(
+        final String model, final RequestFeature feature,
+        final long input, final long output,
+        final long wallMillis, final long ttftMillis, final double cost
+    ) {
+        final Stats stats = stats(model, feature);
+        stats.requests += 1;
+        stats.input += input;
+        stats.output += output;
+        stats.cost += cost;
+        stats.wallTotal += Math.max(0, wallMillis);
+        stats.ttftTotal += Math.max(0, ttftMillis);
+        stats.wall[bucket(wallMillis)] += 1;
+        stats.ttft[bucket(ttftMillis)] += 1;
+    }
+
+    /**
+     * @return the stats of all models and features, sorted by model name and
+     *         feature
+     */
+    public List<Stats> getStats() {
+        final List<Stats> all = new ArrayList<>();
+        for (Map<RequestFeature, Stats> features : models.values()) {
+            all.addAll(features.values());
+        }
+        return Collections.unmodifiableList(all);
+    }
+
+    public void clear() {
+        models.clear();
+    }
+
+    /**
+     * Writes the stats as CSV, one line per model and feature, preceded by
+     * {@link #CSV_HEADER}.
+     *
+     * @param out the target
+     *
+     * @throws IOException in case of write errors
+     */
+    public void writeCsv(final Appendable out) throws IOException {
+        out.append(CSV_HEADER).append('\n');
+        for (Stats s : getStats()) {
+            out.append(csv(s.model)).append(',')
+               .append(s.feature.name()).append(',')
+               .append(String.valueOf(s.requests)).append(',')
+               .append(String.valueOf(s.input)).append(',')
+               .append(String.valueOf(s.output)).append(',')
+               .append(String.format(Locale.ROOT, "%.6f", s.cost)).append(',')
+               .append(String.format(Locale.ROOT, "%.6f", s.averageCost())).append(',')
+               .append(String.valueOf(s.averageWallMillis())).append(',')
+               .append(String.valueOf(s.wallPercentile(0.5))).append(',')
+               .append(String.valueOf(s.wallPercentile(0.95))).append(',')
+               .append(String.valueOf(s.averageTtftMillis())).append(',')
+               .append(String.valueOf(s.ttftPercentile(0.5))).append(',')
+               .append(String.valueOf(s.ttftPercentile(0.95))).append('\n');
+        }
+    }
+
+    /**
+     * Stores the stats in the given object, keyed by model name and feature.
+     *
+     * @param json the target object
+     */
+    public void writeTo(final JSONObject json) {
+        json.clear();
+        for (Map.Entry<String, Map<RequestFeature, Stats>> model : models.entrySet()) {
+            final JSONObject features = new JSONObject();
+            for (Stats s : model.getValue().values()) {
+                features.put(s.feature.name(), new JSONObject()
+                    .put(REQUESTS, s.requests)
+                    .put(INPUT, s.input)
+                    .put(OUTPUT, s.output)
+                    .put(COST, s.cost)
+                    .put(WALL_TOTAL, s.wallTotal)
+                    .put(TTFT_TOTAL, s.ttftTotal)
+                    .put(WALL, new JSONArray(s.wall))
+                    .put(TTFT, new JSONArray(s.ttft))
+                );
+            }
+            json.put(model.getKey(), features);
+        }
+    }
+
+    /**
+     * Loads the stats stored by {@link #writeTo(JSONObject)}; unknown
+     * features are ignored.
+     *
+     * @param json the source object
+     */
+    public void readFrom(final JSONObject json) {
+        for (String model : json.keySet()) {
+            final JSONObject features = json.optJSONObject(model);
+            if (features == null) {
+                continue;
+            }
+            for (String name : features.keySet()) {
+                final JSONObject entry = features.optJSONObject(name);
+                final RequestFeature feature;
+                try {
+                    feature = RequestFeature.valueOf(name);
+                } catch (IllegalArgumentException x) {
+                    continue;
+                }
+                if (entry == null) {
+                    continue;
+                }
+                final Stats s = stats(model, feature);
+                s.requests += entry.optLong(REQUESTS, 0);
+                s.input += entry.optLong(INPUT, 0);
+                s.output += entry.optLong(OUTPUT, 0);
+                s.cost += entry.optDouble(COST, 0);
+                s.wallTotal += entry.optLong(WALL_TOTAL, 0);
+                s.ttftTotal += entry.optLong(TTFT_TOTAL, 0);
+                readHistogram(entry.optJSONArray(WALL), s.wall);
+                readHistogram(entry.optJSONArray(TTFT), s.ttft);
+            }
+        }
+    }
+
+    // --------------------------------------------------------- private methods
+
+    private Stats stats(final String model, final RequestFeature feature) {
+        return models
+            .computeIfAbsent(model, (m) -> new EnumMap<>(RequestFeature.class))
+            .computeIfAbsent(feature, (f) -> new Stats(model, f));
+    }
+
+    static int bucket(final long millis) {
+        for (int i = 0; i < LATENCY_BOUNDS_MS.length; ++i) {
+            if (millis <= LATENCY_BOUNDS_MS[i]) {
+                return i;
+            }
+        }
+        return LATENCY_BOUNDS_MS.length;
+    }
+
+    /**
+     * @return the upper bound of the bucket the given percentile falls in, or
+     *         twice the last bound if it is in the overflow bucket
+     */
+    static long percentile(final long[] histogram, final double p) {
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(p * total));
+        long seen = 0;
+        for (int i = 0; i < histogram.length; ++i) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return (i < LATENCY_BOUNDS_MS.length)
+                     ? LATENCY_BOUNDS_MS[i]
+                     : LATENCY_BOUNDS_MS[LATENCY_BOUNDS_MS.length - 1] * 2;
+            }
+        }
+        return LATENCY_BOUNDS_MS[LATENCY_BOUNDS_MS.length - 1] * 2;
+    }
+
+    private static void readHistogram(final JSONArray json, final long[] histogram) {
+        if (json == null) {
+            return;
+        }
+        for (int i = 0; i < Math.min(json.length(), histogram.length); ++i) {
+            histogram[i] += json.optLong(i, 0);
+        }
+    }
+
+    private static String csv(final String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
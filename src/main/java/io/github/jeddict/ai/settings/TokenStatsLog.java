@@ -0,0 +1,238 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.settings;
+
+import io.github.jeddict.ai.lang.RequestFeature;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Append-only log of token usage events. Events are buffered in memory and
+ * written in batches, with a single fsync per batch; the log is periodically
+ * compacted by {@link ReportManager} into the rollups stored in
+ * {@code jeddict-stats.json} and then reset.
+ * <p>
+ * Each event carries a sequence number so that, after a crash between the
+ * compaction and the reset of the log, events already rolled up are not
+ * counted twice. A partially written last line (e.g. after a crash in the
+ * middle of a write) is ignored.
+ * <p>
+ * This class is not thread safe, access is coordinated by {@link ReportManager}.
+ */
+public class TokenStatsLog {
+
+    private static final Logger LOG = Logger.getLogger(TokenStatsLog.class.getName());
+
+    private static final char SEPARATOR = '\t';
+
+    private static final String NO_FEATURE = "-";
+
+    private static final String END = ".";
+
+    public final Path logPath;
+
+    private final List<Event> pending = new ArrayList<>();
+
+    /**
+     * A token usage event as appended to the log.
+     *
+     * @param sequence monotonically increasing event number
+     * @param timestamp event time in milliseconds since epoch
+     * @param model the model name
+     * @param input input tokens
+     * @param output output tokens
+     * @param cached cached input tokens
+     * @param estimated true if the counts were estimated locally
+     * @param feature the feature the request was made for - MAY BE NULL if
+     *        the event does not come from a metered request
+     * @param wallMillis time from the request to the complete response, -1 if unknown
+     * @param ttftMillis time from the request to the first token, -1 if unknown
+     * @param cost request cost in USD, 0 if unknown
+     */
+    public record Event(
+        long sequence, long timestamp, String model,
+        int input, int output, int cached, boolean estimated,
+        RequestFeature feature, long wallMillis, long ttftMillis, double cost
+    ) {
+
+        String toLine() {
+            return new StringBuilder()
+                .append(sequence).append(SEPARATOR)
+                .append(timestamp).append(SEPARATOR)
+                .append(input).append(SEPARATOR)
+                .append(output).append(SEPARATOR)
+                .append(cached).append(SEPARATOR)
+                .append(estimated ? 1 : 0).append(SEPARATOR)
+                .append((feature != null) ? feature.name() : NO_FEATURE).append(SEPARATOR)
+                .append(wallMillis).append(SEPARATOR)
+                .append(ttftMillis).append(SEPARATOR)
+                .append(cost).append(SEPARATOR)
+                .append(model.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ')).append(SEPARATOR)
+                .append(END)
+                .append('\n')
+                .toString();
+        }
+
+        //
+        // a line has exactly the 11 fields above followed by END, so that a
+        // line torn in the middle of the model name is not taken for a
+        // complete one
+        //
+        static Event fromLine(final String line) {
+            final String[] fields = line.split(String.valueOf(SEPARATOR), -1);
+            if (fields.length != 12 || !END.equals(fields[11])) {
+                throw new IllegalArgumentException("invalid token stats event: " + line);
+            }
+            return new Event(
+                Long.parseLong(fields[0]), Long.parseLong(fields[1]), fields[10],
+                Integer.parseInt(fields[2]), Integer.parseInt(fields[3]),
+                Integer.parseInt(fields[4]), "1".equals(fields[5]),
+                NO_FEATURE.equals(fields[6]) ? null : RequestFeature.valueOf(fields[6]),
+                Long.parseLong(fields[7]), Long.parseLong(fields[8]), Double.parseDouble(fields[9])
+            );
+        }
+    }
+
+    public TokenStatsLog(final Path logPath) {
+        this.logPath = logPath;
+    }
+
+    /**
+     * Buffers the given event; it will be written at the next {@link #flush()}.
+     *
+     * @param event the event
+     */
+    public void append(final Event event) {
+        pending.add(event);
+    }
+
+    /**
+     * Writes all buffered events to the log and syncs it to disk.
+     *
+     * @throws IOException in case of write errors; buffered events are kept
+     */
+    public void flush() throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        final StringBuilder batch = new StringBuilder(pending.size() * 48);
+        for (Event event : pending) {
+            batch.append(event.toLine());
+        }
+
+        Files.createDirectories(logPath.getParent());
+        try (FileChannel channel = FileChannel.open(
+                logPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (endsWithPartialLine(channel)) {
+                //
+                // a previous write was interrupted: terminate the broken line
+                // so that it does not swallow the first event of this batch
+                //
+                batch.insert(0, '\n');
+            }
+            final ByteBuffer buffer = ByteBuffer.wrap(batch.toString().getBytes(StandardCharsets.UTF_8));
+            channel.position(channel.size());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        pending.clear();
+    }
+
+    /**
+     * Reads back the events in the log with a sequence number greater than
+     * the given one.
+     *
+     * @param afterSequence the last sequence number already rolled up
+     * @param consumer the events consumer
+     *
+     * @return the highest sequence number found, or {@code afterSequence} if
+     *         no newer events are in the log
+     */
+    public long replay(final long afterSequence, final Consumer<Event> consumer) {
+        long last = afterSequence;
+        if (!Files.exists(logPath)) {
+            return last;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(logPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    final Event event = Event.fromLine(line);
+                    if (event.sequence() > afterSequence) {
+                        consumer.accept(event);
+                        last = Math.max(last, event.sequence());
+                    }
+                } catch (IllegalArgumentException x) {
+                    LOG.finest(() -> "skipping unreadable token stats event: " + x.getMessage());
+                }
+            }
+        } catch (IOException x) {
+            LOG.log(Level.WARNING, "unable to read token stats log " + logPath, x);
+        }
+        return last;
+    }
+
+    /**
+     * Discards buffered events and the content of the log, to be called once
+     * all events have been rolled up and stored.
+     *
+     * @throws IOException in case of errors
+     */
+    public void reset() throws IOException {
+        pending.clear();
+        if (Files.exists(logPath)) {
+            try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.WRITE)) {
+                channel.truncate(0);
+                channel.force(true);
+            }
+        }
+    }
+
+    private boolean endsWithPartialLine(final FileChannel channel) throws IOException {
+        final long size = channel.size();
+        if (size == 0) {
+            return false;
+        }
+        final ByteBuffer last = ByteBuffer.allocate(1);
+        channel.read(last, size - 1);
+        return last.get(0) != '\n';
+    }
+
+    public long size() {
+        try {
+            return Files.exists(logPath) ? Files.size(logPath) : 0;
+        } catch (IOException x) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.settings;
+
+import io.github.jeddict.ai.response.TokenGranularity;
+import java.util.Arrays;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Token usage time series rolled up at all {@link TokenGranularity}
+ * resolutions at the same time, so that usage can be shown at any
+ * granularity without rescanning the history and switching granularity does
+ * not lose data.
+ * <p>
+ * Each resolution is a ring buffer of {@link TokenGranularity#retainedBuckets}
+ * slots backed by primitive arrays: a slot holds the key of the bucket it
+ * currently stores, so that stale slots are recognized and recycled when the
+ * ring wraps around.
+ * <p>
+ * This class is not thread safe, access is coordinated by {@link ReportManager}.
+ */
+public class TokenUsageSeries {
+
+    private static final int BUCKET = 0, INPUT = 1, OUTPUT = 2;
+
+    private final Ring[] rings;
+
+    private static final class Ring {
+
+        final long[] buckets;
+        final long[] input;
+        final long[] output;
+
+        Ring(final int size) {
+            buckets = new long[size];
+            input = new long[size];
+            output = new long[size];
+            Arrays.fill(buckets, -1);
+        }
+
+        int slot(final long bucket) {
+            return (int) Math.floorMod(bucket, (long) buckets.length);
+        }
+
+        void add(final long bucket, final long in, final long out) {
+            final int slot = slot(bucket);
+            if (buckets[slot] != bucket) {
+                if (buckets[slot] > bucket) {
+                    return; // older than the retained history
+                }
+                buckets[slot] = bucket;
+                input[slot] = 0;
+                output[slot] = 0;
+            }
+            input[slot] += in;
+            output[slot] += out;
+        }
+
+        long input(final long bucket) {
+            final int slot = slot(bucket);
+            return (buckets[slot] == bucket) ? input[slot] : 0;
+        }
+
+        long output(final long bucket) {
+            final int slot = slot(bucket);
+            return (buckets[slot] == bucket) ? output[slot] : 0;
+        }
+    }
+
+    public TokenUsageSeries() {
+        final TokenGranularity[] granularities = TokenGranularity.values();
+        rings = new Ring[granularities.length];
+        for (TokenGranularity g : granularities) {
+            rings[g.ordinal()] = new Ring(g.retainedBuckets);
+        }
+    }
+
+    /**
+     * Adds the given usage to the buckets of all resolutions containing the
+     * given time.
+     *
+     * @param timestamp usage time in milliseconds since epoch
+     * @param input input tokens
+     * @param output output tokens
+     */
+    public void add(final long timestamp, final long input, final long output) {
+        for (TokenGranularity g : TokenGranularity.values()) {
+            rings[g.ordinal()].add(g.getBucketKey(timestamp), input, output);
+        }
+    }
+
+    /**
+     * Adds the given usage to a single bucket of a single resolution; used to
+     * import usage only known at a given granularity.
+     *
+     * @param granularity the resolution
+     * @param bucket the bucket key
+     * @param input input tokens
+     * @param output output tokens
+     */
+    public void add(final TokenGranularity granularity, final long bucket, final long input, final long output) {
+        rings[granularity.ordinal()].add(bucket, input, output);
+    }
+
+    public long getInput(final TokenGranularity granularity, final long bucket) {
+        return rings[granularity.ordinal()].input(bucket);
+    }
+
+    public long getOutput(final TokenGranularity granularity, final long bucket) {
+        return rings[granularity.ordinal()].output(bucket);
+    }
+
+    /**
+     * @param granularity the resolution
+     * @param lastBucket the most recent bucket
+     * @param n number of buckets
+     *
+     * @return the input tokens of the {@code n} buckets ending with
+     *         {@code lastBucket}, oldest first
+     */
+    public long[] getInputs(final TokenGranularity granularity, final long lastBucket, final int n) {
+        final Ring ring = rings[granularity.ordinal()];
+        final long[] values = new long[n];
+        for (int i = 0; i < n; ++i) {
+            values[i] = ring.input(lastBucket - n + 1 + i);
+        }
+        return values;
+    }
+
+    /**
+     * @param granularity the resolution
+     * @param lastBucket the most recent bucket
+     * @param n number of buckets
+     *
+     * @return the output tokens of the {@code n} buckets ending with
+     *         {@code lastBucket}, oldest first
+     */
+    public long[] getOutputs(final TokenGranularity granularity, final long lastBucket, final int n) {
+        final Ring ring = rings[granularity.ordinal()];
+        final long[] values = new long[n];
+        for (int i = 0; i < n; ++i) {
+            values[i] = ring.output(lastBucket - n + 1 + i);
+        }
+        return values;
+    }
+
+    public void clear() {
+        for (Ring ring : rings) {
+            Arrays.fill(ring.buckets, -1);
+            Arrays.fill(ring.input, 0);
+            Arrays.fill(ring.output, 0);
+        }
+    }
+
+    /**
+     * Stores the non empty buckets of all resolutions in the given object, as
+     * arrays of {@code [bucket, input, output]} keyed by granularity name.
+     *
+     * @param json the target object
+     */
+    public void writeTo(final JSONObject json) {
+        for (TokenGranularity g : TokenGranularity.values()) {
+            final Ring ring = rings[g.ordinal()];
+            final JSONArray buckets = new JSONArray();
+            for (int slot = 0; slot < ring.buckets.length; ++slot) {
+                if (ring.buckets[slot] >= 0 && (ring.input[slot] != 0 || ring.output[slot] != 0)) {
+                    buckets.put(new JSONArray()
+                        .put(ring.buckets[slot]).put(ring.input[slot]).put(ring.output[slot])
+                    );
+                }
+            }
+            json.put(g.name(), buckets);
+        }
+    }
+
+    /**
+     * Loads the buckets stored by {@link #writeTo(JSONObject)}.
+     *
+     * @param json the source object
+     */
+    public void readFrom(final JSONObject json) {
+        for (TokenGranularity g : TokenGranularity.values()) {
+            final JSONArray buckets = json.optJSONArray(g.name());
+            if (buckets == null) {
+                continue;
+            }
+            for (int i = 0; i < buckets.length(); ++i) {
+                final JSONArray bucket = buckets.optJSONArray(i);
+                if (bucket != null && bucket.length() == 3) {
+                    add(g, bucket.getLong(BUCKET), bucket.getLong(INPUT), bucket.getLong(OUTPUT));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded, least recently used, cache of values computed from a text content
+ * (e.g. the SVG rendered from a diagram source). Entries are keyed by the
+ * SHA-256 hash of the content, so that large sources are not retained.
+ * <p>
+ * This class is thread safe; values are computed outside the lock, so the
+ * same value may be computed twice by concurrent callers.
+ *
+ * @param <V> the type of the cached values
+ */
+public class ContentCache<V> {
+
+    private final Map<String, V> entries;
+
+    /**
+     * @param capacity the maximum number of entries
+     */
+    public ContentCache(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @return the value computed from the given content or null if not cached
+     */
+    public V get(final String content) {
+        final String key = hash(content);
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    public void put(final String content, final V value) {
+        final String key = hash(content);
+        synchronized (entries) {
+            entries.put(key, value);
+        }
+    }
+
+    /**
+     * Returns the value computed from the given content, computing and caching
+     * it if not cached; null values are not cached.
+     */
+    public V computeIfAbsent(final String content, final Function<String, V> function) {
+        final String key = hash(content);
+        synchronized (entries) {
+            final V value = entries.get(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        final V value = function.apply(content);
+        if (value != null) {
+            synchronized (entries) {
+                entries.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * @return the hex encoded SHA-256 hash of the given content
+     */
+    public static String hash(final String content) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException x) {
+            //
+            // SHA-256 is available in every JRE
+            //
+            throw new IllegalStateException(x);
+        }
+    }
+}
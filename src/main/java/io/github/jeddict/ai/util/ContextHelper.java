@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import org.netbeans.api.project.FileOwnerQuery;
 import org.netbeans.api.project.Project;
 import org.openide.filesystems.FileObject;
 import org.openide.util.Exceptions;
@@ -220,6 +221,29 @@ public class ContextHelper {
         final List<FileObject> sourceFiles,
         final List<String> includes
     ) {
+        //
+        // folders of a project are read from the project's file index
+        //
+        final Project project = FileOwnerQuery.getOwner(folder);
+        final FileObject projectDir = (project != null) ? project.getProjectDirectory() : null;
+        final String relativePath = (projectDir != null)
+                ? org.openide.filesystems.FileUtil.getRelativePath(projectDir, folder) : null;
+        final ProjectFileIndex index = (relativePath != null) ? ProjectFileIndex.of(projectDir) : null;
+        final List<ProjectFileIndex.Entry> entries = (index != null)
+                ? index.walk(relativePath, 0, e -> e.directory() || includes.contains(e.extension()))
+                : null;
+        if (entries != null) {
+            for (ProjectFileIndex.Entry entry : entries) {
+                if (!entry.directory()) {
+                    final FileObject file = projectDir.getFileObject(entry.path());
+                    if (file != null && file.isData()) {
+                        sourceFiles.add(file);
+                    }
+                }
+            }
+            return;
+        }
+
         // Collect immediate data files
         Arrays.stream(folder.getChildren())
                 .filter(FileObject::isData)
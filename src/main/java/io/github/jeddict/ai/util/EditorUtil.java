@@ -109,7 +109,10 @@ public class EditorUtil {
                 continue;
             }
             LOG.finest("printing\n" + actionBlock + "\nand\n" + block);
-            JComponent pane = printBlock(code, actionBlock, block, assistantChat);
+            //
+            // blocks far from the top are rendered when scrolled into view
+            //
+            JComponent pane = assistantChat.printLazyBlock(code, actionBlock, block);
             actionBlock = null;
             if (firstPane == null) {
                 firstPane = pane;
@@ -162,8 +165,7 @@ public class EditorUtil {
                 LOG.finest(() -> "Creating a text/web pane");
                 String html;
                 if (contentBlock.type.equals("text")) {
-                    html = renderer.render(parser.parse(contentBlock.getContent()));
-                    html = wrapClassNamesWithAnchor(html);
+                    html = renderMarkdown(contentBlock.getContent());
                 } else {
                     html = contentBlock.getContent();
                 }
@@ -213,7 +215,7 @@ public class EditorUtil {
 
             default -> {
                 LOG.finest(() -> "Creating specialized pane");
-                code.append('\n').append((contentBlock).getContent()).append('\n');
+                collectCode(code, contentBlock);
                 String mimeType = getMimeType(contentBlock.type);
                 if (MIME_PUML.equals(mimeType)) {
                     LOG.finest(() -> "Creating an SVG pane");
@@ -234,6 +236,24 @@ public class EditorUtil {
         return pane;
     }
 
+    /**
+     * Appends to the given buffer the code of the given block, if it is not a
+     * text block, as done by {@link #printBlock}.
+     */
+    public static void collectCode(final StringBuilder code, final TextBlock block) {
+        switch (block.type) {
+            case "text", "web", "tooling" -> { }
+            default -> code.append('\n').append(block.getContent()).append('\n');
+        }
+    }
+
+    /**
+     * Renders markdown text as HTML, with class names linked to their source.
+     */
+    public static String renderMarkdown(final String markdown) {
+        return wrapClassNamesWithAnchor(renderer.render(parser.parse(markdown)));
+    }
+
     public static String addLineBreaksToMarkdown(String markdown, int maxLineLength) {
         String[] lines = markdown.split("\n");
         StringBuilder formattedMarkdown = new StringBuilder();
@@ -0,0 +1,141 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The exclude dirs of {@link io.github.jeddict.ai.settings.PreferencesManager}
+ * compiled into a prefix trie, so that telling if a path is excluded costs
+ * one step per character of the path (at most the length of the longest
+ * exclude) instead of a {@code startsWith} per exclude.
+ * <p>
+ * A path is excluded if it starts with one of the excludes, exactly as with
+ * {@code String.startsWith}; blank excludes are ignored. Paths are relative
+ * to the project root and {@code /} separated.
+ * <p>
+ * Instances are immutable and thread safe; use
+ * {@link io.github.jeddict.ai.settings.PreferencesManager#getExcludeMatcher()}
+ * to get the one for the current settings, compiled once per change.
+ */
+public final class ExcludeMatcher {
+
+    private static final class Node {
+        char[] keys = new char[0];
+        Node[] next = new Node[0];
+        boolean terminal;
+
+        Node child(final char c) {
+            for (int i = 0; i < keys.length; ++i) {
+                if (keys[i] == c) {
+                    return next[i];
+                }
+            }
+            return null;
+        }
+
+        Node add(final char c) {
+            Node child = child(c);
+            if (child == null) {
+                child = new Node();
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                next = Arrays.copyOf(next, next.length + 1);
+                keys[keys.length - 1] = c;
+                next[next.length - 1] = child;
+            }
+            return child;
+        }
+    }
+
+    private final List<String> excludes;
+    private final Node root = new Node();
+    private final boolean empty;
+
+    private ExcludeMatcher(final List<String> excludes) {
+        this.excludes = excludes;
+
+        boolean none = true;
+        for (String exclude : excludes) {
+            if (exclude == null || exclude.isBlank()) {
+                continue;
+            }
+            Node node = root;
+            for (int i = 0; i < exclude.length() && !node.terminal; ++i) {
+                node = node.add(exclude.charAt(i));
+            }
+            //
+            // a longer exclude with this one as prefix can never be reached
+            //
+            node.terminal = true;
+            node.keys = new char[0];
+            node.next = new Node[0];
+            none = false;
+        }
+        this.empty = none;
+    }
+
+    /**
+     * Compiles the given excludes.
+     *
+     * @param excludes the path prefixes to exclude; blank ones are ignored.
+     *        Lists are kept as they are (see {@link #excludes()}) and must
+     *        not be modified afterwards
+     *
+     * @return the matcher
+     */
+    public static ExcludeMatcher compile(final Collection<String> excludes) {
+        return new ExcludeMatcher(
+            (excludes instanceof List<String> list) ? list : List.copyOf(excludes)
+        );
+    }
+
+    /**
+     * @return the excludes this matcher was compiled from
+     */
+    public List<String> excludes() {
+        return excludes;
+    }
+
+    /**
+     * @return true if there are no (non blank) excludes, i.e. nothing is excluded
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Tells if the given path starts with one of the excludes.
+     *
+     * @param relativePath the path relative to the project root, {@code /} separated
+     *
+     * @return true if the path is excluded
+     */
+    public boolean matches(final CharSequence relativePath) {
+        Node node = root;
+        for (int i = 0, n = relativePath.length(); i < n; ++i) {
+            node = node.child(relativePath.charAt(i));
+            if (node == null) {
+                return false;
+            }
+            if (node.terminal) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -43,6 +43,7 @@ public class MimeUtil {
     public static final String MIME_BEANS_JAKARTA = "text/x-beans-jakarta+xml";
     public static final String MIME_BEANS = "text/x-beans+xml";
     public static final String MIME_JSP = "text/x-jsp";
+    public static final String MIME_DIFF = "text/x-diff";
     public static final String MIME_JSON = "text/x-json";
     public static final String MIME_YAML = "text/x-yaml";
     public static final String MIME_TOML = "text/x-toml";
@@ -0,0 +1,739 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.util;
+
+import io.github.jeddict.ai.settings.PreferencesManager;
+import java.beans.PropertyChangeEvent;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.ui.OpenProjects;
+
+/**
+ * In-memory index of the files and directories of a project, shared by the
+ * tools and utilities that need to list project files, so that the project
+ * tree is walked once instead of at every call.
+ * <p>
+ * The index is a tree of path components built at the first query; every
+ * entry carries the flags the callers filter on: whether it is hidden (any
+ * path component starts with {@code .}) and whether it is excluded by
+ * {@link PreferencesManager#getExcludeMatcher()} (prefix match on the path
+ * relative to the project root). Exclude flags are recomputed when the
+ * exclude list changes.
+ * <p>
+ * The index is kept up to date by a recursive file change listener on the
+ * project directory; changes made through {@code java.nio} (which NetBeans
+ * sees only at the next refresh) shall be reported with
+ * {@link #fileCreated(Path)} and {@link #fileDeleted(Path)}. Other caches of
+ * project data can share the same notifications with
+ * {@link #addListener(Listener)} instead of listening to the project tree
+ * again.
+ * <p>
+ * An index, with its file listener, is released when its project is
+ * closed; at most {@value #MAX_INDEXES} indexes are kept, the least recently
+ * used are released first.
+ */
+public final class ProjectFileIndex {
+
+    private static final Logger LOG = Logger.getLogger(ProjectFileIndex.class.getName());
+
+    private static final int MAX_INDEXES = 16;
+
+    //
+    // in access order, so that the least recently used index comes first
+    //
+    private static final Map<Path, ProjectFileIndex> INDEXES = new LinkedHashMap<>(16, 0.75f, true);
+
+    private static final AtomicBoolean WATCHING_PROJECTS = new AtomicBoolean();
+
+    /**
+     * Receives the changes of the files of an index.
+     */
+    public interface Listener {
+
+        /**
+         * @param path the absolute path of the file or directory created,
+         *        changed or deleted
+         */
+        void changed(Path path);
+
+        /**
+         * The index has been released (e.g. its project was closed) and
+         * does not notify changes any more.
+         */
+        void released();
+    }
+
+    /**
+     * An entry of the index as returned by {@link #walk(String, int, Predicate)}.
+     *
+     * @param path the path relative to the index root, {@code /} separated
+     * @param name the file name
+     * @param depth the depth relative to the walked directory, 0 for its children
+     * @param directory true for directories
+     * @param hidden true if any path component starts with {@code .}
+     * @param excluded true if the path matches the configured exclude list
+     */
+    public record Entry(String path, String name, int depth, boolean directory, boolean hidden, boolean excluded) {
+
+        /**
+         * @return the file extension without the dot, or an empty string
+         */
+        public String extension() {
+            final int dot = name.lastIndexOf('.');
+            return (dot >= 0) ? name.substring(dot + 1) : "";
+        }
+    }
+
+    private static final class Node {
+        final String name;
+        final boolean directory;
+        final boolean hidden;
+        boolean excluded;
+        TreeMap<String, Node> children;
+
+        Node(final String name, final boolean directory, final boolean hidden) {
+            this.name = name;
+            this.directory = directory;
+            this.hidden = hidden;
+            if (directory) {
+                children = new TreeMap<>();
+            }
+        }
+    }
+
+    public final Path root;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node tree;
+    private ExcludeMatcher excludes;
+    private int size;
+
+    //
+    // paths changed while the tree is being built, applied when it is done
+    //
+    private Set<Path> pending;
+
+    //
+    // only one thread builds the tree, without holding the lock
+    //
+    private final Object buildLock = new Object();
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private boolean listening;
+    private boolean released;
+
+    private final FileChangeListener listener = new FileChangeListener() {
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+            created(toPath(fe.getFile()));
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            created(toPath(fe.getFile()));
+        }
+
+        @Override
+        public void fileChanged(FileEvent fe) {
+            notifyChanged(toPath(fe.getFile()));
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            deleted(toPath(fe.getFile()));
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fe) {
+            final Path path = toPath(fe.getFile());
+            if (path != null) {
+                final String ext = fe.getExt();
+                deleted(path.resolveSibling(
+                    (ext == null || ext.isEmpty()) ? fe.getName() : fe.getName() + '.' + ext
+                ));
+                created(path);
+            }
+        }
+
+        @Override
+        public void fileAttributeChanged(FileAttributeEvent fe) {
+        }
+    };
+
+    private ProjectFileIndex(final Path root) {
+        this.root = root;
+    }
+
+    /**
+     * @param root the project directory
+     *
+     * @return the index of the given directory, built at the first query
+     */
+    public static ProjectFileIndex of(final Path root) {
+        watchOpenProjects();
+
+        final List<ProjectFileIndex> evicted = new ArrayList<>();
+        final ProjectFileIndex index;
+        synchronized (INDEXES) {
+            index = INDEXES.computeIfAbsent(root.toAbsolutePath().normalize(), ProjectFileIndex::new);
+            final Iterator<ProjectFileIndex> eldest = INDEXES.values().iterator();
+            while (INDEXES.size() > MAX_INDEXES) {
+                evicted.add(eldest.next());
+                eldest.remove();
+            }
+        }
+        evicted.forEach(ProjectFileIndex::release);
+        return index;
+    }
+
+    /**
+     * @param root the project directory
+     *
+     * @return the index of the given directory - NULL if it is not on disk
+     */
+    public static ProjectFileIndex of(final FileObject root) {
+        final File file = org.openide.filesystems.FileUtil.toFile(root);
+        return (file != null) ? of(file.toPath()) : null;
+    }
+
+    /**
+     * Drops the index of the given directory, if any, and stops listening to
+     * its changes; its listeners are told with {@link Listener#released()}.
+     *
+     * @param root the project directory
+     */
+    public static void release(final Path root) {
+        final ProjectFileIndex index;
+        synchronized (INDEXES) {
+            index = INDEXES.remove(root.toAbsolutePath().normalize());
+        }
+        if (index != null) {
+            index.release();
+        }
+    }
+
+    /**
+     * Reports a file or directory (with its content) created outside the
+     * NetBeans filesystem API to the indexes it belongs to.
+     *
+     * @param path the absolute path
+     */
+    public static void fileCreated(final Path path) {
+        final Path normalized = path.toAbsolutePath().normalize();
+        indexes().forEach(index -> index.created(normalized));
+    }
+
+    /**
+     * Reports a file or directory deleted outside the NetBeans filesystem API
+     * to the indexes it belongs to.
+     *
+     * @param path the absolute path
+     */
+    public static void fileDeleted(final Path path) {
+        final Path normalized = path.toAbsolutePath().normalize();
+        indexes().forEach(index -> index.deleted(normalized));
+    }
+
+    /**
+     * Reports a file modified outside the NetBeans filesystem API to the
+     * listeners of the indexes it belongs to.
+     *
+     * @param path the absolute path
+     */
+    public static void fileChanged(final Path path) {
+        final Path normalized = path.toAbsolutePath().normalize();
+        indexes().forEach(index -> index.notifyChanged(normalized));
+    }
+
+    /**
+     * Adds a listener to the changes of the files of this index. Changes are
+     * notified from the time the listener is added, even if the index has
+     * not been built yet; if the index has already been released, the
+     * listener is told right away.
+     *
+     * @param listener the listener
+     */
+    public void addListener(final Listener listener) {
+        synchronized (this) {
+            if (!released) {
+                listeners.add(listener);
+                listen();
+                return;
+            }
+        }
+        listener.released();
+    }
+
+    /**
+     * @param listener a listener previously added
+     */
+    public void removeListener(final Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns the entries below the given directory in depth first order,
+     * with the children of each directory sorted by name.
+     *
+     * @param subPath the directory to walk, relative to the root and
+     *        {@code /} separated; {@code null} or blank for the root
+     * @param maxDepth the maximum number of levels to descend, values
+     *        {@code <= 0} mean unlimited
+     * @param filter entries not accepted are skipped together with their content
+     *
+     * @return the accepted entries - NULL if {@code subPath} is not a directory
+     */
+    public List<Entry> walk(final String subPath, final int maxDepth, final Predicate<Entry> filter) {
+        ensureUpToDate();
+
+        lock.readLock().lock();
+        try {
+            Node node = tree;
+            if (node == null) {
+                //
+                // released meanwhile
+                //
+                return new ArrayList<>();
+            }
+            String prefix = "";
+            if (subPath != null && !subPath.isBlank()) {
+                for (String name : subPath.replace(File.separatorChar, '/').split("/")) {
+                    if (name.isEmpty() || name.equals(".")) {
+                        continue;
+                    }
+                    node = (node.children != null) ? node.children.get(name) : null;
+                    if (node == null) {
+                        return null;
+                    }
+                    prefix = prefix + name + '/';
+                }
+            }
+            if (!node.directory) {
+                return null;
+            }
+            final List<Entry> entries = new ArrayList<>();
+            walk(node, prefix, 0, maxDepth, filter, entries);
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of files and directories in the index
+     */
+    public int size() {
+        ensureUpToDate();
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --------------------------------------------------------- private methods
+
+    private void walk(
+        final Node dir, final String prefix, final int depth, final int maxDepth,
+        final Predicate<Entry> filter, final List<Entry> entries
+    ) {
+        for (Node child : dir.children.values()) {
+            final String path = prefix + child.name;
+            final Entry entry = new Entry(path, child.name, depth, child.directory, child.hidden, child.excluded);
+            if (!filter.test(entry)) {
+                continue;
+            }
+            entries.add(entry);
+            if (child.directory && (maxDepth <= 0 || depth + 1 < maxDepth)) {
+                walk(child, path + '/', depth + 1, maxDepth, filter, entries);
+            }
+        }
+    }
+
+    private void ensureUpToDate() {
+        final ExcludeMatcher current = PreferencesManager.getInstance().getExcludeMatcher();
+
+        lock.readLock().lock();
+        try {
+            if (tree != null && excludes == current) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        synchronized (buildLock) {
+            build(current);
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (tree != null && excludes != current) {
+                excludes = current;
+                markExcluded(tree, "", false);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //
+    // walks the project tree without holding the lock, so that readers of
+    // other indexes and change notifications are not blocked meanwhile;
+    // changes notified during the walk are applied once the tree is in place
+    //
+    private void build(final ExcludeMatcher current) {
+        lock.writeLock().lock();
+        try {
+            if (tree != null) {
+                return;
+            }
+            pending = new LinkedHashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        //
+        // listen first, so that changes made while walking are not lost;
+        // created() and deleted() are idempotent
+        //
+        listen();
+
+        final long start = System.nanoTime();
+        final Node built = new Node("", true, false);
+        final int count = scan(built, root, "", current);
+        LOG.finest(() -> "indexed " + count + " entries of " + root + " in "
+            + (System.nanoTime() - start) / 1_000_000 + " ms");
+
+        lock.writeLock().lock();
+        try {
+            tree = built;
+            size = count;
+            excludes = current;
+            final Set<Path> changes = pending;
+            pending = null;
+            for (Path path : changes) {
+                if (Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+                    addLocked(path);
+                } else {
+                    removeLocked(path);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private synchronized void listen() {
+        if (listening || released || !Files.isDirectory(root)) {
+            return;
+        }
+        try {
+            org.openide.filesystems.FileUtil.addRecursiveListener(listener, root.toFile());
+            listening = true;
+        } catch (RuntimeException x) {
+            LOG.log(Level.FINE, "unable to listen to changes in " + root, x);
+        }
+    }
+
+    private void release() {
+        synchronized (this) {
+            released = true;
+            if (listening) {
+                try {
+                    org.openide.filesystems.FileUtil.removeRecursiveListener(listener, root.toFile());
+                } catch (RuntimeException x) {
+                    LOG.log(Level.FINE, "unable to stop listening to changes in " + root, x);
+                }
+                listening = false;
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            tree = null;
+            size = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        listeners.forEach(Listener::released);
+        listeners.clear();
+        LOG.finest(() -> "released index of " + root);
+    }
+
+    /**
+     * Adds the content of the given directory to the given node, replacing
+     * the entries already there.
+     *
+     * @return the change in the number of entries
+     */
+    private static int scan(final Node node, final Path dir, final String relativeDir, final ExcludeMatcher excludes) {
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        final int[] delta = {0};
+        try {
+            Files.walkFileTree(dir.toRealPath(), new SimpleFileVisitor<Path>() {
+                private final List<Node> parents = new ArrayList<>();
+                private final List<String> paths = new ArrayList<>();
+
+                @Override
+                public FileVisitResult preVisitDirectory(Path d, BasicFileAttributes attrs) {
+                    if (parents.isEmpty()) {
+                        parents.add(node);
+                        paths.add(relativeDir);
+                    } else {
+                        final String path = paths.get(paths.size() - 1) + d.getFileName();
+                        parents.add(add(d.getFileName().toString(), path, true));
+                        paths.add(path + '/');
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    add(file.getFileName().toString(), paths.get(paths.size() - 1) + file.getFileName(), false);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException x) {
+                    LOG.finest(() -> "skipping " + file + ": " + x);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path d, IOException x) {
+                    parents.remove(parents.size() - 1);
+                    paths.remove(paths.size() - 1);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                private Node add(final String name, final String path, final boolean directory) {
+                    final Node parent = parents.get(parents.size() - 1);
+                    final Node child = new Node(name, directory, parent.hidden || name.startsWith("."));
+                    child.excluded = parent.excluded || excludes.matches(path);
+                    final Node replaced = parent.children.put(name, child);
+                    if (replaced != null) {
+                        delta[0] -= count(replaced);
+                    }
+                    ++delta[0];
+                    return child;
+                }
+            });
+        } catch (IOException x) {
+            LOG.log(Level.FINE, "unable to index " + dir, x);
+        }
+        return delta[0];
+    }
+
+    private void markExcluded(final Node node, final String path, final boolean parentExcluded) {
+        for (Node child : node.children.values()) {
+            final String childPath = path + child.name;
+            child.excluded = parentExcluded || excludes.matches(childPath);
+            if (child.directory) {
+                markExcluded(child, childPath + '/', child.excluded);
+            }
+        }
+    }
+
+    private void created(final Path path) {
+        final String relative = relativize(path);
+        if (relative == null || relative.isEmpty()) {
+            return;
+        }
+        if (Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+            lock.writeLock().lock();
+            try {
+                if (tree != null) {
+                    addLocked(path);
+                } else if (pending != null) {
+                    pending.add(path);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        notifyChanged(path);
+    }
+
+    private void deleted(final Path path) {
+        final String relative = relativize(path);
+        if (relative == null || relative.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (tree != null) {
+                removeLocked(path);
+            } else if (pending != null) {
+                pending.add(path);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        notifyChanged(path);
+    }
+
+    private void addLocked(final Path path) {
+        Node node = tree;
+        String prefix = "";
+        final String[] names = relativize(path).split("/");
+        for (int i = 0; i < names.length; ++i) {
+            final boolean last = (i == names.length - 1);
+            final boolean directory = !last || Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS);
+            final String entryPath = prefix + names[i];
+            Node child = node.children.get(names[i]);
+            if (child == null || child.directory != directory) {
+                final Node created = new Node(names[i], directory, node.hidden || names[i].startsWith("."));
+                created.excluded = node.excluded || excludes.matches(entryPath);
+                if (child != null) {
+                    size -= count(child);
+                }
+                node.children.put(names[i], created);
+                ++size;
+                child = created;
+            }
+            if (last && directory) {
+                size += scan(child, path, entryPath + '/', excludes);
+            }
+            node = child;
+            prefix = entryPath + '/';
+        }
+    }
+
+    private void removeLocked(final Path path) {
+        final String[] names = relativize(path).split("/");
+        Node node = tree;
+        for (int i = 0; i < names.length - 1 && node != null; ++i) {
+            node = (node.children != null) ? node.children.get(names[i]) : null;
+        }
+        if (node != null && node.children != null) {
+            final Node removed = node.children.remove(names[names.length - 1]);
+            if (removed != null) {
+                size -= count(removed);
+            }
+        }
+    }
+
+    private void notifyChanged(final Path path) {
+        if (path == null || relativize(path) == null) {
+            return;
+        }
+        for (Listener l : listeners) {
+            try {
+                l.changed(path);
+            } catch (RuntimeException x) {
+                LOG.log(Level.WARNING, "file change listener failed", x);
+            }
+        }
+    }
+
+    private static int count(final Node node) {
+        int count = 1;
+        if (node.children != null) {
+            for (Node child : node.children.values()) {
+                count += count(child);
+            }
+        }
+        return count;
+    }
+
+    private String relativize(final Path path) {
+        if (path == null || !path.startsWith(root)) {
+            return null;
+        }
+        return root.relativize(path).toString().replace(File.separatorChar, '/');
+    }
+
+    private static List<ProjectFileIndex> indexes() {
+        synchronized (INDEXES) {
+            return new ArrayList<>(INDEXES.values());
+        }
+    }
+
+    //
+    // releases the indexes of the projects being closed, unless they are
+    // also in a project still open
+    //
+    private static void watchOpenProjects() {
+        if (!WATCHING_PROJECTS.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            OpenProjects.getDefault().addPropertyChangeListener((PropertyChangeEvent e) -> {
+                if (OpenProjects.PROPERTY_OPEN_PROJECTS.equals(e.getPropertyName())
+                    && e.getOldValue() instanceof Project[] before && e.getNewValue() instanceof Project[] after) {
+                    projectsClosed(directories(before), directories(after));
+                }
+            });
+        } catch (RuntimeException | LinkageError x) {
+            LOG.log(Level.FINE, "unable to watch open projects, indexes are released only when unused", x);
+        }
+    }
+
+    private static void projectsClosed(final List<Path> before, final List<Path> after) {
+        for (Path closed : before) {
+            if (after.contains(closed)) {
+                continue;
+            }
+            for (ProjectFileIndex index : indexes()) {
+                if (index.root.startsWith(closed) && after.stream().noneMatch(index.root::startsWith)) {
+                    release(index.root);
+                }
+            }
+        }
+    }
+
+    private static List<Path> directories(final Project[] projects) {
+        return Arrays.stream(projects)
+            .map((project) -> toPath(project.getProjectDirectory()))
+            .filter((path) -> path != null)
+            .toList();
+    }
+
+    private static Path toPath(final FileObject fo) {
+        final File file = (fo != null) ? org.openide.filesystems.FileUtil.toFile(fo) : null;
+        return (file != null) ? file.toPath().toAbsolutePath().normalize() : null;
+    }
+}
@@ -47,11 +47,34 @@ import org.openide.util.Parameters;
  */
 public class ProjectUtil {
 
+    /**
+     * Returns the files of the project with one of the configured extensions,
+     * skipping the configured exclude dirs. Files are looked up in the
+     * project's {@link ProjectFileIndex}.
+     *
+     * @param project the NetBeans project
+     * @return the source files
+     */
     public static Set<FileObject> getSourceFiles(Project project) {
-        Set<FileObject> sourceFiles = new HashSet<>();
-        collectFiles(project.getProjectDirectory(), project.getProjectDirectory(), sourceFiles,
-                new HashSet<>(PreferencesManager.getInstance().getFileExtensionListToInclude()),
-                new HashSet<>(PreferencesManager.getInstance().getExcludeDirs()));
+        final FileObject projectDir = project.getProjectDirectory();
+        final Set<String> extensions = new HashSet<>(PreferencesManager.getInstance().getFileExtensionListToInclude());
+        final Set<FileObject> sourceFiles = new HashSet<>();
+
+        final ProjectFileIndex index = ProjectFileIndex.of(projectDir);
+        if (index == null) {
+            collectFiles(projectDir, projectDir, sourceFiles, extensions,
+                    PreferencesManager.getInstance().getExcludeMatcher());
+            return sourceFiles;
+        }
+        for (ProjectFileIndex.Entry entry : index.walk(
+                "", 0, e -> !e.excluded() && (e.directory() || extensions.contains(e.extension())))) {
+            if (!entry.directory()) {
+                final FileObject file = projectDir.getFileObject(entry.path());
+                if (file != null && file.isData()) {
+                    sourceFiles.add(file);
+                }
+            }
+        }
         return sourceFiles;
     }
 
@@ -77,11 +100,9 @@ public class ProjectUtil {
                 .collect(Collectors.toSet());
     }
 
-    public static void collectFiles(FileObject baseDir, FileObject folder, Set<FileObject> sourceFiles, Set<String> fileExtensionListToInclude, Set<String> excludes) {
+    public static void collectFiles(FileObject baseDir, FileObject folder, Set<FileObject> sourceFiles, Set<String> fileExtensionListToInclude, ExcludeMatcher excludes) {
         for (FileObject file : folder.getChildren()) {
-            String relativePath = getRelativePath(baseDir, file);
-            boolean isExcluded = excludes.stream().filter(s -> !s.trim().isEmpty()).anyMatch(relativePath::startsWith);
-            if (isExcluded) {
+            if (!excludes.isEmpty() && excludes.matches(getRelativePath(baseDir, file))) {
                 continue;
             }
             if (file.isFolder()) {
@@ -0,0 +1,212 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.agent;
+
+import com.github.caciocavallosilano.cacio.ctc.junit.CacioTest;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.exception.ToolExecutionException;
+import io.github.jeddict.ai.agent.BatchFileEditor.FileEdit;
+import io.github.jeddict.ai.components.AssistantChat;
+import io.github.jeddict.ai.lang.InteractionMode;
+import io.github.jeddict.ai.response.TextBlock;
+import io.github.jeddict.ai.test.TestBase;
+import io.github.jeddict.ai.util.MimeUtil;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import javax.swing.JEditorPane;
+import javax.swing.SwingUtilities;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.openide.filesystems.FileObject;
+
+/**
+ *
+ */
+@CacioTest
+public class BatchFileEditorTest extends TestBase {
+
+    private static final String TESTFILE = "folder/testfile.txt";
+    private static final String CONTENT = "This is a test file content for real file testing.";
+
+    @Test
+    public void applyEdits_applies_all_edits_across_files() throws Exception {
+        final BatchFileEditor tools = new BatchFileEditor(projectDir, null);
+
+        then(tools.applyEdits(List.of(
+            new FileEdit(TESTFILE, "test file", "sample file"),
+            new FileEdit(TESTFILE, "sample", "simple"),
+            new FileEdit("folder/new/created.txt", "", "hello\n")
+        ))).isEqualTo("DONE\nfolder/testfile.txt\nfolder/new/created.txt (created)");
+
+        then(projectPath.resolve(TESTFILE)).hasContent(
+            "This is a simple file content for real file testing."
+        );
+        then(projectPath.resolve("folder/new/created.txt")).hasContent("hello\n");
+    }
+
+    @Test
+    public void applyEdits_returns_unchanged_if_nothing_changes() throws Exception {
+        final BatchFileEditor tools = new BatchFileEditor(projectDir, null);
+
+        then(tools.applyEdits(List.of(
+            new FileEdit(TESTFILE, "test", "test"),
+            new FileEdit(TESTFILE, "", CONTENT)
+        ))).isEqualTo("UNCHANGED");
+    }
+
+    @Test
+    public void applyEdits_reports_all_invalid_edits_and_applies_none() throws Exception {
+        final BatchFileEditor tools = new BatchFileEditor(projectDir, null);
+
+        thenThrownBy(() -> tools.applyEdits(List.of(
+            new FileEdit(TESTFILE, "test file", "sample file"),
+            new FileEdit(TESTFILE, "test file", "again"),
+            new FileEdit("folder/missing.txt", "x", "y"),
+            new FileEdit("../outside.txt", "", "y"),
+            new FileEdit(" ", "", "y"),
+            new FileEdit("folder", "", "y")
+        )))
+            .isInstanceOf(ToolExecutionException.class)
+            .hasMessageStartingWith("no edits applied, fix the following and try again:")
+            .hasMessageContaining("edit 2: oldText not found in folder/testfile.txt")
+            .hasMessageContaining("edit 3: folder/missing.txt does not exist")
+            .hasMessageContaining("edit 4: ")
+            .hasMessageContaining("edit 5: path can not be null or empty")
+            .hasMessageContaining("edit 6: folder is a directory")
+            .hasMessageNotContaining("edit 1:");
+
+        then(projectPath.resolve(TESTFILE)).hasContent(CONTENT);
+    }
+
+    @Test
+    public void applyEdits_restores_written_files_if_a_write_fails() throws Exception {
+        final BatchFileEditor tools = new BatchFileEditor(projectDir, null);
+
+        //
+        // the last edit passes validation but its directory can not be
+        // created because a file with the same name exists
+        //
+        thenThrownBy(() -> tools.applyEdits(List.of(
+            new FileEdit(TESTFILE, "test file", "sample file"),
+            new FileEdit("folder/created.txt", "", "created"),
+            new FileEdit("folder/new/dir/created.txt", "", "created"),
+            new FileEdit("folder/testfile.txt/child.txt", "", "child")
+        )))
+            .isInstanceOf(ToolExecutionException.class)
+            .hasMessageStartingWith("no edits applied, writing files failed: ");
+
+        then(projectPath.resolve(TESTFILE)).hasContent(CONTENT);
+        then(Files.exists(projectPath.resolve("folder/created.txt"))).isFalse();
+        then(Files.exists(projectPath.resolve("folder/new"))).isFalse();
+        then(Files.exists(projectPath.resolve("folder"))).isTrue();
+    }
+
+    @Test
+    public void applyEdits_shows_the_whole_diff_for_approval_in_interactive_mode() throws Exception {
+        final ApprovalChat chat = new ApprovalChat(true);
+        final BatchFileEditor tools = new BatchFileEditor(projectDir, chat);
+        tools.interaction(InteractionMode.INTERACTIVE);
+
+        final String content = "List<String> names = new ArrayList<>();\n".repeat(10);
+        then(tools.applyEdits(List.of(
+            new FileEdit(TESTFILE, "test file", "sample file"),
+            new FileEdit("folder/Names.java", "", content)
+        ))).isEqualTo("DONE\nfolder/testfile.txt\nfolder/Names.java (created)");
+        SwingUtilities.invokeAndWait(() -> {});
+
+        then(chat.mimeType).isEqualTo(MimeUtil.MIME_DIFF);
+        then(chat.diff).isEqualTo(
+            TextDiff.unified(TESTFILE, CONTENT, "This is a sample file content for real file testing.") +
+            TextDiff.unified("folder/Names.java", null, content)
+        );
+        then(chat.request.name()).isEqualTo("applyEdits");
+        then(new JSONObject(chat.request.arguments()).toMap())
+            .containsOnly(entry("files", "folder/testfile.txt, folder/Names.java"));
+        then(projectPath.resolve("folder/Names.java")).hasContent(content);
+    }
+
+    @Test
+    public void applyEdits_applies_nothing_if_rejected_in_interactive_mode() throws Exception {
+        final ApprovalChat chat = new ApprovalChat(false);
+        final BatchFileEditor tools = new BatchFileEditor(projectDir, chat);
+        tools.interaction(InteractionMode.INTERACTIVE);
+
+        thenThrownBy(() -> tools.applyEdits(List.of(
+            new FileEdit(TESTFILE, "test file", "sample file"),
+            new FileEdit("folder/new/created.txt", "", "created")
+        ))).isInstanceOf(ToolExecutionRejected.class);
+
+        then(chat.request).isNotNull();
+        then(projectPath.resolve(TESTFILE)).hasContent(CONTENT);
+        then(Files.exists(projectPath.resolve("folder/new"))).isFalse();
+    }
+
+    @Test
+    public void applyEdits_with_no_edits_throws_error() throws Exception {
+        final BatchFileEditor tools = new BatchFileEditor(projectDir, null);
+
+        thenThrownBy(() -> tools.applyEdits(List.of()))
+            .isInstanceOf(ToolExecutionException.class)
+            .hasMessage("edits can not be null or empty");
+        thenThrownBy(() -> tools.applyEdits(null))
+            .isInstanceOf(ToolExecutionException.class)
+            .hasMessage("edits can not be null or empty");
+    }
+
+    // --------------------------------------------------------- ApprovalChat
+
+    //
+    // a chat recording the diff shown and the confirmation requested,
+    // answering with the given approval
+    //
+    private static class ApprovalChat extends AssistantChat {
+
+        private final boolean approve;
+        private volatile String mimeType, diff;
+        private volatile ToolExecutionRequest request;
+
+        ApprovalChat(final boolean approve) {
+            super("test", null, null);
+            this.approve = approve;
+        }
+
+        @Override
+        public JEditorPane createCodePane(final String mimeType, final TextBlock content) {
+            this.mimeType = mimeType;
+            this.diff = content.getContent();
+            return new JEditorPane();
+        }
+
+        @Override
+        public Future<Boolean> promptConfirmation(final ToolExecutionRequest request) {
+            this.request = request;
+            return CompletableFuture.completedFuture(approve);
+        }
+
+        @Override public void onChatReset() {}
+        @Override public void onSubmit() {}
+        @Override public void onPrev() {}
+        @Override public void onNext() {}
+        @Override public void onSessionContext() {}
+        @Override public void addFileTab(FileObject file) {}
+        @Override public void clearFileTab() {}
+    }
+}
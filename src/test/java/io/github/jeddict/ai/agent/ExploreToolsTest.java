@@ -16,10 +16,12 @@
 package io.github.jeddict.ai.agent;
 
 import com.github.caciocavallosilano.cacio.ctc.junit.CacioTest;
+import dev.langchain4j.exception.ToolExecutionException;
 import io.github.jeddict.ai.test.TestBase;
 import java.io.File;
 import org.apache.commons.io.FileUtils;
 import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.openide.util.Lookup;
@@ -122,6 +124,27 @@ public class ExploreToolsTest extends TestBase {
                 .isEqualTo("No Java sources found in project (not a Java project).");
     }
 
+    @Test
+    public void searchSymbol_with_match_modes_and_no_sources_returns_message()
+    throws Exception {
+        final ExplorationTools tools = new ExplorationTools(projectDir, Lookup.getDefault());
+
+        for (String match: new String[] {null, "", "exact", "prefix", "camelCase", "CAMELCASE"}) {
+            then(tools.searchSymbol("Any", match, 10))
+                .isEqualTo("No Java sources found in project (not a Java project).");
+        }
+    }
+
+    @Test
+    public void searchSymbol_with_invalid_match_throws_error()
+    throws Exception {
+        final ExplorationTools tools = new ExplorationTools(projectDir, Lookup.getDefault());
+
+        thenThrownBy(() -> tools.searchSymbol("Any", "fuzzy", 0))
+            .isInstanceOf(ToolExecutionException.class)
+            .hasMessage("invalid match 'fuzzy', use one of: exact, prefix, camelCase");
+    }
+
     @Test
     public void findUsages_with_invalid_path_return_file_not_found()
     throws Exception {
@@ -18,11 +18,13 @@ package io.github.jeddict.ai.agent;
 import dev.langchain4j.exception.ToolExecutionException;
 import static io.github.jeddict.ai.agent.AbstractToolTest.TESTFILE;
 import io.github.jeddict.ai.test.TestBase;
+import io.github.jeddict.ai.util.ProjectFileIndex;
 import io.github.jeddict.ai.lang.DummyJeddictBrainListener;
 import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.assertj.core.api.BDDAssertions;
@@ -86,6 +88,88 @@ public class FileSystemToolsTest extends TestBase {
         thenTriedFileOutsideProjectFolder(() -> tools.searchInFile(rel, pattern));
     }
 
+    @Test
+    public void searchInFile_with_context_and_cursor() throws Exception {
+        Files.writeString(projectPath.resolve("lines.txt"), "one\ntwo\r\nthree match\nfour\nfive match\nsix\n");
+
+        then(tools.searchInFile("lines.txt", "match", 1, 0)).isEqualTo(
+            "Match at line 3, column 7:\n" +
+            "      1: one\n" +
+            "      2: two\n" +
+            ">     3: three match\n" +
+            "      4: four\n" +
+            "      5: five match\n" +
+            "... more matches, search again with fromLine=4\n"
+        );
+        then(tools.searchInFile("lines.txt", "ma.ch", 1, 4)).startsWith("Match at line 5, column 6:\n")
+            .doesNotContain("more matches");
+        then(tools.searchInFile("lines.txt", "match", 0, 6)).isEqualTo("No matches found");
+    }
+
+    @Test
+    public void searchInFile_big_file() throws Exception {
+        final StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= 100_000; ++i) {
+            content.append("line ").append(i).append((i % 1000 == 0) ? " needle\n" : " hay\n");
+        }
+        Files.writeString(projectPath.resolve("big.txt"), content);
+        then(Files.size(projectPath.resolve("big.txt"))).isGreaterThan(FileSearch.MAP_THRESHOLD);
+
+        final String literal = tools.searchInFile("big.txt", "needle", 3, 0);
+        then(literal).contains(">  1000: line 1000 needle\n").contains(">  3000: line 3000 needle\n")
+            .doesNotContain("4000").endsWith("fromLine=3001\n");
+        then(tools.searchInFile("big.txt", "need(le)", 3, 0)).isEqualTo(literal);
+    }
+
+    @Test
+    public void searchInFile_invalid_pattern() {
+        thenThrownBy(() -> tools.searchInFile(TESTFILE, "[abc", 0, 0))
+            .isInstanceOf(ToolExecutionException.class)
+            .hasMessageStartingWith("invalid pattern");
+    }
+
+    @Test
+    public void searchInProject_with_regex_and_literal() throws Exception {
+        Files.writeString(projectPath.resolve("src/main/java/App.java"), "class App {\n    // test file reader\n}\n");
+        Files.createDirectories(projectPath.resolve("target"));
+        Files.writeString(projectPath.resolve("target/Generated.java"), "// test file\n");
+        ProjectFileIndex.fileCreated(projectPath.resolve("src/main/java/App.java"));
+        ProjectFileIndex.fileCreated(projectPath.resolve("target/Generated.java"));
+
+        final String sep = File.separator;
+        then(tools.searchInProject("test\\s+file", false, 0)).isEqualTo(
+            "folder" + sep + "testfile.txt:1:This is a test file content for real file testing.\n"
+          + "src" + sep + "main" + sep + "java" + sep + "App.java:2:// test file reader\n"
+        );
+        thenProgressContains(listener.collector.get(0), "\n🔎 Looking for 'test\\s+file' in the project");
+
+        then(tools.searchInProject("class App {", true, 0))
+            .isEqualTo("src" + sep + "main" + sep + "java" + sep + "App.java:1:class App {\n");
+        then(tools.searchInProject("nothing like this", true, 0)).isEqualTo("No matches found");
+    }
+
+    @Test
+    public void searchInProject_stops_at_max_results() throws Exception {
+        final Path folder = projectPath.resolve("folder");
+        for (int i = 0; i < 50; ++i) {
+            Files.writeString(folder.resolve("file" + i + ".txt"), "match\nno\nmatch\n");
+        }
+        ProjectFileIndex.fileCreated(folder);
+
+        final String result = tools.searchInProject("match", true, 10);
+        then(result.lines().filter(line -> line.contains(":match"))).hasSize(10);
+        then(result).endsWith("... results truncated at 10 matches\n");
+
+        then(tools.searchInProject("match", true, 100).lines()).hasSize(100).noneMatch(line -> line.startsWith("..."));
+    }
+
+    @Test
+    public void searchInProject_with_invalid_pattern() {
+        thenThrownBy(() -> tools.searchInProject("(unclosed", false, 0))
+            .isInstanceOf(ToolExecutionException.class)
+            .hasMessageStartingWith("invalid pattern:");
+    }
+
     @Test
     public void createBinaryFile_with_and_without_existing_file() throws Exception {
         final String path = "folder/newfile.txt";
@@ -327,6 +411,35 @@ public class FileSystemToolsTest extends TestBase {
         thenProgressContains(listener.collector.get(1), "\n❌ Failed to read file:");
     }
 
+    @Test
+    public void readFileLines_windows_of_changing_file() throws Exception {
+        final StringBuilder content = new StringBuilder();
+        for (int i = 1; i <= 10_000; ++i) {
+            content.append("line ").append(i).append((i % 2 == 0) ? "\r\n" : "\n");
+        }
+        Files.writeString(projectPath.resolve("big.txt"), content);
+
+        then(tools.countFileLines("big.txt")).isEqualTo("10000");
+        then(tools.readFileLines("big.txt", 9999, 10100)).isEqualTo("line 9999\nline 10000");
+        then(tools.readFileLines("big.txt", 5000, 5002)).isEqualTo("line 5000\nline 5001\nline 5002");
+
+        //
+        // same size, changed content
+        //
+        tools.replaceSnippetByLiteral("big.txt", "line 5001\n", "LINE 5001\n");
+        then(tools.readFileLines("big.txt", 5001, 5001)).isEqualTo("LINE 5001");
+
+        Files.writeString(projectPath.resolve("big.txt"), "one\ntwo", StandardOpenOption.TRUNCATE_EXISTING);
+        then(tools.countFileLines("big.txt")).isEqualTo("2");
+        then(tools.readFileLines("big.txt", 1, 200)).isEqualTo("one\ntwo");
+
+        listener.collector.clear();
+        thenThrownBy(() -> tools.countFileLines("nowhere.txt"))
+            .isInstanceOf(ToolExecutionException.class)
+            .hasMessageContaining("Path does not exist:");
+        thenProgressContains(listener.collector.get(0), "\n🔢 Counting lines of nowhere.txt");
+    }
+
     @Test
     public void readFileLines_fails_on_paths_outside_project_folder() throws Exception {
         final Path abs = HOME.resolve("jeddict.json").toAbsolutePath().normalize();
@@ -0,0 +1,121 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.agent;
+
+import com.github.caciocavallosilano.cacio.ctc.junit.CacioTest;
+import dev.langchain4j.exception.ToolExecutionException;
+import io.github.jeddict.ai.agent.GradleTools.DependencyChange;
+import io.github.jeddict.ai.test.TestBase;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@CacioTest
+public class GradleToolsTest extends TestBase {
+
+    private static final String BUILD_GRADLE = """
+        plugins {
+            id 'java'
+        }
+
+        dependencies {
+            implementation 'org.slf4j:slf4j-api:2.0.9'
+        }
+        """;
+
+    private Path buildFile;
+
+    @BeforeEach
+    public void before() throws Exception {
+        buildFile = Files.writeString(projectPath.resolve("build.gradle"), BUILD_GRADLE);
+    }
+
+    @Test
+    public void apply_dependency_changes_in_one_write() throws Exception {
+        final GradleTools tools = new GradleTools(projectDir);
+
+        final String result = tools.applyDependencyChanges(List.of(
+            new DependencyChange("add", "testImplementation", "org.junit.jupiter:junit-jupiter:5.10.2", null),
+            new DependencyChange("update", "implementation", "org.slf4j:slf4j-api:2.0.9", "org.slf4j:slf4j-api:2.0.13"),
+            new DependencyChange("ADD", "testImplementation", "org.junit.jupiter:junit-jupiter:5.10.2", null)
+        ));
+
+        then(result).isEqualTo(
+            "Dependency added: testImplementation 'org.junit.jupiter:junit-jupiter:5.10.2'\n" +
+            "Dependency updated: implementation 'org.slf4j:slf4j-api:2.0.13'\n" +
+            "Dependency already exists: testImplementation 'org.junit.jupiter:junit-jupiter:5.10.2'"
+        );
+        then(Files.readString(buildFile))
+            .contains("implementation 'org.slf4j:slf4j-api:2.0.13'")
+            .contains("testImplementation 'org.junit.jupiter:junit-jupiter:5.10.2'")
+            .doesNotContain("2.0.9");
+
+        then(tools.applyDependencyChanges(List.of(
+            new DependencyChange("remove", "testImplementation", "org.junit.jupiter:junit-jupiter:5.10.2", null)
+        ))).isEqualTo("Dependency removed: testImplementation 'org.junit.jupiter:junit-jupiter:5.10.2'");
+        then(tools.listDependencies()).isEqualTo("implementation 'org.slf4j:slf4j-api:2.0.13'");
+    }
+
+    @Test
+    public void apply_dependency_changes_is_all_or_nothing() throws Exception {
+        final GradleTools tools = new GradleTools(projectDir);
+
+        thenThrownBy(() -> tools.applyDependencyChanges(List.of(
+            new DependencyChange("add", "testImplementation", "org.junit.jupiter:junit-jupiter:5.10.2", null),
+            new DependencyChange("remove", "implementation", "com.acme:missing:1.0", null),
+            new DependencyChange("update", "implementation", "org.slf4j:slf4j-api:2.0.9", " "),
+            new DependencyChange("upgrade", "implementation", "org.slf4j:slf4j-api:2.0.9", null),
+            new DependencyChange("add", "", "org.slf4j:slf4j-api:2.0.9", null)
+        )))
+            .isInstanceOf(ToolExecutionException.class)
+            .hasMessage(
+                "no changes applied to build.gradle, fix the following and try again:\n" +
+                "change 2: dependency not found implementation 'com.acme:missing:1.0'\n" +
+                "change 3: newDependency can not be null or empty for update\n" +
+                "change 4: invalid action 'upgrade', use one of: add, remove, update\n" +
+                "change 5: configuration and dependency can not be null or empty"
+            );
+        then(Files.readString(buildFile)).isEqualTo(BUILD_GRADLE);
+
+        thenThrownBy(() -> tools.applyDependencyChanges(List.of()))
+            .isInstanceOf(ToolExecutionException.class)
+            .hasMessage("changes can not be null or empty");
+    }
+
+    @Test
+    public void external_changes_are_read_again() throws Exception {
+        final GradleTools tools = new GradleTools(projectDir);
+
+        then(tools.listDependencies()).isEqualTo("implementation 'org.slf4j:slf4j-api:2.0.9'");
+        then(tools.dependencyExists("implementation", "org.slf4j:slf4j-api:2.0.9")).isTrue();
+
+        //
+        // written behind the tool's back, with a later timestamp
+        //
+        final FileTime modified = Files.getLastModifiedTime(buildFile);
+        Files.writeString(buildFile, BUILD_GRADLE.replace("slf4j-api:2.0.9", "slf4j-api:2.0.16"));
+        Files.setLastModifiedTime(buildFile, FileTime.fromMillis(modified.toMillis() + 2_000));
+
+        then(tools.listDependencies()).isEqualTo("implementation 'org.slf4j:slf4j-api:2.0.16'");
+        then(tools.dependencyExists("implementation", "org.slf4j:slf4j-api:2.0.9")).isFalse();
+        then(tools.dependencyExists("implementation", "org.slf4j:slf4j-api:2.0.16")).isTrue();
+    }
+}
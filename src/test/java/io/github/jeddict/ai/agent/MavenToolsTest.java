@@ -17,12 +17,16 @@
 package io.github.jeddict.ai.agent;
 
 import com.github.caciocavallosilano.cacio.ctc.junit.CacioTest;
+import dev.langchain4j.exception.ToolExecutionException;
+import io.github.jeddict.ai.agent.MavenTools.DependencyChange;
 import io.github.jeddict.ai.test.DummyProject;
 import io.github.jeddict.ai.test.TestBase;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
 import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.Test;
 
@@ -45,4 +49,79 @@ public class MavenToolsTest extends TestBase {
             .contains("<artifactId>junit-jupiter</artifactId>")
             .contains("<version>5.10.2</version>");
     }
+
+    @Test
+    public void apply_dependency_changes_in_one_write() throws Exception {
+        final Path template = Paths.get("src", "test", "projects", "minimal");
+        FileUtils.copyDirectory(template.toFile(), projectPath.toFile());
+
+        final MavenTools tools = new MavenTools(new DummyProject(projectPath));
+        tools.addDependency("org.junit.jupiter", "junit-jupiter", "5.10.2", "test", "", "");
+
+        final String result = tools.applyDependencyChanges(List.of(
+            new DependencyChange("add", "org.assertj", "assertj-core", "3.26.0", "test", "", ""),
+            new DependencyChange("update", "org.junit.jupiter", "junit-jupiter", "5.11.0", null, null, null),
+            new DependencyChange("add", "org.assertj", "assertj-core", "3.26.0", "test", "", "")
+        ));
+
+        then(result).isEqualTo(
+            "Dependency added: org.assertj:assertj-core\n" +
+            "Dependency version updated: org.junit.jupiter:junit-jupiter:5.11.0\n" +
+            "Dependency already exists: org.assertj:assertj-core"
+        );
+        then(Files.readString(projectPath.resolve("pom.xml")))
+            .contains("<artifactId>assertj-core</artifactId>")
+            .contains("<version>5.11.0</version>")
+            .doesNotContain("<version>5.10.2</version>");
+
+        tools.applyDependencyChanges(List.of(
+            new DependencyChange("remove", "org.assertj", "assertj-core", null, null, null, null)
+        ));
+        then(tools.listDependencies()).isEqualTo("org.junit.jupiter:junit-jupiter:5.11.0:test");
+    }
+
+    @Test
+    public void apply_dependency_changes_is_all_or_nothing() throws Exception {
+        final Path template = Paths.get("src", "test", "projects", "minimal");
+        FileUtils.copyDirectory(template.toFile(), projectPath.toFile());
+
+        final MavenTools tools = new MavenTools(new DummyProject(projectPath));
+        final String before = Files.readString(projectPath.resolve("pom.xml"));
+
+        thenThrownBy(() -> tools.applyDependencyChanges(List.of(
+            new DependencyChange("add", "org.assertj", "assertj-core", "3.26.0", "test", "", ""),
+            new DependencyChange("remove", "org.none", "none", null, null, null, null),
+            new DependencyChange("upgrade", "org.assertj", "assertj-core", "3.27.0", null, null, null)
+        )))
+            .isInstanceOf(ToolExecutionException.class)
+            .hasMessage(
+                "no changes applied to pom.xml, fix the following and try again:\n" +
+                "change 2: dependency not found org.none:none\n" +
+                "change 3: invalid action 'upgrade', use one of: add, remove, update"
+            );
+        then(Files.readString(projectPath.resolve("pom.xml"))).isEqualTo(before);
+        then(tools.dependencyExists("org.assertj", "assertj-core")).isFalse();
+    }
+
+    @Test
+    public void model_is_read_again_when_pom_changes() throws Exception {
+        final Path template = Paths.get("src", "test", "projects", "minimal");
+        FileUtils.copyDirectory(template.toFile(), projectPath.toFile());
+
+        final MavenTools tools = new MavenTools(new DummyProject(projectPath));
+        then(tools.dependencyExists("org.junit.jupiter", "junit-jupiter")).isFalse();
+
+        //
+        // change the pom behind the tool's back
+        //
+        final Path pom = projectPath.resolve("pom.xml");
+        Files.writeString(pom, Files.readString(pom).replace(
+            "</project>",
+            "<dependencies><dependency><groupId>org.junit.jupiter</groupId>"
+            + "<artifactId>junit-jupiter</artifactId></dependency></dependencies></project>"
+        ));
+        pom.toFile().setLastModified(System.currentTimeMillis() + 2000);
+
+        then(tools.dependencyExists("org.junit.jupiter", "junit-jupiter")).isTrue();
+    }
 }
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.agent;
+
+import io.github.jeddict.ai.lang.DummyJeddictBrainListener;
+import io.github.jeddict.ai.test.DummyTool;
+import io.github.jeddict.ai.test.TestBase;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.commons.lang3.tuple.Pair;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+/**
+ *
+ */
+@DisabledOnOs(OS.WINDOWS) // commands below are for sh
+public class ProcessRunnerTest extends TestBase {
+
+    @Test
+    public void run_streams_lines_and_returns_output_and_exit_code() throws Exception {
+        final List<String> lines = new CopyOnWriteArrayList<>();
+        final ProcessRunner runner = new ProcessRunner(Duration.ofSeconds(30), 1024, 1024, lines::add);
+
+        final ProcessRunner.Result result = runner.run(
+            new ProcessBuilder("sh", "-c", "echo one; echo two 1>&2; printf 'three\\r\\nfour'; exit 3")
+        );
+
+        then(result.exitCode()).isEqualTo(3);
+        then(result.timedOut()).isFalse();
+        then(result.cancelled()).isFalse();
+        then(result.output()).isEqualTo("one\ntwo\nthree\nfour\n");
+        then(lines).containsExactly("one", "two", "three", "four");
+    }
+
+    @Test
+    public void run_keeps_only_head_and_tail_of_the_output() throws Exception {
+        final List<String> lines = new CopyOnWriteArrayList<>();
+        final ProcessRunner runner = new ProcessRunner(Duration.ofSeconds(30), 20, 30, lines::add);
+
+        final ProcessRunner.Result result = runner.run(
+            new ProcessBuilder("sh", "-c", "i=0; while [ $i -lt 1000 ]; do echo line$i; i=$((i+1)); done")
+        );
+
+        then(result.exitCode()).isZero();
+        then(lines).hasSize(1000);
+        then(result.output()).isEqualTo(
+            "line0\nline1\nline2\n"
+            + "... [994 lines, 7848 characters omitted] ...\n"
+            + "line997\nline998\nline999\n"
+        );
+    }
+
+    @Test
+    public void run_cuts_very_long_lines() throws Exception {
+        final ProcessRunner runner = new ProcessRunner(Duration.ofSeconds(30), 100_000, 100_000, null);
+
+        final ProcessRunner.Result result = runner.run(
+            new ProcessBuilder("sh", "-c", "head -c 10000 /dev/zero | tr '\\0' 'x'; echo; echo end")
+        );
+
+        then(result.output()).isEqualTo("x".repeat(4096) + " ... [line cut]\nend\n");
+    }
+
+    @Test
+    public void run_kills_process_tree_on_timeout() throws Exception {
+        final AtomicReference<String> child = new AtomicReference<>();
+        final ProcessRunner runner = new ProcessRunner(Duration.ofMillis(500), 1024, 1024, (line) -> {
+            if (child.get() == null) {
+                child.set(line);
+            }
+        });
+
+        final long start = System.currentTimeMillis();
+        final ProcessRunner.Result result = runner.run(
+            new ProcessBuilder("sh", "-c", "sleep 30 & echo $!; wait")
+        );
+
+        then(System.currentTimeMillis() - start).isLessThan(10_000);
+        then(result.timedOut()).isTrue();
+        then(result.cancelled()).isFalse();
+        then(result.exitCode()).isEqualTo(-1);
+        then(ProcessHandle.of(Long.parseLong(child.get())).filter(ProcessHandle::isAlive)).isEmpty();
+    }
+
+    @Test
+    public void run_kills_process_when_thread_is_interrupted() throws Exception {
+        final AtomicReference<ProcessRunner.Result> result = new AtomicReference<>();
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        final Thread runnerThread = Thread.currentThread();
+        final ProcessRunner runner = new ProcessRunner(null, 1024, 1024, (line) -> runnerThread.interrupt());
+
+        result.set(runner.run(new ProcessBuilder("sh", "-c", "echo started; exec sleep 30")));
+        interrupted.set(Thread.interrupted()); // clears the flag for the next tests
+
+        then(result.get().cancelled()).isTrue();
+        then(result.get().timedOut()).isFalse();
+        then(result.get().exitCode()).isEqualTo(-1);
+        then(result.get().output()).isEqualTo("started\n");
+        then(interrupted).isTrue();
+    }
+
+    @Test
+    public void runCommand_reports_progress_and_status() throws Exception {
+        final DummyTool tool = new DummyTool(projectDir);
+        final DummyJeddictBrainListener listener = new DummyJeddictBrainListener();
+        tool.addListener(listener);
+
+        then(tool.runCommand("echo hello", "Saying hello", Duration.ofSeconds(30)))
+            .isEqualTo("hello\nSaying hello successful\n");
+        then(listener.collector).containsExactly(
+            Pair.of("onProgress", "\n🚀 Saying hello"),
+            Pair.of("onProgress", "hello")
+        );
+
+        then(tool.runCommand("sleep 30", "Sleeping", Duration.ofMillis(200)))
+            .isEqualTo("Sleeping timed out after 200 ms and was stopped\n");
+    }
+}
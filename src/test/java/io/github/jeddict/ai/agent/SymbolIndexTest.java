@@ -0,0 +1,146 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.agent;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import javax.lang.model.element.ElementKind;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+import org.netbeans.api.java.source.ClassIndex;
+
+/**
+ *
+ */
+public class SymbolIndexTest {
+
+    private static final Map<String, Map<String, Set<String>>> MEMBERS = Map.of(
+        "app.UserService", Map.of(
+            "findUserById", Set.of("Method"), "users", Set.of("Field"), "USER", Set.of("Field", "Method")
+        ),
+        "app.UserRepository", Map.of("findUserById", Set.of("Method")),
+        "app.zzz.Last", Map.of("findUserById", Set.of("Method"))
+    );
+
+    @Test
+    public void classes_and_resolved_members_are_sorted_by_name() throws Exception {
+        final List<String> resolved = new ArrayList<>();
+
+        final SymbolIndex.Result result = SymbolIndex.collect(
+            List.of("app.User"),
+            candidates("app.UserService", Set.of("users", "USER", "findUserById"), "app.UserRepository", Set.of("findUserById")),
+            Function.identity(), kinds(resolved), 10
+        );
+
+        then(result.truncated()).isFalse();
+        then(result.symbols()).extracting(SymbolIndex.Symbol::toString).containsExactly(
+            "Class: app.User",
+            "Method: app.UserRepository.findUserById",
+            "Field: app.UserService.USER",
+            "Method: app.UserService.USER",
+            "Method: app.UserService.findUserById",
+            "Field: app.UserService.users"
+        );
+        then(resolved).containsExactly("app.UserRepository", "app.UserService");
+    }
+
+    @Test
+    public void members_missing_from_the_resolved_type_and_unresolved_types_are_skipped() throws Exception {
+        final SymbolIndex.Result result = SymbolIndex.collect(
+            List.of(),
+            candidates("app.UserService", Set.of("removed", "users"), "app.Gone", Set.of("findUserById")),
+            Function.identity(), kinds(new ArrayList<>()), 10
+        );
+
+        then(result.symbols()).extracting(SymbolIndex.Symbol::toString).containsExactly("Field: app.UserService.users");
+    }
+
+    @Test
+    public void result_is_truncated_to_the_limit() throws Exception {
+        final SymbolIndex.Result result = SymbolIndex.collect(
+            List.of("app.C", "app.A", "app.B"),
+            candidates("app.UserService", Set.of("users")),
+            Function.identity(), kinds(new ArrayList<>()), 2
+        );
+
+        then(result.truncated()).isTrue();
+        then(result.symbols()).extracting(SymbolIndex.Symbol::name).containsExactly("app.A", "app.B");
+    }
+
+    @Test
+    public void types_sorting_after_the_limit_are_not_resolved() throws Exception {
+        final List<String> resolved = new ArrayList<>();
+
+        final SymbolIndex.Result result = SymbolIndex.collect(
+            List.of(),
+            candidates(
+                "app.zzz.Last", Set.of("findUserById"),
+                "app.UserService", Set.of("findUserById", "users"),
+                "app.UserRepository", Set.of("findUserById")
+            ),
+            Function.identity(), kinds(resolved), 2
+        );
+
+        then(result.truncated()).isTrue();
+        then(result.symbols()).extracting(SymbolIndex.Symbol::name)
+            .containsExactly("app.UserRepository.findUserById", "app.UserService.findUserById");
+        then(resolved).containsExactly("app.UserRepository", "app.UserService");
+    }
+
+    @Test
+    public void member_kinds_and_names() {
+        then(SymbolIndex.kindOf(ElementKind.METHOD)).isEqualTo("Method");
+        then(SymbolIndex.kindOf(ElementKind.CONSTRUCTOR)).isEqualTo("Method");
+        then(SymbolIndex.kindOf(ElementKind.FIELD)).isEqualTo("Field");
+        then(SymbolIndex.kindOf(ElementKind.ENUM_CONSTANT)).isEqualTo("Field");
+        then(SymbolIndex.kindOf(ElementKind.CLASS)).isNull();
+        then(SymbolIndex.kindOf(ElementKind.STATIC_INIT)).isNull();
+
+        then(SymbolIndex.simpleName("findUserById")).isEqualTo("findUserById");
+        then(SymbolIndex.simpleName("findUserById(J)Lapp/User;")).isEqualTo("findUserById");
+        then(SymbolIndex.simpleName("users;Ljava/util/List;")).isEqualTo("users");
+    }
+
+    @Test
+    public void match_modes_select_the_index_name_kind() {
+        then(ExplorationTools.nameKind(null)).isEqualTo(ClassIndex.NameKind.SIMPLE_NAME);
+        then(ExplorationTools.nameKind(" exact ")).isEqualTo(ClassIndex.NameKind.SIMPLE_NAME);
+        then(ExplorationTools.nameKind("Prefix")).isEqualTo(ClassIndex.NameKind.PREFIX);
+        then(ExplorationTools.nameKind("camelcase")).isEqualTo(ClassIndex.NameKind.CAMEL_CASE);
+    }
+
+    // --------------------------------------------------------- private methods
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Set<String>> candidates(final Object... typesAndNames) {
+        final Map<String, Set<String>> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < typesAndNames.length; i += 2) {
+            candidates.put((String) typesAndNames[i], (Set<String>) typesAndNames[i + 1]);
+        }
+        return candidates;
+    }
+
+    private SymbolIndex.MemberKinds<String> kinds(final List<String> resolved) {
+        return (types, i) -> {
+            resolved.add(types.get(i));
+            return MEMBERS.get(types.get(i));
+        };
+    }
+}
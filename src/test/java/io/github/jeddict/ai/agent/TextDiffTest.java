@@ -0,0 +1,105 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.agent;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ */
+public class TextDiffTest {
+
+    @Test
+    public void unified_of_same_lines_is_empty() {
+        then(TextDiff.unified("a.txt", "one\ntwo\n", "one\ntwo\n")).isEmpty();
+        then(TextDiff.unified("a.txt", "one\r\ntwo", "one\ntwo\n")).isEmpty();
+    }
+
+    @Test
+    public void unified_shows_changes_with_context() {
+        then(TextDiff.unified("a.txt", "1\n2\n3\n4\n5\n6\n7\n8\n9\n", "1\n2\n3\n4\nfive\n6\n7\n8\n9\n"))
+            .isEqualTo("""
+                --- a/a.txt
+                +++ b/a.txt
+                @@ -2,7 +2,7 @@
+                 2
+                 3
+                 4
+                -5
+                +five
+                 6
+                 7
+                 8
+                """);
+    }
+
+    @Test
+    public void unified_splits_distant_changes_in_hunks() {
+        final StringBuilder before = new StringBuilder(), after = new StringBuilder();
+        for (int i = 1; i <= 20; ++i) {
+            before.append(i).append('\n');
+            after.append((i == 2 || i == 18) ? "x" : String.valueOf(i)).append('\n');
+        }
+        then(TextDiff.unified("a.txt", before.toString(), after.toString()))
+            .isEqualTo("""
+                --- a/a.txt
+                +++ b/a.txt
+                @@ -1,5 +1,5 @@
+                 1
+                -2
+                +x
+                 3
+                 4
+                 5
+                @@ -15,6 +15,6 @@
+                 15
+                 16
+                 17
+                -18
+                +x
+                 19
+                 20
+                """);
+    }
+
+    @Test
+    public void unified_of_new_file_adds_all_lines() {
+        then(TextDiff.unified("dir/b.txt", null, "hello\nworld"))
+            .isEqualTo("""
+                --- /dev/null
+                +++ b/dir/b.txt
+                @@ -0,0 +1,2 @@
+                +hello
+                +world
+                """);
+    }
+
+    @Test
+    public void unified_aligns_insertions_and_deletions() {
+        then(TextDiff.unified("a.txt", "a\nb\nc\nd\n", "a\nc\nd\ne\n"))
+            .isEqualTo("""
+                --- a/a.txt
+                +++ b/a.txt
+                @@ -1,4 +1,4 @@
+                 a
+                -b
+                 c
+                 d
+                +e
+                """);
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.agent;
+
+import dev.langchain4j.exception.ToolExecutionException;
+import io.github.jeddict.ai.lang.DummyJeddictBrainListener;
+import io.github.jeddict.ai.test.DummyTool;
+import io.github.jeddict.ai.test.TestBase;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ */
+public class ToolOutputGovernorTest extends TestBase {
+
+    private static final Pattern NOTE = Pattern.compile("handle '([^']+)' and offset (\\d+)");
+
+    private ToolOutputGovernor governor;
+    private DummyJeddictBrainListener listener;
+
+    @BeforeEach
+    @Override
+    public void beforeEach() throws Exception {
+        super.beforeEach();
+        governor = new ToolOutputGovernor();
+        listener = new DummyJeddictBrainListener();
+        governor.addListener(listener);
+    }
+
+    @Test
+    public void output_within_limit_is_unchanged() {
+        preferences.setToolOutputLimit(1000);
+
+        final String output = "line\n".repeat(200);
+        then(governor.govern("readFile", output)).isSameAs(output);
+        then(governor.govern("readFile", null)).isNull();
+        then(listener.collector).isEmpty();
+
+        preferences.setToolOutputLimit(0); // no limit
+        then(governor.govern("readFile", "x".repeat(100_000))).hasSize(100_000);
+    }
+
+    @Test
+    public void long_output_keeps_head_and_tail_and_can_be_fetched() throws Exception {
+        preferences.setToolOutputLimit(300);
+        final StringBuilder output = new StringBuilder();
+        for (int i = 1; i <= 100; ++i) {
+            output.append("line ").append(i).append('\n');
+        }
+
+        final String governed = governor.govern("readFile", output.toString());
+        then(governed).startsWith("line 1\nline 2\n").endsWith("line 99\nline 100\n")
+            .contains(" characters omitted; call fetchMore with handle 'readFile-");
+        then(governed.length()).isLessThan(450);
+        then(listener.collector.get(0)).asString().contains("✂️ readFile output truncated");
+
+        //
+        // the head ends and the tail starts at line boundaries
+        //
+        final int note = governed.indexOf("... [");
+        then(governed.substring(0, note)).matches("(?s)(line \\d+\n)+");
+        then(governed.substring(governed.indexOf("] ...\n") + 6)).matches("(?s)(line \\d+\n)+");
+
+        //
+        // page through the omitted part
+        //
+        Matcher m = NOTE.matcher(governed);
+        then(m.find()).isTrue();
+        final String handle = m.group(1);
+        final String head = governed.substring(0, note);
+        final String tail = governed.substring(governed.indexOf("] ...\n") + 6);
+
+        final StringBuilder fetched = new StringBuilder(head);
+        int offset = Integer.parseInt(m.group(2));
+        while (offset >= 0) {
+            final String page = governor.fetchMore(handle, offset);
+            m = NOTE.matcher(page);
+            if (m.find()) {
+                fetched.append(page, 0, page.indexOf("... ["));
+                offset = Integer.parseInt(m.group(2));
+            } else {
+                fetched.append(page);
+                offset = -1;
+            }
+        }
+        then(fetched.toString()).isEqualTo(output.toString()).endsWith(tail);
+    }
+
+    @Test
+    public void only_omitted_characters_fetched_for_the_first_time_are_counted() throws Exception {
+        preferences.setToolOutputLimit(300);
+        final String output = "line\n".repeat(1_000);
+        final long before = ToolOutputGovernor.tokensSaved();
+
+        final String governed = governor.govern("readFile", output);
+        then(ToolOutputGovernor.tokensSaved()).isGreaterThan(before);
+
+        final Matcher m = NOTE.matcher(governed);
+        then(m.find()).isTrue();
+        final String handle = m.group(1);
+
+        //
+        // the whole result from the start, the head again included, twice
+        //
+        for (int i = 0; i < 2; ++i) {
+            int offset = 0;
+            while (offset >= 0) {
+                final Matcher next = NOTE.matcher(governor.fetchMore(handle, offset));
+                offset = next.find() ? Integer.parseInt(next.group(2)) : -1;
+            }
+        }
+        then(ToolOutputGovernor.tokensSaved()).isEqualTo(before);
+    }
+
+    @Test
+    public void handles_are_scoped_to_their_store() throws Exception {
+        preferences.setToolOutputLimit(300);
+        final ToolOutputGovernor.Outputs outputs = new ToolOutputGovernor.Outputs();
+
+        final Matcher m = NOTE.matcher(new ToolOutputGovernor(outputs).govern("readFile", "line\n".repeat(1_000)));
+        then(m.find()).isTrue();
+
+        then(new ToolOutputGovernor(outputs).fetchMore(m.group(1), Integer.parseInt(m.group(2)))).startsWith("line\n");
+        thenThrownBy(() -> governor.fetchMore(m.group(1), 0))
+            .isInstanceOf(ToolExecutionException.class)
+            .hasMessage("unknown or expired handle '" + m.group(1) + "', run the tool again");
+    }
+
+    @Test
+    public void per_tool_limit() {
+        preferences.setToolOutputLimit(10_000);
+        preferences.setToolOutputLimit("getFileTree", 100);
+
+        final String output = "entry\n".repeat(100);
+        then(governor.govern("readFile", output)).isSameAs(output);
+        then(governor.govern("getFileTree", output)).contains("fetchMore").hasSizeLessThan(output.length());
+    }
+
+    @Test
+    public void fetchMore_with_invalid_arguments() {
+        preferences.setToolOutputLimit(100);
+        final Matcher m = NOTE.matcher(governor.govern("readFile", "x\n".repeat(500)));
+        then(m.find()).isTrue();
+
+        thenThrownBy(() -> governor.fetchMore("nothing-1", 0))
+            .isInstanceOf(ToolExecutionException.class)
+            .hasMessage("unknown or expired handle 'nothing-1', run the tool again");
+        thenThrownBy(() -> governor.fetchMore(m.group(1), 1000))
+            .isInstanceOf(ToolExecutionException.class)
+            .hasMessage("offset must be between 0 and 999, got: 1000");
+    }
+
+    @Test
+    public void tools_wrapped_with_a_governor_return_governed_results() throws Exception {
+        preferences.setToolOutputLimit("dummyToolWithArgs", 100);
+
+        final DummyTool tool = new HumanInTheMiddleWrapper(null, governor).wrap(new DummyTool(projectDir));
+
+        then(tool.dummyToolWithArgs("short", List.of())).isEqualTo("true\narg1: short\narg2: []");
+        then(tool.dummyToolWithArgs("long\n".repeat(100), List.of()))
+            .startsWith("true\narg1: long\n").contains("call fetchMore with handle 'dummyToolWithArgs-");
+
+        final long saved = ToolOutputGovernor.tokensSaved();
+        then(saved).isPositive();
+    }
+}
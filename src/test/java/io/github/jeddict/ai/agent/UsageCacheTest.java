@@ -0,0 +1,78 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.agent;
+
+import io.github.jeddict.ai.test.TestBase;
+import io.github.jeddict.ai.util.ProjectFileIndex;
+import java.util.List;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+import org.netbeans.api.java.source.ElementHandle;
+
+/**
+ *
+ */
+public class UsageCacheTest extends TestBase {
+
+    private static final ElementHandle<TypeElement> HELLO
+        = ElementHandle.createTypeElementHandle(ElementKind.CLASS, "test.Hello");
+
+    @Test
+    public void get_returns_usages_only_if_they_cover_the_limit() {
+        final UsageCache cache = UsageCache.of(projectPath);
+
+        then(cache.get(HELLO, 1)).isNull();
+
+        cache.put(HELLO, new UsageCache.Usages(List.of("one", "two"), false));
+        then(cache.get(HELLO, 2).usages()).containsExactly("one", "two");
+        then(cache.get(HELLO, 3)).isNull();
+
+        cache.put(HELLO, new UsageCache.Usages(List.of("one", "two"), true));
+        then(cache.get(HELLO, 100).usages()).containsExactly("one", "two");
+    }
+
+    @Test
+    public void usages_are_dropped_when_a_java_file_of_the_project_changes() throws Exception {
+        final UsageCache cache = UsageCache.of(projectPath);
+        cache.put(HELLO, new UsageCache.Usages(List.of("one"), true));
+
+        ProjectFileIndex.fileChanged(projectPath.resolve("folder/testfile.txt"));
+        then(cache.get(HELLO, 1)).isNotNull();
+
+        ProjectFileIndex.fileChanged(HOME.resolve("Other.java"));
+        then(cache.get(HELLO, 1)).isNotNull();
+
+        ProjectFileIndex.fileChanged(projectPath.resolve("src/Hello.java"));
+        then(cache.get(HELLO, 1)).isNull();
+
+        cache.put(HELLO, new UsageCache.Usages(List.of("one"), true));
+        ProjectFileIndex.fileDeleted(projectPath.resolve("folder"));
+        then(cache.get(HELLO, 1)).isNull();
+    }
+
+    @Test
+    public void cache_is_dropped_when_the_project_index_is_released() {
+        final UsageCache cache = UsageCache.of(projectPath);
+        cache.put(HELLO, new UsageCache.Usages(List.of("one"), true));
+
+        ProjectFileIndex.release(projectPath);
+
+        then(cache.get(HELLO, 1)).isNull();
+        then(UsageCache.of(projectPath)).isNotSameAs(cache);
+    }
+}
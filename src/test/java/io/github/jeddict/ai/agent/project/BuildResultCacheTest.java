@@ -0,0 +1,102 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.agent.project;
+
+import io.github.jeddict.ai.test.TestBase;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ */
+public class BuildResultCacheTest extends TestBase {
+
+    private static final List<String> TEST = List.of("maven", "test", "-", "");
+
+    @Test
+    public void of_returns_null_when_disabled() {
+        preferences.setBuildResultCacheEnabled(false);
+
+        then(BuildResultCache.of(projectPath, TEST)).isNull();
+    }
+
+    @Test
+    public void cached_returns_marked_output_until_a_project_file_changes() throws Exception {
+        preferences.setBuildResultCacheEnabled(true);
+        final Path output = Files.createDirectories(projectPath.resolve("target/classes"));
+        Files.writeString(output.resolve("A.class"), "compiled");
+
+        BuildResultCache cache = BuildResultCache.of(projectPath, TEST);
+        then(cache.cached()).isNull();
+        cache.store("OUT: BUILD SUCCESS");
+
+        cache = BuildResultCache.of(projectPath, TEST);
+        then(cache.cached())
+            .startsWith("[CACHED RESULT: no project file changed since this same build ran at ")
+            .endsWith("the build was not run again]\nOUT: BUILD SUCCESS");
+
+        //
+        // build outputs are not inputs
+        //
+        Files.writeString(output.resolve("A.class"), "compiled again");
+        then(BuildResultCache.of(projectPath, TEST).cached()).isNotNull();
+
+        //
+        // a different build has its own result
+        //
+        then(BuildResultCache.of(projectPath, List.of("maven", "test", "-", "-DskipTests")).cached()).isNull();
+
+        //
+        // a changed file invalidates the result
+        //
+        Files.writeString(projectPath.resolve("folder/testfile.txt"), "changed");
+        then(BuildResultCache.of(projectPath, TEST).cached()).isNull();
+    }
+
+    @Test
+    public void mvn_directory_content_is_fingerprinted() throws Exception {
+        preferences.setBuildResultCacheEnabled(true);
+        final Path wrapper = Files.createDirectories(projectPath.resolve(".mvn/wrapper"));
+        Files.writeString(wrapper.resolve("maven-wrapper.properties"), "distributionUrl=3.9.6");
+        Files.createDirectories(projectPath.resolve(".git"));
+        Files.writeString(projectPath.resolve(".git/HEAD"), "main");
+
+        BuildResultCache.of(projectPath, TEST).store("OUT: BUILD SUCCESS");
+
+        Files.writeString(projectPath.resolve(".git/HEAD"), "other");
+        then(BuildResultCache.of(projectPath, TEST).cached()).isNotNull();
+
+        Files.writeString(wrapper.resolve("maven-wrapper.properties"), "distributionUrl=3.9.9");
+        then(BuildResultCache.of(projectPath, TEST).cached()).isNull();
+    }
+
+    @Test
+    public void invalidate_drops_all_results_of_the_project() throws Exception {
+        preferences.setBuildResultCacheEnabled(true);
+        final List<String> compile = List.of("maven", "compile", "-", "");
+
+        BuildResultCache.of(projectPath, TEST).store("OUT: tested");
+        BuildResultCache.of(projectPath, compile).store("OUT: compiled");
+
+        BuildResultCache.invalidate(projectPath);
+
+        then(BuildResultCache.of(projectPath, TEST).cached()).isNull();
+        then(BuildResultCache.of(projectPath, compile).cached()).isNull();
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package io.github.jeddict.ai.components;
+
+import com.github.caciocavallosilano.cacio.ctc.junit.CacioTest;
+import io.github.jeddict.ai.response.TextBlock;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.Point;
+import java.util.Arrays;
+import javax.swing.BoxLayout;
+import javax.swing.JComponent;
+import javax.swing.JFrame;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.assertj.swing.edt.GuiActionRunner;
+import org.assertj.swing.fixture.FrameFixture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@CacioTest
+public class BlockVirtualizerTest {
+
+    private static final int BLOCKS = 200;
+
+    private FrameFixture window;
+    private JPanel panel;
+    private JScrollPane scrollPane;
+    private BlockVirtualizer virtualizer;
+    private int created;
+
+    @BeforeEach
+    void beforeEach() {
+        created = 0;
+        final JFrame frame = GuiActionRunner.execute(() -> {
+            final JFrame f = new JFrame("Test BlockVirtualizer");
+            panel = new JPanel();
+            panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
+            virtualizer = new BlockVirtualizer(panel, this::materialize, (pane) -> true);
+            scrollPane = new JScrollPane(panel);
+            scrollPane.setPreferredSize(new Dimension(300, 300));
+            f.getContentPane().add(scrollPane);
+            return f;
+        });
+        window = new FrameFixture(frame);
+        window.show();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        window.cleanUp();
+    }
+
+    @Test
+    public void only_blocks_near_the_viewport_are_created() {
+        GuiActionRunner.execute(() -> {
+            for (int i = 0; i < BLOCKS; ++i) {
+                final TextBlock block = new TextBlock("text", ("block " + i + "\n").repeat(5));
+                final BlockVirtualizer.Placeholder placeholder = virtualizer.defer(null, block);
+                if (placeholder != null) {
+                    panel.add(placeholder);
+                } else {
+                    final JComponent pane = materialize(block, panel.getComponentCount());
+                    virtualizer.track(pane, null, block);
+                }
+            }
+            panel.revalidate();
+        });
+
+        then(created).isGreaterThan(0).isLessThan(BLOCKS / 4);
+        then(placeholders()).isEqualTo(BLOCKS - created);
+    }
+
+    @Test
+    public void blocks_are_created_and_released_while_scrolling() {
+        only_blocks_near_the_viewport_are_created();
+        final int initial = created;
+
+        //
+        // scroll to the bottom: blocks at the bottom are created, the ones at
+        // the top are replaced by placeholders with the same height
+        //
+        GuiActionRunner.execute(() -> {
+            panel.validate();
+            final int top = panel.getComponent(0).getHeight();
+            scrollPane.getViewport().setViewPosition(new Point(0, panel.getHeight() - scrollPane.getViewport().getHeight()));
+            virtualizer.update();
+            panel.validate();
+            virtualizer.update();
+
+            then(panel.getComponent(0)).isInstanceOf(BlockVirtualizer.Placeholder.class);
+            then(panel.getComponent(0).getPreferredSize().height).isEqualTo(top);
+            then(panel.getComponent(BLOCKS - 1)).isInstanceOf(JTextArea.class);
+        });
+        then(created).isGreaterThan(initial);
+        then(BLOCKS - placeholders()).isLessThan(BLOCKS / 4);
+    }
+
+    // --------------------------------------------------------- private methods
+
+    private JComponent materialize(final BlockVirtualizer.Placeholder placeholder, final int index) {
+        return materialize(placeholder.block, index);
+    }
+
+    private JComponent materialize(final TextBlock block, final int index) {
+        ++created;
+        final JTextArea pane = new JTextArea(block.getContent());
+        panel.add(pane, index);
+        return pane;
+    }
+
+    private int placeholders() {
+        return GuiActionRunner.execute(
+            () -> (int) Arrays.stream(panel.getComponents())
+                .filter((Component c) -> c instanceof BlockVirtualizer.Placeholder).count()
+        );
+    }
+}
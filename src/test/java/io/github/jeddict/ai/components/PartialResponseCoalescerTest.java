@@ -0,0 +1,127 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.components;
+
+import io.github.jeddict.ai.test.DummyTokenStream;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.SwingUtilities;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+/**
+ *
+ */
+public class PartialResponseCoalescerTest {
+
+    @Test
+    public void appends_within_a_frame_are_coalesced_into_one_update() throws Exception {
+        final StringBuilder shown = new StringBuilder();
+        final PartialResponseCoalescer coalescer = new PartialResponseCoalescer(60_000, (t, newLine) -> shown.append(t));
+
+        coalescer.append("token0 ", false);
+        SwingUtilities.invokeAndWait(() -> {});
+        then(coalescer.getUpdateCount()).isEqualTo(1);
+
+        final StringBuilder text = new StringBuilder("token0 ");
+        for (int i = 1; i < 1_000; ++i) {
+            coalescer.append("token" + i + " ", false);
+            text.append("token").append(i).append(' ');
+        }
+        coalescer.flush();
+        SwingUtilities.invokeAndWait(() -> {});
+
+        then(shown.toString()).isEqualTo(text.toString());
+        then(coalescer.getAppendCount()).isEqualTo(1_000);
+        then(coalescer.getUpdateCount()).isEqualTo(2);
+        then(coalescer.getSavedEvents()).isEqualTo(998);
+    }
+
+    @Test
+    @Tag("performance")
+    public void coalesce_a_fast_stream_into_one_update_per_frame(final TestReporter reporter) throws Exception {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; text.length() < 40_000; ++i) {
+            text.append("token").append(i).append(' ');
+        }
+        final DummyTokenStream stream = new DummyTokenStream(text.toString()).withRate(10_000);
+
+        final StringBuilder shown = new StringBuilder();
+        final AtomicInteger edtViolations = new AtomicInteger();
+        final PartialResponseCoalescer coalescer = new PartialResponseCoalescer(16, (t, newLine) -> {
+            if (!SwingUtilities.isEventDispatchThread()) {
+                edtViolations.incrementAndGet();
+            }
+            shown.append(t);
+        });
+
+        final long start = System.nanoTime();
+        stream.onPartialResponse((t) -> coalescer.append(t, false)).start();
+        final long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        coalescer.flush();
+        SwingUtilities.invokeAndWait(() -> {});
+
+        then(shown.toString()).isEqualTo(text.toString());
+        then(edtViolations).hasValue(0);
+        then(coalescer.getAppendCount()).isEqualTo(stream.tokens.length);
+        then(coalescer.getSavedEvents()).isEqualTo(coalescer.getAppendCount() - coalescer.getUpdateCount());
+
+        reporter.publishEntry("PartialResponseCoalescer", String.format(
+            "%d tokens in %d ms, %d EDT updates (%d saved)",
+            coalescer.getAppendCount(), elapsedMillis, coalescer.getUpdateCount(), coalescer.getSavedEvents()
+        ));
+    }
+
+    @Test
+    public void first_token_is_shown_right_away() throws Exception {
+        final StringBuilder shown = new StringBuilder();
+        final PartialResponseCoalescer coalescer = new PartialResponseCoalescer(10_000, (t, newLine) -> shown.append(t));
+
+        coalescer.append("hello", false);
+        SwingUtilities.invokeAndWait(() -> {});
+
+        then(shown.toString()).isEqualTo("hello");
+    }
+
+    @Test
+    public void new_thread_starts_on_a_new_line() throws Exception {
+        final StringBuilder shown = new StringBuilder();
+        final PartialResponseCoalescer coalescer = new PartialResponseCoalescer(10_000, (t, newLine) -> {
+            if (newLine) {
+                shown.append("|");
+            }
+            shown.append(t);
+        });
+
+        coalescer.append("first", true);
+        SwingUtilities.invokeAndWait(() -> {});
+
+        //
+        // within the same frame: coalesced with a new line in between
+        //
+        coalescer.append("second", false);
+        coalescer.append("third", true);
+        coalescer.append("\n", false);
+        coalescer.append("fourth", true);
+        coalescer.flush();
+        SwingUtilities.invokeAndWait(() -> {});
+
+        then(shown.toString()).isEqualTo("|firstsecond\nthird\nfourth");
+        then(coalescer.getAppendCount()).isEqualTo(5);
+        then(coalescer.getUpdateCount()).isEqualTo(2);
+    }
+}
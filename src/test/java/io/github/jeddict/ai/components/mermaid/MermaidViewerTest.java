@@ -0,0 +1,107 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.components.mermaid;
+
+import com.github.caciocavallosilano.cacio.ctc.junit.CacioTest;
+import java.awt.Point;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.assertj.swing.edt.GuiActionRunner;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ */
+@CacioTest
+public class MermaidViewerTest {
+
+    private static final String ERD = """
+        erDiagram
+            CUSTOMER {
+                string customerID
+                string name
+            }
+            ORDER {
+                string orderID
+            }
+            PRODUCT {
+                string productID
+            }
+            CUSTOMER ||--o{ ORDER : places
+            ORDER }|--|{ PRODUCT : contains
+        """;
+
+    @Test
+    public void parse_er_diagram() {
+        final MermaidDiagram diagram = MermaidERDViewer.parse(ERD);
+
+        then(diagram.nodes()).containsOnlyKeys("CUSTOMER", "ORDER", "PRODUCT");
+        then(diagram.nodes().get("CUSTOMER").attributes()).containsExactly("string customerID", "string name");
+        then(diagram.nodes().get("CUSTOMER").members()).containsExactly("→ ORDER : places");
+        then(diagram.edges()).containsExactly(
+            new MermaidDiagram.Edge("CUSTOMER", "ORDER", "||", "o{", "places"),
+            new MermaidDiagram.Edge("ORDER", "PRODUCT", "}|", "|{", "contains")
+        );
+        then(diagram.position("CUSTOMER")).isEqualTo(new Point(50, 50));
+        then(diagram.position("PRODUCT")).isEqualTo(new Point(650, 50));
+    }
+
+    @Test
+    public void parse_class_diagram() {
+        final MermaidDiagram diagram = MermaidClassDiagramViewer.parse("""
+            classDiagram
+                Animal <|-- Duck
+                class Animal {
+                    +String name
+                    +eat()
+                }
+                Duck : +swim()
+            """);
+
+        then(diagram.nodes()).containsOnlyKeys("Animal", "Duck");
+        then(diagram.nodes().get("Animal").attributes()).containsExactly("name: String");
+        then(diagram.nodes().get("Animal").members()).containsExactly("eat()");
+        then(diagram.nodes().get("Duck").members()).containsExactly("swim()");
+        then(diagram.edges()).containsExactly(new MermaidDiagram.Edge("Duck", "Animal", null, null, null));
+    }
+
+    @Test
+    public void parsed_diagrams_are_cached() {
+        then(MermaidPane.parseDiagram(ERD)).isSameAs(MermaidPane.parseDiagram(ERD));
+        then(MermaidPane.parseDiagram("pie title Pets")).isNull();
+    }
+
+    @Test
+    public void update_rebuilds_only_changed_nodes() {
+        GuiActionRunner.execute(() -> {
+            final MermaidERDViewer viewer = new MermaidERDViewer();
+
+            then(viewer.update(MermaidERDViewer.parse(ERD))).isEqualTo(3);
+            then(viewer.nodeLayer.getChildren()).hasSize(3);
+            then(viewer.connectionLayer.getChildren()).hasSize(2);
+
+            then(viewer.update(MermaidERDViewer.parse(ERD))).isZero();
+
+            final String edited = ERD.replace("string productID", "string productID\n        float price");
+            then(viewer.update(MermaidERDViewer.parse(edited))).isEqualTo(1);
+            then(viewer.nodeLayer.getChildren()).hasSize(3);
+            then(viewer.connectionLayer.getChildren()).hasSize(2);
+
+            final String removed = edited.replace("ORDER }|--|{ PRODUCT : contains", "");
+            then(viewer.update(MermaidERDViewer.parse(removed))).isEqualTo(1); // ORDER lost its relation
+            then(viewer.connectionLayer.getChildren()).hasSize(1);
+        });
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.lang;
+
+import io.github.jeddict.ai.response.TextBlock;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.SwingUtilities;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+/**
+ *
+ */
+public class MarkdownStreamParserTest {
+
+    @Test
+    public void blocks_are_split_regardless_of_token_boundaries() throws Exception {
+        final String markdown = "Hello\r\nworld\n```java\nclass A {}\n```\n````\n```\n````\nbye";
+
+        for (int size : new int[] { 1, 3, 7, markdown.length() }) {
+            final List<TextBlock> blocks = parse(markdown, size);
+
+            then(blocks).extracting((b) -> b.type).containsExactly("text", "java", "code", "text");
+            //
+            // same rules as Response: closed code blocks are not trimmed
+            //
+            then(blocks).extracting(TextBlock::getContent)
+                .containsExactly("Hello\nworld", "class A {}\n", "```\n", "bye");
+        }
+    }
+
+    @Test
+    public void flush_emits_the_unterminated_block() throws Exception {
+        then(parse("```python\nprint(1)", 2))
+            .singleElement().satisfies((b) -> {
+                then(b.type).isEqualTo("python");
+                then(b.getContent()).isEqualTo("print(1)");
+            });
+    }
+
+    @Test
+    public void no_blocks_are_delivered_after_shutdown() throws Exception {
+        final List<TextBlock> blocks = Collections.synchronizedList(new ArrayList<>());
+        final MarkdownStreamParser parser = new MarkdownStreamParser(blocks::add);
+
+        parser.shutdown();
+        parser.processToken("text\n```\ncode\n```\n");
+        parser.flush();
+        SwingUtilities.invokeAndWait(() -> {});
+
+        then(blocks).isEmpty();
+        then(parser.getDoneBlocks()).isEmpty();
+    }
+
+    @Test
+    public void many_blocks_and_long_lines_are_parsed_completely() throws Exception {
+        final String block = "Some text with a few words\n```java\nint x = 1;\n```\n";
+        then(parse(block.repeat(1_000), 4)).hasSize(2_000);
+
+        final String line = "x".repeat(64 * 1024);
+        then(parse(line, 4)).singleElement().satisfies((b) -> then(b.getContent()).hasSize(line.length()));
+    }
+
+    //
+    // Throughput benchmark: multi-megabyte responses streamed in small tokens,
+    // both with many short blocks and as a single huge line; the latter used
+    // to be quadratic as each token rescanned the whole pending line.
+    //
+    @Test
+    @Tag("performance")
+    public void streams_multi_megabyte_responses_in_linear_time(final TestReporter reporter) throws Exception {
+        final StringBuilder blocks = new StringBuilder();
+        int n = 0;
+        while (blocks.length() < 4_000_000) {
+            blocks.append("Some text with a few words\n```java\nint x = 1;\n```\n");
+            ++n;
+        }
+
+        final long start1 = System.nanoTime();
+        then(parse(blocks.toString(), 4)).hasSize(2 * n);
+        report(reporter, "blocks", blocks.length(), System.nanoTime() - start1);
+
+        final String line = "x".repeat(4_000_000);
+        final long start2 = System.nanoTime();
+        then(parse(line, 4)).singleElement().satisfies((b) -> then(b.getContent()).hasSize(line.length()));
+        report(reporter, "single line", line.length(), System.nanoTime() - start2);
+    }
+
+    // --------------------------------------------------------- private methods
+
+    private List<TextBlock> parse(final String markdown, final int tokenSize) throws Exception {
+        final List<TextBlock> blocks = Collections.synchronizedList(new ArrayList<>());
+        final MarkdownStreamParser parser = new MarkdownStreamParser(blocks::add);
+
+        for (int i = 0; i < markdown.length(); i += tokenSize) {
+            parser.processToken(markdown.substring(i, Math.min(markdown.length(), i + tokenSize)));
+        }
+        parser.flush();
+
+        //
+        // blocks are delivered on the EDT
+        //
+        SwingUtilities.invokeAndWait(() -> {});
+
+        then(parser.getDoneBlocks()).hasSameSizeAs(blocks);
+        return blocks;
+    }
+
+    private void report(final TestReporter reporter, final String name, final int chars, final long nanos) {
+        reporter.publishEntry(
+            "MarkdownStreamParser " + name,
+            String.format("%,d chars in %d ms (%.1f MB/s)", chars, nanos / 1_000_000, chars / 1e6 / (nanos / 1e9))
+        );
+    }
+}
@@ -104,4 +104,13 @@ class GenAIModelTest {
 
         then(model1).isEqualTo(model2);
     }
+
+    @Test
+    void cost_uses_prices_per_million_tokens() {
+        GenAIModel model = new GenAIModel(GenAIProvider.OPEN_AI, "gpt-4", "desc", 10.0, 30.0);
+
+        then(model.cost(1_000_000, 0)).isEqualTo(10.0);
+        then(model.cost(2_000, 1_000)).isEqualTo(0.05);
+        then(new GenAIModel(GenAIProvider.OLLAMA, "llama", "", 0, 0).cost(1_000, 1_000)).isZero();
+    }
 }
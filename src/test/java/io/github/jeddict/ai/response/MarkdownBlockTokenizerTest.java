@@ -0,0 +1,216 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.response;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.groups.Tuple.tuple;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+/**
+ *
+ */
+public class MarkdownBlockTokenizerTest {
+
+    private static final String[] LINES = {
+        "Some text", "", "  indented text  ", "```", "```java", "``` python ",
+        "````", "````xml", "``", "Code with ``` inside", "```c++", "```java x",
+        "int x = 1;", "\t", "## Heading"
+    };
+
+    @Test
+    public void splits_text_and_code_blocks() {
+        then(MarkdownBlockTokenizer.parse("Intro\n```java\nint x;\n```\n\nOutro\n"))
+            .extracting((b) -> b.type, TextBlock::getContent)
+            .containsExactly(
+                tuple("text", "Intro"),
+                tuple("java", "int x;\n"),
+                tuple("text", "Outro")
+            );
+    }
+
+    @Test
+    public void shorter_fences_are_part_of_the_code() {
+        then(MarkdownBlockTokenizer.parse("````md\n```java\nx\n```\n````"))
+            .singleElement().satisfies((b) -> {
+                then(b.type).isEqualTo("md");
+                then(b.getContent()).isEqualTo("```java\nx\n```\n");
+            });
+    }
+
+    @Test
+    public void fences_must_be_whole_lines() {
+        then(MarkdownBlockTokenizer.parse("```c++\n```java x\n`` x\n"))
+            .singleElement().satisfies((b) -> {
+                then(b.type).isEqualTo("text");
+                then(b.getContent()).isEqualTo("```c++\n```java x\n`` x");
+            });
+    }
+
+    @Test
+    public void chunks_give_the_same_blocks_as_the_whole_text() {
+        final String markdown = "Hello\r\n```java\r\nclass A {}\r\n```\r\nbye";
+        final List<TextBlock> expected = MarkdownBlockTokenizer.parse(markdown);
+
+        for (int size = 1; size <= markdown.length(); ++size) {
+            final List<TextBlock> blocks = new ArrayList<>();
+            final MarkdownBlockTokenizer tokenizer = new MarkdownBlockTokenizer(blocks::add);
+            for (int i = 0; i < markdown.length(); i += size) {
+                tokenizer.append(markdown.substring(i, Math.min(markdown.length(), i + size)));
+            }
+            tokenizer.finish();
+
+            then(blocks).usingRecursiveFieldByFieldElementComparator().isEqualTo(expected);
+        }
+        then(expected).extracting(TextBlock::getContent).containsExactly("Hello", "class A {}\n", "bye");
+    }
+
+    @Test
+    public void same_blocks_as_the_regex_parser() {
+        //
+        // random documents without nested fences, the only case in which the
+        // old parser dropped lines
+        //
+        final Random random = new Random(1);
+        for (int n = 0; n < 2000; ++n) {
+            final StringBuilder markdown = new StringBuilder();
+            final int lines = random.nextInt(20);
+            for (int i = 0; i < lines; ++i) {
+                markdown.append(LINES[random.nextInt(LINES.length)]);
+                if (i < lines - 1 || random.nextBoolean()) {
+                    markdown.append('\n');
+                }
+            }
+            final String text = markdown.toString();
+            if (hasNestedFence(text)) {
+                continue;
+            }
+
+            then(MarkdownBlockTokenizer.parse(text))
+                .as(text).usingRecursiveFieldByFieldElementComparator()
+                .isEqualTo(regexParse(text));
+        }
+    }
+
+    //
+    // Throughput benchmark on a 1 MB response, against the regex and Scanner
+    // based parser previously used by Response
+    //
+    @Test
+    @Tag("performance")
+    public void parses_one_megabyte_faster_than_the_regex_parser(final TestReporter reporter) {
+        final StringBuilder markdown = new StringBuilder();
+        while (markdown.length() < 1_000_000) {
+            markdown.append("Some text with a few words\nand a second line\n```java\nint x = 1;\nint y = 2;\n```\n");
+        }
+        final String text = markdown.toString();
+
+        then(MarkdownBlockTokenizer.parse(text))
+            .usingRecursiveFieldByFieldElementComparator().isEqualTo(regexParse(text));
+
+        long tokenizer = Long.MAX_VALUE, regex = Long.MAX_VALUE;
+        for (int i = 0; i < 10; ++i) {
+            long start = System.nanoTime();
+            MarkdownBlockTokenizer.parse(text);
+            tokenizer = Math.min(tokenizer, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            regexParse(text);
+            regex = Math.min(regex, System.nanoTime() - start);
+        }
+
+        reporter.publishEntry("MarkdownBlockTokenizer", String.format(
+            "%,d chars in %.2f ms (%.1f MB/s), regex parser %.2f ms (%.1f MB/s)",
+            text.length(),
+            tokenizer / 1e6, text.length() / 1e6 / (tokenizer / 1e9),
+            regex / 1e6, text.length() / 1e6 / (regex / 1e9)
+        ));
+        then(tokenizer).isLessThan(regex);
+    }
+
+    // --------------------------------------------------------- private methods
+
+    private boolean hasNestedFence(final String text) {
+        String fence = null;
+        for (String line: text.split("\n")) {
+            final Matcher m = Pattern.compile("^(```+)(\\s*\\w+)?\\s*$").matcher(line);
+            if (!m.matches()) {
+                continue;
+            }
+            if (fence == null) {
+                fence = m.group(1);
+            } else if (line.startsWith(fence)) {
+                fence = null;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The parser formerly in Response, kept as reference
+     */
+    private List<TextBlock> regexParse(final String text) {
+        final List<TextBlock> result = new ArrayList<>();
+
+        StringBuilder buffer = new StringBuilder();
+        boolean insideCodeBlock = false;
+        String currentFence = null;
+        String blockType = "text";
+
+        Scanner scanner = new Scanner(text);
+        while (scanner.hasNextLine()) {
+            String line = scanner.nextLine();
+            Matcher fenceMatcher = Pattern.compile("^(```+)(\\s*\\w+)?\\s*$").matcher(line);
+
+            if (fenceMatcher.matches()) {
+                String fence = fenceMatcher.group(1);
+                String lang = fenceMatcher.group(2) != null ? fenceMatcher.group(2).trim() : "";
+
+                if (!insideCodeBlock) {
+                    if (buffer.length() > 0) {
+                        result.add(new TextBlock(blockType, buffer.toString().trim()));
+                        buffer.setLength(0);
+                    }
+                    insideCodeBlock = true;
+                    currentFence = fence;
+                    blockType = lang.isEmpty() ? "code" : lang;
+                } else if (line.startsWith(currentFence)) {
+                    insideCodeBlock = false;
+                    result.add(new TextBlock(blockType, buffer.toString()));
+                    buffer.setLength(0);
+                    blockType = "text";
+                }
+            } else {
+                buffer.append(line).append("\n");
+            }
+        }
+
+        if (buffer.length() > 0) {
+            result.add(new TextBlock(blockType, buffer.toString().trim()));
+        }
+
+        return result;
+    }
+}
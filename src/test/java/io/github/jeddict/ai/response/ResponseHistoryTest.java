@@ -0,0 +1,152 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.response;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import io.github.jeddict.ai.test.TestBase;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ */
+public class ResponseHistoryTest extends TestBase {
+
+    @Test
+    public void session_file_is_created_with_the_first_response() throws Exception {
+        final ResponseHistory history = new ResponseHistory(HOME.resolve("sessions"), 3);
+
+        then(history.getSessionPath()).doesNotExist();
+        then(history.previousSession()).isNull();
+
+        history.add(new Response("q0", "a0", null));
+
+        then(history.getSessionPath()).exists();
+        then(history.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void old_responses_are_spilled_and_paged_back_in() throws Exception {
+        final ResponseHistory history = new ResponseHistory(HOME.resolve("sessions"), 3);
+
+        for (int i = 0; i < 10; ++i) {
+            history.add(new Response("q" + i, "answer " + i + "\n```java\nclass A" + i + " {}\n```\n", null));
+        }
+
+        then(history.size()).isEqualTo(10);
+        then(history.inMemory()).isEqualTo(3);
+
+        final Response first = history.get(0);
+        then(first.getQuery()).isEqualTo("q0");
+        then(first.getBlocks()).hasSize(2);
+        then(first.getBlocks().get(1).type).isEqualTo("java");
+        then(first.getBlocks().get(1).getContent()).isEqualTo("class A0 {}\n");
+        then(history.inMemory()).isEqualTo(3);
+
+        then(history.tail(2)).extracting(Response::getQuery).containsExactly("q8", "q9");
+        then(history.tail(-1)).hasSize(10);
+    }
+
+    @Test
+    public void truncate_drops_turns_and_new_responses_overwrite_them() throws Exception {
+        final ResponseHistory history = new ResponseHistory(HOME.resolve("sessions"), 2);
+
+        for (int i = 0; i < 5; ++i) {
+            history.add(new Response("q" + i, "a" + i, null));
+        }
+        history.truncate(3);
+        history.add(new Response("q3b", "a3b", null));
+
+        then(history.size()).isEqualTo(4);
+        then(history.get(3).getQuery()).isEqualTo("q3b");
+
+        final ResponseHistory resumed = new ResponseHistory(HOME.resolve("sessions"), 2);
+        resumed.resume(history.getSessionPath());
+        then(resumed.tail(-1)).extracting(Response::getQuery).containsExactly("q0", "q1", "q2", "q3b");
+    }
+
+    @Test
+    public void resume_ignores_a_partially_written_last_turn() throws Exception {
+        final ResponseHistory history = new ResponseHistory(HOME.resolve("sessions"), 2);
+        history.add(new Response("q0", "a0", null));
+        history.add(new Response("q1", "a1", null));
+
+        final Path session = history.getSessionPath();
+        Files.writeString(session, "{\"query\":\"q2", StandardOpenOption.APPEND);
+
+        history.clear();
+        then(history.isEmpty()).isTrue();
+        then(history.previousSession()).isEqualTo(session);
+
+        history.resume(session);
+        then(history.size()).isEqualTo(2);
+        then(history.inMemory()).isZero();
+
+        history.add(new Response("q2", "a2", null));
+        then(Files.readAllLines(session)).hasSize(3);
+        then(history.get(2).toString()).isEqualTo("a2");
+    }
+
+    @Test
+    public void responses_edited_in_place_are_written_back() throws Exception {
+        final ResponseHistory history = new ResponseHistory(HOME.resolve("sessions"), 1);
+
+        final Response first = new Response("q0", "a0\n```svg\n<svg/>\n```\n", null);
+        history.add(first);
+        first.getBlocks().get(1).setContent("<svg>fixed</svg>");
+
+        //
+        // written back when dropped from memory, the following turns moved
+        //
+        history.add(new Response("q1", "a1", null));
+        history.add(new Response("q2", "a2", null));
+        then(history.get(0).getBlocks().get(1).getContent()).isEqualTo("<svg>fixed</svg>");
+        then(history.get(1).toString()).isEqualTo("a1");
+
+        //
+        // written back on sync
+        //
+        history.get(2).getBlocks().get(0).setContent("a2 edited");
+        history.sync();
+
+        final ResponseHistory resumed = new ResponseHistory(HOME.resolve("sessions"), 1);
+        resumed.resume(history.getSessionPath());
+        then(resumed.tail(-1)).extracting(Response::toString)
+            .containsExactly(first.toString(), "a1", "a2 edited");
+        then(Files.readAllLines(history.getSessionPath())).hasSize(3);
+    }
+
+    @Test
+    public void tool_executions_are_restored() throws Exception {
+        final Response response = new Response("q");
+        response.addBlock(new ToolExecutionBlock(
+            ToolExecutionRequest.builder()
+                .id("1").name("listFiles").arguments("{\"path\":\".\"}").build(),
+            "pom.xml"
+        ));
+
+        final Response restored = ResponseHistory.fromJSON(ResponseHistory.toJSON(response));
+
+        then(restored.getBlocks().get(0)).isInstanceOf(ToolExecutionBlock.class);
+        final ToolExecutionBlock block = (ToolExecutionBlock) restored.getBlocks().get(0);
+        then(block.execution.name()).isEqualTo("listFiles");
+        then(block.execution.arguments()).isEqualTo("{\"path\":\".\"}");
+        then(block.getContent()).isEqualTo("pom.xml");
+    }
+}
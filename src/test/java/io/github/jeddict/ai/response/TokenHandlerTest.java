@@ -0,0 +1,85 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.response;
+
+import io.github.jeddict.ai.models.registry.GenAIModel;
+import io.github.jeddict.ai.models.registry.GenAIModelRegistry;
+import io.github.jeddict.ai.models.registry.GenAIProvider;
+import io.github.jeddict.ai.test.TestBase;
+import java.lang.reflect.Field;
+import java.util.Map;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.within;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.NullAndEmptySource;
+
+/**
+ *
+ */
+public class TokenHandlerTest extends TestBase {
+
+    @ParameterizedTest
+    @NullAndEmptySource
+    public void estimate_and_count_tokens_of_empty_text(final String text) {
+        then(TokenHandler.estimateTokens(text)).isZero();
+        then(TokenHandler.countTokens(text)).isZero();
+    }
+
+    @Test
+    public void estimate_tokens_is_close_to_exact_count() {
+        final String text = "public class Hello { public static void main(String[] args) { System.out.println(\"hello world\"); } }";
+
+        final int exact = TokenHandler.countTokens(text);
+        final int estimate = TokenHandler.estimateTokens(text);
+
+        then(exact).isPositive();
+        then(estimate).isBetween(exact / 2, exact * 2);
+    }
+
+    @Test
+    public void count_tokens_is_stable_across_calls() {
+        final String text = "hello world";
+
+        final int first = TokenHandler.countTokens(text);
+
+        then(TokenHandler.countTokens(text)).isEqualTo(first).isEqualTo(2);
+    }
+
+    @Test
+    public void pricing_from_registry_is_per_million_tokens() throws Exception {
+        //
+        // the registry has OpenRouter prices per token
+        //
+        final Field cache = GenAIModelRegistry.class.getDeclaredField("CACHE");
+        cache.setAccessible(true);
+        final Object original = cache.get(null);
+        try {
+            cache.set(null, Map.of("vendor/registry-model", new GenAIModel(
+                GenAIProvider.CUSTOM_OPEN_AI, "vendor/registry-model", "desc", 0.000001, 0.000004
+            )));
+
+            final GenAIModel pricing = TokenHandler.pricing("registry-model");
+
+            then(pricing.inputPrice()).isCloseTo(1.0, within(1e-9));
+            then(pricing.outputPrice()).isCloseTo(4.0, within(1e-9));
+            then(pricing.cost(1_000, 500)).isCloseTo(0.003, within(1e-12));
+            then(TokenHandler.pricing("unknown-model")).isNull();
+        } finally {
+            cache.set(null, original);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.settings;
+
+import io.github.jeddict.ai.test.TestBase;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ */
+public class FilePreferencesTest extends TestBase {
+
+    @Test
+    public void synchronous_preferences_save_every_change() throws Exception {
+        final Path file = HOME.resolve("sync.json");
+        final FilePreferences prefs = new FilePreferences(file);
+
+        prefs.put("key1", "value1");
+        prefs.putInt("key2", 2);
+        prefs.putChildBoolean("node", "key3", true);
+
+        then(prefs.getChangeCount()).isEqualTo(3);
+        then(prefs.getSaveCount()).isEqualTo(3);
+        then(prefs.isDirty()).isFalse();
+        then(new FilePreferences(file).getChildBoolean("node", "key3", false)).isTrue();
+        then(file.resolveSibling("sync.json.tmp")).doesNotExist();
+    }
+
+    @Test
+    public void write_behind_preferences_coalesce_changes() throws Exception {
+        final Path file = HOME.resolve("write-behind.json");
+        final FilePreferences prefs = new FilePreferences(file, true);
+
+        for (int i = 0; i < 50; ++i) {
+            prefs.putInt("key" + i, i);
+        }
+
+        then(prefs.isDirty()).isTrue();
+        then(file).doesNotExist();
+
+        //
+        // the background save kicks in after the quiet time
+        //
+        final long deadline = System.currentTimeMillis() + FilePreferences.MAX_SAVE_DELAY_MS * 2;
+        while (prefs.isDirty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        then(prefs.getChangeCount()).isEqualTo(50);
+        then(prefs.getSaveCount()).isBetween(1L, 2L);
+        then(prefs.getMaxSaveNanos()).isPositive();
+        then(new FilePreferences(file).getInt("key49", 0)).isEqualTo(49);
+    }
+
+    @Test
+    public void flush_writes_pending_changes_right_away() throws Exception {
+        final Path file = HOME.resolve("flush.json");
+        final FilePreferences prefs = new FilePreferences(file, true);
+
+        prefs.put("key", "value");
+        prefs.flush();
+
+        then(prefs.isDirty()).isFalse();
+        then(prefs.getSaveCount()).isEqualTo(1);
+        then(Files.readString(file)).contains("\"key\": \"value\"");
+
+        //
+        // nothing more to save
+        //
+        prefs.flush();
+        then(prefs.getSaveCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void flush_all_writes_all_write_behind_preferences() throws Exception {
+        final Path file1 = HOME.resolve("flush1.json");
+        final Path file2 = HOME.resolve("flush2.json");
+        final FilePreferences prefs1 = new FilePreferences(file1, true);
+        final FilePreferences prefs2 = new FilePreferences(file2, true);
+
+        prefs1.put("key", "value1");
+        prefs2.put("key", "value2");
+
+        FilePreferences.flushAll();
+
+        then(new FilePreferences(file1).get("key", "")).isEqualTo("value1");
+        then(new FilePreferences(file2).get("key", "")).isEqualTo("value2");
+    }
+
+    @Test
+    public void child_arrays_and_nodes_are_changed_through_the_preferences() throws Exception {
+        final Path file = HOME.resolve("children.json");
+        final FilePreferences prefs = new FilePreferences(file);
+
+        then(prefs.getChildList("dirs", List.of("a", "b"))).containsExactly("a", "b");
+        prefs.setChildArray("dirs", List.of("c"));
+        prefs.putChildren("node", Map.of("k1", "v1", "k2", "v2"));
+        prefs.putChildren("node", Map.of("k2", "v3"));
+
+        final FilePreferences saved = new FilePreferences(file);
+        then(saved.getChildList("dirs", List.of())).containsExactly("c");
+        then(saved.getChild("node", "k1", "")).isEqualTo("v1");
+        then(saved.getChild("node", "k2", "")).isEqualTo("v3");
+    }
+
+    @Test
+    public void failed_write_keeps_changes_dirty() throws Exception {
+        //
+        // the parent of the preferences file is a file, so it can not be written
+        //
+        final Path blocker = Files.writeString(HOME.resolve("blocker"), "");
+        final FilePreferences prefs = new FilePreferences(blocker.resolve("prefs.json"));
+
+        thenThrownBy(() -> prefs.put("key", "value"))
+            .isInstanceOf(RuntimeException.class)
+            .hasMessage("Failed to save preferences");
+        then(prefs.isDirty()).isTrue();
+        then(prefs.getSaveCount()).isZero();
+        then(prefs.get("key", "")).isEqualTo("value");
+    }
+}
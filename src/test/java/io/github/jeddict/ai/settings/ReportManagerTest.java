@@ -18,12 +18,24 @@ package io.github.jeddict.ai.settings;
 import com.github.stefanbirkner.systemlambda.SystemLambda;
 import static io.github.jeddict.ai.settings.PreferencesManagerTest.LINUX;
 import static io.github.jeddict.ai.settings.PreferencesManagerTest.USER;
+import static io.github.jeddict.ai.settings.ReportManager.CACHED_TOKENS;
+import static io.github.jeddict.ai.settings.ReportManager.ESTIMATED_REQUESTS;
+import static io.github.jeddict.ai.settings.ReportManager.INPUT_TOKENS;
 import static io.github.jeddict.ai.settings.ReportManager.JEDDICT_STATS;
+import static io.github.jeddict.ai.settings.ReportManager.JEDDICT_STATS_LOG;
+import static io.github.jeddict.ai.settings.ReportManager.MODEL_TOKEN_STATS_KEY;
+import static io.github.jeddict.ai.settings.ReportManager.OUTPUT_TOKENS;
+import static io.github.jeddict.ai.settings.ReportManager.REQUESTS;
+import io.github.jeddict.ai.lang.RequestFeature;
 import io.github.jeddict.ai.test.TestBase;
 import io.github.jeddict.ai.util.FileUtil;
 import java.lang.reflect.Field;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
 import static org.assertj.core.api.BDDAssertions.then;
+import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -98,4 +110,147 @@ public class ReportManagerTest extends TestBase {
             then(filePreferences.preferencesPath).isEqualTo(expectedPath);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void record_token_usage_accumulates_per_model() throws Exception {
+        final Path USERHOME = HOME.resolve(USER);
+        SystemLambda.restoreSystemProperties(() -> {
+            System.setProperty("os.name", LINUX);
+            System.setProperty("user.name", USER);
+            System.setProperty("user.home", USERHOME.toString());
+
+            ReportManager manager = ReportManager.getInstance();
+
+            manager.recordTokenUsage("gpt-4o", 100, 20, 10, false);
+            manager.recordTokenUsage("gpt-4o", 50, 5, 0, true);
+            manager.recordTokenUsage(null, 1, 1, 0, true);
+
+            JSONObject usage = manager.getModelTokenStats().getJSONObject("gpt-4o");
+            then(usage.getLong(INPUT_TOKENS)).isEqualTo(150);
+            then(usage.getLong(OUTPUT_TOKENS)).isEqualTo(25);
+            then(usage.getLong(CACHED_TOKENS)).isEqualTo(10);
+            then(usage.getLong(REQUESTS)).isEqualTo(2);
+            then(usage.getLong(ESTIMATED_REQUESTS)).isEqualTo(1);
+            then(manager.getModelTokenStats().getJSONObject("unknown").getLong(REQUESTS)).isEqualTo(1);
+            then(manager.getLastNInputUsage(1)).isEqualTo(151);
+            then(manager.getLastNOutputUsage(1)).isEqualTo(26);
+
+            manager.compact();
+
+            FilePreferences saved = new FilePreferences(FileUtil.getConfigPath().resolve(JEDDICT_STATS));
+            then(saved.getChild(MODEL_TOKEN_STATS_KEY).getJSONObject("gpt-4o").getLong(INPUT_TOKENS)).isEqualTo(150);
+            then(FileUtil.getConfigPath().resolve(JEDDICT_STATS_LOG)).isEmptyFile();
+        });
+    }
+
+    @Test
+    public void flushed_events_are_replayed_after_restart() throws Exception {
+        final Path USERHOME = HOME.resolve(USER);
+        SystemLambda.restoreSystemProperties(() -> {
+            System.setProperty("os.name", LINUX);
+            System.setProperty("user.name", USER);
+            System.setProperty("user.home", USERHOME.toString());
+
+            ReportManager manager = ReportManager.getInstance();
+            manager.recordTokenUsage("model", 10, 2, 0, false);
+            manager.recordTokenUsage("model", 20, 4, 0, false);
+            manager.flush();
+
+            then(Files.readAllLines(FileUtil.getConfigPath().resolve(JEDDICT_STATS_LOG))).hasSize(2);
+
+            //
+            // simulate a restart without compaction
+            //
+            beforeEach();
+            manager = ReportManager.getInstance();
+
+            then(manager.getLastNInputUsage(1)).isEqualTo(30);
+            then(manager.getLastNOutputUsage(1)).isEqualTo(6);
+            then(manager.getModelTokenStats().getJSONObject("model").getLong(REQUESTS)).isEqualTo(2);
+        });
+    }
+
+    @Test
+    public void compacted_events_are_not_counted_twice() throws Exception {
+        final Path USERHOME = HOME.resolve(USER);
+        SystemLambda.restoreSystemProperties(() -> {
+            System.setProperty("os.name", LINUX);
+            System.setProperty("user.name", USER);
+            System.setProperty("user.home", USERHOME.toString());
+
+            final Path log = FileUtil.getConfigPath().resolve(JEDDICT_STATS_LOG);
+
+            ReportManager manager = ReportManager.getInstance();
+            manager.recordTokenUsage("model", 10, 2, 0, false);
+            manager.flush();
+
+            //
+            // simulate a crash after the rollups are stored but before the log
+            // is reset
+            //
+            final String events = Files.readString(log);
+            manager.compact();
+            Files.writeString(log, events + "3\t17");  // plus a torn line
+
+            beforeEach();
+            manager = ReportManager.getInstance();
+
+            then(manager.getLastNInputUsage(1)).isEqualTo(10);
+            then(manager.getModelTokenStats().getJSONObject("model").getLong(REQUESTS)).isEqualTo(1);
+
+            manager.recordTokenUsage("model", 5, 1, 0, false);
+            manager.flush();
+
+            beforeEach();
+            then(ReportManager.getInstance().getLastNInputUsage(1)).isEqualTo(15);
+        });
+    }
+
+    @Test
+    public void request_metrics_are_recorded_per_model_and_feature() throws Exception {
+        final Path USERHOME = HOME.resolve(USER);
+        SystemLambda.restoreSystemProperties(() -> {
+            System.setProperty("os.name", LINUX);
+            System.setProperty("user.name", USER);
+            System.setProperty("user.home", USERHOME.toString());
+
+            final Path log = FileUtil.getConfigPath().resolve(JEDDICT_STATS_LOG);
+
+            ReportManager manager = ReportManager.getInstance();
+            manager.recordRequest("model", RequestFeature.CHAT, 1000, 100, 0, false, 1500, 300, 0.25);
+            manager.recordRequest("model", RequestFeature.COMPLETION, 10, 1, 0, false, 200, 200, 0.01);
+            manager.recordTokenUsage("model", 5, 1, 0, true);
+            manager.flush();
+
+            //
+            // lines not in the current format or torn in the middle of the
+            // model name are skipped
+            //
+            final long now = System.currentTimeMillis();
+            Files.writeString(log,
+                "4\t" + now + "\t7\t1\t0\t0\tmodel\n" +
+                "5\t" + now + "\t7\t1\t0\t0\tCHAT\t10\t5\t0.0\tmod\n",
+                StandardOpenOption.APPEND
+            );
+
+            beforeEach();
+            manager = ReportManager.getInstance();
+
+            then(manager.getLastNInputUsage(1)).isEqualTo(1015);
+            then(manager.getModelTokenStats().getJSONObject("model").getLong(REQUESTS)).isEqualTo(3);
+
+            final List<RequestMetrics.Stats> stats = manager.getRequestMetrics().getStats();
+            then(stats).hasSize(2);
+            then(stats.get(0).feature).isEqualTo(RequestFeature.COMPLETION);
+            then(stats.get(0).requests()).isEqualTo(1);
+            then(stats.get(1).feature).isEqualTo(RequestFeature.CHAT);
+            then(stats.get(1).cost()).isEqualTo(0.25);
+            then(stats.get(1).wallPercentile(0.5)).isEqualTo(2_000);
+            then(stats.get(1).ttftPercentile(0.5)).isEqualTo(500);
+
+            manager.compact();
+            beforeEach();
+            then(ReportManager.getInstance().getRequestMetrics().getStats()).hasSize(2);
+        });
+    }
+}
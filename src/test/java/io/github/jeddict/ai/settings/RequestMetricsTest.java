@@ -0,0 +1,106 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.settings;
+
+import static io.github.jeddict.ai.lang.RequestFeature.AGENT;
+import static io.github.jeddict.ai.lang.RequestFeature.CHAT;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ */
+public class RequestMetricsTest {
+
+    @Test
+    public void requests_are_aggregated_per_model_and_feature() {
+        final RequestMetrics metrics = new RequestMetrics();
+
+        metrics.add("b-model", CHAT, 100, 10, 300, 100, 0.5);
+        metrics.add("b-model", CHAT, 200, 20, 900, 200, 1.5);
+        metrics.add("b-model", AGENT, 1, 1, 100_000, 50_000, 0);
+        metrics.add("a-model", CHAT, 1, 1, 10, 10, 0);
+
+        then(metrics.getStats()).extracting((s) -> s.model + "/" + s.feature.name())
+            .containsExactly("a-model/CHAT", "b-model/CHAT", "b-model/AGENT");
+
+        final RequestMetrics.Stats chat = metrics.getStats().get(1);
+        then(chat.requests()).isEqualTo(2);
+        then(chat.inputTokens()).isEqualTo(300);
+        then(chat.outputTokens()).isEqualTo(30);
+        then(chat.cost()).isEqualTo(2.0);
+        then(chat.averageCost()).isEqualTo(1.0);
+        then(chat.averageWallMillis()).isEqualTo(600);
+        then(chat.wallHistogram()).containsExactly(0, 1, 1, 0, 0, 0, 0, 0, 0, 0, 0);
+        then(chat.ttftHistogram()).containsExactly(2, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    @Test
+    public void percentiles_are_the_upper_bound_of_their_bucket() {
+        final RequestMetrics metrics = new RequestMetrics();
+
+        for (int i = 0; i < 90; ++i) {
+            metrics.add("model", CHAT, 0, 0, 700, 100, 0);
+        }
+        for (int i = 0; i < 10; ++i) {
+            metrics.add("model", CHAT, 0, 0, 200_000, 3_000, 0);
+        }
+
+        final RequestMetrics.Stats stats = metrics.getStats().get(0);
+        then(stats.wallPercentile(0.5)).isEqualTo(1_000);
+        then(stats.wallPercentile(0.9)).isEqualTo(1_000);
+        then(stats.wallPercentile(0.95)).isEqualTo(256_000);  // beyond the last bound
+        then(stats.ttftPercentile(0.95)).isEqualTo(4_000);
+        then(new RequestMetrics().getStats()).isEmpty();
+    }
+
+    @Test
+    public void write_and_read_json() {
+        final RequestMetrics metrics = new RequestMetrics();
+        metrics.add("model", CHAT, 100, 10, 300, 100, 0.5);
+        metrics.add("model", AGENT, 1, 1, 5_000, 1_000, 0.25);
+
+        final JSONObject json = new JSONObject();
+        metrics.writeTo(json);
+        json.getJSONObject("model").put("UNKNOWN", new JSONObject());
+
+        final RequestMetrics copy = new RequestMetrics();
+        copy.readFrom(new JSONObject(json.toString()));
+
+        then(copy.getStats()).hasSize(2);
+        then(copy.getStats().get(0).wallHistogram()).isEqualTo(metrics.getStats().get(0).wallHistogram());
+        then(copy.getStats().get(1).cost()).isEqualTo(0.25);
+        then(copy.getStats().get(1).averageTtftMillis()).isEqualTo(1_000);
+
+        copy.clear();
+        then(copy.getStats()).isEmpty();
+    }
+
+    @Test
+    public void write_csv() throws Exception {
+        final RequestMetrics metrics = new RequestMetrics();
+        metrics.add("vendor/model, large", CHAT, 100, 10, 300, 100, 0.5);
+
+        final StringBuilder csv = new StringBuilder();
+        metrics.writeCsv(csv);
+
+        then(csv.toString()).isEqualTo(
+            RequestMetrics.CSV_HEADER + "\n"
+            + "\"vendor/model, large\",CHAT,1,100,10,0.500000,0.500000,300,500,500,100,250,250\n"
+        );
+    }
+}
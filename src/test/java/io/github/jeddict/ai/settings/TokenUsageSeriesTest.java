@@ -0,0 +1,110 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.settings;
+
+import static io.github.jeddict.ai.response.TokenGranularity.DAY;
+import static io.github.jeddict.ai.response.TokenGranularity.HOUR;
+import static io.github.jeddict.ai.response.TokenGranularity.MINUTE;
+import static io.github.jeddict.ai.response.TokenGranularity.MONTH;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ */
+public class TokenUsageSeriesTest {
+
+    //
+    // a little after the beginning of day 20000, so that T0 and the hour
+    // after are in the same day and month
+    //
+    private static final long T0 = 20_000 * DAY.intervalMillis + 1_000;
+
+    @Test
+    public void usage_is_rolled_up_at_all_granularities() {
+        final TokenUsageSeries series = new TokenUsageSeries();
+
+        series.add(T0, 10, 1);
+        series.add(T0 + MINUTE.intervalMillis, 20, 2);
+        series.add(T0 + HOUR.intervalMillis, 40, 4);
+
+        then(series.getInput(MINUTE, MINUTE.getBucketKey(T0))).isEqualTo(10);
+        then(series.getInput(MINUTE, MINUTE.getBucketKey(T0) + 1)).isEqualTo(20);
+        then(series.getInput(HOUR, HOUR.getBucketKey(T0))).isEqualTo(30);
+        then(series.getOutput(HOUR, HOUR.getBucketKey(T0))).isEqualTo(3);
+        then(series.getInput(HOUR, HOUR.getBucketKey(T0) + 1)).isEqualTo(40);
+        then(series.getInput(DAY, DAY.getBucketKey(T0))).isEqualTo(70);
+        then(series.getOutput(MONTH, MONTH.getBucketKey(T0))).isEqualTo(7);
+    }
+
+    @Test
+    public void fine_granularity_wraps_while_coarse_keeps_history() {
+        final TokenUsageSeries series = new TokenUsageSeries();
+
+        series.add(T0, 100, 0);
+        //
+        // one full ring of minutes later the old minute is recycled...
+        //
+        final long later = T0 + MINUTE.retainedBuckets * MINUTE.intervalMillis;
+        series.add(later, 1, 0);
+
+        then(series.getInput(MINUTE, MINUTE.getBucketKey(T0))).isZero();
+        then(series.getInput(MINUTE, MINUTE.getBucketKey(later))).isEqualTo(1);
+
+        //
+        // ... while hours and days still have it
+        //
+        then(series.getInput(HOUR, HOUR.getBucketKey(T0))).isEqualTo(100);
+        then(series.getInput(DAY, DAY.getBucketKey(T0))).isEqualTo(100);
+
+        //
+        // usage older than the retained history is ignored
+        //
+        series.add(T0, 5, 0);
+        then(series.getInput(MINUTE, MINUTE.getBucketKey(later))).isEqualTo(1);
+    }
+
+    @Test
+    public void get_inputs_returns_oldest_first() {
+        final TokenUsageSeries series = new TokenUsageSeries();
+        final long bucket = DAY.getBucketKey(T0);
+
+        series.add(DAY, bucket - 2, 1, 0);
+        series.add(DAY, bucket, 3, 0);
+
+        then(series.getInputs(DAY, bucket, 4)).containsExactly(0, 1, 0, 3);
+    }
+
+    @Test
+    public void write_and_read_back() {
+        final TokenUsageSeries series = new TokenUsageSeries();
+        series.add(T0, 10, 1);
+        series.add(T0 + DAY.intervalMillis, 20, 2);
+
+        final JSONObject json = new JSONObject();
+        series.writeTo(json);
+
+        final TokenUsageSeries copy = new TokenUsageSeries();
+        copy.readFrom(new JSONObject(json.toString()));
+
+        then(copy.getInputs(DAY, DAY.getBucketKey(T0) + 1, 2)).containsExactly(10, 20);
+        then(copy.getOutputs(MINUTE, MINUTE.getBucketKey(T0), 1)).containsExactly(1);
+
+        copy.clear();
+        then(copy.getInputs(DAY, DAY.getBucketKey(T0) + 1, 2)).containsExactly(0, 0);
+    }
+}
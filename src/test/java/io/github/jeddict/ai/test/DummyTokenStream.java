@@ -22,6 +22,7 @@ import dev.langchain4j.rag.content.Content;
 import dev.langchain4j.service.TokenStream;
 import dev.langchain4j.service.tool.ToolExecution;
 import java.util.List;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 import static ste.lloop.Loop.on;
 
@@ -36,6 +37,7 @@ public class DummyTokenStream implements TokenStream {
     public final String[] tokens;
 
     private int index = 0;
+    private long tokenIntervalNanos = 0;
 
     public DummyTokenStream(final String response) {
         this.response = response;
@@ -46,6 +48,20 @@ public class DummyTokenStream implements TokenStream {
         this.tokens = response.split("(?<=\\W)|(?=\\W)"); // (...) makes return the separators too
     }
 
+    /**
+     * Paces the stream to emit the given amount of tokens per second, to
+     * simulate a (fast) model; by default tokens are emitted as fast as
+     * possible.
+     *
+     * @param tokensPerSecond the tokens per second
+     *
+     * @return self
+     */
+    public DummyTokenStream withRate(final int tokensPerSecond) {
+        this.tokenIntervalNanos = 1_000_000_000L / tokensPerSecond;
+        return this;
+    }
+
     private Consumer<String> partialResponse = null;
     private Consumer<ChatResponse> completeResponse = null;
 
@@ -77,7 +93,15 @@ public class DummyTokenStream implements TokenStream {
     @Override
     public void start() {
         index = 0;
+        final long start = System.nanoTime();
         on(tokens).loop((element) ->{
+            if (tokenIntervalNanos > 0) {
+                final long due = start + (index++) * tokenIntervalNanos;
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
             partialResponse.accept(element);
         });
         if (completeResponse != null) {
@@ -0,0 +1,76 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.api.BDDAssertions.thenThrownBy;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ */
+public class ContentCacheTest {
+
+    @Test
+    public void values_are_computed_once_per_content() {
+        final ContentCache<String> cache = new ContentCache<>(4);
+        final AtomicInteger calls = new AtomicInteger();
+
+        then(cache.computeIfAbsent("@startuml\nA -> B\n@enduml", (c) -> "svg" + calls.incrementAndGet())).isEqualTo("svg1");
+        then(cache.computeIfAbsent("@startuml\nA -> B\n@enduml", (c) -> "svg" + calls.incrementAndGet())).isEqualTo("svg1");
+        then(cache.computeIfAbsent("@startuml\nB -> A\n@enduml", (c) -> "svg" + calls.incrementAndGet())).isEqualTo("svg2");
+        then(cache.get("@startuml\nA -> B\n@enduml")).isEqualTo("svg1");
+        then(cache.get("something else")).isNull();
+    }
+
+    @Test
+    public void null_values_are_not_cached() {
+        final ContentCache<String> cache = new ContentCache<>(4);
+
+        then(cache.computeIfAbsent("invalid", (c) -> null)).isNull();
+        then(cache.size()).isZero();
+    }
+
+    @Test
+    public void least_recently_used_entries_are_evicted() {
+        final ContentCache<Integer> cache = new ContentCache<>(2);
+
+        cache.put("one", 1);
+        cache.put("two", 2);
+        then(cache.get("one")).isEqualTo(1); // one is now the most recently used
+        cache.put("three", 3);
+
+        then(cache.size()).isEqualTo(2);
+        then(cache.get("two")).isNull();
+        then(cache.get("one")).isEqualTo(1);
+        then(cache.get("three")).isEqualTo(3);
+
+        cache.clear();
+        then(cache.size()).isZero();
+    }
+
+    @Test
+    public void hash_is_hex_sha256() {
+        then(ContentCache.hash("")).isEqualTo("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855");
+        then(ContentCache.hash("a")).isNotEqualTo(ContentCache.hash("b"));
+    }
+
+    @Test
+    public void capacity_must_be_positive() {
+        thenThrownBy(() -> new ContentCache<String>(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.util;
+
+import io.github.jeddict.ai.test.TestBase;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import static org.assertj.core.api.BDDAssertions.then;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+/**
+ *
+ */
+public class ExcludeMatcherTest extends TestBase {
+
+    private static final List<String> EXCLUDES = List.of(
+        "target", "build", "dist", "node_modules", "nbproject/private", ".git",
+        "src/test/resources/generated", "src/main/webapp/vendor", "out", ".idea"
+    );
+
+    @Test
+    public void matches_path_prefixes() {
+        final ExcludeMatcher matcher = ExcludeMatcher.compile(List.of("target", "src/test/java", " ", "", "nbproject/private"));
+
+        then(matcher.isEmpty()).isFalse();
+        then(matcher.matches("target")).isTrue();
+        then(matcher.matches("target/classes/A.class")).isTrue();
+        then(matcher.matches("targets")).isTrue(); // plain prefix, as String.startsWith
+        then(matcher.matches("src/test/java/ATest.java")).isTrue();
+        then(matcher.matches("src/test")).isFalse();
+        then(matcher.matches("src/main/java/A.java")).isFalse();
+        then(matcher.matches("nbproject/project.xml")).isFalse();
+        then(matcher.matches("")).isFalse();
+
+        then(ExcludeMatcher.compile(List.of(" ", "")).isEmpty()).isTrue();
+        then(ExcludeMatcher.compile(List.of()).matches("anything")).isFalse();
+    }
+
+    @Test
+    public void shorter_prefix_wins_in_any_order() {
+        for (List<String> excludes : List.of(List.of("src/main", "src"), List.of("src", "src/main"))) {
+            final ExcludeMatcher matcher = ExcludeMatcher.compile(excludes);
+            then(matcher.matches("src/test/A.java")).isTrue();
+            then(matcher.matches("src/main/A.java")).isTrue();
+            then(matcher.matches("sr")).isFalse();
+        }
+    }
+
+    @Test
+    public void compiled_once_per_settings_change() {
+        preferences.setExcludeDirs("target, build");
+        final ExcludeMatcher matcher = preferences.getExcludeMatcher();
+
+        then(preferences.getExcludeMatcher()).isSameAs(matcher);
+        then(matcher.matches("build/libs")).isTrue();
+
+        preferences.setExcludeDirs("dist");
+        then(preferences.getExcludeMatcher()).isNotSameAs(matcher);
+        then(preferences.getExcludeMatcher().matches("build/libs")).isFalse();
+        then(preferences.getExcludeMatcher().matches("dist/app.jar")).isTrue();
+    }
+
+    @Test
+    public void same_result_as_prefix_matching_on_deep_paths() {
+        final List<String> paths = deepPaths(1_000);
+        final ExcludeMatcher matcher = ExcludeMatcher.compile(EXCLUDES);
+
+        for (String path : paths) {
+            then(matcher.matches(path)).as(path).isEqualTo(EXCLUDES.stream().anyMatch(path::startsWith));
+        }
+    }
+
+    @Test
+    @Tag("performance")
+    public void benchmark_deep_tree_paths(final TestReporter reporter) {
+        final List<String> paths = deepPaths(100_000);
+
+        final ExcludeMatcher matcher = ExcludeMatcher.compile(EXCLUDES);
+        long excluded = 0, expected = 0, matcherNanos = 0, streamNanos = 0;
+        for (int round = 0; round < 3; ++round) { // the first rounds warm up
+            excluded = expected = 0;
+
+            long start = System.nanoTime();
+            for (String path : paths) {
+                if (EXCLUDES.stream().filter(s -> !s.trim().isEmpty()).anyMatch(path::startsWith)) {
+                    ++expected;
+                }
+            }
+            streamNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (String path : paths) {
+                if (matcher.matches(path)) {
+                    ++excluded;
+                }
+            }
+            matcherNanos = System.nanoTime() - start;
+        }
+
+        reporter.publishEntry(Map.of(
+            "startsWith stream", (streamNanos / paths.size()) + " ns/path",
+            "trie", (matcherNanos / paths.size()) + " ns/path"
+        ));
+
+        then(excluded).isEqualTo(expected).isEqualTo(10_000);
+    }
+
+    // --------------------------------------------------------- private methods
+
+    private List<String> deepPaths(final int count) {
+        final Random random = new Random(42);
+        final List<String> paths = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            final StringBuilder path = new StringBuilder((i % 10 == 0) ? "target" : "src/main/java");
+            for (int d = random.nextInt(12); d >= 0; --d) {
+                path.append("/pkg").append(random.nextInt(100));
+            }
+            paths.add(path.append("/File").append(i).append(".java").toString());
+        }
+        return paths;
+    }
+}
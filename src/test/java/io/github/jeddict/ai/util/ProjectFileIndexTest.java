@@ -0,0 +1,198 @@
+/**
+ * Copyright 2025 the original author or authors from the Jeddict project (https://jeddict.github.io/).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package io.github.jeddict.ai.util;
+
+import io.github.jeddict.ai.test.TestBase;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.assertj.core.groups.Tuple.tuple;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+/**
+ *
+ */
+public class ProjectFileIndexTest extends TestBase {
+
+    private static final Predicate<ProjectFileIndex.Entry> VISIBLE
+        = entry -> !entry.hidden() && !entry.excluded();
+
+    private Path root;
+
+    @BeforeEach
+    @Override
+    public void beforeEach() throws Exception {
+        super.beforeEach();
+
+        root = Files.createDirectories(HOME.resolve("indexed"));
+        for (String file : List.of(
+            "src/main/java/A.java", "src/main/java/b/B.java", "src/test/java/ATest.java",
+            "target/classes/A.class", ".git/HEAD", "README.md"
+        )) {
+            Files.createDirectories(root.resolve(file).getParent());
+            Files.createFile(root.resolve(file));
+        }
+        preferences.setExcludeDirs("src/test/java, target");
+    }
+
+    @Test
+    public void walk_returns_sorted_entries_with_flags() {
+        final ProjectFileIndex index = ProjectFileIndex.of(root);
+
+        then(index.walk("", 0, entry -> true)).extracting(ProjectFileIndex.Entry::path).containsExactly(
+            ".git", ".git/HEAD", "README.md",
+            "src", "src/main", "src/main/java", "src/main/java/A.java", "src/main/java/b", "src/main/java/b/B.java",
+            "src/test", "src/test/java", "src/test/java/ATest.java",
+            "target", "target/classes", "target/classes/A.class"
+        );
+        then(index.size()).isEqualTo(15);
+
+        then(index.walk("", 0, VISIBLE)).extracting(ProjectFileIndex.Entry::path).containsExactly(
+            "README.md", "src", "src/main", "src/main/java", "src/main/java/A.java",
+            "src/main/java/b", "src/main/java/b/B.java", "src/test"
+        );
+    }
+
+    @Test
+    public void walk_sub_path_and_depth() {
+        final ProjectFileIndex index = ProjectFileIndex.of(root);
+
+        then(index.walk("src/main", 2, entry -> true))
+            .extracting(ProjectFileIndex.Entry::path, ProjectFileIndex.Entry::depth)
+            .containsExactly(
+                tuple("src/main/java", 0),
+                tuple("src/main/java/A.java", 1),
+                tuple("src/main/java/b", 1)
+            );
+        then(index.walk("src/none", 0, entry -> true)).isNull();
+        then(index.walk("README.md", 0, entry -> true)).isNull();
+    }
+
+    @Test
+    public void reported_changes_update_the_index() throws Exception {
+        final ProjectFileIndex index = ProjectFileIndex.of(root);
+        then(index.size()).isEqualTo(15);
+
+        final Path created = root.resolve("docs/guide/index.md");
+        Files.createDirectories(created.getParent());
+        Files.createFile(created);
+        ProjectFileIndex.fileCreated(created);
+
+        then(index.walk("docs", 0, entry -> true)).extracting(ProjectFileIndex.Entry::path)
+            .containsExactly("docs/guide", "docs/guide/index.md");
+        then(index.size()).isEqualTo(18);
+
+        Files.delete(created);
+        ProjectFileIndex.fileDeleted(created);
+        then(index.walk("docs", 0, entry -> true)).extracting(ProjectFileIndex.Entry::path)
+            .containsExactly("docs/guide");
+        then(index.size()).isEqualTo(17);
+    }
+
+    @Test
+    public void listeners_are_notified_of_changes_until_the_index_is_released() throws Exception {
+        final ProjectFileIndex index = ProjectFileIndex.of(root);
+        final List<Path> changed = new CopyOnWriteArrayList<>();
+        final boolean[] released = {false};
+        index.addListener(new ProjectFileIndex.Listener() {
+            @Override
+            public void changed(Path path) {
+                changed.add(path);
+            }
+
+            @Override
+            public void released() {
+                released[0] = true;
+            }
+        });
+
+        final Path created = root.resolve("docs/index.md");
+        Files.createDirectories(created.getParent());
+        Files.createFile(created);
+        ProjectFileIndex.fileCreated(created);
+        ProjectFileIndex.fileDeleted(root.resolve("README.md"));
+        ProjectFileIndex.fileCreated(HOME.resolve("outside.txt"));
+
+        then(changed).contains(created, root.resolve("README.md"))
+            .doesNotContain(HOME.resolve("outside.txt"));
+
+        ProjectFileIndex.release(root);
+        final int notified = changed.size();
+
+        then(released[0]).isTrue();
+        then(ProjectFileIndex.of(root)).isNotSameAs(index);
+
+        ProjectFileIndex.fileDeleted(created);
+        then(changed).hasSize(notified);
+    }
+
+    @Test
+    public void exclude_flags_follow_the_preferences() {
+        final ProjectFileIndex index = ProjectFileIndex.of(root);
+        then(index.walk("", 0, VISIBLE)).extracting(ProjectFileIndex.Entry::path).contains("src/main/java/b");
+
+        preferences.setExcludeDirs("src/main/java/b, target");
+
+        then(index.walk("", 0, VISIBLE)).extracting(ProjectFileIndex.Entry::path)
+            .doesNotContain("src/main/java/b", "src/main/java/b/B.java")
+            .contains("src/test/java/ATest.java");
+    }
+
+    @Test
+    @Tag("performance")
+    public void benchmark_file_tree_on_100k_files(final TestReporter reporter) throws Exception {
+        final Path big = Files.createDirectories(HOME.resolve("big"));
+        for (int d = 0; d < 1_000; ++d) {
+            final Path dir = Files.createDirectories(big.resolve("src/main/java/p" + (d / 50) + "/q" + d));
+            for (int f = 0; f < 100; ++f) {
+                Files.createFile(dir.resolve("F" + f + ((f % 4 == 0) ? ".class" : ".java")));
+            }
+        }
+        final Set<String> extensions = Set.of("java");
+
+        long start = System.nanoTime();
+        long walked;
+        try (Stream<Path> stream = Files.walk(big)) {
+            walked = stream.filter(p -> Files.isDirectory(p) || p.toString().endsWith(".java")).count();
+        }
+        final long walkMillis = (System.nanoTime() - start) / 1_000_000;
+
+        final ProjectFileIndex index = ProjectFileIndex.of(big);
+        start = System.nanoTime();
+        index.size();
+        final long buildMillis = (System.nanoTime() - start) / 1_000_000;
+
+        start = System.nanoTime();
+        final List<ProjectFileIndex.Entry> entries
+            = index.walk("", 0, entry -> entry.directory() || extensions.contains(entry.extension()));
+        final long queryMillis = (System.nanoTime() - start) / 1_000_000;
+
+        reporter.publishEntry(Map.of(
+            "Files.walk", walkMillis + " ms", "index build", buildMillis + " ms", "index query", queryMillis + " ms"
+        ));
+
+        then(entries).hasSize((int) walked - 1);
+    }
+}